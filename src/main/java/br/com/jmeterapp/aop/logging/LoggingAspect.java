@@ -1,66 +1,188 @@
 package br.com.jmeterapp.aop.logging;
 
 import br.com.jmeterapp.config.Constants;
+import br.com.jmeterapp.config.JHipsterProperties;
 
-import org.aspectj.lang.JoinPoint;
-import org.aspectj.lang.ProceedingJoinPoint;
-import org.aspectj.lang.annotation.AfterThrowing;
-import org.aspectj.lang.annotation.Around;
-import org.aspectj.lang.annotation.Aspect;
-import org.aspectj.lang.annotation.Pointcut;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.aop.support.AopUtils;
 import org.springframework.core.env.Environment;
 
-import javax.inject.Inject;
+import java.lang.reflect.Method;
 import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
 
 /**
- * Aspect for logging execution of service and repository Spring components.
+ * Aspect for tracing the calls of the Spring components of the packages set in jhipster.logging.tracing.packages.
+ * <p>
+ * The count and latency of the calls are published as the trace.[class].[method] timers, the calls slower than
+ * slowThresholdMillis are logged with their arguments, and a share of the calls, samplingRate, is logged at debug
+ * level with their arguments and result. The exceptions are logged once, as they leave the first traced component,
+ * and not again by the traced components they then go through.
+ * </p>
+ * <p>
+ * The arguments, like the passwords given to the UserService, and the results are only logged in development:
+ * otherwise only their types are.
+ * </p>
  */
-@Aspect
-public class LoggingAspect {
+public class LoggingAspect implements MethodInterceptor {
+
+    private static final String BASE_PACKAGE = "br.com.jmeterapp";
 
     private final Logger log = LoggerFactory.getLogger(this.getClass());
 
-    @Inject
-    private Environment env;
+    private final ConcurrentMap<Method, JoinPoint> joinPoints = new ConcurrentHashMap<>();
+
+    private final ThreadLocal<Trace> traces = ThreadLocal.withInitial(Trace::new);
+
+    private final MetricRegistry metricRegistry;
+
+    private final boolean development;
+
+    private final double samplingRate;
 
-    @Pointcut("within(br.com.jmeterapp.repository..*) || within(br.com.jmeterapp.service..*) || within(br.com.jmeterapp.web.rest..*)")
-    public void loggingPointcut() {
+    private final long slowThresholdNanos;
+
+    private final boolean metrics;
+
+    public LoggingAspect(JHipsterProperties.Logging.Tracing tracing, MetricRegistry metricRegistry, Environment env) {
+        this.metricRegistry = metricRegistry;
+        this.development = env.acceptsProfiles(Constants.SPRING_PROFILE_DEVELOPMENT);
+        this.samplingRate = tracing.getSamplingRate();
+        this.slowThresholdNanos = TimeUnit.MILLISECONDS.toNanos(tracing.getSlowThresholdMillis());
+        this.metrics = tracing.isMetrics();
     }
 
-    @AfterThrowing(pointcut = "loggingPointcut()", throwing = "e")
-    public void logAfterThrowing(JoinPoint joinPoint, Throwable e) {
-        if (env.acceptsProfiles(Constants.SPRING_PROFILE_DEVELOPMENT)) {
-            log.error("Exception in {}.{}() with cause = \'{}\' and exception = \'{}\'", joinPoint.getSignature().getDeclaringTypeName(),
-                joinPoint.getSignature().getName(), e.getCause(), e.getMessage());
+    /**
+     * @param packages the traced packages, relative to the base package of the application
+     * @return the AspectJ expression of the classes of these packages
+     */
+    public static String pointcutExpression(List<String> packages) {
+        return packages.stream()
+            .map(tracedPackage -> "within(" + BASE_PACKAGE + "." + tracedPackage + "..*)")
+            .collect(Collectors.joining(" || "));
+    }
 
-            e.printStackTrace();
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+        JoinPoint joinPoint = joinPoint(invocation);
+        boolean sampled = samplingRate > 0 && log.isDebugEnabled()
+            && (samplingRate >= 1 || ThreadLocalRandom.current().nextDouble() < samplingRate);
+        if (sampled) {
+            log.debug("Enter: {}.{}() with argument[s] = {}", joinPoint.typeName, joinPoint.methodName,
+                arguments(invocation));
+        }
+        Trace trace = traces.get();
+        trace.depth++;
+        long start = System.nanoTime();
+        try {
+            Object result = invocation.proceed();
+            if (sampled) {
+                log.debug("Exit: {}.{}() with result = {}", joinPoint.typeName, joinPoint.methodName,
+                    development || result == null ? result : result.getClass().getSimpleName());
+            }
+            return result;
+        } catch (Throwable e) {
+            if (!trace.isLogged(e)) {
+                logAfterThrowing(joinPoint, e);
+                trace.logged = e;
+            }
+            throw e;
+        } finally {
+            if (--trace.depth == 0) {
+                trace.logged = null;
+            }
+            long nanos = System.nanoTime() - start;
+            if (joinPoint.timer != null) {
+                joinPoint.timer.update(nanos, TimeUnit.NANOSECONDS);
+            }
+            if (slowThresholdNanos > 0 && nanos >= slowThresholdNanos) {
+                log.warn("Slow call: {}.{}() took {} ms with argument[s] = {}", joinPoint.typeName,
+                    joinPoint.methodName, TimeUnit.NANOSECONDS.toMillis(nanos), arguments(invocation));
+            }
+        }
+    }
+
+    /**
+     * @return the arguments of the call in development, otherwise their types
+     */
+    private String arguments(MethodInvocation invocation) {
+        if (development) {
+            return Arrays.toString(invocation.getArguments());
+        }
+        return Arrays.stream(invocation.getArguments())
+            .map(argument -> argument == null ? "null" : argument.getClass().getSimpleName())
+            .collect(Collectors.joining(", ", "[", "]"));
+    }
+
+    private void logAfterThrowing(JoinPoint joinPoint, Throwable e) {
+        if (development) {
+            log.error("Exception in {}.{}() with cause = \'{}\' and exception = \'{}\'", joinPoint.typeName,
+                joinPoint.methodName, e.getCause(), e.getMessage(), e);
+        } else if (e instanceof IllegalArgumentException) {
+            log.error("Illegal argument in {}.{}()", joinPoint.typeName, joinPoint.methodName);
         } else {
-            log.error("Exception in {}.{}() with cause = {}", joinPoint.getSignature().getDeclaringTypeName(),
-                joinPoint.getSignature().getName(), e.getCause());
+            log.error("Exception in {}.{}() with cause = {}", joinPoint.typeName, joinPoint.methodName, e.getCause());
         }
     }
 
-    @Around("loggingPointcut()")
-    public Object logAround(ProceedingJoinPoint joinPoint) throws Throwable {
-        if (log.isDebugEnabled()) {
-            log.debug("Enter: {}.{}() with argument[s] = {}", joinPoint.getSignature().getDeclaringTypeName(),
-                joinPoint.getSignature().getName(), Arrays.toString(joinPoint.getArgs()));
+    private JoinPoint joinPoint(MethodInvocation invocation) {
+        JoinPoint joinPoint = joinPoints.get(invocation.getMethod());
+        if (joinPoint == null) {
+            Class<?> targetClass = invocation.getThis() == null ? invocation.getMethod().getDeclaringClass()
+                : AopUtils.getTargetClass(invocation.getThis());
+            joinPoint = joinPoints.computeIfAbsent(invocation.getMethod(), method -> new JoinPoint(targetClass, method));
         }
-        try {
-            Object result = joinPoint.proceed();
-            if (log.isDebugEnabled()) {
-                log.debug("Exit: {}.{}() with result = {}", joinPoint.getSignature().getDeclaringTypeName(),
-                    joinPoint.getSignature().getName(), result);
+        return joinPoint;
+    }
+
+    /**
+     * The traced calls in progress in a thread, and the last exception logged by one of them.
+     */
+    private static final class Trace {
+
+        private int depth;
+
+        private Throwable logged;
+
+        /**
+         * @return true if the exception, or one of its causes, was already logged by a traced call of the thread
+         */
+        private boolean isLogged(Throwable e) {
+            for (Throwable cause = e; cause != null && logged != null; cause = cause.getCause()) {
+                if (cause == logged) {
+                    return true;
+                }
             }
-            return result;
-        } catch (IllegalArgumentException e) {
-            log.error("Illegal argument: {} in {}.{}()", Arrays.toString(joinPoint.getArgs()),
-                    joinPoint.getSignature().getDeclaringTypeName(), joinPoint.getSignature().getName());
+            return false;
+        }
+    }
 
-            throw e;
+    /**
+     * A traced method, and its timer.
+     */
+    private final class JoinPoint {
+
+        private final String typeName;
+
+        private final String methodName;
+
+        private final Timer timer;
+
+        private JoinPoint(Class<?> targetClass, Method method) {
+            this.typeName = targetClass.getName();
+            this.methodName = method.getName();
+            this.timer = metrics ? metricRegistry.timer(MetricRegistry.name("trace", targetClass.getSimpleName(),
+                method.getName())) : null;
         }
     }
 }
@@ -0,0 +1,32 @@
+package br.com.jmeterapp.async;
+
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
+
+import java.util.concurrent.ThreadPoolExecutor;
+
+/**
+ * The metrics of an executor, named async.[executor].*: the queued tasks, the active threads, the rejected tasks,
+ * and the time the tasks wait in the queue and take to run.
+ */
+final class ExecutorMetrics {
+
+    final Counter rejected;
+
+    final Timer wait;
+
+    final Timer duration;
+
+    ExecutorMetrics(MetricRegistry metricRegistry, String name, ThreadPoolExecutor executor) {
+        String prefix = MetricRegistry.name("async", name);
+        rejected = metricRegistry.counter(MetricRegistry.name(prefix, "rejected"));
+        wait = metricRegistry.timer(MetricRegistry.name(prefix, "wait"));
+        duration = metricRegistry.timer(MetricRegistry.name(prefix, "duration"));
+        metricRegistry.remove(MetricRegistry.name(prefix, "queued"));
+        metricRegistry.register(MetricRegistry.name(prefix, "queued"), (Gauge<Integer>) () -> executor.getQueue().size());
+        metricRegistry.remove(MetricRegistry.name(prefix, "active"));
+        metricRegistry.register(MetricRegistry.name(prefix, "active"), (Gauge<Integer>) executor::getActiveCount);
+    }
+}
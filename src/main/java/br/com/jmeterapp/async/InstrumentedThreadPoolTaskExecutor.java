@@ -0,0 +1,62 @@
+package br.com.jmeterapp.async;
+
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.*;
+
+/**
+ * A thread pool task executor publishing its {@link ExecutorMetrics}, and optionally running its tasks on virtual
+ * threads.
+ */
+public class InstrumentedThreadPoolTaskExecutor extends ThreadPoolTaskExecutor {
+
+    private final Logger log = LoggerFactory.getLogger(InstrumentedThreadPoolTaskExecutor.class);
+
+    private final String name;
+
+    private final MetricRegistry metricRegistry;
+
+    private boolean virtualThreads;
+
+    private ExecutorMetrics metrics;
+
+    public InstrumentedThreadPoolTaskExecutor(String name, MetricRegistry metricRegistry) {
+        this.name = name;
+        this.metricRegistry = metricRegistry;
+        setTaskDecorator(task -> {
+            long queuedAt = System.nanoTime();
+            return () -> {
+                metrics.wait.update(System.nanoTime() - queuedAt, TimeUnit.NANOSECONDS);
+                try (Timer.Context ignored = metrics.duration.time()) {
+                    task.run();
+                }
+            };
+        });
+    }
+
+    public void setVirtualThreads(boolean virtualThreads) {
+        this.virtualThreads = virtualThreads;
+    }
+
+    @Override
+    protected ExecutorService initializeExecutor(ThreadFactory threadFactory,
+        RejectedExecutionHandler rejectedExecutionHandler) {
+
+        if (virtualThreads) {
+            threadFactory = VirtualThreads.threadFactory(getThreadNamePrefix()).orElseGet(() -> {
+                log.warn("Virtual threads are not supported by this JVM, the {} executor uses platform threads", name);
+                return this;
+            });
+        }
+        ExecutorService executor = super.initializeExecutor(threadFactory, (task, pool) -> {
+            metrics.rejected.inc();
+            rejectedExecutionHandler.rejectedExecution(task, pool);
+        });
+        metrics = new ExecutorMetrics(metricRegistry, name, getThreadPoolExecutor());
+        return executor;
+    }
+}
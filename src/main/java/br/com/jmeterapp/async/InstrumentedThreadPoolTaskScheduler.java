@@ -0,0 +1,82 @@
+package br.com.jmeterapp.async;
+
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+
+import java.util.concurrent.*;
+
+/**
+ * A thread pool task scheduler publishing its {@link ExecutorMetrics}, and optionally running its tasks on virtual
+ * threads. The wait of a task is the delay between the time it was scheduled for and the time it started.
+ */
+public class InstrumentedThreadPoolTaskScheduler extends ThreadPoolTaskScheduler {
+
+    private final Logger log = LoggerFactory.getLogger(InstrumentedThreadPoolTaskScheduler.class);
+
+    private final String name;
+
+    private final MetricRegistry metricRegistry;
+
+    private boolean virtualThreads;
+
+    public InstrumentedThreadPoolTaskScheduler(String name, MetricRegistry metricRegistry) {
+        this.name = name;
+        this.metricRegistry = metricRegistry;
+    }
+
+    public void setVirtualThreads(boolean virtualThreads) {
+        this.virtualThreads = virtualThreads;
+    }
+
+    @Override
+    protected ScheduledExecutorService createExecutor(int poolSize, ThreadFactory threadFactory,
+        RejectedExecutionHandler rejectedExecutionHandler) {
+
+        if (virtualThreads) {
+            threadFactory = VirtualThreads.threadFactory(getThreadNamePrefix()).orElseGet(() -> {
+                log.warn("Virtual threads are not supported by this JVM, the {} scheduler uses platform threads", name);
+                return this;
+            });
+        }
+        InstrumentedScheduledThreadPoolExecutor executor =
+            new InstrumentedScheduledThreadPoolExecutor(poolSize, threadFactory, rejectedExecutionHandler);
+        executor.metrics = new ExecutorMetrics(metricRegistry, name, executor);
+        return executor;
+    }
+
+    private static final class InstrumentedScheduledThreadPoolExecutor extends ScheduledThreadPoolExecutor {
+
+        private final ThreadLocal<Timer.Context> durations = new ThreadLocal<>();
+
+        private ExecutorMetrics metrics;
+
+        private InstrumentedScheduledThreadPoolExecutor(int poolSize, ThreadFactory threadFactory,
+            RejectedExecutionHandler rejectedExecutionHandler) {
+
+            super(poolSize, threadFactory, (task, pool) -> {
+                ((InstrumentedScheduledThreadPoolExecutor) pool).metrics.rejected.inc();
+                rejectedExecutionHandler.rejectedExecution(task, pool);
+            });
+        }
+
+        @Override
+        protected void beforeExecute(Thread thread, Runnable task) {
+            if (task instanceof Delayed) {
+                metrics.wait.update(Math.max(0, -((Delayed) task).getDelay(TimeUnit.NANOSECONDS)), TimeUnit.NANOSECONDS);
+            }
+            durations.set(metrics.duration.time());
+        }
+
+        @Override
+        protected void afterExecute(Runnable task, Throwable throwable) {
+            Timer.Context duration = durations.get();
+            if (duration != null) {
+                duration.stop();
+                durations.remove();
+            }
+        }
+    }
+}
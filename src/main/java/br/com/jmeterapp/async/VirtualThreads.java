@@ -0,0 +1,31 @@
+package br.com.jmeterapp.async;
+
+import java.util.Optional;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Creates virtual threads, when the JVM supports them (Java 21 or later).
+ * <p>
+ * The application is built for Java 8, so the virtual thread API is called by reflection.
+ * </p>
+ */
+public final class VirtualThreads {
+
+    private VirtualThreads() {
+    }
+
+    /**
+     * @param namePrefix the prefix of the thread names, followed by a counter
+     * @return a factory of virtual threads, or an empty optional if the JVM does not support them
+     */
+    public static Optional<ThreadFactory> threadFactory(String namePrefix) {
+        try {
+            Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            builder = builderClass.getMethod("name", String.class, long.class).invoke(builder, namePrefix, 0L);
+            return Optional.of((ThreadFactory) builderClass.getMethod("factory").invoke(builder));
+        } catch (ReflectiveOperationException e) {
+            return Optional.empty();
+        }
+    }
+}
@@ -1,44 +1,102 @@
 package br.com.jmeterapp.config;
 
 import br.com.jmeterapp.async.ExceptionHandlingAsyncTaskExecutor;
+import br.com.jmeterapp.async.InstrumentedThreadPoolTaskExecutor;
+import br.com.jmeterapp.async.InstrumentedThreadPoolTaskScheduler;
 
+import com.codahale.metrics.MetricRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.aop.interceptor.AsyncUncaughtExceptionHandler;
 import org.springframework.aop.interceptor.SimpleAsyncUncaughtExceptionHandler;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.AsyncTaskExecutor;
 import org.springframework.scheduling.annotation.*;
-import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import org.springframework.scheduling.config.ScheduledTaskRegistrar;
 
 import java.util.concurrent.Executor;
 
 import javax.inject.Inject;
 
+/**
+ * Executors of the asynchronous workloads.
+ * <p>
+ * Each workload has its own bounded executor, so that a backlog in one of them does not delay the others: the
+ * "taskExecutor" for @Async methods and the asynchronous Liquibase, the "mailExecutor" for the e-mail outbox, the
+ * "auditExecutor" for the audit events, and the "maintenanceScheduler" for the @Scheduled jobs. Their metrics are
+ * published under async.[name].
+ * </p>
+ */
 @Configuration
 @EnableAsync
 @EnableScheduling
-public class AsyncConfiguration implements AsyncConfigurer {
+public class AsyncConfiguration implements AsyncConfigurer, SchedulingConfigurer {
 
     private final Logger log = LoggerFactory.getLogger(AsyncConfiguration.class);
 
     @Inject
     private JHipsterProperties jHipsterProperties;
 
+    @Inject
+    private MetricRegistry metricRegistry;
+
     @Override
     @Bean(name = "taskExecutor")
     public Executor getAsyncExecutor() {
         log.debug("Creating Async Task Executor");
-        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
-        executor.setCorePoolSize(jHipsterProperties.getAsync().getCorePoolSize());
-        executor.setMaxPoolSize(jHipsterProperties.getAsync().getMaxPoolSize());
-        executor.setQueueCapacity(jHipsterProperties.getAsync().getQueueCapacity());
+        JHipsterProperties.Async async = jHipsterProperties.getAsync();
+        InstrumentedThreadPoolTaskExecutor executor = new InstrumentedThreadPoolTaskExecutor("default", metricRegistry);
+        executor.setCorePoolSize(async.getCorePoolSize());
+        executor.setMaxPoolSize(async.getMaxPoolSize());
+        executor.setQueueCapacity(async.getQueueCapacity());
+        executor.setVirtualThreads(async.isVirtualThreads());
         executor.setThreadNamePrefix("jmeterapp-Executor-");
         return new ExceptionHandlingAsyncTaskExecutor(executor);
     }
 
+    @Bean(name = "mailExecutor")
+    public AsyncTaskExecutor mailExecutor() {
+        return createExecutor("mail", jHipsterProperties.getAsync().getMail());
+    }
+
+    @Bean(name = "auditExecutor")
+    public AsyncTaskExecutor auditExecutor() {
+        return createExecutor("audit", jHipsterProperties.getAsync().getAudit());
+    }
+
+    @Bean(name = "maintenanceScheduler")
+    public ThreadPoolTaskScheduler maintenanceScheduler() {
+        log.debug("Creating Maintenance Task Scheduler");
+        JHipsterProperties.Async.Pool pool = jHipsterProperties.getAsync().getMaintenance();
+        InstrumentedThreadPoolTaskScheduler scheduler = new InstrumentedThreadPoolTaskScheduler("maintenance",
+            metricRegistry);
+        scheduler.setPoolSize(pool.getCorePoolSize());
+        scheduler.setVirtualThreads(pool.isVirtualThreads());
+        scheduler.setThreadNamePrefix("jmeterapp-maintenance-");
+        scheduler.setErrorHandler(e -> log.error("Caught scheduled task exception", e));
+        return scheduler;
+    }
+
+    @Override
+    public void configureTasks(ScheduledTaskRegistrar taskRegistrar) {
+        taskRegistrar.setTaskScheduler(maintenanceScheduler());
+    }
+
     @Override
     public AsyncUncaughtExceptionHandler getAsyncUncaughtExceptionHandler() {
         return new SimpleAsyncUncaughtExceptionHandler();
     }
+
+    private AsyncTaskExecutor createExecutor(String name, JHipsterProperties.Async.Pool pool) {
+        log.debug("Creating {} Task Executor", name);
+        InstrumentedThreadPoolTaskExecutor executor = new InstrumentedThreadPoolTaskExecutor(name, metricRegistry);
+        executor.setCorePoolSize(pool.getCorePoolSize());
+        executor.setMaxPoolSize(pool.getMaxPoolSize());
+        executor.setQueueCapacity(pool.getQueueCapacity());
+        executor.setVirtualThreads(pool.isVirtualThreads());
+        executor.setThreadNamePrefix("jmeterapp-" + name + "-");
+        return new ExceptionHandlingAsyncTaskExecutor(executor);
+    }
 }
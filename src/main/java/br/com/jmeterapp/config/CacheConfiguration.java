@@ -2,39 +2,66 @@ package br.com.jmeterapp.config;
 
 import com.codahale.metrics.MetricRegistry;
 import com.codahale.metrics.ehcache.InstrumentedEhcache;
+import net.sf.ehcache.config.ConfigurationFactory;
+import net.sf.ehcache.config.PinningConfiguration;
+import org.hibernate.annotations.Cache;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.config.BeanDefinition;
 import org.springframework.boot.autoconfigure.AutoConfigureAfter;
+import org.springframework.boot.autoconfigure.data.jpa.EntityManagerFactoryDependsOnPostProcessor;
 import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.EnableCaching;
 import org.springframework.context.annotation.*;
 import org.springframework.cache.ehcache.EhCacheCacheManager;
-import org.springframework.util.Assert;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.AnnotationUtils;
+import org.springframework.core.type.filter.AnnotationTypeFilter;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.StringUtils;
 
 import javax.annotation.PreDestroy;
 import javax.inject.Inject;
-import javax.persistence.EntityManager;
-import javax.persistence.PersistenceContext;
-import javax.persistence.metamodel.EntityType;
+import javax.persistence.Entity;
+import java.lang.reflect.Field;
+import java.util.LinkedHashSet;
+import java.util.Map;
 import java.util.Set;
 import java.util.SortedSet;
 
+/**
+ * Ehcache configuration, also used as the Hibernate 2nd level cache.
+ *
+ * <p>
+ * Hibernate keeps a reference to the cache of each region when the entity manager factory is built, so the regions
+ * of all the cached entities and collections are created and sized here beforehand, and the entity manager factory
+ * depends on this cache manager. All the caches, including the ones of the Spring cache abstraction, are
+ * instrumented with hit and miss metrics.
+ * </p>
+ * <p>
+ * The caching advice runs before the transactional one, so that a cache hit does not open a transaction.
+ * </p>
+ */
 @SuppressWarnings("unused")
 @Configuration
-@EnableCaching
+@EnableCaching(order = Ordered.HIGHEST_PRECEDENCE)
 @AutoConfigureAfter(value = { MetricsConfiguration.class, DatabaseConfiguration.class })
 public class CacheConfiguration {
 
-    private final Logger log = LoggerFactory.getLogger(CacheConfiguration.class);
+    private static final String DOMAIN_PACKAGE = "br.com.jmeterapp.domain";
 
-    @PersistenceContext
-    private EntityManager entityManager;
+    private final Logger log = LoggerFactory.getLogger(CacheConfiguration.class);
 
     @Inject
     private MetricRegistry metricRegistry;
 
     private net.sf.ehcache.CacheManager cacheManager;
 
+    @Bean
+    public static EntityManagerFactoryDependsOnPostProcessor entityManagerFactoryDependsOnCacheManager() {
+        return new EntityManagerFactoryDependsOnPostProcessor("cacheManager");
+    }
+
     @PreDestroy
     public void destroy() {
         log.info("Remove Cache Manager metrics");
@@ -47,27 +74,107 @@ public class CacheConfiguration {
     @Bean
     public CacheManager cacheManager(JHipsterProperties jHipsterProperties) {
         log.debug("Starting Ehcache");
-        cacheManager = net.sf.ehcache.CacheManager.create();
-        cacheManager.getConfiguration().setMaxBytesLocalHeap(jHipsterProperties.getCache().getEhcache().getMaxBytesLocalHeap());
-        log.debug("Registering Ehcache Metrics gauges");
-        Set<EntityType<?>> entities = entityManager.getMetamodel().getEntities();
-        for (EntityType<?> entity : entities) {
-
-            String name = entity.getName();
-            if (name == null || entity.getJavaType() != null) {
-                name = entity.getJavaType().getName();
+        JHipsterProperties.Cache properties = jHipsterProperties.getCache();
+        net.sf.ehcache.config.Configuration configuration = ConfigurationFactory.parseConfiguration();
+        configureHeap(configuration, properties.getEhcache());
+        Set<String> regions = findCachedRegions();
+        Map<String, JHipsterProperties.Cache.Region> overrides = properties.getRegions();
+        overrides.keySet().stream()
+            .filter(key -> !regions.contains(regionName(key)))
+            .forEach(key -> log.warn("The cache region {} is configured but no cached entity or collection uses it", key));
+        for (String region : regions) {
+            net.sf.ehcache.config.CacheConfiguration cacheConfiguration = configuration.getCacheConfigurations().get(region);
+            if (cacheConfiguration == null) {
+                cacheConfiguration = configuration.getDefaultCacheConfiguration().clone().name(region);
+                configuration.addCache(cacheConfiguration);
+            }
+            cacheConfiguration.setTimeToLiveSeconds(properties.getTimeToLiveSeconds());
+        }
+        overrides.forEach((key, region) -> {
+            net.sf.ehcache.config.CacheConfiguration cacheConfiguration =
+                configuration.getCacheConfigurations().get(regionName(key));
+            if (cacheConfiguration != null) {
+                configureRegion(key, cacheConfiguration, region, properties.getEhcache());
             }
-            Assert.notNull(name, "entity cannot exist without a identifier");
+        });
+        cacheManager = net.sf.ehcache.CacheManager.create(configuration);
 
+        log.debug("Registering Ehcache Metrics gauges");
+        for (String name : cacheManager.getCacheNames()) {
             net.sf.ehcache.Cache cache = cacheManager.getCache(name);
-            if (cache != null) {
-                cache.getCacheConfiguration().setTimeToLiveSeconds(jHipsterProperties.getCache().getTimeToLiveSeconds());
-                net.sf.ehcache.Ehcache decoratedCache = InstrumentedEhcache.instrument(metricRegistry, cache);
-                cacheManager.replaceCacheWithDecoratedCache(cache, decoratedCache);
-            }
+            net.sf.ehcache.Ehcache decoratedCache = InstrumentedEhcache.instrument(metricRegistry, cache);
+            cacheManager.replaceCacheWithDecoratedCache(cache, decoratedCache);
         }
         EhCacheCacheManager ehCacheManager = new EhCacheCacheManager();
         ehCacheManager.setCacheManager(cacheManager);
+        ehCacheManager.setTransactionAware(true);
         return ehCacheManager;
     }
+
+    /**
+     * Sizes the caches either from a heap shared by all the regions, or, when no shared heap is configured,
+     * with an entry bound on each region that is not already sized.
+     */
+    private void configureHeap(net.sf.ehcache.config.Configuration configuration, JHipsterProperties.Cache.Ehcache ehcache) {
+        if (StringUtils.hasText(ehcache.getMaxBytesLocalHeap())) {
+            configuration.setMaxBytesLocalHeap(ehcache.getMaxBytesLocalHeap());
+            return;
+        }
+        configuration.setMaxBytesLocalHeap((Long) null);
+        configuration.getDefaultCacheConfiguration().setMaxEntriesLocalHeap(ehcache.getMaxEntriesLocalHeap());
+        configuration.getCacheConfigurations().values().stream()
+            .filter(cacheConfiguration -> !cacheConfiguration.isCountBasedTuned()
+                && cacheConfiguration.getMaxBytesLocalHeap() == 0)
+            .forEach(cacheConfiguration -> cacheConfiguration.setMaxEntriesLocalHeap(ehcache.getMaxEntriesLocalHeap()));
+    }
+
+    private void configureRegion(String key, net.sf.ehcache.config.CacheConfiguration cacheConfiguration,
+        JHipsterProperties.Cache.Region region, JHipsterProperties.Cache.Ehcache ehcache) {
+
+        if (region.getTimeToLiveSeconds() != null) {
+            cacheConfiguration.setTimeToLiveSeconds(region.getTimeToLiveSeconds());
+        }
+        cacheConfiguration.setEternal(region.isEternal());
+        if (region.isPinned()) {
+            cacheConfiguration.pinning(new PinningConfiguration().store(PinningConfiguration.Store.LOCALMEMORY));
+        }
+        if (StringUtils.hasText(region.getMaxBytesLocalHeap())) {
+            cacheConfiguration.setMaxBytesLocalHeap(region.getMaxBytesLocalHeap());
+        }
+        if (region.getMaxEntriesLocalHeap() != null) {
+            if (StringUtils.hasText(ehcache.getMaxBytesLocalHeap())) {
+                throw new IllegalStateException("The cache region " + key + " cannot be bounded by entry count while " +
+                    "jhipster.cache.ehcache.maxBytesLocalHeap is set: use maxBytesLocalHeap for this region instead");
+            }
+            cacheConfiguration.setMaxEntriesLocalHeap(region.getMaxEntriesLocalHeap());
+        }
+    }
+
+    /**
+     * Finds the regions Hibernate will use, named after the cached entities and collections, unless they
+     * define their own region.
+     */
+    private Set<String> findCachedRegions() {
+        Set<String> regions = new LinkedHashSet<>();
+        ClassPathScanningCandidateComponentProvider scanner = new ClassPathScanningCandidateComponentProvider(false);
+        scanner.addIncludeFilter(new AnnotationTypeFilter(Entity.class));
+        for (BeanDefinition definition : scanner.findCandidateComponents(DOMAIN_PACKAGE)) {
+            Class<?> entity = ClassUtils.resolveClassName(definition.getBeanClassName(), getClass().getClassLoader());
+            Cache cache = AnnotationUtils.findAnnotation(entity, Cache.class);
+            if (cache != null) {
+                regions.add(cache.region().isEmpty() ? entity.getName() : cache.region());
+            }
+            for (Field field : entity.getDeclaredFields()) {
+                cache = field.getAnnotation(Cache.class);
+                if (cache != null) {
+                    regions.add(cache.region().isEmpty() ? entity.getName() + "." + field.getName() : cache.region());
+                }
+            }
+        }
+        return regions;
+    }
+
+    private String regionName(String key) {
+        return key.startsWith(DOMAIN_PACKAGE + ".") ? key : DOMAIN_PACKAGE + "." + key;
+    }
 }
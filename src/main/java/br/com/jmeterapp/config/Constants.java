@@ -18,9 +18,14 @@ public final class Constants {
     public static final String SPRING_PROFILE_SWAGGER = "swagger";
     // Spring profile used to disable running liquibase
     public static final String SPRING_PROFILE_NO_LIQUIBASE = "no-liquibase";
+    // Spring profile used to check, at startup, that the hot queries use an index (on PostgreSQL)
+    public static final String SPRING_PROFILE_QUERY_PLAN_CHECK = "query-plan-check";
 
     public static final String SYSTEM_ACCOUNT = "system";
 
+    // Path of the metrics in the Prometheus text format, scraped by Prometheus
+    public static final String PROMETHEUS_PATH = "/management/jhipster/prometheus";
+
     private Constants() {
     }
 }
@@ -1,6 +1,13 @@
 package br.com.jmeterapp.config;
 
+import br.com.jmeterapp.service.util.CountStrategy;
+
 import javax.validation.constraints.NotNull;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.web.cors.CorsConfiguration;
@@ -33,6 +40,10 @@ public class JHipsterProperties {
 
     private final Ribbon ribbon = new Ribbon();
 
+    private final Pagination pagination = new Pagination();
+
+    private final Audit audit = new Audit();
+
     public Async getAsync() {
         return async;
     }
@@ -69,6 +80,14 @@ public class JHipsterProperties {
         return ribbon;
     }
 
+    public Pagination getPagination() {
+        return pagination;
+    }
+
+    public Audit getAudit() {
+        return audit;
+    }
+
     public static class Async {
 
         private int corePoolSize = 2;
@@ -77,6 +96,14 @@ public class JHipsterProperties {
 
         private int queueCapacity = 10000;
 
+        private boolean virtualThreads = false;
+
+        private final Pool mail = new Pool(1, 1, 10);
+
+        private final Pool audit = new Pool(1, 1, 10);
+
+        private final Pool maintenance = new Pool(2, 2, 0);
+
         public int getCorePoolSize() {
             return corePoolSize;
         }
@@ -100,6 +127,87 @@ public class JHipsterProperties {
         public void setQueueCapacity(int queueCapacity) {
             this.queueCapacity = queueCapacity;
         }
+
+        public boolean isVirtualThreads() {
+            return virtualThreads;
+        }
+
+        public void setVirtualThreads(boolean virtualThreads) {
+            this.virtualThreads = virtualThreads;
+        }
+
+        /**
+         * @return the executor delivering the e-mails of the outbox
+         */
+        public Pool getMail() {
+            return mail;
+        }
+
+        /**
+         * @return the executor writing the audit events
+         */
+        public Pool getAudit() {
+            return audit;
+        }
+
+        /**
+         * @return the scheduler running the scheduled jobs, with corePoolSize threads
+         */
+        public Pool getMaintenance() {
+            return maintenance;
+        }
+
+        public static class Pool {
+
+            private int corePoolSize;
+
+            private int maxPoolSize;
+
+            private int queueCapacity;
+
+            private boolean virtualThreads = false;
+
+            public Pool(int corePoolSize, int maxPoolSize, int queueCapacity) {
+                this.corePoolSize = corePoolSize;
+                this.maxPoolSize = maxPoolSize;
+                this.queueCapacity = queueCapacity;
+            }
+
+            public int getCorePoolSize() {
+                return corePoolSize;
+            }
+
+            public void setCorePoolSize(int corePoolSize) {
+                this.corePoolSize = corePoolSize;
+            }
+
+            public int getMaxPoolSize() {
+                return maxPoolSize;
+            }
+
+            public void setMaxPoolSize(int maxPoolSize) {
+                this.maxPoolSize = maxPoolSize;
+            }
+
+            public int getQueueCapacity() {
+                return queueCapacity;
+            }
+
+            public void setQueueCapacity(int queueCapacity) {
+                this.queueCapacity = queueCapacity;
+            }
+
+            /**
+             * @return true to run the tasks on virtual threads, when the JVM supports them (Java 21 or later)
+             */
+            public boolean isVirtualThreads() {
+                return virtualThreads;
+            }
+
+            public void setVirtualThreads(boolean virtualThreads) {
+                this.virtualThreads = virtualThreads;
+            }
+        }
     }
 
     public static class Http {
@@ -130,6 +238,12 @@ public class JHipsterProperties {
 
         private final Ehcache ehcache = new Ehcache();
 
+        /**
+         * Per-region overrides, keyed by region name relative to the domain package ("Pessoa",
+         * "[User.authorities]") or by fully qualified region name.
+         */
+        private final Map<String, Region> regions = new LinkedHashMap<>();
+
         public int getTimeToLiveSeconds() {
             return timeToLiveSeconds;
         }
@@ -142,10 +256,87 @@ public class JHipsterProperties {
             return ehcache;
         }
 
+        public Map<String, Region> getRegions() {
+            return regions;
+        }
+
         public static class Ehcache {
 
+            /**
+             * Heap shared by all the regions. When empty, each region is bounded by its own size instead.
+             */
             private String maxBytesLocalHeap = "16M";
 
+            /**
+             * Entry bound of the regions without their own size, only used when maxBytesLocalHeap is empty.
+             */
+            private long maxEntriesLocalHeap = 10000;
+
+            public String getMaxBytesLocalHeap() {
+                return maxBytesLocalHeap;
+            }
+
+            public void setMaxBytesLocalHeap(String maxBytesLocalHeap) {
+                this.maxBytesLocalHeap = maxBytesLocalHeap;
+            }
+
+            public long getMaxEntriesLocalHeap() {
+                return maxEntriesLocalHeap;
+            }
+
+            public void setMaxEntriesLocalHeap(long maxEntriesLocalHeap) {
+                this.maxEntriesLocalHeap = maxEntriesLocalHeap;
+            }
+        }
+
+        public static class Region {
+
+            /**
+             * Overrides jhipster.cache.timeToLiveSeconds for this region.
+             */
+            private Integer timeToLiveSeconds;
+
+            private boolean eternal = false;
+
+            /**
+             * Pinned entries are never evicted, whatever the size of the region.
+             */
+            private boolean pinned = false;
+
+            /**
+             * Size of the region, as an absolute value ("10M") or as a share of the shared heap ("20%").
+             */
+            private String maxBytesLocalHeap;
+
+            /**
+             * Entry bound of the region, only allowed when jhipster.cache.ehcache.maxBytesLocalHeap is empty.
+             */
+            private Long maxEntriesLocalHeap;
+
+            public Integer getTimeToLiveSeconds() {
+                return timeToLiveSeconds;
+            }
+
+            public void setTimeToLiveSeconds(Integer timeToLiveSeconds) {
+                this.timeToLiveSeconds = timeToLiveSeconds;
+            }
+
+            public boolean isEternal() {
+                return eternal;
+            }
+
+            public void setEternal(boolean eternal) {
+                this.eternal = eternal;
+            }
+
+            public boolean isPinned() {
+                return pinned;
+            }
+
+            public void setPinned(boolean pinned) {
+                this.pinned = pinned;
+            }
+
             public String getMaxBytesLocalHeap() {
                 return maxBytesLocalHeap;
             }
@@ -153,6 +344,14 @@ public class JHipsterProperties {
             public void setMaxBytesLocalHeap(String maxBytesLocalHeap) {
                 this.maxBytesLocalHeap = maxBytesLocalHeap;
             }
+
+            public Long getMaxEntriesLocalHeap() {
+                return maxEntriesLocalHeap;
+            }
+
+            public void setMaxEntriesLocalHeap(Long maxEntriesLocalHeap) {
+                this.maxEntriesLocalHeap = maxEntriesLocalHeap;
+            }
         }
     }
 
@@ -160,6 +359,24 @@ public class JHipsterProperties {
 
         private String from = "jmeterapp@localhost";
 
+        private List<String> languages = new ArrayList<>(Arrays.asList("en", "pt-br"));
+
+        private int batchSize = 50;
+
+        private long pollIntervalMillis = 1000;
+
+        private int maxAttempts = 10;
+
+        private int initialBackoffSeconds = 30;
+
+        private int maxBackoffSeconds = 3600;
+
+        private int leaseSeconds = 300;
+
+        private int maxPerDomainPerMinute = 60;
+
+        private int failedRetentionDays = 30;
+
         public String getFrom() {
             return from;
         }
@@ -167,21 +384,118 @@ public class JHipsterProperties {
         public void setFrom(String from) {
             this.from = from;
         }
+
+        /**
+         * @return the languages the e-mail templates are compiled for at startup
+         */
+        public List<String> getLanguages() {
+            return languages;
+        }
+
+        public void setLanguages(List<String> languages) {
+            this.languages = languages;
+        }
+
+        public int getBatchSize() {
+            return batchSize;
+        }
+
+        public void setBatchSize(int batchSize) {
+            this.batchSize = batchSize;
+        }
+
+        public long getPollIntervalMillis() {
+            return pollIntervalMillis;
+        }
+
+        public void setPollIntervalMillis(long pollIntervalMillis) {
+            this.pollIntervalMillis = pollIntervalMillis;
+        }
+
+        public int getMaxAttempts() {
+            return maxAttempts;
+        }
+
+        public void setMaxAttempts(int maxAttempts) {
+            this.maxAttempts = maxAttempts;
+        }
+
+        public int getInitialBackoffSeconds() {
+            return initialBackoffSeconds;
+        }
+
+        public void setInitialBackoffSeconds(int initialBackoffSeconds) {
+            this.initialBackoffSeconds = initialBackoffSeconds;
+        }
+
+        public int getMaxBackoffSeconds() {
+            return maxBackoffSeconds;
+        }
+
+        public void setMaxBackoffSeconds(int maxBackoffSeconds) {
+            this.maxBackoffSeconds = maxBackoffSeconds;
+        }
+
+        /**
+         * @return how long the e-mails claimed for a delivery are not claimed again, in case the instance
+         * delivering them stops meanwhile
+         */
+        public int getLeaseSeconds() {
+            return leaseSeconds;
+        }
+
+        public void setLeaseSeconds(int leaseSeconds) {
+            this.leaseSeconds = leaseSeconds;
+        }
+
+        /**
+         * @return the number of e-mails delivered to a domain per minute by an instance, or 0 for no limit
+         */
+        public int getMaxPerDomainPerMinute() {
+            return maxPerDomainPerMinute;
+        }
+
+        public void setMaxPerDomainPerMinute(int maxPerDomainPerMinute) {
+            this.maxPerDomainPerMinute = maxPerDomainPerMinute;
+        }
+
+        /**
+         * @return how long the e-mails given up are kept after their creation, or 0 to keep them
+         */
+        public int getFailedRetentionDays() {
+            return failedRetentionDays;
+        }
+
+        public void setFailedRetentionDays(int failedRetentionDays) {
+            this.failedRetentionDays = failedRetentionDays;
+        }
     }
 
     public static class Security {
 
         private final RememberMe rememberMe = new RememberMe();
 
+        private final Password password = new Password();
+
         public RememberMe getRememberMe() {
             return rememberMe;
         }
 
+        public Password getPassword() {
+            return password;
+        }
+
         public static class RememberMe {
 
             @NotNull
             private String key;
 
+            private int rotationGraceSeconds = 5;
+
+            private long flushIntervalMillis = 5000;
+
+            private int indexTimeToLiveSeconds = 3600;
+
             public String getKey() {
                 return key;
             }
@@ -189,6 +503,101 @@ public class JHipsterProperties {
             public void setKey(String key) {
                 this.key = key;
             }
+
+            /**
+             * @return how long after a rotation the previous token value is still accepted, and the token is not
+             * rotated again
+             */
+            public int getRotationGraceSeconds() {
+                return rotationGraceSeconds;
+            }
+
+            public void setRotationGraceSeconds(int rotationGraceSeconds) {
+                this.rotationGraceSeconds = rotationGraceSeconds;
+            }
+
+            public long getFlushIntervalMillis() {
+                return flushIntervalMillis;
+            }
+
+            public void setFlushIntervalMillis(long flushIntervalMillis) {
+                this.flushIntervalMillis = flushIntervalMillis;
+            }
+
+            public int getIndexTimeToLiveSeconds() {
+                return indexTimeToLiveSeconds;
+            }
+
+            public void setIndexTimeToLiveSeconds(int indexTimeToLiveSeconds) {
+                this.indexTimeToLiveSeconds = indexTimeToLiveSeconds;
+            }
+        }
+
+        public static class Password {
+
+            private long targetHashTimeMillis = 250;
+
+            private int strength = 10;
+
+            private int minStrength = 10;
+
+            private int maxStrength = 16;
+
+            private int poolSize = Runtime.getRuntime().availableProcessors();
+
+            private int queueCapacity = 100;
+
+            /**
+             * @return the time a hash should take, used to calibrate the BCrypt strength at startup, or 0 to use
+             * the configured strength
+             */
+            public long getTargetHashTimeMillis() {
+                return targetHashTimeMillis;
+            }
+
+            public void setTargetHashTimeMillis(long targetHashTimeMillis) {
+                this.targetHashTimeMillis = targetHashTimeMillis;
+            }
+
+            public int getStrength() {
+                return strength;
+            }
+
+            public void setStrength(int strength) {
+                this.strength = strength;
+            }
+
+            public int getMinStrength() {
+                return minStrength;
+            }
+
+            public void setMinStrength(int minStrength) {
+                this.minStrength = minStrength;
+            }
+
+            public int getMaxStrength() {
+                return maxStrength;
+            }
+
+            public void setMaxStrength(int maxStrength) {
+                this.maxStrength = maxStrength;
+            }
+
+            public int getPoolSize() {
+                return poolSize;
+            }
+
+            public void setPoolSize(int poolSize) {
+                this.poolSize = poolSize;
+            }
+
+            public int getQueueCapacity() {
+                return queueCapacity;
+            }
+
+            public void setQueueCapacity(int queueCapacity) {
+                this.queueCapacity = queueCapacity;
+            }
         }
     }
 
@@ -295,6 +704,12 @@ public class JHipsterProperties {
 
         private final Logs logs = new Logs();
 
+        private final Routes routes = new Routes();
+
+        private final Sql sql = new Sql();
+
+        private final Prometheus prometheus = new Prometheus();
+
         public Jmx getJmx() {
             return jmx;
         }
@@ -311,6 +726,18 @@ public class JHipsterProperties {
             return logs;
         }
 
+        public Routes getRoutes() {
+            return routes;
+        }
+
+        public Sql getSql() {
+            return sql;
+        }
+
+        public Prometheus getPrometheus() {
+            return prometheus;
+        }
+
         public static class Jmx {
 
             private boolean enabled = true;
@@ -422,6 +849,95 @@ public class JHipsterProperties {
                 this.enabled = enabled;
             }
         }
+
+        public static class Routes {
+
+            private boolean enabled = true;
+
+            private long windowSeconds = 60;
+
+            private int windowSlices = 6;
+
+            public boolean isEnabled() {
+                return enabled;
+            }
+
+            public void setEnabled(boolean enabled) {
+                this.enabled = enabled;
+            }
+
+            public long getWindowSeconds() {
+                return windowSeconds;
+            }
+
+            public void setWindowSeconds(long windowSeconds) {
+                this.windowSeconds = windowSeconds;
+            }
+
+            public int getWindowSlices() {
+                return windowSlices;
+            }
+
+            public void setWindowSlices(int windowSlices) {
+                this.windowSlices = windowSlices;
+            }
+        }
+
+        public static class Sql {
+
+            private boolean enabled = true;
+
+            private boolean responseHeaders = false;
+
+            private int warnThreshold = 50;
+
+            public boolean isEnabled() {
+                return enabled;
+            }
+
+            public void setEnabled(boolean enabled) {
+                this.enabled = enabled;
+            }
+
+            public boolean isResponseHeaders() {
+                return responseHeaders;
+            }
+
+            public void setResponseHeaders(boolean responseHeaders) {
+                this.responseHeaders = responseHeaders;
+            }
+
+            public int getWarnThreshold() {
+                return warnThreshold;
+            }
+
+            public void setWarnThreshold(int warnThreshold) {
+                this.warnThreshold = warnThreshold;
+            }
+        }
+
+        public static class Prometheus {
+
+            private boolean enabled = true;
+
+            private String token;
+
+            public boolean isEnabled() {
+                return enabled;
+            }
+
+            public void setEnabled(boolean enabled) {
+                this.enabled = enabled;
+            }
+
+            public String getToken() {
+                return token;
+            }
+
+            public void setToken(String token) {
+                this.token = token;
+            }
+        }
     }
 
     private final Logging logging = new Logging();
@@ -432,8 +948,16 @@ public class JHipsterProperties {
 
         private final Logstash logstash = new Logstash();
 
+        private final Tracing tracing = new Tracing();
+
+        private final Async async = new Async();
+
         public Logstash getLogstash() { return logstash; }
 
+        public Async getAsync() { return async; }
+
+        public Tracing getTracing() { return tracing; }
+
         public static class Logstash {
 
             private boolean enabled = false;
@@ -442,7 +966,9 @@ public class JHipsterProperties {
 
             private int port = 5000;
 
-            private int queueSize = 512;
+            private int queueSize = 8192;
+
+            private int writeBufferSize = 16384;
 
             public boolean isEnabled() { return enabled; }
 
@@ -459,6 +985,58 @@ public class JHipsterProperties {
             public int getQueueSize() { return queueSize; }
 
             public void setQueueSize(int queueSize) { this.queueSize = queueSize; }
+
+            public int getWriteBufferSize() { return writeBufferSize; }
+
+            public void setWriteBufferSize(int writeBufferSize) { this.writeBufferSize = writeBufferSize; }
+        }
+
+        public static class Async {
+
+            private boolean enabled = false;
+
+            private int ringBufferSize = 8192;
+
+            public boolean isEnabled() { return enabled; }
+
+            public void setEnabled(boolean enabled) { this.enabled = enabled; }
+
+            public int getRingBufferSize() { return ringBufferSize; }
+
+            public void setRingBufferSize(int ringBufferSize) { this.ringBufferSize = ringBufferSize; }
+        }
+
+        public static class Tracing {
+
+            private boolean enabled = false;
+
+            private List<String> packages = new ArrayList<>(Arrays.asList("repository", "service", "web.rest"));
+
+            private double samplingRate = 0.0;
+
+            private long slowThresholdMillis = 500;
+
+            private boolean metrics = true;
+
+            public boolean isEnabled() { return enabled; }
+
+            public void setEnabled(boolean enabled) { this.enabled = enabled; }
+
+            public List<String> getPackages() { return packages; }
+
+            public void setPackages(List<String> packages) { this.packages = packages; }
+
+            public double getSamplingRate() { return samplingRate; }
+
+            public void setSamplingRate(double samplingRate) { this.samplingRate = samplingRate; }
+
+            public long getSlowThresholdMillis() { return slowThresholdMillis; }
+
+            public void setSlowThresholdMillis(long slowThresholdMillis) { this.slowThresholdMillis = slowThresholdMillis; }
+
+            public boolean isMetrics() { return metrics; }
+
+            public void setMetrics(boolean metrics) { this.metrics = metrics; }
         }
 
     }
@@ -476,4 +1054,136 @@ public class JHipsterProperties {
             this.displayOnActiveProfiles = displayOnActiveProfiles;
         }
     }
+
+    public static class Pagination {
+
+        private CountStrategy countStrategy = CountStrategy.EXACT;
+
+        private int countCacheTimeToLiveSeconds = 10;
+
+        private long estimateThreshold = 100000;
+
+        public CountStrategy getCountStrategy() {
+            return countStrategy;
+        }
+
+        public void setCountStrategy(CountStrategy countStrategy) {
+            this.countStrategy = countStrategy;
+        }
+
+        public int getCountCacheTimeToLiveSeconds() {
+            return countCacheTimeToLiveSeconds;
+        }
+
+        public void setCountCacheTimeToLiveSeconds(int countCacheTimeToLiveSeconds) {
+            this.countCacheTimeToLiveSeconds = countCacheTimeToLiveSeconds;
+        }
+
+        public long getEstimateThreshold() {
+            return estimateThreshold;
+        }
+
+        public void setEstimateThreshold(long estimateThreshold) {
+            this.estimateThreshold = estimateThreshold;
+        }
+    }
+
+    public static class Audit {
+
+        private int queueCapacity = 10000;
+
+        private int batchSize = 50;
+
+        private long flushIntervalMillis = 1000;
+
+        private OverflowPolicy overflowPolicy = OverflowPolicy.BLOCK;
+
+        private long shutdownTimeoutMillis = 10000;
+
+        private int retentionMonths = 12;
+
+        private boolean archivePartitions = false;
+
+        private int partitionsAhead = 3;
+
+        public int getQueueCapacity() {
+            return queueCapacity;
+        }
+
+        public void setQueueCapacity(int queueCapacity) {
+            this.queueCapacity = queueCapacity;
+        }
+
+        public int getBatchSize() {
+            return batchSize;
+        }
+
+        public void setBatchSize(int batchSize) {
+            this.batchSize = batchSize;
+        }
+
+        public long getFlushIntervalMillis() {
+            return flushIntervalMillis;
+        }
+
+        public void setFlushIntervalMillis(long flushIntervalMillis) {
+            this.flushIntervalMillis = flushIntervalMillis;
+        }
+
+        public OverflowPolicy getOverflowPolicy() {
+            return overflowPolicy;
+        }
+
+        public void setOverflowPolicy(OverflowPolicy overflowPolicy) {
+            this.overflowPolicy = overflowPolicy;
+        }
+
+        public long getShutdownTimeoutMillis() {
+            return shutdownTimeoutMillis;
+        }
+
+        public void setShutdownTimeoutMillis(long shutdownTimeoutMillis) {
+            this.shutdownTimeoutMillis = shutdownTimeoutMillis;
+        }
+
+        public int getRetentionMonths() {
+            return retentionMonths;
+        }
+
+        public void setRetentionMonths(int retentionMonths) {
+            this.retentionMonths = retentionMonths;
+        }
+
+        public boolean isArchivePartitions() {
+            return archivePartitions;
+        }
+
+        public void setArchivePartitions(boolean archivePartitions) {
+            this.archivePartitions = archivePartitions;
+        }
+
+        public int getPartitionsAhead() {
+            return partitionsAhead;
+        }
+
+        public void setPartitionsAhead(int partitionsAhead) {
+            this.partitionsAhead = partitionsAhead;
+        }
+
+        /**
+         * What to do with an audit event when the queue is full.
+         */
+        public enum OverflowPolicy {
+
+            /**
+             * Wait until the writer makes room in the queue.
+             */
+            BLOCK,
+
+            /**
+             * Drop the event, counted by the audit.events.dropped metric.
+             */
+            DROP
+        }
+    }
 }
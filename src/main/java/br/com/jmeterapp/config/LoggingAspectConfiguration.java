@@ -1,15 +1,38 @@
 package br.com.jmeterapp.config;
 
 import br.com.jmeterapp.aop.logging.LoggingAspect;
+
+import com.codahale.metrics.MetricRegistry;
+import org.springframework.aop.Advisor;
+import org.springframework.aop.aspectj.AspectJExpressionPointcut;
+import org.springframework.aop.support.DefaultPointcutAdvisor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.*;
+import org.springframework.core.env.Environment;
 
+/**
+ * Traces the calls of the Spring components, when jhipster.logging.tracing.enabled is set.
+ * <p>
+ * The pointcut only matches the packages set in jhipster.logging.tracing.packages, so that the components of the
+ * other packages are not proxied.
+ * </p>
+ */
 @Configuration
 @EnableAspectJAutoProxy
+@ConditionalOnProperty(prefix = "jhipster.logging.tracing", name = "enabled", havingValue = "true")
 public class LoggingAspectConfiguration {
 
     @Bean
-    @Profile(Constants.SPRING_PROFILE_DEVELOPMENT)
-    public LoggingAspect loggingAspect() {
-        return new LoggingAspect();
+    public LoggingAspect loggingAspect(JHipsterProperties jHipsterProperties, MetricRegistry metricRegistry,
+                                       Environment env) {
+        return new LoggingAspect(jHipsterProperties.getLogging().getTracing(), metricRegistry, env);
+    }
+
+    @Bean
+    public Advisor loggingAdvisor(JHipsterProperties jHipsterProperties, LoggingAspect loggingAspect) {
+        AspectJExpressionPointcut pointcut = new AspectJExpressionPointcut();
+        pointcut.setExpression(
+            LoggingAspect.pointcutExpression(jHipsterProperties.getLogging().getTracing().getPackages()));
+        return new DefaultPointcutAdvisor(pointcut, loggingAspect);
     }
 }
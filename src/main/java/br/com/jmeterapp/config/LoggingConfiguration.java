@@ -1,8 +1,14 @@
 package br.com.jmeterapp.config;
 
-import ch.qos.logback.classic.AsyncAppender;
+import br.com.jmeterapp.config.logging.InstrumentedAsyncAppender;
+import br.com.jmeterapp.config.logging.InstrumentedLogstashTcpSocketAppender;
+
 import ch.qos.logback.classic.LoggerContext;
-import net.logstash.logback.appender.LogstashSocketAppender;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.Appender;
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.MetricRegistry;
+import net.logstash.logback.encoder.LogstashEncoder;
 import net.logstash.logback.stacktrace.ShortenedThrowableConverter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -10,11 +16,27 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Configuration;
 
 import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
 import javax.inject.Inject;
-
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Configuration of the appenders of the root logger.
+ * <p>
+ * In production, the appenders of logback-spring.xml are moved behind a ring buffer (jhipster.logging.async), so that
+ * the logging threads never block on their I/O, and the logs can be shipped to Logstash in JSON lines over a
+ * persistent TCP connection (jhipster.logging.logstash). Both drop the logs when their ring buffer is full, and
+ * publish the number of logs they dropped as the logging.[appender].dropped gauges.
+ * </p>
+ */
 @Configuration
 public class LoggingConfiguration {
 
+    private static final String ASYNC_APPENDER_NAME = "ASYNC";
+
+    private static final String LOGSTASH_APPENDER_NAME = "LOGSTASH";
+
     private final Logger log = LoggerFactory.getLogger(LoggingConfiguration.class);
 
     private LoggerContext context = (LoggerContext) LoggerFactory.getILoggerFactory();
@@ -28,42 +50,96 @@ public class LoggingConfiguration {
     @Inject
     private JHipsterProperties jHipsterProperties;
 
+    @Inject
+    private MetricRegistry metricRegistry;
+
+    private InstrumentedAsyncAppender asyncAppender;
+
+    private InstrumentedLogstashTcpSocketAppender logstashAppender;
+
     @PostConstruct
     private void init() {
+        if (jHipsterProperties.getLogging().getAsync().isEnabled()) {
+            addAsyncAppender();
+        }
         if (jHipsterProperties.getLogging().getLogstash().isEnabled()) {
             addLogstashAppender();
         }
     }
 
+    @PreDestroy
+    public void destroy() {
+        ch.qos.logback.classic.Logger rootLogger = context.getLogger(Logger.ROOT_LOGGER_NAME);
+        if (logstashAppender != null) {
+            rootLogger.detachAppender(logstashAppender);
+            logstashAppender.stop();
+        }
+        if (asyncAppender != null) {
+            // The ring buffer is drained when the appender stops, then its appenders are moved back to the root logger
+            rootLogger.detachAppender(asyncAppender);
+            asyncAppender.stop();
+            List<Appender<ILoggingEvent>> appenders = new ArrayList<>();
+            asyncAppender.iteratorForAppenders().forEachRemaining(appenders::add);
+            for (Appender<ILoggingEvent> appender : appenders) {
+                asyncAppender.detachAppender(appender);
+                appender.start();
+                rootLogger.addAppender(appender);
+            }
+        }
+    }
+
+    public void addAsyncAppender() {
+        log.info("Initializing asynchronous logging");
+        ch.qos.logback.classic.Logger rootLogger = context.getLogger(Logger.ROOT_LOGGER_NAME);
+
+        asyncAppender = new InstrumentedAsyncAppender();
+        asyncAppender.setContext(context);
+        asyncAppender.setName(ASYNC_APPENDER_NAME);
+        asyncAppender.setRingBufferSize(jHipsterProperties.getLogging().getAsync().getRingBufferSize());
+
+        // Move the appenders of the root logger behind the ring buffer
+        List<Appender<ILoggingEvent>> appenders = new ArrayList<>();
+        rootLogger.iteratorForAppenders().forEachRemaining(appenders::add);
+        appenders.forEach(asyncAppender::addAppender);
+        asyncAppender.start();
+        rootLogger.addAppender(asyncAppender);
+        appenders.forEach(rootLogger::detachAppender);
+
+        metricRegistry.register(MetricRegistry.name("logging", ASYNC_APPENDER_NAME.toLowerCase(), "dropped"),
+            (Gauge<Long>) asyncAppender::getDroppedCount);
+    }
+
     public void addLogstashAppender() {
         log.info("Initializing Logstash logging");
+        JHipsterProperties.Logging.Logstash logstash = jHipsterProperties.getLogging().getLogstash();
 
-        LogstashSocketAppender logstashAppender = new LogstashSocketAppender();
-        logstashAppender.setName("LOGSTASH");
+        logstashAppender = new InstrumentedLogstashTcpSocketAppender();
+        logstashAppender.setName(LOGSTASH_APPENDER_NAME);
         logstashAppender.setContext(context);
         String customFields = "{\"app_name\":\"" + appName + "\",\"app_port\":\"" + serverPort + "\"}";
 
         // Set the Logstash appender config from JHipster properties
-        logstashAppender.setSyslogHost(jHipsterProperties.getLogging().getLogstash().getHost());
-        logstashAppender.setPort(jHipsterProperties.getLogging().getLogstash().getPort());
-        logstashAppender.setCustomFields(customFields);
+        logstashAppender.addDestination(logstash.getHost() + ":" + logstash.getPort());
+        logstashAppender.setRingBufferSize(logstash.getQueueSize());
+        logstashAppender.setWriteBufferSize(logstash.getWriteBufferSize());
 
-        // Limit the maximum length of the forwarded stacktrace so that it won't exceed the 8KB UDP limit of logstash
+        // Limit the maximum length of the forwarded stacktrace, the root cause being the most useful part
         ShortenedThrowableConverter throwableConverter = new ShortenedThrowableConverter();
         throwableConverter.setMaxLength(7500);
         throwableConverter.setRootCauseFirst(true);
-        logstashAppender.setThrowableConverter(throwableConverter);
+
+        LogstashEncoder encoder = new LogstashEncoder();
+        encoder.setContext(context);
+        encoder.setCustomFields(customFields);
+        encoder.setThrowableConverter(throwableConverter);
+        encoder.start();
+        logstashAppender.setEncoder(encoder);
 
         logstashAppender.start();
 
-        // Wrap the appender in an Async appender for performance
-        AsyncAppender asyncLogstashAppender = new AsyncAppender();
-        asyncLogstashAppender.setContext(context);
-        asyncLogstashAppender.setName("ASYNC_LOGSTASH");
-        asyncLogstashAppender.setQueueSize(jHipsterProperties.getLogging().getLogstash().getQueueSize());
-        asyncLogstashAppender.addAppender(logstashAppender);
-        asyncLogstashAppender.start();
+        context.getLogger(Logger.ROOT_LOGGER_NAME).addAppender(logstashAppender);
 
-        context.getLogger("ROOT").addAppender(asyncLogstashAppender);
+        metricRegistry.register(MetricRegistry.name("logging", LOGSTASH_APPENDER_NAME.toLowerCase(), "dropped"),
+            (Gauge<Long>) logstashAppender::getDroppedCount);
     }
 }
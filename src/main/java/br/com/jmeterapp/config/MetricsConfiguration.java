@@ -1,6 +1,11 @@
 package br.com.jmeterapp.config;
 
 
+import br.com.jmeterapp.config.metrics.HibernateStatisticsGaugeSet;
+import br.com.jmeterapp.config.metrics.SqlStatisticsGaugeSet;
+import br.com.jmeterapp.config.metrics.SummingMetricRegistry;
+import br.com.jmeterapp.config.metrics.SqlStatisticsSessionEventListener;
+
 import com.codahale.metrics.JmxReporter;
 import com.codahale.metrics.MetricRegistry;
 import com.codahale.metrics.Slf4jReporter;
@@ -13,14 +18,18 @@ import com.ryantenney.metrics.spring.config.annotation.MetricsConfigurerAdapter;
 import com.zaxxer.hikari.HikariDataSource;
 
 import fr.ippon.spark.metrics.SparkReporter;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.orm.jpa.JpaProperties;
 import org.springframework.context.annotation.*;
 
 import javax.annotation.PostConstruct;
 import javax.inject.Inject;
+import javax.persistence.EntityManagerFactory;
 import java.lang.management.ManagementFactory;
 import java.net.InetSocketAddress;
 import java.util.concurrent.TimeUnit;
@@ -37,7 +46,7 @@ public class MetricsConfiguration extends MetricsConfigurerAdapter {
 
     private final Logger log = LoggerFactory.getLogger(MetricsConfiguration.class);
 
-    private MetricRegistry metricRegistry = new MetricRegistry();
+    private MetricRegistry metricRegistry = new SummingMetricRegistry();
 
     private HealthCheckRegistry healthCheckRegistry = new HealthCheckRegistry();
 
@@ -145,4 +154,39 @@ public class MetricsConfiguration extends MetricsConfigurerAdapter {
         }
     }
 
+    @Configuration
+    @ConditionalOnClass(SessionFactory.class)
+    public static class HibernateStatisticsRegistry {
+
+        private static final String PROP_METRIC_REG_HIBERNATE = "hibernate";
+
+        private static final String PROP_METRIC_REG_SQL = "sql";
+
+        private final Logger log = LoggerFactory.getLogger(HibernateStatisticsRegistry.class);
+
+        @Inject
+        private MetricRegistry metricRegistry;
+
+        @Inject
+        private EntityManagerFactory entityManagerFactory;
+
+        @Inject
+        private JpaProperties jpaProperties;
+
+        @PostConstruct
+        private void init() {
+            Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+            if (statistics.isStatisticsEnabled()) {
+                log.debug("Registering Hibernate statistics gauges");
+                metricRegistry.register(PROP_METRIC_REG_HIBERNATE, new HibernateStatisticsGaugeSet(statistics));
+            }
+            // Counted by the session event listener, even when the Hibernate statistics are disabled, as in prod
+            String sessionListeners = jpaProperties.getProperties().get("hibernate.session.events.auto");
+            if (sessionListeners != null && sessionListeners.contains(SqlStatisticsSessionEventListener.class.getName())) {
+                log.debug("Registering SQL statistics gauges");
+                metricRegistry.register(PROP_METRIC_REG_SQL, new SqlStatisticsGaugeSet());
+            }
+        }
+    }
+
 }
@@ -3,7 +3,9 @@ package br.com.jmeterapp.config;
 import br.com.jmeterapp.security.*;
 import br.com.jmeterapp.web.filter.CsrfCookieGeneratorFilter;
 import br.com.jmeterapp.config.JHipsterProperties;
+import br.com.jmeterapp.service.UserService;
 
+import com.codahale.metrics.MetricRegistry;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.HttpMethod;
@@ -14,8 +16,6 @@ import org.springframework.security.config.annotation.web.builders.WebSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.annotation.web.configuration.WebSecurityConfigurerAdapter;
 import org.springframework.security.core.userdetails.UserDetailsService;
-import org.springframework.security.crypto.password.PasswordEncoder;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.data.repository.query.SecurityEvaluationContextExtension;
 import org.springframework.security.web.authentication.RememberMeServices;
 import org.springframework.security.web.csrf.CsrfFilter;
@@ -48,16 +48,28 @@ public class SecurityConfiguration extends WebSecurityConfigurerAdapter {
     @Inject
     private RememberMeServices rememberMeServices;
 
+    @Inject
+    private UserService userService;
+
+    @Inject
+    private PooledBCryptPasswordEncoder passwordEncoder;
+
+    /**
+     * Static, so that UserService can get the password encoder before this configuration, which needs UserService,
+     * is created.
+     */
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public static PooledBCryptPasswordEncoder passwordEncoder(JHipsterProperties jHipsterProperties,
+        MetricRegistry metricRegistry) {
+        return new PooledBCryptPasswordEncoder(jHipsterProperties.getSecurity().getPassword(), metricRegistry);
     }
 
     @Inject
     public void configureGlobal(AuthenticationManagerBuilder auth) throws Exception {
-        auth
-            .userDetailsService(userDetailsService)
-                .passwordEncoder(passwordEncoder());
+        RehashingAuthenticationProvider authenticationProvider =
+            new RehashingAuthenticationProvider(passwordEncoder, userService);
+        authenticationProvider.setUserDetailsService(userDetailsService);
+        auth.authenticationProvider(authenticationProvider);
     }
 
     @Override
@@ -114,6 +126,7 @@ public class SecurityConfiguration extends WebSecurityConfigurerAdapter {
             .antMatchers("/api/account/reset_password/finish").permitAll()
             .antMatchers("/api/profile-info").permitAll()
             .antMatchers("/api/**").authenticated()
+            .antMatchers(Constants.PROMETHEUS_PATH).access(prometheusAccess())
             .antMatchers("/management/**").hasAuthority(AuthoritiesConstants.ADMIN)
             .antMatchers("/v2/api-docs/**").permitAll()
             .antMatchers("/swagger-resources/configuration/ui").permitAll()
@@ -121,6 +134,14 @@ public class SecurityConfiguration extends WebSecurityConfigurerAdapter {
 
     }
 
+    /**
+     * The scrapers authenticate with the Prometheus token when it is set, and as administrators otherwise.
+     */
+    private String prometheusAccess() {
+        String token = jHipsterProperties.getMetrics().getPrometheus().getToken();
+        return token == null || token.isEmpty() ? "hasAuthority('" + AuthoritiesConstants.ADMIN + "')" : "permitAll";
+    }
+
     @Bean
     public SecurityEvaluationContextExtension securityEvaluationContextExtension() {
         return new SecurityEvaluationContextExtension();
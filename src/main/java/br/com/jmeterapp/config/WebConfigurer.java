@@ -3,7 +3,11 @@ package br.com.jmeterapp.config;
 import com.codahale.metrics.MetricRegistry;
 import com.codahale.metrics.servlet.InstrumentedFilter;
 import com.codahale.metrics.servlets.MetricsServlet;
+import br.com.jmeterapp.config.metrics.PrometheusMetricsServlet;
+import br.com.jmeterapp.config.metrics.RouteMetrics;
 import br.com.jmeterapp.web.filter.CachingHttpHeadersFilter;
+import br.com.jmeterapp.web.filter.RouteMetricsFilter;
+import br.com.jmeterapp.web.filter.SqlStatisticsFilter;
 
 import org.apache.catalina.webresources.StandardRoot;
 import org.slf4j.Logger;
@@ -43,6 +47,9 @@ public class WebConfigurer implements ServletContextInitializer, EmbeddedServlet
     @Autowired(required = false)
     private MetricRegistry metricRegistry;
 
+    @Autowired(required = false)
+    private RouteMetrics routeMetrics;
+
     @Override
     public void onStartup(ServletContext servletContext) throws ServletException {
         if (env.getActiveProfiles().length != 0) {
@@ -150,6 +157,24 @@ public class WebConfigurer implements ServletContextInitializer, EmbeddedServlet
         metricsFilter.addMappingForUrlPatterns(disps, true, "/*");
         metricsFilter.setAsyncSupported(true);
 
+        if (routeMetrics != null && jHipsterProperties.getMetrics().getRoutes().isEnabled()) {
+            log.debug("Registering Route Metrics Filter");
+            FilterRegistration.Dynamic routeMetricsFilter = servletContext.addFilter("routeMetricsFilter",
+                new RouteMetricsFilter(routeMetrics));
+
+            routeMetricsFilter.addMappingForUrlPatterns(disps, true, "/*");
+            routeMetricsFilter.setAsyncSupported(true);
+        }
+
+        if (routeMetrics != null && jHipsterProperties.getMetrics().getSql().isEnabled()) {
+            log.debug("Registering SQL Statistics Filter");
+            FilterRegistration.Dynamic sqlStatisticsFilter = servletContext.addFilter("sqlStatisticsFilter",
+                new SqlStatisticsFilter(routeMetrics, jHipsterProperties));
+
+            sqlStatisticsFilter.addMappingForUrlPatterns(disps, true, "/*");
+            sqlStatisticsFilter.setAsyncSupported(true);
+        }
+
         log.debug("Registering Metrics Servlet");
         ServletRegistration.Dynamic metricsAdminServlet =
             servletContext.addServlet("metricsServlet", new MetricsServlet());
@@ -157,6 +182,17 @@ public class WebConfigurer implements ServletContextInitializer, EmbeddedServlet
         metricsAdminServlet.addMapping("/management/jhipster/metrics/*");
         metricsAdminServlet.setAsyncSupported(true);
         metricsAdminServlet.setLoadOnStartup(2);
+
+        if (routeMetrics != null && jHipsterProperties.getMetrics().getPrometheus().isEnabled()) {
+            log.debug("Registering Prometheus Metrics Servlet");
+            ServletRegistration.Dynamic prometheusServlet = servletContext.addServlet("prometheusMetricsServlet",
+                new PrometheusMetricsServlet(metricRegistry, routeMetrics,
+                    jHipsterProperties.getMetrics().getPrometheus().getToken()));
+
+            prometheusServlet.addMapping(Constants.PROMETHEUS_PATH);
+            prometheusServlet.setAsyncSupported(true);
+            prometheusServlet.setLoadOnStartup(2);
+        }
     }
 
     @Bean
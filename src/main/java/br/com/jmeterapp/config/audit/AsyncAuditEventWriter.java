@@ -0,0 +1,220 @@
+package br.com.jmeterapp.config.audit;
+
+import br.com.jmeterapp.config.JHipsterProperties;
+import br.com.jmeterapp.config.JHipsterProperties.Audit.OverflowPolicy;
+import br.com.jmeterapp.domain.PersistentAuditEvent;
+
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.inject.Inject;
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Writes the audit events asynchronously, so that the requests raising them (logins, mostly) do not wait for
+ * their inserts.
+ * <p>
+ * Events are put in a bounded, lock-free queue, and written in JDBC batches on the "auditExecutor" every
+ * jhipster.audit.flushIntervalMillis, or as soon as a batch is full. When the queue is full, events either wait
+ * for room or are dropped, depending on jhipster.audit.overflowPolicy. The queue is drained on shutdown, until
+ * it is empty or jhipster.audit.shutdownTimeoutMillis is elapsed: the events still queued then, and the ones
+ * written afterwards, are counted as dropped.
+ * </p>
+ */
+@Component
+public class AsyncAuditEventWriter {
+
+    /**
+     * The queue size once the writer is stopped, so that no more event can be queued.
+     */
+    private static final int CLOSED = Integer.MIN_VALUE / 2;
+
+    private final Logger log = LoggerFactory.getLogger(AsyncAuditEventWriter.class);
+
+    private final Queue<PersistentAuditEvent> queue = new ConcurrentLinkedQueue<>();
+
+    private final AtomicInteger queueSize = new AtomicInteger();
+
+    private final AtomicBoolean flushRequested = new AtomicBoolean();
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Inject
+    private PlatformTransactionManager transactionManager;
+
+    @Inject
+    private JHipsterProperties jHipsterProperties;
+
+    @Inject
+    private MetricRegistry metricRegistry;
+
+    @Inject
+    @Qualifier("auditExecutor")
+    private AsyncTaskExecutor auditExecutor;
+
+    private TransactionTemplate transactionTemplate;
+
+    private Counter droppedEvents;
+
+    private Counter failedEvents;
+
+    private Timer batches;
+
+    private volatile boolean running;
+
+    @PostConstruct
+    public void start() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        droppedEvents = metricRegistry.counter("audit.events.dropped");
+        failedEvents = metricRegistry.counter("audit.events.failed");
+        batches = metricRegistry.timer("audit.events.batches");
+        metricRegistry.remove("audit.events.queued");
+        metricRegistry.register("audit.events.queued", (Gauge<Integer>) () -> Math.max(queueSize.get(), 0));
+        queue.clear();
+        queueSize.set(0);
+        running = true;
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        log.info("Writing the {} queued audit events", queueSize.get());
+        running = false;
+        long deadline = System.nanoTime() +
+            TimeUnit.MILLISECONDS.toNanos(jHipsterProperties.getAudit().getShutdownTimeoutMillis());
+        try {
+            // A write that reserved its place before running was cleared may still be queueing its event
+            do {
+                try {
+                    auditExecutor.submit(this::flush).get(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+                } catch (TaskRejectedException e) {
+                    // The audit executor is already shut down
+                    flush();
+                }
+                if (queueSize.get() > 0) {
+                    LockSupport.parkNanos(this, TimeUnit.MILLISECONDS.toNanos(1));
+                }
+            } while (queueSize.get() > 0 && System.nanoTime() < deadline);
+        } catch (ExecutionException | TimeoutException e) {
+            log.debug("Could not flush the audit events before shutdown: {}", e.getMessage());
+        }
+        int lost = queueSize.getAndSet(CLOSED);
+        if (lost > 0) {
+            log.warn("Could not write all the audit events before shutdown, {} are dropped", lost);
+            droppedEvents.inc(lost);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${jhipster.audit.flushIntervalMillis:1000}")
+    public void scheduledFlush() {
+        requestFlush();
+    }
+
+    /**
+     * Queues an audit event to be written.
+     *
+     * @param event the event to write
+     */
+    public void write(PersistentAuditEvent event) {
+        while (!reserve()) {
+            if (!running || jHipsterProperties.getAudit().getOverflowPolicy() == OverflowPolicy.DROP) {
+                log.debug("Dropped audit event {} of {}, the queue is full", event.getAuditEventType(), event.getPrincipal());
+                droppedEvents.inc();
+                return;
+            }
+            requestFlush();
+            LockSupport.parkNanos(this, TimeUnit.MILLISECONDS.toNanos(1));
+        }
+        queue.offer(event);
+        if (queueSize.get() >= jHipsterProperties.getAudit().getBatchSize()) {
+            requestFlush();
+        }
+    }
+
+    /**
+     * Writes all the queued events now.
+     */
+    public synchronized void flush() {
+        int batchSize = jHipsterProperties.getAudit().getBatchSize();
+        List<PersistentAuditEvent> batch = new ArrayList<>(batchSize);
+        PersistentAuditEvent event;
+        while ((event = queue.poll()) != null) {
+            queueSize.decrementAndGet();
+            batch.add(event);
+            if (batch.size() == batchSize) {
+                writeBatch(batch);
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty()) {
+            writeBatch(batch);
+        }
+    }
+
+    private boolean reserve() {
+        int capacity = jHipsterProperties.getAudit().getQueueCapacity();
+        int size;
+        do {
+            size = queueSize.get();
+            if (size < 0 || size >= capacity) {
+                return false;
+            }
+        } while (!queueSize.compareAndSet(size, size + 1));
+        return true;
+    }
+
+    /**
+     * Writes the queued events on the audit executor, unless a flush is already waiting to run.
+     */
+    private void requestFlush() {
+        if (running && flushRequested.compareAndSet(false, true)) {
+            try {
+                auditExecutor.execute(() -> {
+                    flushRequested.set(false);
+                    flush();
+                });
+            } catch (TaskRejectedException e) {
+                flushRequested.set(false);
+                log.debug("Could not request a flush of the audit events: {}", e.getMessage());
+            }
+        }
+    }
+
+    private void writeBatch(List<PersistentAuditEvent> batch) {
+        try (Timer.Context ignored = batches.time()) {
+            transactionTemplate.execute(status -> {
+                batch.forEach(entityManager::persist);
+                entityManager.flush();
+                entityManager.clear();
+                return null;
+            });
+        } catch (RuntimeException e) {
+            log.error("Could not write {} audit events: {}", batch.size(), e.getMessage());
+            failedEvents.inc(batch.size());
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package br.com.jmeterapp.config.logging;
+
+import net.logstash.logback.encoder.com.lmax.disruptor.EventTranslatorOneArg;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts the events dropped by a ring buffer appender, when its ring buffer is full: the events appended, minus
+ * the events published in the ring buffer.
+ */
+final class DroppedEventCounter {
+
+    private final LongAdder appended = new LongAdder();
+
+    private final LongAdder published = new LongAdder();
+
+    void appended() {
+        appended.increment();
+    }
+
+    /**
+     * @param translator the translator publishing the events in the ring buffer
+     * @return the translator, counting the events it publishes
+     */
+    <T, E> EventTranslatorOneArg<T, E> counting(EventTranslatorOneArg<T, E> translator) {
+        return (logEvent, sequence, event) -> {
+            translator.translateTo(logEvent, sequence, event);
+            published.increment();
+        };
+    }
+
+    long getDroppedCount() {
+        return Math.max(0, appended.sum() - published.sum());
+    }
+}
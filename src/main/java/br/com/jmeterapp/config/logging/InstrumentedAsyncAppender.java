@@ -0,0 +1,33 @@
+package br.com.jmeterapp.config.logging;
+
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import net.logstash.logback.appender.LoggingEventAsyncDisruptorAppender;
+
+/**
+ * An asynchronous appender, passing the events to its appenders through a ring buffer, and counting the events it
+ * drops.
+ * <p>
+ * Appending an event never blocks the logging thread: when the ring buffer is full, the event is dropped.
+ * </p>
+ */
+public class InstrumentedAsyncAppender extends LoggingEventAsyncDisruptorAppender {
+
+    private final DroppedEventCounter droppedEventCounter = new DroppedEventCounter();
+
+    public InstrumentedAsyncAppender() {
+        setEventTranslator(droppedEventCounter.counting(getEventTranslator()));
+    }
+
+    @Override
+    protected void append(ILoggingEvent event) {
+        droppedEventCounter.appended();
+        super.append(event);
+    }
+
+    /**
+     * @return the number of events dropped since the appender was created
+     */
+    public long getDroppedCount() {
+        return droppedEventCounter.getDroppedCount();
+    }
+}
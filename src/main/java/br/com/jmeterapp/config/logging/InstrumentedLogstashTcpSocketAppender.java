@@ -0,0 +1,34 @@
+package br.com.jmeterapp.config.logging;
+
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import net.logstash.logback.appender.LogstashTcpSocketAppender;
+
+/**
+ * A Logstash appender, counting the events it drops.
+ * <p>
+ * The events are passed through a ring buffer to a thread that encodes them in its write buffer, and writes it to
+ * a persistent TCP connection when it is full or when the ring buffer is empty, so that the events are shipped in
+ * batches. Appending an event never blocks the logging thread: when the ring buffer is full, the event is dropped.
+ * </p>
+ */
+public class InstrumentedLogstashTcpSocketAppender extends LogstashTcpSocketAppender {
+
+    private final DroppedEventCounter droppedEventCounter = new DroppedEventCounter();
+
+    public InstrumentedLogstashTcpSocketAppender() {
+        setEventTranslator(droppedEventCounter.counting(getEventTranslator()));
+    }
+
+    @Override
+    protected void append(ILoggingEvent event) {
+        droppedEventCounter.appended();
+        super.append(event);
+    }
+
+    /**
+     * @return the number of events dropped since the appender was created
+     */
+    public long getDroppedCount() {
+        return droppedEventCounter.getDroppedCount();
+    }
+}
@@ -0,0 +1,4 @@
+/**
+ * Logging specific code.
+ */
+package br.com.jmeterapp.config.logging;
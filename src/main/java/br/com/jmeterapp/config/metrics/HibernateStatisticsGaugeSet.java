@@ -0,0 +1,55 @@
+package br.com.jmeterapp.config.metrics;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Metric;
+import com.codahale.metrics.MetricSet;
+import org.hibernate.stat.Statistics;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.ToLongFunction;
+
+/**
+ * Gauges of the statistics of a Hibernate SessionFactory, since it was started.
+ * <p>
+ * The statistics are only collected when hibernate.generate_statistics is set.
+ * </p>
+ */
+public class HibernateStatisticsGaugeSet implements MetricSet {
+
+    private final Statistics statistics;
+
+    public HibernateStatisticsGaugeSet(Statistics statistics) {
+        this.statistics = statistics;
+    }
+
+    @Override
+    public Map<String, Metric> getMetrics() {
+        Map<String, Metric> gauges = new HashMap<>();
+        gauges.put("sessions.opened", gauge(Statistics::getSessionOpenCount));
+        gauges.put("transactions", gauge(Statistics::getTransactionCount));
+        gauges.put("transactions.optimistic-failures", gauge(Statistics::getOptimisticFailureCount));
+        gauges.put("statements.prepared", gauge(Statistics::getPrepareStatementCount));
+        gauges.put("queries.executed", gauge(Statistics::getQueryExecutionCount));
+        gauges.put("queries.max-time", gauge(Statistics::getQueryExecutionMaxTime));
+        gauges.put("entities.loaded", gauge(Statistics::getEntityLoadCount));
+        gauges.put("entities.fetched", gauge(Statistics::getEntityFetchCount));
+        gauges.put("entities.inserted", gauge(Statistics::getEntityInsertCount));
+        gauges.put("entities.updated", gauge(Statistics::getEntityUpdateCount));
+        gauges.put("entities.deleted", gauge(Statistics::getEntityDeleteCount));
+        gauges.put("collections.loaded", gauge(Statistics::getCollectionLoadCount));
+        gauges.put("collections.fetched", gauge(Statistics::getCollectionFetchCount));
+        gauges.put("flushes", gauge(Statistics::getFlushCount));
+        gauges.put("cache.second-level.hits", gauge(Statistics::getSecondLevelCacheHitCount));
+        gauges.put("cache.second-level.misses", gauge(Statistics::getSecondLevelCacheMissCount));
+        gauges.put("cache.second-level.puts", gauge(Statistics::getSecondLevelCachePutCount));
+        gauges.put("cache.query.hits", gauge(Statistics::getQueryCacheHitCount));
+        gauges.put("cache.query.misses", gauge(Statistics::getQueryCacheMissCount));
+        return Collections.unmodifiableMap(gauges);
+    }
+
+    private Gauge<Long> gauge(ToLongFunction<Statistics> value) {
+        return () -> value.applyAsLong(statistics);
+    }
+}
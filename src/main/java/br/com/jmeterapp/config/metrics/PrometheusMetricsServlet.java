@@ -0,0 +1,102 @@
+package br.com.jmeterapp.config.metrics;
+
+import com.codahale.metrics.MetricRegistry;
+
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.function.Predicate;
+
+/**
+ * Exposes the metric registry in the Prometheus text format, to be scraped.
+ * <p>
+ * The metrics can be filtered with "prefix" parameters, matching the beginning of their Dropwizard names, as in
+ * ?prefix=jvm.memory&amp;prefix=http.routes. The output is written in a buffer of each thread, reused by its next
+ * scrapes. When a token is set, the scrapers must send it as a bearer token, instead of being authenticated as an
+ * administrator.
+ * </p>
+ */
+public class PrometheusMetricsServlet extends HttpServlet {
+
+    private static final int INITIAL_BUFFER_SIZE = 64 * 1024;
+
+    private static final int MAX_RETAINED_BUFFER_SIZE = 1024 * 1024;
+
+    private static final int CHUNK_SIZE = 8 * 1024;
+
+    private static final ThreadLocal<Buffer> BUFFERS = ThreadLocal.withInitial(Buffer::new);
+
+    private final transient MetricRegistry metricRegistry;
+
+    private final transient RouteMetrics routeMetrics;
+
+    private final byte[] token;
+
+    private final transient PrometheusTextFormat textFormat = new PrometheusTextFormat();
+
+    /**
+     * @param metricRegistry the registry to expose
+     * @param routeMetrics the routes, exposed with labels
+     * @param token the bearer token of the scrapers, or null if they are authenticated as administrators
+     */
+    public PrometheusMetricsServlet(MetricRegistry metricRegistry, RouteMetrics routeMetrics, String token) {
+        this.metricRegistry = metricRegistry;
+        this.routeMetrics = routeMetrics;
+        this.token = token == null || token.isEmpty() ? null : ("Bearer " + token).getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Override
+    protected void doGet(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        if (token != null && !isAuthorized(request.getHeader("Authorization"))) {
+            response.setHeader("WWW-Authenticate", "Bearer");
+            response.sendError(HttpServletResponse.SC_UNAUTHORIZED);
+            return;
+        }
+        Buffer buffer = BUFFERS.get();
+        StringBuilder output = buffer.output;
+        output.setLength(0);
+        textFormat.write(metricRegistry, routeMetrics, filter(request.getParameterValues("prefix")),
+            output);
+
+        response.setStatus(HttpServletResponse.SC_OK);
+        response.setContentType(PrometheusTextFormat.CONTENT_TYPE);
+        response.setHeader("Cache-Control", "must-revalidate,no-cache,no-store");
+        Writer writer = response.getWriter();
+        for (int start = 0; start < output.length(); start += CHUNK_SIZE) {
+            int end = Math.min(start + CHUNK_SIZE, output.length());
+            output.getChars(start, end, buffer.chunk, 0);
+            writer.write(buffer.chunk, 0, end - start);
+        }
+        writer.flush();
+        if (output.capacity() > MAX_RETAINED_BUFFER_SIZE) {
+            BUFFERS.remove();
+        }
+    }
+
+    private boolean isAuthorized(String authorization) {
+        return authorization != null
+            && MessageDigest.isEqual(token, authorization.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static Predicate<String> filter(String[] prefixes) {
+        if (prefixes == null || prefixes.length == 0) {
+            return name -> true;
+        }
+        return name -> Arrays.stream(prefixes).anyMatch(name::startsWith);
+    }
+
+    /**
+     * The output of a thread, and the chunk in which it is copied to the response.
+     */
+    private static final class Buffer {
+
+        private final StringBuilder output = new StringBuilder(INITIAL_BUFFER_SIZE);
+
+        private final char[] chunk = new char[CHUNK_SIZE];
+    }
+}
@@ -0,0 +1,335 @@
+package br.com.jmeterapp.config.metrics;
+
+import com.codahale.metrics.*;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+
+/**
+ * Writes the metrics of a Dropwizard registry in the Prometheus text format (version 0.0.4).
+ * <p>
+ * The metric names are sanitized into Prometheus names once, and cached. The gauges are written as gauges, the
+ * counters and the counts of the meters as counters, and the histograms and timers as summaries with the quantiles of
+ * their snapshot, the timers in seconds; the summaries have a sum when the metric adds up its values, as the
+ * {@link SummingHistogram} and {@link SummingTimer} do. The timers of the {@link RouteMetrics} are written as one
+ * summary, http_server_requests_seconds, with the method, the URI template and the status as labels, and their SQL
+ * activity as the summaries http_server_requests_sql_statements, http_server_requests_sql_entities and
+ * http_server_requests_sql_seconds, with the method and the URI template as labels.
+ * </p>
+ * <p>
+ * As a scrape fails when a name is declared twice, a metric whose sanitized name, or the name of one of its series,
+ * is already used in the scrape is written with a suffix made from the hash of its Dropwizard name.
+ * </p>
+ */
+public class PrometheusTextFormat {
+
+    public static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+    private static final String ROUTES_NAME = "http_server_requests_seconds";
+
+    private static final String SQL_STATEMENTS_NAME = "http_server_requests_sql_statements";
+
+    private static final String SQL_ENTITIES_NAME = "http_server_requests_sql_entities";
+
+    private static final String SQL_TIME_NAME = "http_server_requests_sql_seconds";
+
+    private static final double[] QUANTILES = {0.5, 0.75, 0.95, 0.98, 0.99, 0.999};
+
+    private static final String[] QUANTILE_LABELS = {"0.5", "0.75", "0.95", "0.98", "0.99", "0.999"};
+
+    private static final double SECONDS_PER_NANO = 1.0 / TimeUnit.SECONDS.toNanos(1);
+
+    private final Logger log = LoggerFactory.getLogger(PrometheusTextFormat.class);
+
+    private final ConcurrentMap<String, String> names = new ConcurrentHashMap<>();
+
+    private final Set<String> renamedMetrics = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Writes the metrics of the registry.
+     *
+     * @param registry the registry
+     * @param routeMetrics the routes, whose metrics are written with labels
+     * @param filter the Dropwizard names of the metrics to write
+     * @param output the buffer to write to
+     */
+    public void write(MetricRegistry registry, RouteMetrics routeMetrics, Predicate<String> filter,
+                      StringBuilder output) {
+        Set<String> usedNames = new HashSet<>();
+        for (String name : new String[]{ROUTES_NAME, SQL_STATEMENTS_NAME, SQL_ENTITIES_NAME, SQL_TIME_NAME}) {
+            claimSummary(name, usedNames);
+        }
+        MetricFilter metricFilter = (name, metric) -> !routeMetrics.isRouteMetric(name) && filter.test(name);
+        for (Map.Entry<String, Gauge> entry : registry.getGauges(metricFilter).entrySet()) {
+            writeGauge(entry.getKey(), entry.getValue(), usedNames, output);
+        }
+        for (Map.Entry<String, Counter> entry : registry.getCounters(metricFilter).entrySet()) {
+            String name = uniqueName(entry.getKey(), "", false, usedNames);
+            writeType(name, "counter", output);
+            writeSample(name, entry.getValue().getCount(), output);
+        }
+        for (Map.Entry<String, Histogram> entry : registry.getHistograms(metricFilter).entrySet()) {
+            String name = uniqueName(entry.getKey(), "", true, usedNames);
+            writeType(name, "summary", output);
+            writeSummary(name, null, entry.getValue(), 1.0, output);
+        }
+        for (Map.Entry<String, Meter> entry : registry.getMeters(metricFilter).entrySet()) {
+            String name = uniqueName(entry.getKey(), "_total", false, usedNames);
+            writeType(name, "counter", output);
+            writeSample(name, entry.getValue().getCount(), output);
+        }
+        for (Map.Entry<String, Timer> entry : registry.getTimers(metricFilter).entrySet()) {
+            String name = uniqueName(entry.getKey(), "_seconds", true, usedNames);
+            writeType(name, "summary", output);
+            writeSummary(name, null, entry.getValue(), SECONDS_PER_NANO, output);
+        }
+        writeRoutes(routeMetrics.getRoutes(), filter, output);
+        writeSqlRoutes(routeMetrics.getSqlRoutes(), filter, output);
+    }
+
+    private void writeRoutes(Map<String, RouteMetrics.Route> routes, Predicate<String> filter, StringBuilder output) {
+        boolean typeWritten = false;
+        StringBuilder labels = new StringBuilder(128);
+        for (Map.Entry<String, RouteMetrics.Route> entry : routes.entrySet()) {
+            if (!filter.test(entry.getKey())) {
+                continue;
+            }
+            if (!typeWritten) {
+                writeType(ROUTES_NAME, "summary", output);
+                typeWritten = true;
+            }
+            RouteMetrics.Route route = entry.getValue();
+            labels.setLength(0);
+            appendRouteLabels(route.getMethod(), route.getUriTemplate(), labels);
+            labels.append(",status=\"").append(route.getStatus()).append('"');
+            writeSummary(ROUTES_NAME, labels, route.getTimer(), SECONDS_PER_NANO, output);
+        }
+    }
+
+    private void writeSqlRoutes(Map<String, RouteMetrics.SqlRoute> sqlRoutes, Predicate<String> filter,
+                                StringBuilder output) {
+        List<RouteMetrics.SqlRoute> routes = new ArrayList<>(sqlRoutes.size());
+        for (Map.Entry<String, RouteMetrics.SqlRoute> entry : sqlRoutes.entrySet()) {
+            if (filter.test(entry.getKey())) {
+                routes.add(entry.getValue());
+            }
+        }
+        if (routes.isEmpty()) {
+            return;
+        }
+        // The series of a metric must follow its type, so each summary is written for all the routes in turn
+        StringBuilder labels = new StringBuilder(128);
+        writeType(SQL_STATEMENTS_NAME, "summary", output);
+        for (RouteMetrics.SqlRoute route : routes) {
+            labels.setLength(0);
+            appendRouteLabels(route.getMethod(), route.getUriTemplate(), labels);
+            writeSummary(SQL_STATEMENTS_NAME, labels, route.getStatements(), 1.0, output);
+        }
+        writeType(SQL_ENTITIES_NAME, "summary", output);
+        for (RouteMetrics.SqlRoute route : routes) {
+            labels.setLength(0);
+            appendRouteLabels(route.getMethod(), route.getUriTemplate(), labels);
+            writeSummary(SQL_ENTITIES_NAME, labels, route.getEntities(), 1.0, output);
+        }
+        writeType(SQL_TIME_NAME, "summary", output);
+        for (RouteMetrics.SqlRoute route : routes) {
+            labels.setLength(0);
+            appendRouteLabels(route.getMethod(), route.getUriTemplate(), labels);
+            writeSummary(SQL_TIME_NAME, labels, route.getTime(), SECONDS_PER_NANO, output);
+        }
+    }
+
+    private static void appendRouteLabels(String method, String uriTemplate, StringBuilder labels) {
+        labels.append("method=\"");
+        appendLabelValue(method, labels);
+        labels.append("\",uri=\"");
+        appendLabelValue(uriTemplate, labels);
+        labels.append('"');
+    }
+
+    private void writeGauge(String metricName, Gauge gauge, Set<String> usedNames, StringBuilder output) {
+        Object value;
+        try {
+            value = gauge.getValue();
+        } catch (RuntimeException e) {
+            // A gauge that can not be read, like the ones of a closed pool, is not exposed
+            return;
+        }
+        if (value instanceof Number) {
+            String name = uniqueName(metricName, "", false, usedNames);
+            writeType(name, "gauge", output);
+            writeSample(name, ((Number) value).doubleValue(), output);
+        } else if (value instanceof Boolean) {
+            String name = uniqueName(metricName, "", false, usedNames);
+            writeType(name, "gauge", output);
+            writeSample(name, (Boolean) value ? 1 : 0, output);
+        }
+    }
+
+    private static void writeSummary(String name, CharSequence labels, Sampling sampling, double factor,
+                                     StringBuilder output) {
+        Snapshot snapshot = sampling.getSnapshot();
+        for (int i = 0; i < QUANTILES.length; i++) {
+            output.append(name).append('{');
+            if (labels != null) {
+                output.append(labels).append(',');
+            }
+            output.append("quantile=\"").append(QUANTILE_LABELS[i]).append("\"} ");
+            appendDouble(snapshot.getValue(QUANTILES[i]) * factor, output);
+            output.append('\n');
+        }
+        Long sum = sum(sampling);
+        if (sum != null) {
+            output.append(name).append("_sum");
+            appendLabels(labels, output);
+            output.append(' ');
+            appendDouble(sum * factor, output);
+            output.append('\n');
+        }
+        output.append(name).append("_count");
+        appendLabels(labels, output);
+        output.append(' ').append(((Counting) sampling).getCount()).append('\n');
+    }
+
+    /**
+     * @return the sum of the values of the histogram or timer, or null if it does not add them up
+     */
+    private static Long sum(Sampling sampling) {
+        if (sampling instanceof SummingTimer) {
+            return ((SummingTimer) sampling).getSum();
+        }
+        if (sampling instanceof SummingHistogram) {
+            return ((SummingHistogram) sampling).getSum();
+        }
+        return null;
+    }
+
+    private static void appendLabels(CharSequence labels, StringBuilder output) {
+        if (labels != null) {
+            output.append('{').append(labels).append('}');
+        }
+    }
+
+    private static void writeType(String name, String type, StringBuilder output) {
+        output.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+    }
+
+    private static void writeSample(String name, long value, StringBuilder output) {
+        output.append(name).append(' ').append(value).append('\n');
+    }
+
+    private static void writeSample(String name, double value, StringBuilder output) {
+        output.append(name).append(' ');
+        appendDouble(value, output);
+        output.append('\n');
+    }
+
+    private static void appendDouble(double value, StringBuilder output) {
+        if (Double.isNaN(value)) {
+            output.append("NaN");
+        } else if (Double.isInfinite(value)) {
+            output.append(value > 0 ? "+Inf" : "-Inf");
+        } else if (value == Math.rint(value) && Math.abs(value) < 1e15) {
+            output.append((long) value);
+        } else {
+            output.append(value);
+        }
+    }
+
+    private static void appendLabelValue(String value, StringBuilder output) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '\\' || c == '"') {
+                output.append('\\').append(c);
+            } else if (c == '\n') {
+                output.append("\\n");
+            } else {
+                output.append(c);
+            }
+        }
+    }
+
+    /**
+     * @return the name of a Dropwizard metric in Prometheus: its characters other than letters, digits, and
+     * underscores are replaced by underscores
+     */
+    String prometheusName(String name) {
+        return names.computeIfAbsent(name, PrometheusTextFormat::sanitize);
+    }
+
+    /**
+     * Claims the Prometheus name of a metric in a scrape, with the names of its series.
+     *
+     * @param metricName the Dropwizard name of the metric
+     * @param suffix the suffix of its Prometheus name
+     * @param summary true if the metric is a summary, with _sum and _count series
+     * @param usedNames the names already used in the scrape
+     * @return the Prometheus name of the metric, unique in the scrape
+     */
+    private String uniqueName(String metricName, String suffix, boolean summary, Set<String> usedNames) {
+        String name = prometheusName(metricName) + suffix;
+        if (claim(name, summary, usedNames)) {
+            return name;
+        }
+        String hash = Integer.toHexString(metricName.hashCode());
+        String uniqueName = prometheusName(metricName) + '_' + hash + suffix;
+        for (int i = 2; !claim(uniqueName, summary, usedNames); i++) {
+            uniqueName = prometheusName(metricName) + '_' + hash + '_' + i + suffix;
+        }
+        if (renamedMetrics.add(metricName)) {
+            log.warn("The Prometheus name {} of the metric {} is already used, it is exposed as {}", name, metricName,
+                uniqueName);
+        }
+        return uniqueName;
+    }
+
+    private static boolean claim(String name, boolean summary, Set<String> usedNames) {
+        if (summary) {
+            return claimSummary(name, usedNames);
+        }
+        if (usedNames.contains(name)) {
+            return false;
+        }
+        usedNames.add(name);
+        return true;
+    }
+
+    private static boolean claimSummary(String name, Set<String> usedNames) {
+        if (usedNames.contains(name) || usedNames.contains(name + "_sum") || usedNames.contains(name + "_count")) {
+            return false;
+        }
+        usedNames.add(name);
+        usedNames.add(name + "_sum");
+        usedNames.add(name + "_count");
+        return true;
+    }
+
+    private static String sanitize(String name) {
+        StringBuilder sanitized = new StringBuilder(name.length() + 1);
+        if (name.isEmpty() || Character.isDigit(name.charAt(0))) {
+            sanitized.append('_');
+        }
+        boolean underscore = false;
+        for (int i = 0; i < name.length(); i++) {
+            char c = name.charAt(i);
+            boolean valid = (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9') || c == '_';
+            if (valid) {
+                sanitized.append(c);
+                underscore = c == '_';
+            } else if (!underscore) {
+                sanitized.append('_');
+                underscore = true;
+            }
+        }
+        return sanitized.toString();
+    }
+}
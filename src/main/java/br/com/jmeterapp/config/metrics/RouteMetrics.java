@@ -0,0 +1,221 @@
+package br.com.jmeterapp.config.metrics;
+
+import br.com.jmeterapp.config.JHipsterProperties;
+
+import com.codahale.metrics.Clock;
+import com.codahale.metrics.MetricRegistry;
+import org.springframework.stereotype.Component;
+
+import javax.inject.Inject;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency of the HTTP requests, per route: the method, the URI template of the handler, and the status of the response.
+ * <p>
+ * Each route has a timer, registered as http.routes.[method].[URI template].[status] in the metric registry, whose
+ * reservoir is a {@link SlidingWindowHistogramReservoir} of jhipster.metrics.routes.windowSeconds: its percentiles
+ * are those of the requests of the window, and its histogram can be dumped to compare releases.
+ * </p>
+ * <p>
+ * The SQL activity of the requests is published per method and URI template, as the histograms
+ * http.routes.[method].[URI template].sql.statements and sql.entities, and the timer sql.time of the JDBC statements.
+ * </p>
+ * <p>
+ * The timers and histograms of the routes add up their values, to be exposed with a sum.
+ * </p>
+ */
+@Component
+public class RouteMetrics {
+
+    public static final String PREFIX = "http.routes";
+
+    /**
+     * The route of the requests that were not handled by a Spring MVC handler, so that their URIs are not used as
+     * metric names.
+     */
+    public static final String UNMATCHED_ROUTE = "UNMATCHED";
+
+    private static final long LOWEST_DISCERNIBLE_NANOS = TimeUnit.MICROSECONDS.toNanos(1);
+
+    private static final long HIGHEST_TRACKABLE_NANOS = TimeUnit.HOURS.toNanos(1);
+
+    private final ConcurrentMap<String, Route> routes = new ConcurrentHashMap<>();
+
+    private final ConcurrentMap<String, SqlRoute> sqlRoutes = new ConcurrentHashMap<>();
+
+    private final Set<String> sqlMetricNames = ConcurrentHashMap.newKeySet();
+
+    @Inject
+    private MetricRegistry metricRegistry;
+
+    @Inject
+    private JHipsterProperties jHipsterProperties;
+
+    /**
+     * Records the latency of a request.
+     *
+     * @param method the HTTP method of the request
+     * @param uriTemplate the URI template of its handler, or null if it was not handled by Spring MVC
+     * @param status the status of the response
+     * @param nanos the latency of the request, in nanoseconds
+     */
+    public void record(String method, String uriTemplate, int status, long nanos) {
+        String name = MetricRegistry.name(PREFIX, method, uriTemplate == null ? UNMATCHED_ROUTE : uriTemplate,
+            Integer.toString(status));
+        routes.computeIfAbsent(name, key -> register(key, method, uriTemplate, status))
+            .timer.update(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Records the SQL activity of a request.
+     *
+     * @param method the HTTP method of the request
+     * @param uriTemplate the URI template of its handler, or null if it was not handled by Spring MVC
+     * @param statistics the SQL statistics of the request
+     */
+    public void recordSql(String method, String uriTemplate, SqlStatistics statistics) {
+        String name = MetricRegistry.name(PREFIX, method, uriTemplate == null ? UNMATCHED_ROUTE : uriTemplate, "sql");
+        SqlRoute route = sqlRoutes.computeIfAbsent(name, key -> registerSql(key, method, uriTemplate));
+        route.statements.update(statistics.getStatements());
+        route.entities.update(statistics.getEntityLoads());
+        route.time.update(statistics.getJdbcNanos(), TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * @return the recorded routes, by metric name
+     */
+    public Map<String, Route> getRoutes() {
+        return Collections.unmodifiableMap(routes);
+    }
+
+    /**
+     * @return the recorded SQL activity of the routes, by metric name prefix
+     */
+    public Map<String, SqlRoute> getSqlRoutes() {
+        return Collections.unmodifiableMap(sqlRoutes);
+    }
+
+    /**
+     * @param name the name of a metric of the registry
+     * @return true if the metric is one of the routes
+     */
+    public boolean isRouteMetric(String name) {
+        return routes.containsKey(name) || sqlMetricNames.contains(name);
+    }
+
+    private Route register(String name, String method, String uriTemplate, int status) {
+        JHipsterProperties.Metrics.Routes properties = jHipsterProperties.getMetrics().getRoutes();
+        SlidingWindowHistogramReservoir reservoir = new SlidingWindowHistogramReservoir(
+            properties.getWindowSeconds(), properties.getWindowSlices(), TimeUnit.SECONDS,
+            LOWEST_DISCERNIBLE_NANOS, HIGHEST_TRACKABLE_NANOS, Clock.defaultClock());
+        SummingTimer timer = metricRegistry.register(name, new SummingTimer(reservoir));
+        return new Route(method, uriTemplate == null ? UNMATCHED_ROUTE : uriTemplate, status, timer, reservoir);
+    }
+
+    private SqlRoute registerSql(String name, String method, String uriTemplate) {
+        SqlRoute route = new SqlRoute(method, uriTemplate == null ? UNMATCHED_ROUTE : uriTemplate,
+            metricRegistry.register(MetricRegistry.name(name, "statements"), new SummingHistogram()),
+            metricRegistry.register(MetricRegistry.name(name, "entities"), new SummingHistogram()),
+            metricRegistry.register(MetricRegistry.name(name, "time"), new SummingTimer()));
+        sqlMetricNames.add(MetricRegistry.name(name, "statements"));
+        sqlMetricNames.add(MetricRegistry.name(name, "entities"));
+        sqlMetricNames.add(MetricRegistry.name(name, "time"));
+        return route;
+    }
+
+    /**
+     * The timer and the histogram of a route.
+     */
+    public static final class Route {
+
+        private final String method;
+
+        private final String uriTemplate;
+
+        private final int status;
+
+        private final SummingTimer timer;
+
+        private final SlidingWindowHistogramReservoir reservoir;
+
+        private Route(String method, String uriTemplate, int status, SummingTimer timer,
+                      SlidingWindowHistogramReservoir reservoir) {
+            this.method = method;
+            this.uriTemplate = uriTemplate;
+            this.status = status;
+            this.timer = timer;
+            this.reservoir = reservoir;
+        }
+
+        public String getMethod() {
+            return method;
+        }
+
+        public String getUriTemplate() {
+            return uriTemplate;
+        }
+
+        public int getStatus() {
+            return status;
+        }
+
+        public SummingTimer getTimer() {
+            return timer;
+        }
+
+        public SlidingWindowHistogramReservoir.HistogramSnapshot getHistogram() {
+            return reservoir.getSnapshot();
+        }
+    }
+
+    /**
+     * The histograms of the SQL statements and entities of the requests of a method and URI template, and the timer
+     * of their JDBC statements.
+     */
+    public static final class SqlRoute {
+
+        private final String method;
+
+        private final String uriTemplate;
+
+        private final SummingHistogram statements;
+
+        private final SummingHistogram entities;
+
+        private final SummingTimer time;
+
+        private SqlRoute(String method, String uriTemplate, SummingHistogram statements, SummingHistogram entities,
+                         SummingTimer time) {
+            this.method = method;
+            this.uriTemplate = uriTemplate;
+            this.statements = statements;
+            this.entities = entities;
+            this.time = time;
+        }
+
+        public String getMethod() {
+            return method;
+        }
+
+        public String getUriTemplate() {
+            return uriTemplate;
+        }
+
+        public SummingHistogram getStatements() {
+            return statements;
+        }
+
+        public SummingHistogram getEntities() {
+            return entities;
+        }
+
+        public SummingTimer getTime() {
+            return time;
+        }
+    }
+}
@@ -0,0 +1,324 @@
+package br.com.jmeterapp.config.metrics;
+
+import com.codahale.metrics.Clock;
+import com.codahale.metrics.Reservoir;
+import com.codahale.metrics.Snapshot;
+
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A reservoir counting the values of a sliding time window in log-linear buckets, as HdrHistogram does.
+ * <p>
+ * Unlike the sampling reservoirs of Dropwizard, every value is counted, so the high percentiles are not lost in
+ * a sample: the values are counted with a relative precision of 1/64 (1.6%), between the lowest discernible value
+ * and the highest trackable value, above which they are counted as the highest trackable value. The window is
+ * divided into slices, and the slice of the oldest period is cleared when it is reused, so that the snapshot covers
+ * the last window, within one slice.
+ * </p>
+ */
+public class SlidingWindowHistogramReservoir implements Reservoir {
+
+    private static final int SUB_BUCKET_BITS = 7;
+
+    private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+
+    private static final int SUB_BUCKET_HALF_COUNT = SUB_BUCKET_COUNT / 2;
+
+    private final int unitMagnitude;
+
+    private final long highestTrackableValue;
+
+    private final int bucketCount;
+
+    private final long sliceNanos;
+
+    private final Slice[] slices;
+
+    private final Clock clock;
+
+    /**
+     * @param window the duration of the sliding window
+     * @param sliceCount the number of slices of the window
+     * @param windowUnit the unit of the window duration
+     * @param lowestDiscernibleValue the lowest value that is told apart from 0
+     * @param highestTrackableValue the highest value that is told apart from the higher ones
+     * @param clock the clock of the window
+     */
+    public SlidingWindowHistogramReservoir(long window, int sliceCount, TimeUnit windowUnit,
+                                           long lowestDiscernibleValue, long highestTrackableValue, Clock clock) {
+        if (sliceCount < 1 || windowUnit.toNanos(window) < sliceCount) {
+            throw new IllegalArgumentException("The window must be divided in at least one slice");
+        }
+        if (lowestDiscernibleValue < 1 || highestTrackableValue < 2 * lowestDiscernibleValue) {
+            throw new IllegalArgumentException("The highest trackable value must be at least twice the lowest " +
+                "discernible value");
+        }
+        this.unitMagnitude = 63 - Long.numberOfLeadingZeros(lowestDiscernibleValue);
+        this.highestTrackableValue = highestTrackableValue;
+        this.bucketCount = bucketIndex(highestTrackableValue) + 1;
+        this.sliceNanos = windowUnit.toNanos(window) / sliceCount;
+        this.slices = new Slice[sliceCount];
+        for (int i = 0; i < sliceCount; i++) {
+            slices[i] = new Slice();
+        }
+        this.clock = clock;
+    }
+
+    @Override
+    public int size() {
+        return getSnapshot().size();
+    }
+
+    @Override
+    public void update(long value) {
+        long epoch = epoch();
+        Slice slice = slices[(int) Math.floorMod(epoch, (long) slices.length)];
+        slice.counts(epoch, bucketCount).incrementAndGet(bucketIndex(Math.min(Math.max(value, 0),
+            highestTrackableValue)));
+    }
+
+    @Override
+    public HistogramSnapshot getSnapshot() {
+        long epoch = epoch();
+        long[] counts = new long[bucketCount];
+        for (Slice slice : slices) {
+            slice.addTo(counts, epoch - slices.length);
+        }
+        return new HistogramSnapshot(counts);
+    }
+
+    /**
+     * The index of the current slice period. The tick of the clock may be negative.
+     */
+    private long epoch() {
+        return Math.floorDiv(clock.getTick(), sliceNanos);
+    }
+
+    private int bucketIndex(long value) {
+        long units = value >>> unitMagnitude;
+        if (units < SUB_BUCKET_COUNT) {
+            return (int) units;
+        }
+        int shift = 63 - Long.numberOfLeadingZeros(units) - (SUB_BUCKET_BITS - 1);
+        return SUB_BUCKET_COUNT + (shift - 1) * SUB_BUCKET_HALF_COUNT
+            + (int) ((units >>> shift) - SUB_BUCKET_HALF_COUNT);
+    }
+
+    private long lowestEquivalentValue(int index) {
+        if (index < SUB_BUCKET_COUNT) {
+            return (long) index << unitMagnitude;
+        }
+        int shift = (index - SUB_BUCKET_COUNT) / SUB_BUCKET_HALF_COUNT + 1;
+        long subBucket = (index - SUB_BUCKET_COUNT) % SUB_BUCKET_HALF_COUNT + SUB_BUCKET_HALF_COUNT;
+        return subBucket << (shift + unitMagnitude);
+    }
+
+    private long highestEquivalentValue(int index) {
+        return lowestEquivalentValue(index + 1) - 1;
+    }
+
+    private long medianEquivalentValue(int index) {
+        return (lowestEquivalentValue(index) + highestEquivalentValue(index)) / 2;
+    }
+
+    /**
+     * The counts of one period of the window, allocated when the reservoir is first updated in that slice.
+     */
+    private static final class Slice {
+
+        private volatile long epoch = Long.MIN_VALUE;
+
+        private volatile AtomicLongArray counts;
+
+        private AtomicLongArray counts(long epoch, int bucketCount) {
+            if (this.epoch != epoch) {
+                synchronized (this) {
+                    if (this.epoch != epoch) {
+                        counts = new AtomicLongArray(bucketCount);
+                        this.epoch = epoch;
+                    }
+                }
+            }
+            return counts;
+        }
+
+        private void addTo(long[] total, long expiredEpoch) {
+            AtomicLongArray sliceCounts = counts;
+            if (sliceCounts == null || epoch <= expiredEpoch) {
+                return;
+            }
+            for (int i = 0; i < total.length; i++) {
+                total[i] += sliceCounts.get(i);
+            }
+        }
+    }
+
+    /**
+     * The bucket of a histogram: the values between lowestValue and highestValue, both included, were counted count
+     * times.
+     */
+    public static final class Bucket {
+
+        private final long lowestValue;
+
+        private final long highestValue;
+
+        private final long count;
+
+        private Bucket(long lowestValue, long highestValue, long count) {
+            this.lowestValue = lowestValue;
+            this.highestValue = highestValue;
+            this.count = count;
+        }
+
+        public long getLowestValue() {
+            return lowestValue;
+        }
+
+        public long getHighestValue() {
+            return highestValue;
+        }
+
+        public long getCount() {
+            return count;
+        }
+    }
+
+    /**
+     * The histogram of the window. As in HdrHistogram, the percentiles and the maximum are the highest value of
+     * their bucket, and the mean is computed with the middle value of the buckets.
+     */
+    public final class HistogramSnapshot extends Snapshot {
+
+        private final long[] counts;
+
+        private final long totalCount;
+
+        private HistogramSnapshot(long[] counts) {
+            this.counts = counts;
+            long total = 0;
+            for (long count : counts) {
+                total += count;
+            }
+            this.totalCount = total;
+        }
+
+        public long getTotalCount() {
+            return totalCount;
+        }
+
+        /**
+         * @return the buckets that counted at least one value, in the order of their values
+         */
+        public List<Bucket> getBuckets() {
+            List<Bucket> buckets = new ArrayList<>();
+            for (int i = 0; i < counts.length; i++) {
+                if (counts[i] > 0) {
+                    buckets.add(new Bucket(lowestEquivalentValue(i), highestEquivalentValue(i), counts[i]));
+                }
+            }
+            return buckets;
+        }
+
+        @Override
+        public double getValue(double quantile) {
+            if (quantile < 0.0 || quantile > 1.0 || Double.isNaN(quantile)) {
+                throw new IllegalArgumentException(quantile + " is not in [0..1]");
+            }
+            if (totalCount == 0) {
+                return 0.0;
+            }
+            long rank = Math.max(1, (long) Math.ceil(quantile * totalCount));
+            long cumulativeCount = 0;
+            for (int i = 0; i < counts.length; i++) {
+                cumulativeCount += counts[i];
+                if (cumulativeCount >= rank) {
+                    return highestEquivalentValue(i);
+                }
+            }
+            return getMax();
+        }
+
+        @Override
+        public long[] getValues() {
+            long[] values = new long[size()];
+            int position = 0;
+            for (int i = 0; i < counts.length && position < values.length; i++) {
+                for (long j = 0; j < counts[i] && position < values.length; j++) {
+                    values[position++] = medianEquivalentValue(i);
+                }
+            }
+            return values;
+        }
+
+        @Override
+        public int size() {
+            return (int) Math.min(totalCount, Integer.MAX_VALUE);
+        }
+
+        @Override
+        public long getMax() {
+            for (int i = counts.length - 1; i >= 0; i--) {
+                if (counts[i] > 0) {
+                    return highestEquivalentValue(i);
+                }
+            }
+            return 0;
+        }
+
+        @Override
+        public double getMean() {
+            if (totalCount == 0) {
+                return 0.0;
+            }
+            double sum = 0;
+            for (int i = 0; i < counts.length; i++) {
+                sum += (double) counts[i] * medianEquivalentValue(i);
+            }
+            return sum / totalCount;
+        }
+
+        @Override
+        public long getMin() {
+            for (int i = 0; i < counts.length; i++) {
+                if (counts[i] > 0) {
+                    return lowestEquivalentValue(i);
+                }
+            }
+            return 0;
+        }
+
+        @Override
+        public double getStdDev() {
+            if (totalCount <= 1) {
+                return 0.0;
+            }
+            double mean = getMean();
+            double sum = 0;
+            for (int i = 0; i < counts.length; i++) {
+                double deviation = medianEquivalentValue(i) - mean;
+                sum += counts[i] * deviation * deviation;
+            }
+            return Math.sqrt(sum / (totalCount - 1));
+        }
+
+        /**
+         * Writes a line per bucket: its lowest value, its highest value, and its count.
+         */
+        @Override
+        public void dump(OutputStream output) {
+            try (PrintWriter out = new PrintWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8))) {
+                for (Bucket bucket : getBuckets()) {
+                    out.printf("%d\t%d\t%d%n", bucket.getLowestValue(), bucket.getHighestValue(), bucket.getCount());
+                }
+            }
+        }
+    }
+}
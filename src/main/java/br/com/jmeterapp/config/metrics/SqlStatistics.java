@@ -0,0 +1,153 @@
+package br.com.jmeterapp.config.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The SQL activity of the current request: the JDBC statements it executed, the time they took, and the entities
+ * Hibernate loaded from their rows.
+ * <p>
+ * The statistics are bound to the thread of the request by {@link #begin()}, and are updated by the
+ * {@link SqlStatisticsSessionEventListener} and the {@link SqlStatisticsInterceptor} of the Hibernate sessions; the
+ * statements executed by other threads, like the asynchronous tasks, are not counted.
+ * </p>
+ * <p>
+ * The activity of all the sessions, whatever their thread, is also added to application-wide totals, published by
+ * the {@link SqlStatisticsGaugeSet} without the cost of hibernate.generate_statistics.
+ * </p>
+ */
+public final class SqlStatistics {
+
+    private static final ThreadLocal<SqlStatistics> CURRENT = new ThreadLocal<>();
+
+    private static final LongAdder TOTAL_SESSIONS = new LongAdder();
+
+    private static final LongAdder TOTAL_TRANSACTIONS = new LongAdder();
+
+    private static final LongAdder TOTAL_STATEMENTS = new LongAdder();
+
+    private static final LongAdder TOTAL_JDBC_NANOS = new LongAdder();
+
+    private static final LongAdder TOTAL_ENTITY_LOADS = new LongAdder();
+
+    private static final LongAdder TOTAL_FLUSHES = new LongAdder();
+
+    private int statements;
+
+    private long jdbcNanos;
+
+    private int entityLoads;
+
+    private int flushes;
+
+    private SqlStatistics() {
+    }
+
+    /**
+     * Binds new statistics to the current thread.
+     *
+     * @return the statistics of the current thread
+     */
+    public static SqlStatistics begin() {
+        SqlStatistics statistics = new SqlStatistics();
+        CURRENT.set(statistics);
+        return statistics;
+    }
+
+    /**
+     * Unbinds the statistics of the current thread.
+     */
+    public static void end() {
+        CURRENT.remove();
+    }
+
+    /**
+     * @return the statistics of the current thread, or null if none were bound to it
+     */
+    public static SqlStatistics current() {
+        return CURRENT.get();
+    }
+
+    static void sessionOpened() {
+        TOTAL_SESSIONS.increment();
+    }
+
+    static void transactionCompleted() {
+        TOTAL_TRANSACTIONS.increment();
+    }
+
+    static void statementExecuted(long nanos) {
+        TOTAL_STATEMENTS.increment();
+        TOTAL_JDBC_NANOS.add(nanos);
+        SqlStatistics statistics = CURRENT.get();
+        if (statistics != null) {
+            statistics.statements++;
+            statistics.jdbcNanos += nanos;
+        }
+    }
+
+    static void entityLoaded() {
+        TOTAL_ENTITY_LOADS.increment();
+        SqlStatistics statistics = CURRENT.get();
+        if (statistics != null) {
+            statistics.entityLoads++;
+        }
+    }
+
+    static void flushed() {
+        TOTAL_FLUSHES.increment();
+        SqlStatistics statistics = CURRENT.get();
+        if (statistics != null) {
+            statistics.flushes++;
+        }
+    }
+
+    static long getTotalSessions() {
+        return TOTAL_SESSIONS.sum();
+    }
+
+    static long getTotalTransactions() {
+        return TOTAL_TRANSACTIONS.sum();
+    }
+
+    static long getTotalStatements() {
+        return TOTAL_STATEMENTS.sum();
+    }
+
+    static long getTotalJdbcNanos() {
+        return TOTAL_JDBC_NANOS.sum();
+    }
+
+    static long getTotalEntityLoads() {
+        return TOTAL_ENTITY_LOADS.sum();
+    }
+
+    static long getTotalFlushes() {
+        return TOTAL_FLUSHES.sum();
+    }
+
+    public int getStatements() {
+        return statements;
+    }
+
+    public long getJdbcNanos() {
+        return jdbcNanos;
+    }
+
+    public int getEntityLoads() {
+        return entityLoads;
+    }
+
+    public int getFlushes() {
+        return flushes;
+    }
+
+    @Override
+    public String toString() {
+        return "SqlStatistics{" +
+            "statements=" + statements +
+            ", jdbcNanos=" + jdbcNanos +
+            ", entityLoads=" + entityLoads +
+            ", flushes=" + flushes +
+            '}';
+    }
+}
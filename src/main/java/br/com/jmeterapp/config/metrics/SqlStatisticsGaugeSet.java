@@ -0,0 +1,38 @@
+package br.com.jmeterapp.config.metrics;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Metric;
+import com.codahale.metrics.MetricSet;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Gauges of the SQL activity of all the Hibernate sessions, since the application was started.
+ * <p>
+ * The totals are counted by the {@link SqlStatisticsSessionEventListener} and the {@link SqlStatisticsInterceptor},
+ * so they are available when hibernate.generate_statistics is not set.
+ * </p>
+ */
+public class SqlStatisticsGaugeSet implements MetricSet {
+
+    @Override
+    public Map<String, Metric> getMetrics() {
+        Map<String, Metric> gauges = new HashMap<>();
+        gauges.put("sessions.opened", gauge(SqlStatistics::getTotalSessions));
+        gauges.put("transactions", gauge(SqlStatistics::getTotalTransactions));
+        gauges.put("statements.executed", gauge(SqlStatistics::getTotalStatements));
+        gauges.put("statements.time-millis",
+            gauge(() -> TimeUnit.NANOSECONDS.toMillis(SqlStatistics.getTotalJdbcNanos())));
+        gauges.put("entities.loaded", gauge(SqlStatistics::getTotalEntityLoads));
+        gauges.put("flushes", gauge(SqlStatistics::getTotalFlushes));
+        return Collections.unmodifiableMap(gauges);
+    }
+
+    private static Gauge<Long> gauge(LongSupplier value) {
+        return value::getAsLong;
+    }
+}
@@ -0,0 +1,21 @@
+package br.com.jmeterapp.config.metrics;
+
+import org.hibernate.EmptyInterceptor;
+import org.hibernate.type.Type;
+
+import java.io.Serializable;
+
+/**
+ * Counts the entities loaded by Hibernate in the {@link SqlStatistics}.
+ * <p>
+ * It is the interceptor of all the sessions, as it is set in the hibernate.ejb.interceptor property.
+ * </p>
+ */
+public class SqlStatisticsInterceptor extends EmptyInterceptor {
+
+    @Override
+    public boolean onLoad(Object entity, Serializable id, Object[] state, String[] propertyNames, Type[] types) {
+        SqlStatistics.entityLoaded();
+        return false;
+    }
+}
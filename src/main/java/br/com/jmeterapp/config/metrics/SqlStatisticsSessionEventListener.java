@@ -0,0 +1,53 @@
+package br.com.jmeterapp.config.metrics;
+
+import org.hibernate.BaseSessionEventListener;
+
+/**
+ * Counts the JDBC statements executed by a Hibernate session, and the time they took, in the {@link SqlStatistics}.
+ * <p>
+ * Hibernate creates a listener for each session, as it is set in the hibernate.session.events.auto property. A JDBC
+ * batch counts as one statement.
+ * </p>
+ */
+public class SqlStatisticsSessionEventListener extends BaseSessionEventListener {
+
+    private long executionStart;
+
+    public SqlStatisticsSessionEventListener() {
+        SqlStatistics.sessionOpened();
+    }
+
+    @Override
+    public void jdbcExecuteStatementStart() {
+        executionStart = System.nanoTime();
+    }
+
+    @Override
+    public void jdbcExecuteStatementEnd() {
+        executed();
+    }
+
+    @Override
+    public void jdbcExecuteBatchStart() {
+        executionStart = System.nanoTime();
+    }
+
+    @Override
+    public void jdbcExecuteBatchEnd() {
+        executed();
+    }
+
+    @Override
+    public void flushEnd(int numberOfEntities, int numberOfCollections) {
+        SqlStatistics.flushed();
+    }
+
+    @Override
+    public void transactionCompletion(boolean successful) {
+        SqlStatistics.transactionCompleted();
+    }
+
+    private void executed() {
+        SqlStatistics.statementExecuted(System.nanoTime() - executionStart);
+    }
+}
@@ -0,0 +1,33 @@
+package br.com.jmeterapp.config.metrics;
+
+import com.codahale.metrics.ExponentiallyDecayingReservoir;
+import com.codahale.metrics.Histogram;
+import com.codahale.metrics.Reservoir;
+
+/**
+ * A histogram that also adds up the values it recorded, with a {@link SummingReservoir}.
+ */
+public class SummingHistogram extends Histogram {
+
+    private final SummingReservoir reservoir;
+
+    public SummingHistogram() {
+        this(new ExponentiallyDecayingReservoir());
+    }
+
+    public SummingHistogram(Reservoir reservoir) {
+        this(new SummingReservoir(reservoir));
+    }
+
+    private SummingHistogram(SummingReservoir reservoir) {
+        super(reservoir);
+        this.reservoir = reservoir;
+    }
+
+    /**
+     * @return the sum of the recorded values
+     */
+    public long getSum() {
+        return reservoir.getSum();
+    }
+}
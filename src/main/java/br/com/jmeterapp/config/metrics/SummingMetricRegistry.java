@@ -0,0 +1,54 @@
+package br.com.jmeterapp.config.metrics;
+
+import com.codahale.metrics.Histogram;
+import com.codahale.metrics.Metric;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
+
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
+
+/**
+ * A metric registry whose histograms and timers also add up their values, so that they are exposed with a sum.
+ * <p>
+ * Only the metrics created by {@link #histogram(String)} and {@link #timer(String)} are summing ones: the ones
+ * registered as they are keep the Dropwizard classes.
+ * </p>
+ */
+public class SummingMetricRegistry extends MetricRegistry {
+
+    // Set by buildMap(), which is called by the constructor of MetricRegistry
+    private ConcurrentMap<String, Metric> metrics;
+
+    @Override
+    protected ConcurrentMap<String, Metric> buildMap() {
+        metrics = super.buildMap();
+        return metrics;
+    }
+
+    @Override
+    public Histogram histogram(String name) {
+        return getOrAdd(name, Histogram.class, SummingHistogram::new);
+    }
+
+    @Override
+    public Timer timer(String name) {
+        return getOrAdd(name, Timer.class, SummingTimer::new);
+    }
+
+    private <T extends Metric> T getOrAdd(String name, Class<T> type, Supplier<T> factory) {
+        Metric metric = metrics.get(name);
+        if (metric == null) {
+            try {
+                return register(name, factory.get());
+            } catch (IllegalArgumentException e) {
+                // Registered concurrently
+                metric = metrics.get(name);
+            }
+        }
+        if (type.isInstance(metric)) {
+            return type.cast(metric);
+        }
+        throw new IllegalArgumentException(name + " is already used for a different type of metric");
+    }
+}
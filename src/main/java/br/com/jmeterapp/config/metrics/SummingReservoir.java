@@ -0,0 +1,47 @@
+package br.com.jmeterapp.config.metrics;
+
+import com.codahale.metrics.Reservoir;
+import com.codahale.metrics.Snapshot;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A reservoir adding up all the values it is updated with, since it was created, in front of another reservoir.
+ * <p>
+ * The Dropwizard histograms and timers only keep a sample, or a window, of their values: the sum is what the
+ * Prometheus summaries need to compute an average over any range.
+ * </p>
+ */
+public class SummingReservoir implements Reservoir {
+
+    private final Reservoir reservoir;
+
+    private final LongAdder sum = new LongAdder();
+
+    public SummingReservoir(Reservoir reservoir) {
+        this.reservoir = reservoir;
+    }
+
+    @Override
+    public int size() {
+        return reservoir.size();
+    }
+
+    @Override
+    public void update(long value) {
+        reservoir.update(value);
+        sum.add(value);
+    }
+
+    @Override
+    public Snapshot getSnapshot() {
+        return reservoir.getSnapshot();
+    }
+
+    /**
+     * @return the sum of all the values
+     */
+    public long getSum() {
+        return sum.sum();
+    }
+}
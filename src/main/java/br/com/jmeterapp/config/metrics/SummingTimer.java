@@ -0,0 +1,33 @@
+package br.com.jmeterapp.config.metrics;
+
+import com.codahale.metrics.ExponentiallyDecayingReservoir;
+import com.codahale.metrics.Reservoir;
+import com.codahale.metrics.Timer;
+
+/**
+ * A timer that also adds up the durations it recorded, with a {@link SummingReservoir}.
+ */
+public class SummingTimer extends Timer {
+
+    private final SummingReservoir reservoir;
+
+    public SummingTimer() {
+        this(new ExponentiallyDecayingReservoir());
+    }
+
+    public SummingTimer(Reservoir reservoir) {
+        this(new SummingReservoir(reservoir));
+    }
+
+    private SummingTimer(SummingReservoir reservoir) {
+        super(reservoir);
+        this.reservoir = reservoir;
+    }
+
+    /**
+     * @return the sum of the recorded durations, in nanoseconds
+     */
+    public long getSum() {
+        return reservoir.getSum();
+    }
+}
@@ -0,0 +1,4 @@
+/**
+ * Metrics specific code.
+ */
+package br.com.jmeterapp.config.metrics;
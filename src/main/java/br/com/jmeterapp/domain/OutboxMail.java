@@ -0,0 +1,163 @@
+package br.com.jmeterapp.domain;
+
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
+
+import javax.persistence.*;
+import javax.validation.constraints.NotNull;
+import java.io.Serializable;
+import java.time.ZonedDateTime;
+
+/**
+ * An e-mail waiting to be delivered by the MailOutboxWorker.
+ * <p>
+ * Delivered e-mails are deleted. An e-mail whose delivery was given up after too many attempts is kept, without
+ * next attempt date, for jhipster.mail.failedRetentionDays.
+ * </p>
+ *
+ * @see br.com.jmeterapp.service.MailOutboxWorker
+ */
+@Entity
+@Table(name = "jhi_mail_outbox")
+public class OutboxMail implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private static final int MAX_ERROR_LEN = 255;
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "outboxMailSequenceGenerator")
+    @GenericGenerator(name = "outboxMailSequenceGenerator", strategy = "org.hibernate.id.enhanced.SequenceStyleGenerator",
+        parameters = {
+            @Parameter(name = "sequence_name", value = "jhi_mail_outbox_sequence"),
+            @Parameter(name = "initial_value", value = "1000"),
+            @Parameter(name = "increment_size", value = "50"),
+            @Parameter(name = "optimizer", value = "pooled")
+        })
+    private Long id;
+
+    @NotNull
+    @Column(nullable = false)
+    private String recipient;
+
+    @Column
+    private String subject;
+
+    @NotNull
+    @Column(nullable = false)
+    private String content;
+
+    @Column(nullable = false)
+    private boolean multipart;
+
+    @Column(nullable = false)
+    private boolean html;
+
+    @NotNull
+    @Column(name = "created_date", nullable = false)
+    private ZonedDateTime createdDate = ZonedDateTime.now();
+
+    @Column(name = "next_attempt_date")
+    private ZonedDateTime nextAttemptDate = ZonedDateTime.now();
+
+    @Column(nullable = false)
+    private int attempts;
+
+    @Column(name = "last_error")
+    private String lastError;
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getRecipient() {
+        return recipient;
+    }
+
+    public void setRecipient(String recipient) {
+        this.recipient = recipient;
+    }
+
+    public String getSubject() {
+        return subject;
+    }
+
+    public void setSubject(String subject) {
+        this.subject = subject;
+    }
+
+    public String getContent() {
+        return content;
+    }
+
+    public void setContent(String content) {
+        this.content = content;
+    }
+
+    public boolean isMultipart() {
+        return multipart;
+    }
+
+    public void setMultipart(boolean multipart) {
+        this.multipart = multipart;
+    }
+
+    public boolean isHtml() {
+        return html;
+    }
+
+    public void setHtml(boolean html) {
+        this.html = html;
+    }
+
+    public ZonedDateTime getCreatedDate() {
+        return createdDate;
+    }
+
+    public void setCreatedDate(ZonedDateTime createdDate) {
+        this.createdDate = createdDate;
+    }
+
+    public ZonedDateTime getNextAttemptDate() {
+        return nextAttemptDate;
+    }
+
+    public void setNextAttemptDate(ZonedDateTime nextAttemptDate) {
+        this.nextAttemptDate = nextAttemptDate;
+    }
+
+    public int getAttempts() {
+        return attempts;
+    }
+
+    public void setAttempts(int attempts) {
+        this.attempts = attempts;
+    }
+
+    public String getLastError() {
+        return lastError;
+    }
+
+    public void setLastError(String lastError) {
+        if (lastError != null && lastError.length() >= MAX_ERROR_LEN) {
+            this.lastError = lastError.substring(0, MAX_ERROR_LEN - 1);
+        } else {
+            this.lastError = lastError;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "OutboxMail{" +
+            "id=" + id +
+            ", recipient='" + recipient + "'" +
+            ", subject='" + subject + "'" +
+            ", nextAttemptDate='" + nextAttemptDate + "'" +
+            ", attempts='" + attempts + "'" +
+            '}';
+    }
+}
@@ -1,5 +1,9 @@
 package br.com.jmeterapp.domain;
 
+import br.com.jmeterapp.domain.util.JsonMapConverter;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
+
 import java.time.LocalDateTime;
 import javax.persistence.*;
 import javax.validation.constraints.NotNull;
@@ -8,6 +12,9 @@ import java.util.Map;
 
 /**
  * Persist AuditEvent managed by the Spring Boot actuator
+ * <p>
+ * The data of the event is stored as a JSON object in the event_data column, so it is read with the event.
+ * </p>
  * @see org.springframework.boot.actuate.audit.AuditEvent
  */
 @Entity
@@ -15,7 +22,14 @@ import java.util.Map;
 public class PersistentAuditEvent {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.AUTO)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "persistentAuditEventSequenceGenerator")
+    @GenericGenerator(name = "persistentAuditEventSequenceGenerator", strategy = "org.hibernate.id.enhanced.SequenceStyleGenerator",
+        parameters = {
+            @Parameter(name = "sequence_name", value = "jhi_persistent_audit_event_sequence"),
+            @Parameter(name = "initial_value", value = "1000"),
+            @Parameter(name = "increment_size", value = "50"),
+            @Parameter(name = "optimizer", value = "pooled")
+        })
     @Column(name = "event_id")
     private Long id;
 
@@ -23,15 +37,14 @@ public class PersistentAuditEvent {
     @Column(nullable = false)
     private String principal;
 
-    @Column(name = "event_date")
+    @NotNull
+    @Column(name = "event_date", nullable = false)
     private LocalDateTime auditEventDate;
     @Column(name = "event_type")
     private String auditEventType;
 
-    @ElementCollection
-    @MapKeyColumn(name = "name")
-    @Column(name = "value")
-    @CollectionTable(name = "jhi_persistent_audit_evt_data", joinColumns=@JoinColumn(name="event_id"))
+    @Convert(converter = JsonMapConverter.class)
+    @Column(name = "event_data")
     private Map<String, String> data = new HashMap<>();
 
     public Long getId() {
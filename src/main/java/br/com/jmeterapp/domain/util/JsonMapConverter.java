@@ -0,0 +1,46 @@
+package br.com.jmeterapp.domain.util;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.persistence.AttributeConverter;
+import javax.persistence.Converter;
+
+/**
+ * Stores a map of strings as a JSON object in a single column.
+ */
+@Converter
+public class JsonMapConverter implements AttributeConverter<Map<String, String>, String> {
+
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    private static final TypeReference<Map<String, String>> MAP_TYPE = new TypeReference<Map<String, String>>() {};
+
+    @Override
+    public String convertToDatabaseColumn(Map<String, String> map) {
+        if (map == null || map.isEmpty()) {
+            return null;
+        }
+        try {
+            return objectMapper.writeValueAsString(map);
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Could not write the map as JSON", e);
+        }
+    }
+
+    @Override
+    public Map<String, String> convertToEntityAttribute(String json) {
+        if (json == null || json.isEmpty()) {
+            return new HashMap<>();
+        }
+        try {
+            return objectMapper.readValue(json, MAP_TYPE);
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Could not read the map from JSON", e);
+        }
+    }
+}
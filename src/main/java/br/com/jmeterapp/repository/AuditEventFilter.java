@@ -0,0 +1,88 @@
+package br.com.jmeterapp.repository;
+
+import java.time.LocalDateTime;
+
+/**
+ * Filters of the audit event search. Null fields are not filtered on.
+ * <p>
+ * afterDate and afterId are the keyset cursor: the (event_date, event_id) of the last event of the previous page,
+ * the search returning the older events.
+ * </p>
+ */
+public class AuditEventFilter {
+
+    private String principal;
+
+    private String type;
+
+    private LocalDateTime fromDate;
+
+    private LocalDateTime toDate;
+
+    private LocalDateTime afterDate;
+
+    private Long afterId;
+
+    public String getPrincipal() {
+        return principal;
+    }
+
+    public void setPrincipal(String principal) {
+        this.principal = principal;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public void setType(String type) {
+        this.type = type;
+    }
+
+    /**
+     * @return the start of the period, inclusive
+     */
+    public LocalDateTime getFromDate() {
+        return fromDate;
+    }
+
+    public void setFromDate(LocalDateTime fromDate) {
+        this.fromDate = fromDate;
+    }
+
+    /**
+     * @return the end of the period, exclusive
+     */
+    public LocalDateTime getToDate() {
+        return toDate;
+    }
+
+    public void setToDate(LocalDateTime toDate) {
+        this.toDate = toDate;
+    }
+
+    public LocalDateTime getAfterDate() {
+        return afterDate;
+    }
+
+    public Long getAfterId() {
+        return afterId;
+    }
+
+    public void setAfter(LocalDateTime afterDate, Long afterId) {
+        this.afterDate = afterDate;
+        this.afterId = afterId;
+    }
+
+    @Override
+    public String toString() {
+        return "AuditEventFilter{" +
+            "principal='" + principal + "'" +
+            ", type='" + type + "'" +
+            ", fromDate='" + fromDate + "'" +
+            ", toDate='" + toDate + "'" +
+            ", afterDate='" + afterDate + "'" +
+            ", afterId='" + afterId + "'" +
+            '}';
+    }
+}
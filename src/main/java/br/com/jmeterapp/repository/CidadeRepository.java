@@ -2,14 +2,42 @@ package br.com.jmeterapp.repository;
 
 import br.com.jmeterapp.domain.Cidade;
 
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.*;
+import org.springframework.data.repository.query.Param;
 
 import java.util.List;
 
 /**
  * Spring Data JPA repository for the Cidade entity.
+ * <p>
+ * Listings select the cidade and estado columns directly into a {@link CidadeSummary}, so no Cidade nor Estado
+ * entity is hydrated and the estado of each cidade does not cost an extra query.
+ * </p>
  */
 @SuppressWarnings("unused")
 public interface CidadeRepository extends JpaRepository<Cidade,Long> {
 
+    @Query(value = "select new br.com.jmeterapp.repository.CidadeSummary(cidade.id, cidade.version, cidade.nome, estado.id, estado.nome) " +
+        "from Cidade cidade left join cidade.estado estado",
+        countQuery = "select count(cidade) from Cidade cidade")
+    Page<CidadeSummary> findAllSummaries(Pageable pageable);
+
+    @Query("select new br.com.jmeterapp.repository.CidadeSummary(cidade.id, cidade.version, cidade.nome, estado.id, estado.nome) " +
+        "from Cidade cidade left join cidade.estado estado")
+    Slice<CidadeSummary> findSliceSummaries(Pageable pageable);
+
+    @Query("select new br.com.jmeterapp.repository.CidadeSummary(cidade.id, cidade.version, cidade.nome, estado.id, estado.nome) " +
+        "from Cidade cidade left join cidade.estado estado where cidade.id > :after order by cidade.id")
+    Slice<CidadeSummary> findAllSummariesAfter(@Param("after") Long after, Pageable pageable);
+
+    @Query("select new br.com.jmeterapp.repository.CidadeSummary(cidade.id, cidade.version, cidade.nome, estado.id, estado.nome) " +
+        "from Cidade cidade left join cidade.estado estado order by cidade.id")
+    List<CidadeSummary> findAllSummariesOrderedById();
+
+    @Query("select cidade.version from Cidade cidade where cidade.id = :id")
+    Long findVersion(@Param("id") Long id);
+
 }
@@ -0,0 +1,53 @@
+package br.com.jmeterapp.repository;
+
+/**
+ * The columns of a cidade and of its estado shown in the listings, selected without hydrating the entities.
+ */
+public class CidadeSummary {
+
+    private final Long id;
+
+    private final Long version;
+
+    private final String nome;
+
+    private final Long estadoId;
+
+    private final String estadoNome;
+
+    public CidadeSummary(Long id, Long version, String nome, Long estadoId, String estadoNome) {
+        this.id = id;
+        this.version = version;
+        this.nome = nome;
+        this.estadoId = estadoId;
+        this.estadoNome = estadoNome;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public String getNome() {
+        return nome;
+    }
+
+    public Long getEstadoId() {
+        return estadoId;
+    }
+
+    public String getEstadoNome() {
+        return estadoNome;
+    }
+
+    @Override
+    public String toString() {
+        return "CidadeSummary{" +
+            "id=" + id +
+            ", nome='" + nome + "'" +
+            '}';
+    }
+}
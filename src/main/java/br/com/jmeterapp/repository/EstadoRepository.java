@@ -2,7 +2,10 @@ package br.com.jmeterapp.repository;
 
 import br.com.jmeterapp.domain.Estado;
 
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.*;
+import org.springframework.data.repository.query.Param;
 
 import java.util.List;
 
@@ -12,4 +15,13 @@ import java.util.List;
 @SuppressWarnings("unused")
 public interface EstadoRepository extends JpaRepository<Estado,Long> {
 
+    @Query("select estado from Estado estado")
+    Slice<Estado> findSlice(Pageable pageable);
+
+    @Query("select estado from Estado estado where estado.id > :after order by estado.id")
+    Slice<Estado> findAllAfter(@Param("after") Long after, Pageable pageable);
+
+    @Query("select estado.version from Estado estado where estado.id = :id")
+    Long findVersion(@Param("id") Long id);
+
 }
@@ -0,0 +1,46 @@
+package br.com.jmeterapp.repository;
+
+import br.com.jmeterapp.domain.OutboxMail;
+
+import java.time.ZonedDateTime;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import javax.persistence.LockModeType;
+import java.util.Date;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Spring Data JPA repository for the OutboxMail entity.
+ */
+public interface OutboxMailRepository extends JpaRepository<OutboxMail, Long> {
+
+    /**
+     * Locks the e-mails due for delivery, so that they are claimed by one instance only.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select mail from OutboxMail mail where mail.nextAttemptDate <= :dateTime order by mail.nextAttemptDate")
+    List<OutboxMail> findDueForUpdate(@Param("dateTime") ZonedDateTime dateTime, Pageable pageable);
+
+    /**
+     * Locks the e-mails due for delivery on PostgreSQL, skipping the ones already locked by another instance
+     * instead of waiting for its transaction to end.
+     */
+    @Query(value = "select * from jhi_mail_outbox where next_attempt_date <= :dateTime order by next_attempt_date " +
+        "limit :limit for update skip locked", nativeQuery = true)
+    List<OutboxMail> findDueForUpdateSkipLocked(@Param("dateTime") Date dateTime, @Param("limit") int limit);
+
+    @Modifying
+    @Query("delete from OutboxMail mail where mail.nextAttemptDate is null and mail.createdDate < :dateTime")
+    int deleteFailedCreatedBefore(@Param("dateTime") ZonedDateTime dateTime);
+
+    long countByNextAttemptDateIsNotNull();
+
+    @Query("select min(mail.createdDate) from OutboxMail mail where mail.nextAttemptDate is not null")
+    Optional<ZonedDateTime> findOldestPendingCreatedDate();
+}
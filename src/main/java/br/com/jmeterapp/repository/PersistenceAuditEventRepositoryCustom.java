@@ -0,0 +1,32 @@
+package br.com.jmeterapp.repository;
+
+import br.com.jmeterapp.domain.PersistentAuditEvent;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+
+import java.util.function.Consumer;
+
+/**
+ * Audit event queries built from an {@link AuditEventFilter}, newest events first.
+ */
+public interface PersistenceAuditEventRepositoryCustom {
+
+    /**
+     * Gets the events after the cursor of the filter, without any count query.
+     *
+     * @param filter the filter, with the cursor of the previous page
+     * @param pageable the page size; the page number is ignored
+     * @return the events of the page
+     */
+    Slice<PersistentAuditEvent> search(AuditEventFilter filter, Pageable pageable);
+
+    /**
+     * Reads all the events matching the filter with a forward-only cursor, so that they are never all in memory.
+     * Must be called within a transaction.
+     *
+     * @param filter the filter
+     * @param consumer called with each event, in order; the event is detached right after
+     */
+    void scroll(AuditEventFilter filter, Consumer<PersistentAuditEvent> consumer);
+}
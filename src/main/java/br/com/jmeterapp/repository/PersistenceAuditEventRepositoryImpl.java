@@ -0,0 +1,101 @@
+package br.com.jmeterapp.repository;
+
+import br.com.jmeterapp.domain.PersistentAuditEvent;
+
+import org.hibernate.Query;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.TypedQuery;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Implementation of the {@link PersistenceAuditEventRepositoryCustom} queries, appended to the Spring Data
+ * repository.
+ */
+public class PersistenceAuditEventRepositoryImpl implements PersistenceAuditEventRepositoryCustom {
+
+    private static final int SCROLL_FETCH_SIZE = 500;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public Slice<PersistentAuditEvent> search(AuditEventFilter filter, Pageable pageable) {
+        List<PersistentAuditEvent> events = createQuery(filter)
+            .setMaxResults(pageable.getPageSize() + 1)
+            .getResultList();
+        boolean hasNext = events.size() > pageable.getPageSize();
+        if (hasNext) {
+            events = events.subList(0, pageable.getPageSize());
+        }
+        return new SliceImpl<>(events, pageable, hasNext);
+    }
+
+    @Override
+    public void scroll(AuditEventFilter filter, Consumer<PersistentAuditEvent> consumer) {
+        Query query = createQuery(filter).unwrap(Query.class)
+            .setFetchSize(SCROLL_FETCH_SIZE)
+            .setReadOnly(true);
+        ScrollableResults results = query.scroll(ScrollMode.FORWARD_ONLY);
+        try {
+            int count = 0;
+            while (results.next()) {
+                consumer.accept((PersistentAuditEvent) results.get(0));
+                if (++count % SCROLL_FETCH_SIZE == 0) {
+                    entityManager.clear();
+                }
+            }
+        } finally {
+            results.close();
+            entityManager.clear();
+        }
+    }
+
+    private TypedQuery<PersistentAuditEvent> createQuery(AuditEventFilter filter) {
+        StringBuilder jpql = new StringBuilder("select event from PersistentAuditEvent event where 1 = 1");
+        if (filter.getPrincipal() != null) {
+            jpql.append(" and event.principal = :principal");
+        }
+        if (filter.getType() != null) {
+            jpql.append(" and event.auditEventType = :type");
+        }
+        if (filter.getFromDate() != null) {
+            jpql.append(" and event.auditEventDate >= :fromDate");
+        }
+        if (filter.getToDate() != null) {
+            jpql.append(" and event.auditEventDate < :toDate");
+        }
+        if (filter.getAfterDate() != null) {
+            // The first condition only bounds the index range scan, the second one is the actual seek
+            jpql.append(" and event.auditEventDate <= :afterDate and (event.auditEventDate < :afterDate" +
+                " or event.id < :afterId)");
+        }
+        jpql.append(" order by event.auditEventDate desc, event.id desc");
+
+        TypedQuery<PersistentAuditEvent> query = entityManager.createQuery(jpql.toString(), PersistentAuditEvent.class);
+        if (filter.getPrincipal() != null) {
+            query.setParameter("principal", filter.getPrincipal());
+        }
+        if (filter.getType() != null) {
+            query.setParameter("type", filter.getType());
+        }
+        if (filter.getFromDate() != null) {
+            query.setParameter("fromDate", filter.getFromDate());
+        }
+        if (filter.getToDate() != null) {
+            query.setParameter("toDate", filter.getToDate());
+        }
+        if (filter.getAfterDate() != null) {
+            query.setParameter("afterDate", filter.getAfterDate());
+            query.setParameter("afterId", filter.getAfterId());
+        }
+        return query;
+    }
+}
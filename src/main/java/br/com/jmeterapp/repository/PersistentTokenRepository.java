@@ -3,8 +3,13 @@ package br.com.jmeterapp.repository;
 import br.com.jmeterapp.domain.PersistentToken;
 import br.com.jmeterapp.domain.User;
 import java.time.LocalDate;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
 import java.util.List;
 
 /**
@@ -14,6 +19,15 @@ public interface PersistentTokenRepository extends JpaRepository<PersistentToken
 
     List<PersistentToken> findByUser(User user);
 
-    List<PersistentToken> findByTokenDateBefore(LocalDate localDate);
+    @Query("select token.series from PersistentToken token where token.tokenDate < :tokenDate")
+    List<String> findSeriesByTokenDateBefore(@Param("tokenDate") LocalDate tokenDate, Pageable pageable);
+
+    @Modifying
+    @Query("delete from PersistentToken token where token.series in :series")
+    int deleteBySeriesIn(@Param("series") Collection<String> series);
+
+    @Modifying
+    @Query("delete from PersistentToken token where token.user.id in :userIds")
+    int deleteByUserIdIn(@Param("userIds") Collection<Long> userIds);
 
 }
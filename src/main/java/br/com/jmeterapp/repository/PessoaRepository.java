@@ -2,7 +2,10 @@ package br.com.jmeterapp.repository;
 
 import br.com.jmeterapp.domain.Pessoa;
 
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.*;
+import org.springframework.data.repository.query.Param;
 
 import java.util.List;
 
@@ -12,4 +15,13 @@ import java.util.List;
 @SuppressWarnings("unused")
 public interface PessoaRepository extends JpaRepository<Pessoa,Long> {
 
+    @Query("select pessoa from Pessoa pessoa")
+    Slice<Pessoa> findSlice(Pageable pageable);
+
+    @Query("select pessoa from Pessoa pessoa where pessoa.id > :after order by pessoa.id")
+    Slice<Pessoa> findAllAfter(@Param("after") Long after, Pageable pageable);
+
+    @Query("select pessoa.version from Pessoa pessoa where pessoa.id = :id")
+    Long findVersion(@Param("id") Long id);
+
 }
@@ -0,0 +1,157 @@
+package br.com.jmeterapp.repository;
+
+import br.com.jmeterapp.config.Constants;
+import br.com.jmeterapp.repository.RecordingConnectionProvider.RecordedStatement;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.orm.jpa.JpaProperties;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.orm.jpa.vendor.Database;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import javax.inject.Inject;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.time.ZonedDateTime;
+import java.util.*;
+
+/**
+ * Checks, at startup, that the hot repository queries are served by an index on PostgreSQL.
+ * <p>
+ * Active with the "query-plan-check" profile, for QueryPlanCheckerIntTest, run against PostgreSQL by the
+ * query-plan-check Maven profile: each repository method below is called with representative parameters, in a
+ * transaction rolled back, and the SQL statements Hibernate executes are recorded by the
+ * {@link RecordingConnectionProvider}. Each statement is then explained with the same parameters and with sequential
+ * scans disabled, so that the planner only falls back to a sequential scan when no index can serve the query,
+ * whatever the size of the tables. The startup fails if any statement scans one of the large tables sequentially.
+ * </p>
+ */
+@Component
+@Profile(Constants.SPRING_PROFILE_QUERY_PLAN_CHECK)
+@DependsOn("liquibase")
+public class QueryPlanChecker {
+
+    static final Set<String> LARGE_TABLES = Collections.unmodifiableSet(new HashSet<>(Arrays.asList(
+        "jhi_user", "jhi_persistent_token")));
+
+    private static final int CHUNK_SIZE = 500;
+
+    private final Logger log = LoggerFactory.getLogger(QueryPlanChecker.class);
+
+    @Inject
+    private JdbcTemplate jdbcTemplate;
+
+    @Inject
+    private PlatformTransactionManager transactionManager;
+
+    @Inject
+    private JpaProperties jpaProperties;
+
+    @Inject
+    private ObjectMapper objectMapper;
+
+    @Inject
+    private UserRepository userRepository;
+
+    @Inject
+    private PersistentTokenRepository persistentTokenRepository;
+
+    @PostConstruct
+    public void checkQueryPlans() {
+        if (jpaProperties.getDatabase() != Database.POSTGRESQL) {
+            log.warn("The query plans are only checked on PostgreSQL, not on {}", jpaProperties.getDatabase());
+            return;
+        }
+        Map<String, Runnable> hotQueries = hotQueries();
+        List<String> failures = new TransactionTemplate(transactionManager).execute(status -> {
+            status.setRollbackOnly();
+            jdbcTemplate.execute("set local enable_seqscan = off");
+            List<String> sequentialScans = new ArrayList<>();
+            hotQueries.forEach((name, query) -> {
+                for (RecordedStatement statement : recordStatements(name, query)) {
+                    String plan = jdbcTemplate.queryForObject("explain (format json) " + statement.getSql(),
+                        String.class, statement.getParameters().toArray());
+                    log.debug("Query plan of {}, {}: {}", name, statement, plan);
+                    findSequentialScans(readPlan(plan), LARGE_TABLES)
+                        .forEach(table -> sequentialScans.add(name + " scans " + table + " sequentially"));
+                }
+            });
+            return sequentialScans;
+        });
+        if (!failures.isEmpty()) {
+            throw new IllegalStateException("Hot queries are not served by an index: " + failures);
+        }
+        log.info("Checked the query plans of {} hot queries", hotQueries.size());
+    }
+
+    /**
+     * The hot repository queries, called with representative parameters.
+     */
+    private Map<String, Runnable> hotQueries() {
+        Map<String, Runnable> queries = new LinkedHashMap<>();
+        queries.put("UserRepository.findOneByActivationKey",
+            () -> userRepository.findOneByActivationKey("12345678901234567890"));
+        queries.put("UserRepository.findOneByResetKey",
+            () -> userRepository.findOneByResetKey("12345678901234567890"));
+        queries.put("UserRepository.findOneByEmail",
+            () -> userRepository.findOneByEmail("user@localhost"));
+        queries.put("UserRepository.findIdAndLoginByActivatedIsFalseAndCreatedDateBefore",
+            () -> userRepository.findIdAndLoginByActivatedIsFalseAndCreatedDateBefore(
+                ZonedDateTime.now().minusDays(3), new PageRequest(0, CHUNK_SIZE)));
+        queries.put("PersistentTokenRepository.findSeriesByTokenDateBefore",
+            () -> persistentTokenRepository.findSeriesByTokenDateBefore(LocalDate.now().minusMonths(1),
+                new PageRequest(0, CHUNK_SIZE)));
+        // A reference to the user, so that only the query of the tokens is recorded
+        queries.put("PersistentTokenRepository.findByUser",
+            () -> persistentTokenRepository.findByUser(userRepository.getOne(1L)));
+        return queries;
+    }
+
+    private List<RecordedStatement> recordStatements(String name, Runnable query) {
+        List<RecordedStatement> statements = RecordingConnectionProvider.record(query);
+        if (statements.isEmpty()) {
+            throw new IllegalStateException("No SQL statement was recorded for " + name + ": the " +
+                "hibernate.connection.provider_class property must be " + RecordingConnectionProvider.class.getName());
+        }
+        return statements;
+    }
+
+    /**
+     * Finds the sequential scans of a query plan, as explained by PostgreSQL in the JSON format.
+     *
+     * @param plan the query plan
+     * @param tables the tables that must not be scanned sequentially
+     * @return the tables of the given ones which are scanned sequentially
+     */
+    static List<String> findSequentialScans(JsonNode plan, Set<String> tables) {
+        List<String> sequentialScans = new ArrayList<>();
+        Deque<JsonNode> nodes = new ArrayDeque<>();
+        plan.forEach(statement -> nodes.push(statement.path("Plan")));
+        while (!nodes.isEmpty()) {
+            JsonNode node = nodes.pop();
+            String table = node.path("Relation Name").asText();
+            if ("Seq Scan".equals(node.path("Node Type").asText()) && tables.contains(table)) {
+                sequentialScans.add(table);
+            }
+            node.path("Plans").forEach(nodes::push);
+        }
+        return sequentialScans;
+    }
+
+    private JsonNode readPlan(String plan) {
+        try {
+            return objectMapper.readTree(plan);
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not read the query plan " + plan, e);
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package br.com.jmeterapp.repository;
+
+import org.hibernate.engine.jdbc.connections.internal.DatasourceConnectionProviderImpl;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.*;
+
+/**
+ * Hibernate connection provider recording the SQL statements executed by Hibernate, with their parameters, for the
+ * {@link QueryPlanChecker}.
+ * <p>
+ * It is set in the hibernate.connection.provider_class property by the query-plan-check profile only: the statements
+ * are recorded while {@link #record(Runnable)} runs, on its thread.
+ * </p>
+ */
+public class RecordingConnectionProvider extends DatasourceConnectionProviderImpl {
+
+    private static final ThreadLocal<List<RecordedStatement>> RECORDED_STATEMENTS = new ThreadLocal<>();
+
+    /**
+     * Runs an action, recording the SQL statements it executes through Hibernate.
+     *
+     * @param action the action to run
+     * @return the statements executed by the action, in order
+     */
+    public static List<RecordedStatement> record(Runnable action) {
+        List<RecordedStatement> statements = new ArrayList<>();
+        RECORDED_STATEMENTS.set(statements);
+        try {
+            action.run();
+        } finally {
+            RECORDED_STATEMENTS.remove();
+        }
+        return statements;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        Connection connection = super.getConnection();
+        return (Connection) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{Connection.class},
+            (proxy, method, args) -> {
+                Object result = invoke(connection, method, args);
+                if ("prepareStatement".equals(method.getName())) {
+                    return recording((PreparedStatement) result, (String) args[0]);
+                }
+                return result;
+            });
+    }
+
+    private static PreparedStatement recording(PreparedStatement statement, String sql) {
+        SortedMap<Integer, Object> parameters = new TreeMap<>();
+        return (PreparedStatement) Proxy.newProxyInstance(RecordingConnectionProvider.class.getClassLoader(),
+            new Class<?>[]{PreparedStatement.class}, (proxy, method, args) -> {
+                String name = method.getName();
+                if (name.startsWith("set") && args != null && args.length >= 2 && args[0] instanceof Integer) {
+                    parameters.put((Integer) args[0], "setNull".equals(name) ? null : args[1]);
+                } else if ("clearParameters".equals(name)) {
+                    parameters.clear();
+                } else if (name.startsWith("execute") && args == null) {
+                    List<RecordedStatement> statements = RECORDED_STATEMENTS.get();
+                    if (statements != null) {
+                        statements.add(new RecordedStatement(sql, new ArrayList<>(parameters.values())));
+                    }
+                }
+                return invoke(statement, method, args);
+            });
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getTargetException();
+        }
+    }
+
+    /**
+     * A SQL statement executed by Hibernate, with the values of its parameters.
+     */
+    public static final class RecordedStatement {
+
+        private final String sql;
+
+        private final List<Object> parameters;
+
+        private RecordedStatement(String sql, List<Object> parameters) {
+            this.sql = sql;
+            this.parameters = Collections.unmodifiableList(parameters);
+        }
+
+        public String getSql() {
+            return sql;
+        }
+
+        public List<Object> getParameters() {
+            return parameters;
+        }
+
+        @Override
+        public String toString() {
+            return sql + " " + parameters;
+        }
+    }
+}
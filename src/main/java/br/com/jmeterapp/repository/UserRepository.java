@@ -5,9 +5,14 @@ import br.com.jmeterapp.domain.User;
 import java.time.ZonedDateTime;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -18,7 +23,13 @@ public interface UserRepository extends JpaRepository<User, Long> {
 
     Optional<User> findOneByActivationKey(String activationKey);
 
-    List<User> findAllByActivatedIsFalseAndCreatedDateBefore(ZonedDateTime dateTime);
+    @Query("select user.id, user.login from User user where user.activated = false and user.createdDate < :dateTime")
+    List<Object[]> findIdAndLoginByActivatedIsFalseAndCreatedDateBefore(@Param("dateTime") ZonedDateTime dateTime,
+        Pageable pageable);
+
+    @Modifying
+    @Query("delete from User user where user.id in :ids")
+    int deleteByIdIn(@Param("ids") Collection<Long> ids);
 
     Optional<User> findOneByResetKey(String resetKey);
 
@@ -26,12 +37,18 @@ public interface UserRepository extends JpaRepository<User, Long> {
 
     Optional<User> findOneByLogin(String login);
 
+    @EntityGraph(attributePaths = "authorities")
+    Optional<User> findOneWithAuthoritiesByLogin(String login);
+
     Optional<User> findOneById(Long userId);
 
     @Query(value = "select distinct user from User user join fetch user.authorities",
         countQuery = "select count(user) from User user")
     Page<User> findAllWithAuthorities(Pageable pageable);
 
+    @Query("select distinct user from User user join fetch user.authorities")
+    Slice<User> findSliceWithAuthorities(Pageable pageable);
+
     @Override
     void delete(User t);
 
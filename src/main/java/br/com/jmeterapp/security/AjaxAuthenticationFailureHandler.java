@@ -19,6 +19,11 @@ public class AjaxAuthenticationFailureHandler extends SimpleUrlAuthenticationFai
     public void onAuthenticationFailure(HttpServletRequest request, HttpServletResponse response,
         AuthenticationException exception) throws IOException, ServletException {
 
+        if (exception instanceof PasswordHashingOverloadedException) {
+            response.setHeader("Retry-After", "1");
+            response.sendError(HttpServletResponse.SC_SERVICE_UNAVAILABLE, "Too many authentication requests");
+            return;
+        }
         response.sendError(HttpServletResponse.SC_UNAUTHORIZED, "Authentication failed");
     }
 }
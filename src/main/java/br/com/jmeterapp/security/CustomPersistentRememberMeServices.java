@@ -1,7 +1,6 @@
 package br.com.jmeterapp.security;
 
 import br.com.jmeterapp.domain.PersistentToken;
-import br.com.jmeterapp.repository.PersistentTokenRepository;
 import br.com.jmeterapp.repository.UserRepository;
 import br.com.jmeterapp.config.JHipsterProperties;
 import org.slf4j.Logger;
@@ -13,7 +12,6 @@ import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.crypto.codec.Base64;
 import org.springframework.security.web.authentication.rememberme.*;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 
 import javax.inject.Inject;
 import javax.servlet.http.HttpServletRequest;
@@ -43,7 +41,7 @@ import java.util.Arrays;
  * </ul>
  * <p>
  * The main algorithm comes from Spring Security's PersistentTokenBasedRememberMeServices, but this class
- * couldn't be cleanly extended.
+ * couldn't be cleanly extended. The tokens are read and rotated in memory by the {@link PersistentTokenStore}.
  */
 @Service
 public class CustomPersistentRememberMeServices extends
@@ -51,10 +49,7 @@ public class CustomPersistentRememberMeServices extends
 
     private final Logger log = LoggerFactory.getLogger(CustomPersistentRememberMeServices.class);
 
-    // Token is valid for one month
-    private static final int TOKEN_VALIDITY_DAYS = 31;
-
-    private static final int TOKEN_VALIDITY_SECONDS = 60 * 60 * 24 * TOKEN_VALIDITY_DAYS;
+    private static final int TOKEN_VALIDITY_SECONDS = 60 * 60 * 24 * PersistentTokenStore.TOKEN_VALIDITY_DAYS;
 
     private static final int DEFAULT_SERIES_LENGTH = 16;
 
@@ -63,7 +58,7 @@ public class CustomPersistentRememberMeServices extends
     private SecureRandom random;
 
     @Inject
-    private PersistentTokenRepository persistentTokenRepository;
+    private PersistentTokenStore persistentTokenStore;
 
     @Inject
     private UserRepository userRepository;
@@ -80,23 +75,15 @@ public class CustomPersistentRememberMeServices extends
     protected UserDetails processAutoLoginCookie(String[] cookieTokens, HttpServletRequest request,
         HttpServletResponse response) {
 
-        PersistentToken token = getPersistentToken(cookieTokens);
-        String login = token.getUser().getLogin();
-
-        // Token also matches, so login is valid. Update the token value, keeping the *same* series number.
-        log.debug("Refreshing persistent login token for user '{}', series '{}'", login, token.getSeries());
-        token.setTokenDate(LocalDate.now());
-        token.setTokenValue(generateTokenData());
-        token.setIpAddress(request.getRemoteAddr());
-        token.setUserAgent(request.getHeader("User-Agent"));
-        try {
-            persistentTokenRepository.saveAndFlush(token);
-            addCookie(token, request, response);
-        } catch (DataAccessException e) {
-            log.error("Failed to update token: ", e);
-            throw new RememberMeAuthenticationException("Autologin failed due to data access problem", e);
+        if (cookieTokens.length != 2) {
+            throw new InvalidCookieException("Cookie token did not contain " + 2 +
+                " tokens, but contained '" + Arrays.asList(cookieTokens) + "'");
         }
-        return getUserDetailsService().loadUserByUsername(login);
+        // Check the token and update its value, keeping the *same* series number.
+        PersistentRememberMeToken token = persistentTokenStore.rotate(cookieTokens[0], cookieTokens[1],
+            request.getRemoteAddr(), request.getHeader("User-Agent"));
+        setCookie(new String[]{token.getSeries(), token.getTokenValue()}, TOKEN_VALIDITY_SECONDS, request, response);
+        return getUserDetailsService().loadUserByUsername(token.getUsername());
     }
 
     @Override
@@ -117,7 +104,7 @@ public class CustomPersistentRememberMeServices extends
             return t;
         }).orElseThrow(() -> new UsernameNotFoundException("User " + login + " was not found in the database"));
         try {
-            persistentTokenRepository.saveAndFlush(token);
+            persistentTokenStore.create(token);
             addCookie(token, request, response);
         } catch (DataAccessException e) {
             log.error("Failed to save persistent token ", e);
@@ -131,56 +118,19 @@ public class CustomPersistentRememberMeServices extends
      * current user, so when he logs out from one browser, all his other sessions are destroyed.
      */
     @Override
-    @Transactional
     public void logout(HttpServletRequest request, HttpServletResponse response, Authentication authentication) {
         String rememberMeCookie = extractRememberMeCookie(request);
         if (rememberMeCookie != null && rememberMeCookie.length() != 0) {
             try {
                 String[] cookieTokens = decodeCookie(rememberMeCookie);
-                PersistentToken token = getPersistentToken(cookieTokens);
-                persistentTokenRepository.delete(token);
+                persistentTokenStore.delete(cookieTokens[0]);
             } catch (InvalidCookieException ice) {
                 log.info("Invalid cookie, no persistent token could be deleted");
-            } catch (RememberMeAuthenticationException rmae) {
-                log.debug("No persistent token found, so no token could be deleted");
             }
         }
         super.logout(request, response, authentication);
     }
 
-    /**
-     * Validate the token and return it.
-     */
-    private PersistentToken getPersistentToken(String[] cookieTokens) {
-        if (cookieTokens.length != 2) {
-            throw new InvalidCookieException("Cookie token did not contain " + 2 +
-                " tokens, but contained '" + Arrays.asList(cookieTokens) + "'");
-        }
-        String presentedSeries = cookieTokens[0];
-        String presentedToken = cookieTokens[1];
-        PersistentToken token = persistentTokenRepository.findOne(presentedSeries);
-
-        if (token == null) {
-            // No series match, so we can't authenticate using this cookie
-            throw new RememberMeAuthenticationException("No persistent token found for series id: " + presentedSeries);
-        }
-
-        // We have a match for this user/series combination
-        log.info("presentedToken={} / tokenValue={}", presentedToken, token.getTokenValue());
-        if (!presentedToken.equals(token.getTokenValue())) {
-            // Token doesn't match series value. Delete this session and throw an exception.
-            persistentTokenRepository.delete(token);
-            throw new CookieTheftException("Invalid remember-me token (Series/token) mismatch. Implies previous " +
-                "cookie theft attack.");
-        }
-
-        if (token.getTokenDate().plusDays(TOKEN_VALIDITY_DAYS).isBefore(LocalDate.now())) {
-            persistentTokenRepository.delete(token);
-            throw new RememberMeAuthenticationException("Remember-me login has expired");
-        }
-        return token;
-    }
-
     private String generateSeriesData() {
         byte[] newSeries = new byte[DEFAULT_SERIES_LENGTH];
         random.nextBytes(newSeries);
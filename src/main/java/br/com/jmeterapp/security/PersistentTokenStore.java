@@ -0,0 +1,339 @@
+package br.com.jmeterapp.security;
+
+import br.com.jmeterapp.config.JHipsterProperties;
+import br.com.jmeterapp.domain.PersistentToken;
+import br.com.jmeterapp.repository.PersistentTokenRepository;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.web.authentication.rememberme.CookieTheftException;
+import org.springframework.security.web.authentication.rememberme.PersistentRememberMeToken;
+import org.springframework.security.web.authentication.rememberme.RememberMeAuthenticationException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import javax.inject.Inject;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Store of the remember-me tokens, used by {@link CustomPersistentRememberMeServices}.
+ * <p>
+ * The tokens in use are kept in memory, indexed by series, so that an auto-login does not read the database.
+ * Rotations are written behind: the rotated tokens are written every jhipster.security.rememberMe.flushIntervalMillis,
+ * several rotations of the same token being written once.
+ * </p>
+ * <p>
+ * Browsers often send several requests at once with the same cookie: after a rotation, the previous token value is
+ * still accepted for jhipster.security.rememberMe.rotationGraceSeconds, and the token is not rotated again meanwhile,
+ * instead of treating these requests as a cookie theft.
+ * </p>
+ * <p>
+ * The index is local to each instance, and the rotations not written yet are lost when an instance is killed, so the
+ * browsers may present a value newer than the one known here. Each value is derived from the previous one with an
+ * HMAC keyed by jhipster.security.rememberMe.key: a value that does not match the index is checked again against the
+ * database, and the values of the rotations that may not be written yet (one per grace window during a flush
+ * interval) are accepted, instead of treating them as a cookie theft. A client without the key cannot derive them.
+ * </p>
+ */
+@Component
+public class PersistentTokenStore {
+
+    // Token is valid for one month
+    public static final int TOKEN_VALIDITY_DAYS = 31;
+
+    private static final int TOKEN_LENGTH = 16;
+
+    private static final int MAX_LOST_ROTATIONS = 64;
+
+    private static final String HMAC_ALGORITHM = "HmacSHA256";
+
+    private final Logger log = LoggerFactory.getLogger(PersistentTokenStore.class);
+
+    private final ConcurrentMap<String, Token> index = new ConcurrentHashMap<>();
+
+    private final ConcurrentMap<String, Token> rotatedTokens = new ConcurrentHashMap<>();
+
+    @Inject
+    private PersistentTokenRepository persistentTokenRepository;
+
+    @Inject
+    private PlatformTransactionManager transactionManager;
+
+    @Inject
+    private JHipsterProperties jHipsterProperties;
+
+    private TransactionTemplate transactionTemplate;
+
+    private SecretKeySpec key;
+
+    private int maxLostRotations;
+
+    @PostConstruct
+    public void init() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        JHipsterProperties.Security.RememberMe rememberMe = jHipsterProperties.getSecurity().getRememberMe();
+        key = new SecretKeySpec(rememberMe.getKey().getBytes(StandardCharsets.UTF_8), HMAC_ALGORITHM);
+        long graceMillis = Math.max(1000L, rememberMe.getRotationGraceSeconds() * 1000L);
+        maxLostRotations = (int) Math.min(MAX_LOST_ROTATIONS, rememberMe.getFlushIntervalMillis() / graceMillis + 1);
+    }
+
+    /**
+     * Saves a new token, right away.
+     *
+     * @param persistentToken the token to save
+     */
+    public void create(PersistentToken persistentToken) {
+        persistentTokenRepository.saveAndFlush(persistentToken);
+        Token token = new Token(persistentToken);
+        token.rotatedAt = System.currentTimeMillis();
+        index.put(persistentToken.getSeries(), token);
+    }
+
+    /**
+     * Validates the token value presented for a series, and rotates it.
+     *
+     * @param series the series of the token
+     * @param presentedValue the token value presented by the client
+     * @param ipAddress the IP address of the client
+     * @param userAgent the user agent of the client
+     * @return the token, with the value to send back to the client
+     * @throws RememberMeAuthenticationException if the token does not exist or has expired
+     * @throws CookieTheftException if the token value does not match, in which case the token is deleted
+     */
+    public PersistentRememberMeToken rotate(String series, String presentedValue, String ipAddress, String userAgent) {
+        while (true) {
+            Token token = index.get(series);
+            if (token == null) {
+                // Read outside of the lock of the index
+                Token loadedToken = load(series);
+                if (loadedToken == null) {
+                    throw new RememberMeAuthenticationException("No persistent token found for series id: " + series);
+                }
+                token = index.putIfAbsent(series, loadedToken);
+                if (token == null) {
+                    token = loadedToken;
+                }
+            }
+            synchronized (token) {
+                if (token.evicted) {
+                    continue; // Removed from the index meanwhile, load it again
+                }
+                if (token.deleted) {
+                    throw new RememberMeAuthenticationException("No persistent token found for series id: " + series);
+                }
+                long now = System.currentTimeMillis();
+                boolean inGraceWindow = now - token.rotatedAt <= jHipsterProperties.getSecurity().getRememberMe()
+                    .getRotationGraceSeconds() * 1000L;
+                if (!presentedValue.equals(token.value) && !(inGraceWindow && presentedValue.equals(token.previousValue))) {
+                    // Rotated by another instance, or lost: check the value again against the database
+                    PersistentToken persistentToken = persistentTokenRepository.findOne(series);
+                    if (persistentToken == null) {
+                        evict(series);
+                        throw new RememberMeAuthenticationException("No persistent token found for series id: " + series);
+                    }
+                    if (!isLostRotation(series, token.value, presentedValue) &&
+                        !isLostRotation(series, persistentToken.getTokenValue(), presentedValue)) {
+                        // Token doesn't match series value. Delete this session and throw an exception.
+                        delete(series);
+                        throw new CookieTheftException("Invalid remember-me token (Series/token) mismatch. Implies " +
+                            "previous cookie theft attack.");
+                    }
+                    log.debug("Accepting a rotation of the persistent login token of user '{}', series '{}' not " +
+                        "known by this instance", token.login, series);
+                    token.value = presentedValue;
+                    inGraceWindow = false;
+                }
+                if (token.tokenDate.plusDays(TOKEN_VALIDITY_DAYS).isBefore(LocalDate.now())) {
+                    delete(series);
+                    throw new RememberMeAuthenticationException("Remember-me login has expired");
+                }
+                token.lastUsedAt = now;
+                if (!inGraceWindow) {
+                    log.debug("Refreshing persistent login token for user '{}', series '{}'", token.login, series);
+                    token.previousValue = token.value;
+                    token.value = nextValue(series, token.value);
+                    token.rotatedAt = now;
+                    token.tokenDate = LocalDate.now();
+                    token.ipAddress = ipAddress;
+                    token.userAgent = userAgent;
+                    rotatedTokens.put(series, token);
+                }
+                return new PersistentRememberMeToken(token.login, series, token.value,
+                    Date.from(token.tokenDate.atStartOfDay(ZoneId.systemDefault()).toInstant()));
+            }
+        }
+    }
+
+    /**
+     * Deletes a token, right away.
+     *
+     * @param series the series of the token
+     */
+    public void delete(String series) {
+        Token token = index.remove(series);
+        if (token != null) {
+            synchronized (token) {
+                token.deleted = true;
+            }
+        }
+        rotatedTokens.remove(series);
+        if (persistentTokenRepository.exists(series)) {
+            persistentTokenRepository.delete(series);
+        }
+    }
+
+    /**
+     * Removes a token from the index, once it has been deleted from the database.
+     *
+     * @param series the series of the token
+     */
+    public void evict(String series) {
+        Token token = index.remove(series);
+        if (token != null) {
+            synchronized (token) {
+                token.deleted = true;
+            }
+        }
+        rotatedTokens.remove(series);
+    }
+
+    /**
+     * Writes the rotated tokens to the database, and removes the unused ones from the index.
+     */
+    @Scheduled(fixedDelayString = "${jhipster.security.rememberMe.flushIntervalMillis:5000}")
+    public synchronized void flush() {
+        List<Token> tokens = new ArrayList<>();
+        for (String series : rotatedTokens.keySet()) {
+            Token token = rotatedTokens.remove(series);
+            if (token != null) {
+                tokens.add(token);
+            }
+        }
+        if (!tokens.isEmpty()) {
+            try {
+                transactionTemplate.execute(status -> {
+                    tokens.forEach(this::write);
+                    return null;
+                });
+                log.debug("Wrote {} rotated persistent tokens", tokens.size());
+            } catch (RuntimeException e) {
+                log.error("Could not write {} rotated persistent tokens: {}", tokens.size(), e.getMessage());
+                tokens.forEach(token -> rotatedTokens.putIfAbsent(token.series, token));
+            }
+        }
+        evictUnusedTokens();
+    }
+
+    @PreDestroy
+    public void destroy() {
+        flush();
+    }
+
+    /**
+     * Tells whether a value presented for a token is the value of the token or one of its next values, whose
+     * rotations were lost or made by another instance.
+     */
+    private boolean isLostRotation(String series, String value, String presentedValue) {
+        if (value.equals(presentedValue)) {
+            return true;
+        }
+        for (int i = 0; i < maxLostRotations; i++) {
+            value = nextValue(series, value);
+            if (value.equals(presentedValue)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private String nextValue(String series, String value) {
+        try {
+            Mac mac = Mac.getInstance(HMAC_ALGORITHM);
+            mac.init(key);
+            byte[] hmac = mac.doFinal((series + ":" + value).getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().encodeToString(Arrays.copyOf(hmac, TOKEN_LENGTH));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Could not derive the remember-me token", e);
+        }
+    }
+
+    private Token load(String series) {
+        PersistentToken persistentToken = persistentTokenRepository.findOne(series);
+        return persistentToken == null ? null : new Token(persistentToken);
+    }
+
+    private void write(Token token) {
+        PersistentToken persistentToken = persistentTokenRepository.findOne(token.series);
+        if (persistentToken == null) {
+            return;
+        }
+        synchronized (token) {
+            persistentToken.setTokenValue(token.value);
+            persistentToken.setTokenDate(token.tokenDate);
+            persistentToken.setIpAddress(token.ipAddress);
+            persistentToken.setUserAgent(token.userAgent);
+        }
+    }
+
+    private void evictUnusedTokens() {
+        long unusedSince = System.currentTimeMillis() -
+            jHipsterProperties.getSecurity().getRememberMe().getIndexTimeToLiveSeconds() * 1000L;
+        index.forEach((series, token) -> {
+            synchronized (token) {
+                if (token.lastUsedAt < unusedSince && !rotatedTokens.containsKey(series)) {
+                    token.evicted = true;
+                    index.remove(series, token);
+                }
+            }
+        });
+    }
+
+    /**
+     * The state of a token in the index. Its fields are guarded by its lock.
+     */
+    private static final class Token {
+
+        private final String series;
+
+        private final String login;
+
+        private String value;
+
+        private String previousValue;
+
+        private LocalDate tokenDate;
+
+        private String ipAddress;
+
+        private String userAgent;
+
+        private long rotatedAt;
+
+        private long lastUsedAt = System.currentTimeMillis();
+
+        private boolean evicted;
+
+        private boolean deleted;
+
+        private Token(PersistentToken persistentToken) {
+            this.series = persistentToken.getSeries();
+            this.login = persistentToken.getUser().getLogin();
+            this.value = persistentToken.getTokenValue();
+            this.tokenDate = persistentToken.getTokenDate();
+            this.ipAddress = persistentToken.getIpAddress();
+            this.userAgent = persistentToken.getUserAgent();
+        }
+    }
+}
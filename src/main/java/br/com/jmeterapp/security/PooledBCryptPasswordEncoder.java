@@ -0,0 +1,158 @@
+package br.com.jmeterapp.security;
+
+import br.com.jmeterapp.config.JHipsterProperties;
+
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import javax.annotation.PreDestroy;
+import java.util.concurrent.*;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * BCrypt password encoder running the hashes on a dedicated, bounded thread pool.
+ * <p>
+ * Hashing is CPU bound and slow on purpose: running it on the request threads lets a burst of logins take all of
+ * them. Here at most jhipster.security.password.poolSize hashes run at the same time, and when
+ * jhipster.security.password.queueCapacity requests are already waiting, a
+ * {@link PasswordHashingOverloadedException} (503) is thrown instead of queueing more.
+ * </p>
+ * <p>
+ * The BCrypt strength is calibrated at startup so that a hash takes about
+ * jhipster.security.password.targetHashTimeMillis on this server. Passwords hashed with a lower strength are
+ * re-hashed on the next successful login (see {@link RehashingAuthenticationProvider}). As the calibration depends
+ * on the load at startup, the strength may differ between restarts and instances: a higher strength is kept, so
+ * that the passwords are never re-hashed back and forth, nor weakened by a slow startup.
+ * </p>
+ */
+public class PooledBCryptPasswordEncoder implements PasswordEncoder {
+
+    private static final Pattern BCRYPT_STRENGTH = Pattern.compile("\\A\\$2[aby]?\\$(\\d\\d)\\$");
+
+    private static final String CALIBRATION_PASSWORD = "calibration-password";
+
+    private final Logger log = LoggerFactory.getLogger(PooledBCryptPasswordEncoder.class);
+
+    private final int strength;
+
+    private final BCryptPasswordEncoder encoder;
+
+    private final ThreadPoolExecutor executor;
+
+    private final Timer encodeTimer;
+
+    private final Timer matchesTimer;
+
+    private final Timer waitTimer;
+
+    private final Counter rejected;
+
+    public PooledBCryptPasswordEncoder(JHipsterProperties.Security.Password properties, MetricRegistry metricRegistry) {
+        if (properties.getTargetHashTimeMillis() > 0) {
+            strength = calibrate(properties);
+        } else {
+            strength = properties.getStrength();
+        }
+        encoder = new BCryptPasswordEncoder(strength);
+        executor = new ThreadPoolExecutor(properties.getPoolSize(), properties.getPoolSize(), 0L, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(properties.getQueueCapacity()), new CustomizableThreadFactory("password-hashing-"),
+            new ThreadPoolExecutor.AbortPolicy());
+        encodeTimer = metricRegistry.timer("security.password.encode");
+        matchesTimer = metricRegistry.timer("security.password.matches");
+        waitTimer = metricRegistry.timer("security.password.wait");
+        rejected = metricRegistry.counter("security.password.rejected");
+        metricRegistry.remove("security.password.queued");
+        metricRegistry.register("security.password.queued", (Gauge<Integer>) () -> executor.getQueue().size());
+        metricRegistry.remove("security.password.strength");
+        metricRegistry.register("security.password.strength", (Gauge<Integer>) () -> strength);
+    }
+
+    @PreDestroy
+    public void destroy() {
+        executor.shutdown();
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return execute(() -> encoder.encode(rawPassword), encodeTimer);
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return execute(() -> encoder.matches(rawPassword, encodedPassword), matchesTimer);
+    }
+
+    public int getStrength() {
+        return strength;
+    }
+
+    /**
+     * Tells whether a password was hashed with a lower strength than the current one.
+     *
+     * @param encodedPassword the hashed password
+     * @return true if the password should be hashed again
+     */
+    public boolean needsRehash(String encodedPassword) {
+        if (encodedPassword == null) {
+            return false;
+        }
+        Matcher matcher = BCRYPT_STRENGTH.matcher(encodedPassword);
+        return matcher.find() && Integer.parseInt(matcher.group(1)) < strength;
+    }
+
+    private <T> T execute(Callable<T> hashing, Timer timer) {
+        long submitted = System.nanoTime();
+        Future<T> future;
+        try {
+            future = executor.submit(() -> {
+                waitTimer.update(System.nanoTime() - submitted, TimeUnit.NANOSECONDS);
+                try (Timer.Context ignored = timer.time()) {
+                    return hashing.call();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            rejected.inc();
+            throw new PasswordHashingOverloadedException("Too many password hashing requests", e);
+        }
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new PasswordHashingOverloadedException("Interrupted while waiting for the password hashing", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    /**
+     * Finds the strength whose hashing time is the closest above the target, each strength doubling the time of
+     * the previous one.
+     */
+    private int calibrate(JHipsterProperties.Security.Password properties) {
+        BCryptPasswordEncoder calibrationEncoder = new BCryptPasswordEncoder(properties.getMinStrength());
+        calibrationEncoder.encode(CALIBRATION_PASSWORD); // warm up
+        long start = System.nanoTime();
+        calibrationEncoder.encode(CALIBRATION_PASSWORD);
+        double hashTimeMillis = (System.nanoTime() - start) / 1_000_000.0;
+        int calibratedStrength = properties.getMinStrength();
+        while (calibratedStrength < properties.getMaxStrength() && hashTimeMillis < properties.getTargetHashTimeMillis()) {
+            calibratedStrength++;
+            hashTimeMillis *= 2;
+        }
+        log.info("Using a BCrypt strength of {}, hashing a password in about {} ms", calibratedStrength,
+            Math.round(hashTimeMillis));
+        return calibratedStrength;
+    }
+}
@@ -0,0 +1,46 @@
+package br.com.jmeterapp.security;
+
+import br.com.jmeterapp.service.UserService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
+import org.springframework.security.core.AuthenticationException;
+import org.springframework.security.core.userdetails.UserDetails;
+
+/**
+ * Authenticates the users from their login and password, and hashes their password again with the current BCrypt
+ * strength if it was hashed with a lower one.
+ */
+public class RehashingAuthenticationProvider extends DaoAuthenticationProvider {
+
+    private final Logger log = LoggerFactory.getLogger(RehashingAuthenticationProvider.class);
+
+    private final PooledBCryptPasswordEncoder passwordEncoder;
+
+    private final UserService userService;
+
+    public RehashingAuthenticationProvider(PooledBCryptPasswordEncoder passwordEncoder, UserService userService) {
+        this.passwordEncoder = passwordEncoder;
+        this.userService = userService;
+        setPasswordEncoder(passwordEncoder);
+    }
+
+    @Override
+    protected void additionalAuthenticationChecks(UserDetails userDetails,
+        UsernamePasswordAuthenticationToken authentication) throws AuthenticationException {
+
+        super.additionalAuthenticationChecks(userDetails, authentication);
+        if (passwordEncoder.needsRehash(userDetails.getPassword())) {
+            log.debug("Hashing the password of {} with the strength {}", userDetails.getUsername(),
+                passwordEncoder.getStrength());
+            try {
+                userService.upgradePassword(userDetails.getUsername(), userDetails.getPassword(),
+                    authentication.getCredentials().toString());
+            } catch (RuntimeException e) {
+                // The user is authenticated anyway, the password will be hashed again on the next login
+                log.warn("Could not hash the password of {} again: {}", userDetails.getUsername(), e.getMessage());
+            }
+        }
+    }
+}
@@ -1,48 +1,106 @@
 package br.com.jmeterapp.security;
 
+import br.com.jmeterapp.domain.Authority;
 import br.com.jmeterapp.domain.User;
 import br.com.jmeterapp.repository.UserRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Component;
-import org.springframework.transaction.annotation.Transactional;
 
+import javax.annotation.PostConstruct;
 import javax.inject.Inject;
+import java.io.Serializable;
 import java.util.*;
 import java.util.stream.Collectors;
 
 /**
  * Authenticate a user from the database.
+ * <p>
+ * The users are cached by login in the "userDetails" cache, bounded and expired like the other caches, so that
+ * form logins and remember-me auto-logins do not hit the database in steady state. UserService evicts a user
+ * whenever its login, password, activation or authorities change.
+ * </p>
  */
 @Component("userDetailsService")
 public class UserDetailsService implements org.springframework.security.core.userdetails.UserDetailsService {
 
+    public static final String USER_DETAILS_CACHE = "userDetails";
+
     private final Logger log = LoggerFactory.getLogger(UserDetailsService.class);
 
     @Inject
     private UserRepository userRepository;
 
+    @Inject
+    private CacheManager cacheManager;
+
+    private Cache userDetailsCache;
+
+    @PostConstruct
+    public void init() {
+        userDetailsCache = cacheManager.getCache(USER_DETAILS_CACHE);
+    }
+
     @Override
-    @Transactional
     public UserDetails loadUserByUsername(final String login) {
         log.debug("Authenticating {}", login);
         String lowercaseLogin = login.toLowerCase(Locale.ENGLISH);
-        Optional<User> userFromDatabase = userRepository.findOneByLogin(lowercaseLogin);
-        return userFromDatabase.map(user -> {
-            if (!user.getActivated()) {
-                throw new UserNotActivatedException("User " + lowercaseLogin + " was not activated");
-            }
-            List<GrantedAuthority> grantedAuthorities = user.getAuthorities().stream()
-                    .map(authority -> new SimpleGrantedAuthority(authority.getName()))
-                .collect(Collectors.toList());
-            return new org.springframework.security.core.userdetails.User(lowercaseLogin,
-                user.getPassword(),
-                grantedAuthorities);
-        }).orElseThrow(() -> new UsernameNotFoundException("User " + lowercaseLogin + " was not found in the " +
-        "database"));
+        CachedUser cachedUser = userDetailsCache.get(lowercaseLogin, CachedUser.class);
+        if (cachedUser == null) {
+            Optional<User> userFromDatabase = userRepository.findOneWithAuthoritiesByLogin(lowercaseLogin);
+            cachedUser = userFromDatabase.map(CachedUser::new)
+                .orElseThrow(() -> new UsernameNotFoundException("User " + lowercaseLogin + " was not found in the " +
+                "database"));
+            userDetailsCache.put(lowercaseLogin, cachedUser);
+        }
+        if (!cachedUser.activated) {
+            throw new UserNotActivatedException("User " + lowercaseLogin + " was not activated");
+        }
+        // A new instance each time, as Spring Security erases the password of the authenticated user
+        List<GrantedAuthority> grantedAuthorities = cachedUser.authorities.stream()
+            .map(SimpleGrantedAuthority::new)
+            .collect(Collectors.toList());
+        return new org.springframework.security.core.userdetails.User(lowercaseLogin,
+            cachedUser.password,
+            grantedAuthorities);
+    }
+
+    /**
+     * Removes a user from the cache, once the current transaction commits.
+     *
+     * @param login the login of the user
+     */
+    public void evict(String login) {
+        if (login != null) {
+            userDetailsCache.evict(login.toLowerCase(Locale.ENGLISH));
+        }
+    }
+
+    /**
+     * What is needed to authenticate a user, copied from the entity so that it can be kept between transactions.
+     */
+    private static final class CachedUser implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        private final String password;
+
+        private final boolean activated;
+
+        private final List<String> authorities;
+
+        private CachedUser(User user) {
+            this.password = user.getPassword();
+            this.activated = user.getActivated();
+            this.authorities = Collections.unmodifiableList(user.getAuthorities().stream()
+                .map(Authority::getName)
+                .collect(Collectors.toList()));
+        }
     }
 }
@@ -1,16 +1,34 @@
 package br.com.jmeterapp.service;
 
+import br.com.jmeterapp.config.JHipsterProperties;
 import br.com.jmeterapp.config.audit.AuditEventConverter;
+import br.com.jmeterapp.domain.PersistentAuditEvent;
+import br.com.jmeterapp.repository.AuditEventFilter;
 import br.com.jmeterapp.repository.PersistenceAuditEventRepository;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.boot.actuate.audit.AuditEvent;
+import org.springframework.boot.autoconfigure.orm.jpa.JpaProperties;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.orm.jpa.vendor.Database;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import javax.inject.Inject;
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 /**
  * Service for managing audit events.
@@ -22,10 +40,29 @@ import java.util.Optional;
 @Transactional
 public class AuditEventService {
 
+    private static final String AUDIT_EVENT_TABLE = "jhi_persistent_audit_event";
+
+    private static final String DEFAULT_PARTITION = AUDIT_EVENT_TABLE + "_default";
+
+    private static final Pattern PARTITION_NAME = Pattern.compile(AUDIT_EVENT_TABLE + "_(\\d{4})_(\\d{2})");
+
+    private static final DateTimeFormatter PARTITION_SUFFIX = DateTimeFormatter.ofPattern("yyyy_MM");
+
+    private final Logger log = LoggerFactory.getLogger(AuditEventService.class);
+
     private PersistenceAuditEventRepository persistenceAuditEventRepository;
 
     private AuditEventConverter auditEventConverter;
 
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Inject
+    private JpaProperties jpaProperties;
+
+    @Inject
+    private JHipsterProperties jHipsterProperties;
+
     @Inject
     public AuditEventService(
         PersistenceAuditEventRepository persistenceAuditEventRepository,
@@ -49,4 +86,128 @@ public class AuditEventService {
         return Optional.ofNullable(persistenceAuditEventRepository.findOne(id)).map
             (auditEventConverter::convertToAuditEvent);
     }
+
+    /**
+     * Get a keyset page of the events matching the filter, newest first. The persistent events are returned, as
+     * their id is part of the cursor of the next page.
+     *
+     * @param filter the filter, with the cursor of the previous page
+     * @param pageable the page size
+     * @return the events of the page
+     */
+    @Transactional(readOnly = true)
+    public Slice<PersistentAuditEvent> search(AuditEventFilter filter, Pageable pageable) {
+        return persistenceAuditEventRepository.search(filter, pageable);
+    }
+
+    /**
+     * Stream all the events matching the filter, newest first. Each event is converted as soon as it is read,
+     * so that the whole result is never in memory.
+     *
+     * @param filter the filter
+     * @param consumer called with each event
+     */
+    @Transactional(readOnly = true)
+    public void export(AuditEventFilter filter, Consumer<AuditEvent> consumer) {
+        persistenceAuditEventRepository.scroll(filter,
+            persistentAuditEvent -> consumer.accept(auditEventConverter.convertToAuditEvent(persistentAuditEvent)));
+    }
+
+    /**
+     * Old audit events should be automatically removed after jhipster.audit.retentionMonths.
+     * <p>
+     * On PostgreSQL, the audit event table is partitioned by month: whole partitions older than the retention
+     * are dropped, or only detached when jhipster.audit.archivePartitions is set, and the partitions of the
+     * coming months are created. The events of the default partition are moved to the partition of their month
+     * when it is created, so that they are expired with it. Other databases fall back to a single bulk delete.
+     * </p>
+     * <p>
+     * This is scheduled to get fired everyday, at 02:00 (am).
+     * </p>
+     */
+    @Scheduled(cron = "0 0 2 * * ?")
+    public void removeOldAuditEvents() {
+        JHipsterProperties.Audit audit = jHipsterProperties.getAudit();
+        if (jpaProperties.getDatabase() == Database.POSTGRESQL) {
+            createNextPartitions(audit.getPartitionsAhead());
+        }
+        if (audit.getRetentionMonths() <= 0) {
+            return;
+        }
+        LocalDate before = LocalDate.now().minusMonths(audit.getRetentionMonths());
+        if (jpaProperties.getDatabase() == Database.POSTGRESQL) {
+            removeOldPartitions(before, audit.isArchivePartitions());
+        } else {
+            int deleted = persistenceAuditEventRepository.deleteByAuditEventDateBefore(before.atStartOfDay());
+            log.debug("Deleted {} audit events older than {}", deleted, before);
+        }
+    }
+
+    private void createNextPartitions(int partitionsAhead) {
+        YearMonth month = YearMonth.now();
+        for (int i = 0; i <= partitionsAhead; i++) {
+            createPartition(month.plusMonths(i));
+        }
+    }
+
+    /**
+     * Create the partition of a month, if it does not exist yet. The events of this month stored in the default
+     * partition, for example when the job did not run for a while, are moved to the new partition, as a
+     * partition cannot be created while the default partition holds some of its rows.
+     */
+    private void createPartition(YearMonth month) {
+        String partition = AUDIT_EVENT_TABLE + "_" + month.format(PARTITION_SUFFIX);
+        Number existing = (Number) entityManager
+            .createNativeQuery("select count(*) from pg_class where relname = :partition")
+            .setParameter("partition", partition)
+            .getSingleResult();
+        if (existing.intValue() > 0) {
+            return;
+        }
+        String from = "'" + month.atDay(1) + "'";
+        String to = "'" + month.plusMonths(1).atDay(1) + "'";
+        entityManager.createNativeQuery("create table " + partition + " (like " + AUDIT_EVENT_TABLE +
+            " including defaults including constraints)").executeUpdate();
+        int moved = entityManager.createNativeQuery("with moved as (delete from " + DEFAULT_PARTITION +
+            " where event_date >= " + from + " and event_date < " + to + " returning *) insert into " + partition +
+            " select * from moved").executeUpdate();
+        entityManager.createNativeQuery("alter table " + AUDIT_EVENT_TABLE + " attach partition " + partition +
+            " for values from (" + from + ") to (" + to + ")").executeUpdate();
+        if (moved > 0) {
+            log.info("Moved {} audit events of {} from the default partition to the {} table", moved, month, partition);
+        }
+    }
+
+    private void removeOldPartitions(LocalDate before, boolean archive) {
+        // The expired events of the default partition are moved to the partition of their month, removed below
+        List<?> defaultMonths = entityManager.createNativeQuery("select distinct to_char(event_date, 'YYYY-MM') from " +
+            DEFAULT_PARTITION + " where event_date < '" + YearMonth.from(before).atDay(1) + "'")
+            .getResultList();
+        for (Object defaultMonth : defaultMonths) {
+            createPartition(YearMonth.parse(defaultMonth.toString()));
+        }
+        List<?> partitions = entityManager.createNativeQuery("select child.relname from pg_inherits " +
+            "join pg_class parent on parent.oid = pg_inherits.inhparent " +
+            "join pg_class child on child.oid = pg_inherits.inhrelid where parent.relname = :table")
+            .setParameter("table", AUDIT_EVENT_TABLE)
+            .getResultList();
+        for (Object partition : partitions) {
+            Matcher matcher = PARTITION_NAME.matcher(partition.toString());
+            if (!matcher.matches()) {
+                continue;
+            }
+            YearMonth partitionMonth = YearMonth.of(Integer.parseInt(matcher.group(1)), Integer.parseInt(matcher.group(2)));
+            if (partitionMonth.plusMonths(1).atDay(1).isAfter(before)) {
+                continue;
+            }
+            entityManager.createNativeQuery("alter table " + AUDIT_EVENT_TABLE + " detach partition " + partition)
+                .executeUpdate();
+            if (archive) {
+                log.info("Detached the audit events of {} to the {} table", partitionMonth, partition);
+            } else {
+                entityManager.createNativeQuery("drop table " + partition).executeUpdate();
+                log.info("Dropped the audit events of {}", partitionMonth);
+            }
+        }
+    }
 }
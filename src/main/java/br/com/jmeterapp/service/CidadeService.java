@@ -0,0 +1,57 @@
+package br.com.jmeterapp.service;
+
+import br.com.jmeterapp.domain.Cidade;
+import br.com.jmeterapp.repository.CidadeRepository;
+import br.com.jmeterapp.service.dto.CidadeDTO;
+import br.com.jmeterapp.service.mapper.CidadeMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.inject.Inject;
+
+/**
+ * Service for managing Cidade.
+ * <p>
+ * Writes evict the snapshot of the estados, which also holds the cidades of each estado.
+ * </p>
+ */
+@Service
+@Transactional
+public class CidadeService {
+
+    private final Logger log = LoggerFactory.getLogger(CidadeService.class);
+
+    @Inject
+    private CidadeRepository cidadeRepository;
+
+    @Inject
+    private CidadeMapper cidadeMapper;
+
+    /**
+     * Save a cidade.
+     *
+     * @param cidadeDTO the entity to save
+     * @return the persisted entity
+     */
+    @CacheEvict(cacheNames = EstadoService.SNAPSHOT_CACHE, allEntries = true)
+    public CidadeDTO save(CidadeDTO cidadeDTO) {
+        log.debug("Request to save Cidade : {}", cidadeDTO);
+        Cidade cidade = cidadeMapper.cidadeDTOToCidade(cidadeDTO);
+        cidade = cidadeRepository.saveAndFlush(cidade);
+        return cidadeMapper.cidadeToCidadeDTO(cidade);
+    }
+
+    /**
+     * Delete the "id" cidade.
+     *
+     * @param id the id of the entity
+     */
+    @CacheEvict(cacheNames = EstadoService.SNAPSHOT_CACHE, allEntries = true)
+    public void delete(Long id) {
+        log.debug("Request to delete Cidade : {}", id);
+        cidadeRepository.delete(id);
+    }
+}
@@ -0,0 +1,113 @@
+package br.com.jmeterapp.service;
+
+import br.com.jmeterapp.config.JHipsterProperties;
+import br.com.jmeterapp.service.util.CountStrategy;
+import br.com.jmeterapp.service.util.TotalCount;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.orm.jpa.JpaProperties;
+import org.springframework.orm.jpa.vendor.Database;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.inject.Inject;
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Service computing the total number of rows of a table for paginated listings, according to a
+ * {@link CountStrategy}.
+ */
+@Service
+@Transactional(readOnly = true)
+public class EntityCountService {
+
+    private final Logger log = LoggerFactory.getLogger(EntityCountService.class);
+
+    private final Map<String, CachedCount> cachedCounts = new ConcurrentHashMap<>();
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Inject
+    private JpaProperties jpaProperties;
+
+    @Inject
+    private JHipsterProperties jHipsterProperties;
+
+    /**
+     * Count the rows of a table.
+     *
+     * @param tableName the name of the table, used as the cache key and for the planner estimate
+     * @param countStrategy the strategy to use
+     * @param exactCount the query returning the exact count
+     * @return the total count, or null if the strategy is {@link CountStrategy#NONE}
+     */
+    public TotalCount count(String tableName, CountStrategy countStrategy, Supplier<Long> exactCount) {
+        switch (countStrategy) {
+            case NONE:
+                return null;
+            case CACHED:
+                return cachedCount(tableName, exactCount);
+            case ESTIMATE:
+                return estimatedCount(tableName, exactCount);
+            default:
+                return new TotalCount(exactCount.get(), true);
+        }
+    }
+
+    /**
+     * Evict the cached count of a table, to be called when rows are inserted or deleted.
+     *
+     * @param tableName the name of the table
+     */
+    public void evict(String tableName) {
+        cachedCounts.remove(tableName);
+    }
+
+    private TotalCount cachedCount(String tableName, Supplier<Long> exactCount) {
+        long now = System.currentTimeMillis();
+        CachedCount cachedCount = cachedCounts.get(tableName);
+        if (cachedCount != null && cachedCount.expiresAt > now) {
+            return new TotalCount(cachedCount.value, false);
+        }
+        long value = exactCount.get();
+        long timeToLive = jHipsterProperties.getPagination().getCountCacheTimeToLiveSeconds() * 1000L;
+        cachedCounts.put(tableName, new CachedCount(value, now + timeToLive));
+        return new TotalCount(value, true);
+    }
+
+    private TotalCount estimatedCount(String tableName, Supplier<Long> exactCount) {
+        if (jpaProperties.getDatabase() == Database.POSTGRESQL) {
+            List<?> result = entityManager
+                .createNativeQuery("select reltuples from pg_class where relname = :tableName")
+                .setParameter("tableName", tableName)
+                .getResultList();
+            if (!result.isEmpty()) {
+                long estimate = ((Number) result.get(0)).longValue();
+                if (estimate >= jHipsterProperties.getPagination().getEstimateThreshold()) {
+                    return new TotalCount(estimate, false);
+                }
+            } else {
+                log.warn("No planner statistics for table {}, falling back to an exact count", tableName);
+            }
+        }
+        return new TotalCount(exactCount.get(), true);
+    }
+
+    private static final class CachedCount {
+
+        private final long value;
+
+        private final long expiresAt;
+
+        private CachedCount(long value, long expiresAt) {
+            this.value = value;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
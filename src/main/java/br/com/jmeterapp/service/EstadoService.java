@@ -0,0 +1,135 @@
+package br.com.jmeterapp.service;
+
+import br.com.jmeterapp.domain.Estado;
+import br.com.jmeterapp.repository.CidadeRepository;
+import br.com.jmeterapp.repository.EstadoRepository;
+import br.com.jmeterapp.service.dto.CidadeDTO;
+import br.com.jmeterapp.service.dto.EstadoDTO;
+import br.com.jmeterapp.service.mapper.CidadeMapper;
+import br.com.jmeterapp.service.mapper.EstadoMapper;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.inject.Inject;
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Service for managing Estado.
+ * <p>
+ * Estados and their cidades are reference data, read by every dropdown and almost never written: they are served
+ * from an immutable snapshot of the whole tables, already serialized to JSON. Writing an estado or a cidade
+ * evicts the snapshot once the transaction commits, and the next read rebuilds it.
+ * </p>
+ */
+@Service
+@Transactional
+public class EstadoService {
+
+    public static final String SNAPSHOT_CACHE = "estadoSnapshot";
+
+    private final Logger log = LoggerFactory.getLogger(EstadoService.class);
+
+    @Inject
+    private EstadoRepository estadoRepository;
+
+    @Inject
+    private CidadeRepository cidadeRepository;
+
+    @Inject
+    private EstadoMapper estadoMapper;
+
+    @Inject
+    private CidadeMapper cidadeMapper;
+
+    @Inject
+    private ObjectMapper objectMapper;
+
+    /**
+     * Save an estado.
+     *
+     * @param estadoDTO the entity to save
+     * @return the persisted entity
+     */
+    @CacheEvict(cacheNames = SNAPSHOT_CACHE, allEntries = true)
+    public EstadoDTO save(EstadoDTO estadoDTO) {
+        log.debug("Request to save Estado : {}", estadoDTO);
+        Estado estado = estadoMapper.estadoDTOToEstado(estadoDTO);
+        estado = estadoRepository.saveAndFlush(estado);
+        return estadoMapper.estadoToEstadoDTO(estado);
+    }
+
+    /**
+     * Delete the "id" estado.
+     *
+     * @param id the id of the entity
+     */
+    @CacheEvict(cacheNames = SNAPSHOT_CACHE, allEntries = true)
+    public void delete(Long id) {
+        log.debug("Request to delete Estado : {}", id);
+        estadoRepository.delete(id);
+    }
+
+    /**
+     * Get the snapshot of all the estados and of their cidades, building it on the first call after a write.
+     *
+     * @return the snapshot
+     */
+    @Transactional(readOnly = true)
+    @Cacheable(SNAPSHOT_CACHE)
+    public Snapshot getSnapshot() {
+        log.debug("Building the snapshot of the Estados");
+        List<EstadoDTO> estados = estadoMapper.estadosToEstadoDTOs(estadoRepository.findAll(new Sort("id")));
+        Map<Long, List<CidadeDTO>> cidadesByEstado = cidadeMapper.cidadeSummariesToCidadeDTOs(
+            cidadeRepository.findAllSummariesOrderedById()).stream()
+            .filter(cidade -> cidade.getEstadoId() != null)
+            .collect(Collectors.groupingBy(CidadeDTO::getEstadoId));
+        Map<Long, byte[]> cidades = new HashMap<>();
+        for (EstadoDTO estado : estados) {
+            cidades.put(estado.getId(), toJson(cidadesByEstado.getOrDefault(estado.getId(), Collections.emptyList())));
+        }
+        return new Snapshot(toJson(estados), cidades);
+    }
+
+    private byte[] toJson(List<?> values) {
+        try {
+            return objectMapper.writeValueAsBytes(values);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize the snapshot of the Estados", e);
+        }
+    }
+
+    /**
+     * The estados and the cidades of each estado, as JSON arrays. The arrays must not be modified.
+     */
+    public static final class Snapshot {
+
+        private final byte[] estados;
+
+        private final Map<Long, byte[]> cidadesByEstado;
+
+        Snapshot(byte[] estados, Map<Long, byte[]> cidadesByEstado) {
+            this.estados = estados;
+            this.cidadesByEstado = Collections.unmodifiableMap(cidadesByEstado);
+        }
+
+        public byte[] getEstados() {
+            return estados;
+        }
+
+        /**
+         * @param estadoId the id of the estado
+         * @return the cidades of the estado, or an empty optional if the estado does not exist
+         */
+        public Optional<byte[]> getCidades(Long estadoId) {
+            return Optional.ofNullable(cidadesByEstado.get(estadoId));
+        }
+    }
+}
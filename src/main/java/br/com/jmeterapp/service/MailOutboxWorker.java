@@ -0,0 +1,326 @@
+package br.com.jmeterapp.service;
+
+import br.com.jmeterapp.config.JHipsterProperties;
+import br.com.jmeterapp.domain.OutboxMail;
+import br.com.jmeterapp.repository.OutboxMailRepository;
+
+import com.codahale.metrics.CachedGauge;
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
+import org.apache.commons.lang.CharEncoding;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.orm.jpa.JpaProperties;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.mail.MailException;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.mail.javamail.MimeMessageHelper;
+import org.springframework.orm.jpa.vendor.Database;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import javax.inject.Inject;
+import javax.mail.MessagingException;
+import javax.mail.internet.MimeMessage;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Delivers the e-mails of the outbox, written by the {@link MailService}.
+ * <p>
+ * The due e-mails are claimed on the "mailExecutor" every jhipster.mail.pollIntervalMillis, or as soon as a
+ * transaction writing e-mails commits, and each batch of them is sent over a single SMTP connection. Failed deliveries are
+ * retried with an exponential backoff, and given up after jhipster.mail.maxAttempts. The e-mails sent to a domain
+ * are limited to jhipster.mail.maxPerDomainPerMinute, the others waiting for the next minute.
+ * </p>
+ * <p>
+ * The e-mails are claimed with a row lock, so several instances can deliver the same outbox, each one limiting
+ * its own rate. On PostgreSQL, the e-mails locked by another instance are skipped instead of waited for.
+ * </p>
+ * <p>
+ * The e-mails given up are kept for jhipster.mail.failedRetentionDays, to be looked at, and then deleted.
+ * </p>
+ */
+@Component
+public class MailOutboxWorker {
+
+    private final Logger log = LoggerFactory.getLogger(MailOutboxWorker.class);
+
+    private final Map<String, DomainWindow> domainWindows = new HashMap<>();
+
+    @Inject
+    private OutboxMailRepository outboxMailRepository;
+
+    @Inject
+    private JavaMailSenderImpl javaMailSender;
+
+    @Inject
+    private PlatformTransactionManager transactionManager;
+
+    @Inject
+    private JHipsterProperties jHipsterProperties;
+
+    @Inject
+    private MetricRegistry metricRegistry;
+
+    @Inject
+    private JpaProperties jpaProperties;
+
+    private TransactionTemplate transactionTemplate;
+
+    private Counter sentMails;
+
+    private Counter retriedMails;
+
+    private Counter failedMails;
+
+    private Counter throttledMails;
+
+    private Counter purgedMails;
+
+    private Timer latency;
+
+    private Timer batches;
+
+    private final AtomicBoolean deliveryRequested = new AtomicBoolean();
+
+    @Inject
+    @Qualifier("mailExecutor")
+    private AsyncTaskExecutor mailExecutor;
+
+    @PostConstruct
+    public void init() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        sentMails = metricRegistry.counter("mail.outbox.sent");
+        retriedMails = metricRegistry.counter("mail.outbox.retried");
+        failedMails = metricRegistry.counter("mail.outbox.failed");
+        throttledMails = metricRegistry.counter("mail.outbox.throttled");
+        purgedMails = metricRegistry.counter("mail.outbox.purged");
+        latency = metricRegistry.timer("mail.outbox.latency");
+        batches = metricRegistry.timer("mail.outbox.batches");
+        metricRegistry.remove("mail.outbox.queued");
+        metricRegistry.register("mail.outbox.queued", new CachedGauge<Long>(5, TimeUnit.SECONDS) {
+            @Override
+            protected Long loadValue() {
+                return outboxMailRepository.countByNextAttemptDateIsNotNull();
+            }
+        });
+        metricRegistry.remove("mail.outbox.oldest.age");
+        metricRegistry.register("mail.outbox.oldest.age", new CachedGauge<Long>(5, TimeUnit.SECONDS) {
+            @Override
+            protected Long loadValue() {
+                return outboxMailRepository.findOldestPendingCreatedDate()
+                    .map(createdDate -> Duration.between(createdDate, ZonedDateTime.now()).getSeconds())
+                    .orElse(0L);
+            }
+        });
+    }
+
+    @Scheduled(fixedDelayString = "${jhipster.mail.pollIntervalMillis:1000}")
+    public void poll() {
+        wakeUp();
+    }
+
+    /**
+     * Delivers the due e-mails without waiting for the next poll, unless a delivery is already waiting to run.
+     */
+    public void wakeUp() {
+        if (deliveryRequested.compareAndSet(false, true)) {
+            try {
+                mailExecutor.execute(() -> {
+                    deliveryRequested.set(false);
+                    deliver();
+                });
+            } catch (TaskRejectedException e) {
+                deliveryRequested.set(false);
+                log.warn("Could not start the delivery of the e-mails of the outbox: {}", e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Delivers the due e-mails now.
+     *
+     * @return the number of e-mails sent
+     */
+    public synchronized int deliver() {
+        int batchSize = jHipsterProperties.getMail().getBatchSize();
+        int sent = 0;
+        List<OutboxMail> mails;
+        do {
+            mails = claim(batchSize);
+            if (!mails.isEmpty()) {
+                sent += deliver(mails);
+            }
+        } while (mails.size() == batchSize);
+        return sent;
+    }
+
+    /**
+     * The e-mails given up should be automatically deleted after jhipster.mail.failedRetentionDays.
+     * <p>
+     * This is scheduled to get fired everyday, at 03:00 (am).
+     * </p>
+     */
+    @Scheduled(cron = "0 0 3 * * ?")
+    public void removeFailedMails() {
+        int retentionDays = jHipsterProperties.getMail().getFailedRetentionDays();
+        if (retentionDays <= 0) {
+            return;
+        }
+        int deleted = transactionTemplate.execute(status ->
+            outboxMailRepository.deleteFailedCreatedBefore(ZonedDateTime.now().minusDays(retentionDays)));
+        purgedMails.inc(deleted);
+        log.debug("Deleted {} e-mails of the outbox given up more than {} days ago", deleted, retentionDays);
+    }
+
+    private List<OutboxMail> claim(int batchSize) {
+        return transactionTemplate.execute(status -> {
+            ZonedDateTime now = ZonedDateTime.now();
+            List<OutboxMail> mails = jpaProperties.getDatabase() == Database.POSTGRESQL
+                ? outboxMailRepository.findDueForUpdateSkipLocked(Date.from(now.toInstant()), batchSize)
+                : outboxMailRepository.findDueForUpdate(now, new PageRequest(0, batchSize));
+            ZonedDateTime leaseEnd = now.plusSeconds(jHipsterProperties.getMail().getLeaseSeconds());
+            mails.forEach(mail -> mail.setNextAttemptDate(leaseEnd));
+            return mails;
+        });
+    }
+
+    private int deliver(List<OutboxMail> mails) {
+        Map<MimeMessage, OutboxMail> messages = new IdentityHashMap<>();
+        List<OutboxMail> sent = new ArrayList<>();
+        List<OutboxMail> updated = new ArrayList<>();
+        long now = System.currentTimeMillis();
+        for (OutboxMail mail : mails) {
+            if (!acquire(mail, now)) {
+                throttledMails.inc();
+                updated.add(mail);
+                continue;
+            }
+            try {
+                messages.put(createMimeMessage(mail), mail);
+            } catch (MessagingException e) {
+                fail(mail, e);
+                updated.add(mail);
+            }
+        }
+        if (!messages.isEmpty()) {
+            Map<Object, Exception> failedMessages = Collections.emptyMap();
+            try (Timer.Context ignored = batches.time()) {
+                javaMailSender.send(messages.keySet().toArray(new MimeMessage[messages.size()]));
+            } catch (MailSendException e) {
+                failedMessages = e.getFailedMessages();
+            } catch (MailException e) {
+                failedMessages = new IdentityHashMap<>();
+                for (MimeMessage message : messages.keySet()) {
+                    failedMessages.put(message, e);
+                }
+            }
+            for (Map.Entry<MimeMessage, OutboxMail> message : messages.entrySet()) {
+                OutboxMail mail = message.getValue();
+                Exception failure = failedMessages.get(message.getKey());
+                if (failure != null) {
+                    fail(mail, failure);
+                    updated.add(mail);
+                } else {
+                    sent.add(mail);
+                }
+            }
+        }
+        transactionTemplate.execute(status -> {
+            outboxMailRepository.deleteInBatch(sent);
+            outboxMailRepository.save(updated);
+            return null;
+        });
+        ZonedDateTime sentDate = ZonedDateTime.now();
+        sent.forEach(mail -> latency.update(Duration.between(mail.getCreatedDate(), sentDate).toMillis(),
+            TimeUnit.MILLISECONDS));
+        sentMails.inc(sent.size());
+        log.debug("Sent {} e-mails of the outbox, {} were not sent", sent.size(), updated.size());
+        return sent.size();
+    }
+
+    private MimeMessage createMimeMessage(OutboxMail mail) throws MessagingException {
+        MimeMessage mimeMessage = javaMailSender.createMimeMessage();
+        MimeMessageHelper message = new MimeMessageHelper(mimeMessage, mail.isMultipart(), CharEncoding.UTF_8);
+        message.setTo(mail.getRecipient());
+        message.setFrom(jHipsterProperties.getMail().getFrom());
+        message.setSubject(mail.getSubject());
+        message.setText(mail.getContent(), mail.isHtml());
+        return mimeMessage;
+    }
+
+    /**
+     * Counts an e-mail in the current minute of its domain, or postpones it to the next minute if the limit of
+     * the domain is reached.
+     */
+    private boolean acquire(OutboxMail mail, long now) {
+        int maxPerMinute = jHipsterProperties.getMail().getMaxPerDomainPerMinute();
+        if (maxPerMinute <= 0) {
+            return true;
+        }
+        String recipient = mail.getRecipient();
+        String domain = recipient.substring(recipient.lastIndexOf('@') + 1).toLowerCase(Locale.ENGLISH);
+        long windowStart = now - now % TimeUnit.MINUTES.toMillis(1);
+        DomainWindow window = domainWindows.get(domain);
+        if (window == null || window.start != windowStart) {
+            domainWindows.values().removeIf(other -> other.start != windowStart);
+            window = new DomainWindow(windowStart);
+            domainWindows.put(domain, window);
+        }
+        if (window.count >= maxPerMinute) {
+            mail.setNextAttemptDate(ZonedDateTime.ofInstant(
+                Instant.ofEpochMilli(windowStart + TimeUnit.MINUTES.toMillis(1)), ZoneId.systemDefault()));
+            return false;
+        }
+        window.count++;
+        return true;
+    }
+
+    private void fail(OutboxMail mail, Exception e) {
+        int attempts = mail.getAttempts() + 1;
+        mail.setAttempts(attempts);
+        mail.setLastError(e.getMessage());
+        if (attempts >= jHipsterProperties.getMail().getMaxAttempts()) {
+            log.error("E-mail could not be sent to user '{}' after {} attempts, exception is: {}",
+                mail.getRecipient(), attempts, e.getMessage());
+            mail.setNextAttemptDate(null);
+            failedMails.inc();
+        } else {
+            long backoff = Math.min(
+                (long) jHipsterProperties.getMail().getInitialBackoffSeconds() << Math.min(attempts - 1, 30),
+                jHipsterProperties.getMail().getMaxBackoffSeconds());
+            log.warn("E-mail could not be sent to user '{}', retrying in {} seconds, exception is: {}",
+                mail.getRecipient(), backoff, e.getMessage());
+            mail.setNextAttemptDate(ZonedDateTime.now().plusSeconds(backoff));
+            retriedMails.inc();
+        }
+    }
+
+    /**
+     * The e-mails sent to a domain during a minute.
+     */
+    private static final class DomainWindow {
+
+        private final long start;
+
+        private int count;
+
+        private DomainWindow(long start) {
+            this.start = start;
+        }
+    }
+}
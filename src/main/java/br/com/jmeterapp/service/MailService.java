@@ -1,103 +1,75 @@
 package br.com.jmeterapp.service;
 
-import br.com.jmeterapp.config.JHipsterProperties;
+import br.com.jmeterapp.domain.OutboxMail;
 import br.com.jmeterapp.domain.User;
+import br.com.jmeterapp.repository.OutboxMailRepository;
 
-import org.apache.commons.lang.CharEncoding;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.context.MessageSource;
-import org.springframework.mail.javamail.JavaMailSenderImpl;
-import org.springframework.mail.javamail.MimeMessageHelper;
-import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
-import org.thymeleaf.context.Context;
-import org.thymeleaf.spring4.SpringTemplateEngine;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 
 import javax.inject.Inject;
-import javax.mail.internet.MimeMessage;
-import java.util.Locale;
 
 /**
  * Service for sending e-mails.
  * <p>
- * We use the @Async annotation to send e-mails asynchronously.
+ * The e-mails are written to the outbox, in the current transaction, and delivered by the {@link MailOutboxWorker}
+ * once it commits: they are not lost on failures or restarts, and do not use the async task executor.
  * </p>
  */
 @Service
+@Transactional
 public class MailService {
 
     private final Logger log = LoggerFactory.getLogger(MailService.class);
 
-    private static final String USER = "user";
-    private static final String BASE_URL = "baseUrl";
-
-    @Inject
-    private JHipsterProperties jHipsterProperties;
-
     @Inject
-    private JavaMailSenderImpl javaMailSender;
+    private OutboxMailRepository outboxMailRepository;
 
     @Inject
-    private MessageSource messageSource;
+    private MailOutboxWorker mailOutboxWorker;
 
     @Inject
-    private SpringTemplateEngine templateEngine;
+    private MailTemplateRenderer mailTemplateRenderer;
 
-    @Async
     public void sendEmail(String to, String subject, String content, boolean isMultipart, boolean isHtml) {
-        log.debug("Send e-mail[multipart '{}' and html '{}'] to '{}' with subject '{}' and content={}",
+        log.debug("Queue e-mail[multipart '{}' and html '{}'] to '{}' with subject '{}' and content={}",
             isMultipart, isHtml, to, subject, content);
 
-        // Prepare message using a Spring helper
-        MimeMessage mimeMessage = javaMailSender.createMimeMessage();
-        try {
-            MimeMessageHelper message = new MimeMessageHelper(mimeMessage, isMultipart, CharEncoding.UTF_8);
-            message.setTo(to);
-            message.setFrom(jHipsterProperties.getMail().getFrom());
-            message.setSubject(subject);
-            message.setText(content, isHtml);
-            javaMailSender.send(mimeMessage);
-            log.debug("Sent e-mail to User '{}'", to);
-        } catch (Exception e) {
-            log.warn("E-mail could not be sent to user '{}', exception is: {}", to, e.getMessage());
-        }
+        OutboxMail mail = new OutboxMail();
+        mail.setRecipient(to);
+        mail.setSubject(subject);
+        mail.setContent(content);
+        mail.setMultipart(isMultipart);
+        mail.setHtml(isHtml);
+        outboxMailRepository.save(mail);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+            @Override
+            public void afterCommit() {
+                mailOutboxWorker.wakeUp();
+            }
+        });
     }
 
-    @Async
     public void sendActivationEmail(User user, String baseUrl) {
         log.debug("Sending activation e-mail to '{}'", user.getEmail());
-        Locale locale = Locale.forLanguageTag(user.getLangKey());
-        Context context = new Context(locale);
-        context.setVariable(USER, user);
-        context.setVariable(BASE_URL, baseUrl);
-        String content = templateEngine.process("activationEmail", context);
-        String subject = messageSource.getMessage("email.activation.title", null, locale);
-        sendEmail(user.getEmail(), subject, content, false, true);
+        sendEmail(user.getEmail(), mailTemplateRenderer.renderSubject("email.activation.title", user),
+            mailTemplateRenderer.renderContent("activationEmail", user, baseUrl), false, true);
     }
 
-    @Async
     public void sendCreationEmail(User user, String baseUrl) {
         log.debug("Sending creation e-mail to '{}'", user.getEmail());
-        Locale locale = Locale.forLanguageTag(user.getLangKey());
-        Context context = new Context(locale);
-        context.setVariable(USER, user);
-        context.setVariable(BASE_URL, baseUrl);
-        String content = templateEngine.process("creationEmail", context);
-        String subject = messageSource.getMessage("email.activation.title", null, locale);
-        sendEmail(user.getEmail(), subject, content, false, true);
+        sendEmail(user.getEmail(), mailTemplateRenderer.renderSubject("email.activation.title", user),
+            mailTemplateRenderer.renderContent("creationEmail", user, baseUrl), false, true);
     }
 
-    @Async
     public void sendPasswordResetMail(User user, String baseUrl) {
         log.debug("Sending password reset e-mail to '{}'", user.getEmail());
-        Locale locale = Locale.forLanguageTag(user.getLangKey());
-        Context context = new Context(locale);
-        context.setVariable(USER, user);
-        context.setVariable(BASE_URL, baseUrl);
-        String content = templateEngine.process("passwordResetEmail", context);
-        String subject = messageSource.getMessage("email.reset.title", null, locale);
-        sendEmail(user.getEmail(), subject, content, false, true);
+        sendEmail(user.getEmail(), mailTemplateRenderer.renderSubject("email.reset.title", user),
+            mailTemplateRenderer.renderContent("passwordResetEmail", user, baseUrl), false, true);
     }
 }
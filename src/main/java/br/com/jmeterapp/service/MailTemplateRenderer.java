@@ -0,0 +1,249 @@
+package br.com.jmeterapp.service;
+
+import br.com.jmeterapp.config.JHipsterProperties;
+import br.com.jmeterapp.domain.User;
+
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.MetricRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.thymeleaf.ThymeleafProperties;
+import org.springframework.context.MessageSource;
+import org.springframework.stereotype.Component;
+import org.thymeleaf.context.Context;
+import org.thymeleaf.spring4.SpringTemplateEngine;
+
+import javax.annotation.PostConstruct;
+import javax.inject.Inject;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Function;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Renders the e-mail templates, for the {@link MailService}.
+ * <p>
+ * Each template is processed once per language, with marker values in place of the user and of the base URL:
+ * the output is split at the markers into static fragments, and each e-mail is then rendered by joining these
+ * fragments with the values of its user, without processing the template. The subjects are resolved once per
+ * language too.
+ * </p>
+ * <p>
+ * A compiled template is checked against the template engine when it is built, and the values are only joined
+ * as they are when they are set and contain no character that the template engine would escape; otherwise the
+ * template is processed as before, and counted in mail.templates.processed. The templates are compiled at startup
+ * for jhipster.mail.languages, and nothing is cached when the Thymeleaf cache is disabled, so that the templates
+ * can be edited in development.
+ * </p>
+ */
+@Component
+public class MailTemplateRenderer {
+
+    private static final String USER = "user";
+
+    private static final String BASE_URL = "baseUrl";
+
+    static final String[] TEMPLATES = {"activationEmail", "creationEmail", "passwordResetEmail"};
+
+    private static final Pattern SAFE_VALUE = Pattern.compile("[A-Za-z0-9_.@:/-]*");
+
+    private static final List<Function<User, String>> USER_PROPERTIES = Arrays.asList(
+        User::getLogin, User::getFirstName, User::getLastName, User::getEmail, User::getActivationKey,
+        User::getResetKey);
+
+    private final Logger log = LoggerFactory.getLogger(MailTemplateRenderer.class);
+
+    private final ConcurrentMap<String, CompiledTemplate> compiledTemplates = new ConcurrentHashMap<>();
+
+    private final ConcurrentMap<String, String> subjects = new ConcurrentHashMap<>();
+
+    @Inject
+    private SpringTemplateEngine templateEngine;
+
+    @Inject
+    private MessageSource messageSource;
+
+    @Inject
+    private ThymeleafProperties thymeleafProperties;
+
+    @Inject
+    private JHipsterProperties jHipsterProperties;
+
+    @Inject
+    private MetricRegistry metricRegistry;
+
+    private Counter processedTemplates;
+
+    @PostConstruct
+    public void compileTemplates() {
+        processedTemplates = metricRegistry.counter("mail.templates.processed");
+        if (!thymeleafProperties.isCache()) {
+            return;
+        }
+        for (String langKey : jHipsterProperties.getMail().getLanguages()) {
+            for (String template : TEMPLATES) {
+                getCompiledTemplate(template, langKey);
+            }
+        }
+        log.debug("Compiled {} e-mail templates", compiledTemplates.size());
+    }
+
+    /**
+     * Renders the content of an e-mail.
+     *
+     * @param template the name of the template
+     * @param user the user the e-mail is sent to, whose language is used
+     * @param baseUrl the base URL of the application
+     * @return the content of the e-mail
+     */
+    public String renderContent(String template, User user, String baseUrl) {
+        if (thymeleafProperties.isCache()) {
+            String[] values = values(user, baseUrl);
+            CompiledTemplate compiledTemplate = getCompiledTemplate(template, user.getLangKey());
+            if (compiledTemplate.canRender(values)) {
+                return compiledTemplate.render(values);
+            }
+        }
+        processedTemplates.inc();
+        return process(template, Locale.forLanguageTag(user.getLangKey()), user, baseUrl);
+    }
+
+    /**
+     * Resolves the subject of an e-mail.
+     *
+     * @param code the message code of the subject
+     * @param user the user the e-mail is sent to, whose language is used
+     * @return the subject of the e-mail
+     */
+    public String renderSubject(String code, User user) {
+        if (!thymeleafProperties.isCache()) {
+            return messageSource.getMessage(code, null, Locale.forLanguageTag(user.getLangKey()));
+        }
+        return subjects.computeIfAbsent(code + '|' + user.getLangKey(),
+            key -> messageSource.getMessage(code, null, Locale.forLanguageTag(user.getLangKey())));
+    }
+
+    private CompiledTemplate getCompiledTemplate(String template, String langKey) {
+        return compiledTemplates.computeIfAbsent(template + '|' + langKey, key -> compile(template, langKey));
+    }
+
+    private CompiledTemplate compile(String template, String langKey) {
+        Locale locale = Locale.forLanguageTag(langKey);
+        String nonce = Long.toString(new Random().nextLong() & Long.MAX_VALUE, 36);
+        String[] markers = new String[USER_PROPERTIES.size() + 1];
+        for (int i = 0; i < markers.length; i++) {
+            markers[i] = "mailvar" + i + "x" + nonce;
+        }
+        // The links are only processed as absolute URLs
+        markers[markers.length - 1] = "http://" + markers[markers.length - 1];
+        String output = process(template, locale, markerUser(markers), markers[markers.length - 1]);
+
+        List<String> fragments = new ArrayList<>();
+        List<Integer> variables = new ArrayList<>();
+        Matcher matcher = Pattern.compile("(?:http://)?mailvar(\\d+)x" + nonce).matcher(output);
+        int start = 0;
+        while (matcher.find()) {
+            fragments.add(output.substring(start, matcher.start()));
+            variables.add(Integer.valueOf(matcher.group(1)));
+            start = matcher.end();
+        }
+        fragments.add(output.substring(start));
+        CompiledTemplate compiledTemplate = new CompiledTemplate(fragments.toArray(new String[fragments.size()]),
+            variables.stream().mapToInt(Integer::intValue).toArray());
+
+        User sampleUser = sampleUser(langKey);
+        String sampleBaseUrl = "http://localhost:8080";
+        String[] sampleValues = values(sampleUser, sampleBaseUrl);
+        if (!compiledTemplate.canRender(sampleValues) || !compiledTemplate.render(sampleValues)
+            .equals(process(template, locale, sampleUser, sampleBaseUrl))) {
+            log.warn("The e-mail template '{}' can not be compiled, it will be processed for each e-mail", template);
+            return CompiledTemplate.NOT_COMPILABLE;
+        }
+        return compiledTemplate;
+    }
+
+    private String process(String template, Locale locale, User user, String baseUrl) {
+        Context context = new Context(locale);
+        context.setVariable(USER, user);
+        context.setVariable(BASE_URL, baseUrl);
+        return templateEngine.process(template, context);
+    }
+
+    private static String[] values(User user, String baseUrl) {
+        String[] values = new String[USER_PROPERTIES.size() + 1];
+        for (int i = 0; i < USER_PROPERTIES.size(); i++) {
+            values[i] = USER_PROPERTIES.get(i).apply(user);
+        }
+        values[values.length - 1] = baseUrl;
+        return values;
+    }
+
+    private static User markerUser(String[] markers) {
+        User user = new User();
+        user.setLogin(markers[0]);
+        user.setFirstName(markers[1]);
+        user.setLastName(markers[2]);
+        user.setEmail(markers[3]);
+        user.setActivationKey(markers[4]);
+        user.setResetKey(markers[5]);
+        return user;
+    }
+
+    private static User sampleUser(String langKey) {
+        User user = new User();
+        user.setLogin("sample.user");
+        user.setFirstName("Sample");
+        user.setLastName("User");
+        user.setEmail("sample.user@localhost");
+        user.setActivationKey("01234567890123456789");
+        user.setResetKey("98765432109876543210");
+        user.setLangKey(langKey);
+        return user;
+    }
+
+    /**
+     * The static fragments of a template, and the index of the value between each of them.
+     */
+    private static final class CompiledTemplate {
+
+        private static final CompiledTemplate NOT_COMPILABLE = new CompiledTemplate(null, null);
+
+        private final String[] fragments;
+
+        private final int[] variables;
+
+        private final int length;
+
+        private CompiledTemplate(String[] fragments, int[] variables) {
+            this.fragments = fragments;
+            this.variables = variables;
+            this.length = fragments == null ? 0 : Arrays.stream(fragments).mapToInt(String::length).sum();
+        }
+
+        /**
+         * @return true if the values used by the template are set, and would not be escaped by the template engine
+         */
+        private boolean canRender(String[] values) {
+            if (fragments == null) {
+                return false;
+            }
+            for (int variable : variables) {
+                if (values[variable] == null || !SAFE_VALUE.matcher(values[variable]).matches()) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private String render(String[] values) {
+            StringBuilder content = new StringBuilder(length + 256);
+            content.append(fragments[0]);
+            for (int i = 0; i < variables.length; i++) {
+                content.append(values[variables[i]]).append(fragments[i + 1]);
+            }
+            return content.toString();
+        }
+    }
+}
@@ -0,0 +1,280 @@
+package br.com.jmeterapp.service;
+
+import br.com.jmeterapp.domain.Pessoa;
+import br.com.jmeterapp.service.dto.BulkItemResultDTO;
+import br.com.jmeterapp.service.dto.BulkItemResultDTO.Status;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import javax.inject.Inject;
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.validation.ConstraintViolation;
+import javax.validation.Validation;
+import javax.validation.Validator;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Service creating and updating pessoas in bulk.
+ * <p>
+ * Pessoas are read one by one from the request body and persisted in chunks, each chunk in its own transaction:
+ * the chunk is flushed with JDBC batching (see hibernate.jdbc.batch_size) and the persistence context is
+ * cleared, so memory usage does not depend on the number of pessoas. A failing chunk does not roll back the
+ * chunks already committed, and is retried one pessoa at a time, so that only the failing pessoas are reported.
+ * </p>
+ * <p>
+ * The pessoas that cannot be read or are not valid are reported, and the following ones are still saved. In a
+ * JSON array, a syntax error stops the reading, as the end of the invalid pessoa cannot be found: newline
+ * delimited JSON should be preferred, as each line is read independently.
+ * </p>
+ */
+@Service
+public class PessoaBulkService {
+
+    private static final int CHUNK_SIZE = 1000;
+
+    private final Logger log = LoggerFactory.getLogger(PessoaBulkService.class);
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Inject
+    private PlatformTransactionManager transactionManager;
+
+    @Inject
+    private ObjectMapper objectMapper;
+
+    @Inject
+    private EntityCountService entityCountService;
+
+    private TransactionTemplate transactionTemplate;
+
+    private Validator validator;
+
+    @PostConstruct
+    public void init() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        validator = Validation.buildDefaultValidatorFactory().getValidator();
+    }
+
+    /**
+     * Save the pessoas read from a JSON array or from newline delimited JSON. Pessoas without an id are created,
+     * the others are updated.
+     *
+     * @param in the stream to read the pessoas from
+     * @return the result of each pessoa, in the order they were read
+     * @throws IOException if the stream could not be read
+     */
+    public List<BulkItemResultDTO> save(InputStream in) throws IOException {
+        Batch batch = new Batch();
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        if (startsWithArray(reader)) {
+            readArray(reader, batch);
+        } else {
+            readLines(reader, batch);
+        }
+        batch.flush();
+        entityCountService.evict("pessoa");
+        batch.results.sort(Comparator.comparingInt(BulkItemResultDTO::getIndex));
+        log.debug("Saved {} pessoas in bulk", batch.results.size());
+        return batch.results;
+    }
+
+    private static boolean startsWithArray(BufferedReader reader) throws IOException {
+        while (true) {
+            reader.mark(1);
+            int c = reader.read();
+            if (c == -1 || !Character.isWhitespace(c)) {
+                reader.reset();
+                return c == '[';
+            }
+        }
+    }
+
+    private void readArray(BufferedReader reader, Batch batch) throws IOException {
+        try (JsonParser parser = objectMapper.getFactory().createParser(reader)) {
+            parser.nextToken();
+            JsonToken token;
+            while ((token = parser.nextToken()) != JsonToken.END_ARRAY && token != null) {
+                batch.add(objectMapper.readTree(parser));
+            }
+        } catch (IOException e) {
+            // The end of the invalid pessoa cannot be found, so the following ones cannot be read
+            log.warn("Could not read pessoa {}: {}", batch.index, e.getMessage());
+            batch.fail("Malformed JSON, the following pessoas were not read");
+        }
+    }
+
+    private void readLines(BufferedReader reader, Batch batch) throws IOException {
+        String line;
+        while ((line = reader.readLine()) != null) {
+            if (line.trim().isEmpty()) {
+                continue;
+            }
+            try {
+                batch.add(objectMapper.readTree(line));
+            } catch (IOException e) {
+                log.warn("Could not read pessoa {}: {}", batch.index, e.getMessage());
+                batch.fail("Malformed pessoa");
+            }
+        }
+    }
+
+    private List<BulkItemResultDTO> saveChunk(List<Item> chunk) {
+        if (chunk.isEmpty()) {
+            return Collections.emptyList();
+        }
+        try {
+            return transactionTemplate.execute(status -> {
+                Map<Long, Pessoa> existingPessoas = findExistingPessoas(chunk);
+                List<BulkItemResultDTO> results = new ArrayList<>(chunk.size());
+                for (Item item : chunk) {
+                    Pessoa pessoa = item.pessoa;
+                    if (item.id == null) {
+                        entityManager.persist(pessoa);
+                        results.add(new BulkItemResultDTO(item.index, pessoa.getId(), Status.CREATED, null));
+                        continue;
+                    }
+                    Pessoa existingPessoa = existingPessoas.get(item.id);
+                    if (existingPessoa == null) {
+                        results.add(new BulkItemResultDTO(item.index, item.id, Status.NOT_FOUND, null));
+                    } else {
+                        existingPessoa
+                            .nome(pessoa.getNome())
+                            .documento(pessoa.getDocumento())
+                            .idade(pessoa.getIdade());
+                        results.add(new BulkItemResultDTO(item.index, item.id, Status.UPDATED, null));
+                    }
+                }
+                entityManager.flush();
+                entityManager.clear();
+                return results;
+            });
+        } catch (RuntimeException e) {
+            // The ids and versions set by the rolled back persist calls must not be reused
+            chunk.forEach(Item::reset);
+            if (chunk.size() == 1) {
+                Item item = chunk.get(0);
+                log.warn("Could not save pessoa {}: {}", item.index, e.getMessage());
+                return Collections.singletonList(new BulkItemResultDTO(item.index, item.id, Status.FAILED,
+                    e.getMessage()));
+            }
+            log.warn("Could not save pessoas {} to {}, saving them one by one: {}", chunk.get(0).index,
+                chunk.get(chunk.size() - 1).index, e.getMessage());
+            List<BulkItemResultDTO> results = new ArrayList<>(chunk.size());
+            for (Item item : chunk) {
+                results.addAll(saveChunk(Collections.singletonList(item)));
+            }
+            return results;
+        }
+    }
+
+    private Map<Long, Pessoa> findExistingPessoas(List<Item> chunk) {
+        Set<Long> ids = chunk.stream()
+            .map(item -> item.id)
+            .filter(id -> id != null)
+            .collect(Collectors.toSet());
+        if (ids.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        return entityManager.createQuery("select pessoa from Pessoa pessoa where pessoa.id in :ids", Pessoa.class)
+            .setParameter("ids", ids)
+            .getResultList().stream()
+            .collect(Collectors.toMap(Pessoa::getId, Function.identity()));
+    }
+
+    /**
+     * The pessoas read so far: the chunk being filled, and the results of the pessoas already saved or rejected.
+     */
+    private final class Batch {
+
+        private final List<BulkItemResultDTO> results = new ArrayList<>();
+
+        private final List<Item> chunk = new ArrayList<>(CHUNK_SIZE);
+
+        private int index;
+
+        private void add(JsonNode node) {
+            Pessoa pessoa;
+            try {
+                pessoa = objectMapper.treeToValue(node, Pessoa.class);
+            } catch (IOException e) {
+                log.warn("Could not read pessoa {}: {}", index, e.getMessage());
+                fail("Malformed pessoa");
+                return;
+            }
+            if (pessoa == null) {
+                fail("Malformed pessoa");
+                return;
+            }
+            Set<ConstraintViolation<Pessoa>> violations = validator.validate(pessoa);
+            if (!violations.isEmpty()) {
+                String message = violations.stream()
+                    .map(violation -> violation.getPropertyPath() + " " + violation.getMessage())
+                    .sorted()
+                    .collect(Collectors.joining(", "));
+                results.add(new BulkItemResultDTO(index++, pessoa.getId(), Status.FAILED, message));
+                return;
+            }
+            chunk.add(new Item(index++, pessoa));
+            if (chunk.size() == CHUNK_SIZE) {
+                flush();
+            }
+        }
+
+        private void fail(String message) {
+            results.add(new BulkItemResultDTO(index++, null, Status.FAILED, message));
+        }
+
+        private void flush() {
+            results.addAll(saveChunk(chunk));
+            chunk.clear();
+        }
+    }
+
+    /**
+     * A pessoa to save, and the id and version it was read with.
+     */
+    private static final class Item {
+
+        private final int index;
+
+        private final Pessoa pessoa;
+
+        private final Long id;
+
+        private final Long version;
+
+        private Item(int index, Pessoa pessoa) {
+            this.index = index;
+            this.pessoa = pessoa;
+            this.id = pessoa.getId();
+            this.version = pessoa.getVersion();
+        }
+
+        private void reset() {
+            pessoa.setId(id);
+            pessoa.setVersion(version);
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package br.com.jmeterapp.service;
+
+import br.com.jmeterapp.domain.Pessoa;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.hibernate.CacheMode;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.hibernate.Session;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.annotation.PostConstruct;
+import javax.inject.Inject;
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.io.BufferedWriter;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Service exporting the whole pessoa table.
+ * <p>
+ * Rows are read through a forward-only cursor and written to the output stream as soon as they are fetched,
+ * the persistence context being cleared after each chunk, so the heap used does not depend on the table size.
+ * </p>
+ */
+@Service
+@Transactional(readOnly = true)
+public class PessoaExportService {
+
+    private static final int FETCH_SIZE = 1000;
+
+    private final Logger log = LoggerFactory.getLogger(PessoaExportService.class);
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Inject
+    private ObjectMapper objectMapper;
+
+    private ObjectWriter pessoaWriter;
+
+    @PostConstruct
+    public void init() {
+        pessoaWriter = objectMapper.writerFor(Pessoa.class).without(SerializationFeature.INDENT_OUTPUT);
+    }
+
+    /**
+     * Export all the pessoas as newline delimited JSON, one pessoa per line.
+     *
+     * @param out the stream to write to, which is not closed
+     * @return the number of exported pessoas
+     * @throws IOException if the stream could not be written
+     */
+    public long exportAsNdjson(OutputStream out) throws IOException {
+        JsonGenerator generator = objectMapper.getFactory().createGenerator(out);
+        generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        generator.setRootValueSeparator(new SerializedString("\n"));
+        ScrollableResults results = scrollPessoas();
+        long count = 0;
+        try {
+            while (results.next()) {
+                pessoaWriter.writeValue(generator, results.get(0));
+                if (++count % FETCH_SIZE == 0) {
+                    endChunk(generator);
+                }
+            }
+            if (count > 0) {
+                generator.writeRaw('\n');
+            }
+            generator.close();
+        } finally {
+            results.close();
+        }
+        log.debug("Exported {} pessoas as NDJSON", count);
+        return count;
+    }
+
+    /**
+     * Export all the pessoas as CSV, with a header line.
+     *
+     * @param out the stream to write to, which is not closed
+     * @return the number of exported pessoas
+     * @throws IOException if the stream could not be written
+     */
+    public long exportAsCsv(OutputStream out) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        writer.write("id,nome,documento,idade\n");
+        ScrollableResults results = scrollPessoas();
+        long count = 0;
+        try {
+            while (results.next()) {
+                Pessoa pessoa = (Pessoa) results.get(0);
+                writer.write(String.valueOf(pessoa.getId()));
+                writer.write(',');
+                writer.write(escapeCsv(pessoa.getNome()));
+                writer.write(',');
+                writer.write(escapeCsv(pessoa.getDocumento()));
+                writer.write(',');
+                if (pessoa.getIdade() != null) {
+                    writer.write(pessoa.getIdade().toString());
+                }
+                writer.write('\n');
+                if (++count % FETCH_SIZE == 0) {
+                    endChunk(writer);
+                }
+            }
+            writer.flush();
+        } finally {
+            results.close();
+        }
+        log.debug("Exported {} pessoas as CSV", count);
+        return count;
+    }
+
+    private ScrollableResults scrollPessoas() {
+        return entityManager.unwrap(Session.class)
+            .createQuery("select pessoa from Pessoa pessoa order by pessoa.id")
+            .setFetchSize(FETCH_SIZE)
+            .setReadOnly(true)
+            .setCacheMode(CacheMode.IGNORE)
+            .scroll(ScrollMode.FORWARD_ONLY);
+    }
+
+    private void endChunk(Flushable output) throws IOException {
+        output.flush();
+        entityManager.clear();
+    }
+
+    private static String escapeCsv(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+}
@@ -6,20 +6,34 @@ import br.com.jmeterapp.repository.AuthorityRepository;
 import br.com.jmeterapp.repository.PersistentTokenRepository;
 import br.com.jmeterapp.repository.UserRepository;
 import br.com.jmeterapp.security.AuthoritiesConstants;
+import br.com.jmeterapp.security.PersistentTokenStore;
 import br.com.jmeterapp.security.SecurityUtils;
+import br.com.jmeterapp.security.UserDetailsService;
 import br.com.jmeterapp.service.util.RandomUtil;
 import br.com.jmeterapp.web.rest.vm.ManagedUserVM;
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
+import org.hibernate.SQLQuery;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.LocalDate;
 import java.time.ZonedDateTime;
 import javax.inject.Inject;
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
 import java.util.*;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
 
 /**
  * Service class for managing users.
@@ -28,6 +42,8 @@ import java.util.*;
 @Transactional
 public class UserService {
 
+    private static final int CLEANUP_CHUNK_SIZE = 500;
+
     private final Logger log = LoggerFactory.getLogger(UserService.class);
 
     @Inject
@@ -42,6 +58,24 @@ public class UserService {
     @Inject
     private AuthorityRepository authorityRepository;
 
+    @Inject
+    private EntityCountService entityCountService;
+
+    @Inject
+    private UserDetailsService userDetailsService;
+
+    @Inject
+    private PersistentTokenStore persistentTokenStore;
+
+    @Inject
+    private PlatformTransactionManager transactionManager;
+
+    @Inject
+    private MetricRegistry metricRegistry;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
     public Optional<User> activateRegistration(String key) {
         log.debug("Activating user for activation key {}", key);
         return userRepository.findOneByActivationKey(key)
@@ -50,6 +84,7 @@ public class UserService {
                 user.setActivated(true);
                 user.setActivationKey(null);
                 userRepository.save(user);
+                userDetailsService.evict(user.getLogin());
                 log.debug("Activated user: {}", user);
                 return user;
             });
@@ -68,6 +103,7 @@ public class UserService {
                 user.setResetKey(null);
                 user.setResetDate(null);
                 userRepository.save(user);
+                userDetailsService.evict(user.getLogin());
                 return user;
            });
     }
@@ -104,6 +140,7 @@ public class UserService {
         authorities.add(authority);
         newUser.setAuthorities(authorities);
         userRepository.save(newUser);
+        entityCountService.evict("jhi_user");
         log.debug("Created Information for User: {}", newUser);
         return newUser;
     }
@@ -132,6 +169,7 @@ public class UserService {
         user.setResetDate(ZonedDateTime.now());
         user.setActivated(true);
         userRepository.save(user);
+        entityCountService.evict("jhi_user");
         log.debug("Created Information for User: {}", user);
         return user;
     }
@@ -143,6 +181,7 @@ public class UserService {
             u.setEmail(email);
             u.setLangKey(langKey);
             userRepository.save(u);
+            userDetailsService.evict(u.getLogin());
             log.debug("Changed Information for User: {}", u);
         });
     }
@@ -153,6 +192,8 @@ public class UserService {
         userRepository
             .findOneById(id)
             .ifPresent(u -> {
+                userDetailsService.evict(u.getLogin());
+                userDetailsService.evict(login);
                 u.setLogin(login);
                 u.setFirstName(firstName);
                 u.setLastName(lastName);
@@ -171,6 +212,8 @@ public class UserService {
     public void deleteUser(String login) {
         userRepository.findOneByLogin(login).ifPresent(u -> {
             userRepository.delete(u);
+            entityCountService.evict("jhi_user");
+            userDetailsService.evict(u.getLogin());
             log.debug("Deleted User: {}", u);
         });
     }
@@ -180,10 +223,29 @@ public class UserService {
             String encryptedPassword = passwordEncoder.encode(password);
             u.setPassword(encryptedPassword);
             userRepository.save(u);
+            userDetailsService.evict(u.getLogin());
             log.debug("Changed password for User: {}", u);
         });
     }
 
+    /**
+     * Hashes the password of a user again, for example with a new strength, unless it was changed meanwhile.
+     *
+     * @param login the login of the user
+     * @param encryptedPassword the current hash of the password
+     * @param password the password
+     */
+    public void upgradePassword(String login, String encryptedPassword, String password) {
+        userRepository.findOneByLogin(login)
+            .filter(u -> u.getPassword().equals(encryptedPassword))
+            .ifPresent(u -> {
+                u.setPassword(passwordEncoder.encode(password));
+                userRepository.save(u);
+                userDetailsService.evict(u.getLogin());
+                log.debug("Upgraded password hash for User: {}", u);
+            });
+    }
+
     @Transactional(readOnly = true)
     public Optional<User> getUserWithAuthoritiesByLogin(String login) {
         return userRepository.findOneByLogin(login).map(u -> {
@@ -210,33 +272,99 @@ public class UserService {
      * Persistent Token are used for providing automatic authentication, they should be automatically deleted after
      * 30 days.
      * <p>
+     * They are deleted in chunks, each in its own transaction, without being loaded.
+     * </p>
+     * <p>
      * This is scheduled to get fired everyday, at midnight.
      * </p>
      */
     @Scheduled(cron = "0 0 0 * * ?")
+    @Transactional(propagation = Propagation.SUPPORTS)
     public void removeOldPersistentTokens() {
-        LocalDate now = LocalDate.now();
-        persistentTokenRepository.findByTokenDateBefore(now.minusMonths(1)).stream().forEach(token -> {
-            log.debug("Deleting token {}", token.getSeries());
-            User user = token.getUser();
-            user.getPersistentTokens().remove(token);
-            persistentTokenRepository.delete(token);
+        LocalDate tokenDate = LocalDate.now().minusMonths(1);
+        deleteInChunks("persistentTokens", () -> {
+            List<String> series = persistentTokenRepository.findSeriesByTokenDateBefore(tokenDate,
+                new PageRequest(0, CLEANUP_CHUNK_SIZE));
+            if (series.isEmpty()) {
+                return new Chunk(0, 0);
+            }
+            int deleted = persistentTokenRepository.deleteBySeriesIn(series);
+            series.forEach(persistentTokenStore::evict);
+            return new Chunk(series.size(), deleted);
         });
     }
 
     /**
      * Not activated users should be automatically deleted after 3 days.
      * <p>
+     * They are deleted in chunks, each in its own transaction, without being loaded.
+     * </p>
+     * <p>
      * This is scheduled to get fired everyday, at 01:00 (am).
      * </p>
      */
     @Scheduled(cron = "0 0 1 * * ?")
+    @Transactional(propagation = Propagation.SUPPORTS)
     public void removeNotActivatedUsers() {
-        ZonedDateTime now = ZonedDateTime.now();
-        List<User> users = userRepository.findAllByActivatedIsFalseAndCreatedDateBefore(now.minusDays(3));
-        for (User user : users) {
-            log.debug("Deleting not activated user {}", user.getLogin());
-            userRepository.delete(user);
+        ZonedDateTime createdDate = ZonedDateTime.now().minusDays(3);
+        deleteInChunks("users", () -> {
+            List<Object[]> users = userRepository.findIdAndLoginByActivatedIsFalseAndCreatedDateBefore(createdDate,
+                new PageRequest(0, CLEANUP_CHUNK_SIZE));
+            if (users.isEmpty()) {
+                return new Chunk(0, 0);
+            }
+            List<Long> ids = users.stream().map(user -> (Long) user[0]).collect(Collectors.toList());
+            persistentTokenRepository.deleteByUserIdIn(ids);
+            // Only invalidates the cache region of the User.authorities collections
+            entityManager.createNativeQuery("delete from jhi_user_authority where user_id in (:userIds)")
+                .unwrap(SQLQuery.class)
+                .addSynchronizedQuerySpace("jhi_user_authority")
+                .setParameterList("userIds", ids)
+                .executeUpdate();
+            int deleted = userRepository.deleteByIdIn(ids);
+            users.forEach(user -> userDetailsService.evict((String) user[1]));
+            return new Chunk(users.size(), deleted);
+        });
+        entityCountService.evict("jhi_user");
+    }
+
+    /**
+     * Runs a cleanup chunk by chunk, each chunk in its own transaction unless a transaction is already active, until
+     * a chunk finds less rows than the chunk size.
+     *
+     * @param name the name of the cleanup, used by its metrics
+     * @param chunk deletes a chunk, and returns the number of rows it found and deleted
+     */
+    private void deleteInChunks(String name, Supplier<Chunk> chunk) {
+        Counter deleted = metricRegistry.counter("cleanup." + name + ".deleted");
+        Timer chunks = metricRegistry.timer("cleanup." + name + ".chunks");
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        int total = 0;
+        Chunk result;
+        do {
+            try (Timer.Context ignored = chunks.time()) {
+                result = transactionTemplate.execute(status -> chunk.get());
+            }
+            // Rows deleted by another instance meanwhile are found, but not deleted
+            deleted.inc(result.deleted);
+            total += result.deleted;
+            log.debug("Deleted {} {} so far", total, name);
+        } while (result.found == CLEANUP_CHUNK_SIZE);
+        log.info("Deleted {} {}", total, name);
+    }
+
+    /**
+     * The number of rows found by a cleanup chunk, and the number of rows it deleted.
+     */
+    private static final class Chunk {
+
+        private final int found;
+
+        private final int deleted;
+
+        private Chunk(int found, int deleted) {
+            this.found = found;
+            this.deleted = deleted;
         }
     }
 }
@@ -13,6 +13,8 @@ public class CidadeDTO implements Serializable {
 
     private Long id;
 
+    private Long version;
+
     private String nome;
 
 
@@ -28,6 +30,15 @@ public class CidadeDTO implements Serializable {
     public void setId(Long id) {
         this.id = id;
     }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
     public String getNome() {
         return nome;
     }
@@ -11,6 +11,8 @@ public class EstadoDTO implements Serializable {
 
     private Long id;
 
+    private Long version;
+
     private String nome;
 
 
@@ -21,6 +23,15 @@ public class EstadoDTO implements Serializable {
     public void setId(Long id) {
         this.id = id;
     }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
     public String getNome() {
         return nome;
     }
@@ -1,13 +1,14 @@
 package br.com.jmeterapp.service.mapper;
 
 import br.com.jmeterapp.domain.*;
+import br.com.jmeterapp.repository.CidadeSummary;
 import br.com.jmeterapp.service.dto.CidadeDTO;
 
 import org.mapstruct.*;
 import java.util.List;
 
 /**
- * Mapper for the entity Cidade and its DTO CidadeDTO.
+ * Mapper for the entity Cidade, and its CidadeSummary projection, and its DTO CidadeDTO.
  */
 @Mapper(componentModel = "spring", uses = {})
 public interface CidadeMapper {
@@ -18,6 +19,10 @@ public interface CidadeMapper {
 
     List<CidadeDTO> cidadesToCidadeDTOs(List<Cidade> cidades);
 
+    CidadeDTO cidadeSummaryToCidadeDTO(CidadeSummary cidadeSummary);
+
+    List<CidadeDTO> cidadeSummariesToCidadeDTOs(List<CidadeSummary> cidadeSummaries);
+
     @Mapping(source = "estadoId", target = "estado")
     Cidade cidadeDTOToCidade(CidadeDTO cidadeDTO);
 
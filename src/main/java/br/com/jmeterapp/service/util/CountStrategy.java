@@ -0,0 +1,28 @@
+package br.com.jmeterapp.service.util;
+
+/**
+ * Strategies used to compute the total number of elements returned in the X-Total-Count header of paginated
+ * listings.
+ */
+public enum CountStrategy {
+
+    /**
+     * Run a "select count(*)" query alongside every page.
+     */
+    EXACT,
+
+    /**
+     * Do not count at all: only "next", "prev" and "first" links are generated.
+     */
+    NONE,
+
+    /**
+     * Reuse a count computed a few seconds ago, evicted when an entity is created or deleted.
+     */
+    CACHED,
+
+    /**
+     * Use the database planner estimate on large tables (PostgreSQL only), and an exact count otherwise.
+     */
+    ESTIMATE
+}
@@ -0,0 +1,24 @@
+package br.com.jmeterapp.service.util;
+
+/**
+ * The total number of rows of a table, computed by a {@link CountStrategy}, and whether it is exact or not.
+ */
+public final class TotalCount {
+
+    private final long value;
+
+    private final boolean exact;
+
+    public TotalCount(long value, boolean exact) {
+        this.value = value;
+        this.exact = exact;
+    }
+
+    public long getValue() {
+        return value;
+    }
+
+    public boolean isExact() {
+        return exact;
+    }
+}
@@ -0,0 +1,89 @@
+package br.com.jmeterapp.web.filter;
+
+import br.com.jmeterapp.config.metrics.RouteMetrics;
+
+import org.springframework.web.servlet.HandlerMapping;
+
+import javax.servlet.*;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+/**
+ * This filter records the latency of the requests in the {@link RouteMetrics}, with the URI template of the Spring MVC
+ * handler that served them.
+ * <p>
+ * The latency of an asynchronous request is recorded when it completes.
+ * </p>
+ */
+public class RouteMetricsFilter implements Filter {
+
+    private final RouteMetrics routeMetrics;
+
+    public RouteMetricsFilter(RouteMetrics routeMetrics) {
+        this.routeMetrics = routeMetrics;
+    }
+
+    @Override
+    public void init(FilterConfig filterConfig) throws ServletException {
+        // Nothing to initialize
+    }
+
+    @Override
+    public void destroy() {
+        // Nothing to destroy
+    }
+
+    @Override
+    public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain)
+        throws IOException, ServletException {
+
+        if (request.getDispatcherType() == DispatcherType.ASYNC) {
+            // Recorded by the listener of the initial request
+            chain.doFilter(request, response);
+            return;
+        }
+        HttpServletRequest httpRequest = (HttpServletRequest) request;
+        HttpServletResponse httpResponse = (HttpServletResponse) response;
+        long start = System.nanoTime();
+        boolean failed = true;
+        try {
+            chain.doFilter(request, response);
+            failed = false;
+        } finally {
+            if (!failed && request.isAsyncStarted()) {
+                request.getAsyncContext().addListener(new AsyncListener() {
+
+                    @Override
+                    public void onComplete(AsyncEvent event) {
+                        record(httpRequest, httpResponse.getStatus(), start);
+                    }
+
+                    @Override
+                    public void onTimeout(AsyncEvent event) {
+                        // Recorded on completion
+                    }
+
+                    @Override
+                    public void onError(AsyncEvent event) {
+                        // Recorded on completion
+                    }
+
+                    @Override
+                    public void onStartAsync(AsyncEvent event) {
+                        event.getAsyncContext().addListener(this);
+                    }
+                });
+            } else {
+                record(httpRequest, failed ? HttpServletResponse.SC_INTERNAL_SERVER_ERROR : httpResponse.getStatus(),
+                    start);
+            }
+        }
+    }
+
+    private void record(HttpServletRequest request, int status, long start) {
+        routeMetrics.record(request.getMethod(),
+            (String) request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE), status,
+            System.nanoTime() - start);
+    }
+}
@@ -0,0 +1,72 @@
+package br.com.jmeterapp.web.filter;
+
+import br.com.jmeterapp.config.JHipsterProperties;
+import br.com.jmeterapp.config.metrics.RouteMetrics;
+import br.com.jmeterapp.config.metrics.SqlStatistics;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.servlet.HandlerMapping;
+
+import javax.servlet.*;
+import javax.servlet.http.HttpServletRequest;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * This filter counts the SQL statements executed by each request, publishes them in the {@link RouteMetrics}, and
+ * logs the requests executing more than jhipster.metrics.sql.warnThreshold statements, which usually reveal N+1
+ * queries.
+ */
+public class SqlStatisticsFilter implements Filter {
+
+    private final Logger log = LoggerFactory.getLogger(SqlStatisticsFilter.class);
+
+    private final RouteMetrics routeMetrics;
+
+    private final JHipsterProperties jHipsterProperties;
+
+    public SqlStatisticsFilter(RouteMetrics routeMetrics, JHipsterProperties jHipsterProperties) {
+        this.routeMetrics = routeMetrics;
+        this.jHipsterProperties = jHipsterProperties;
+    }
+
+    @Override
+    public void init(FilterConfig filterConfig) throws ServletException {
+        // Nothing to initialize
+    }
+
+    @Override
+    public void destroy() {
+        // Nothing to destroy
+    }
+
+    @Override
+    public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain)
+        throws IOException, ServletException {
+
+        if (SqlStatistics.current() != null) {
+            // Already counted by the enclosing dispatch
+            chain.doFilter(request, response);
+            return;
+        }
+        SqlStatistics statistics = SqlStatistics.begin();
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            SqlStatistics.end();
+            record((HttpServletRequest) request, statistics);
+        }
+    }
+
+    private void record(HttpServletRequest request, SqlStatistics statistics) {
+        routeMetrics.recordSql(request.getMethod(),
+            (String) request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE), statistics);
+        int warnThreshold = jHipsterProperties.getMetrics().getSql().getWarnThreshold();
+        if (warnThreshold > 0 && statistics.getStatements() > warnThreshold) {
+            log.warn("{} {} executed {} SQL statements in {} ms, loading {} entities", request.getMethod(),
+                request.getRequestURI(), statistics.getStatements(),
+                TimeUnit.NANOSECONDS.toMillis(statistics.getJdbcNanos()), statistics.getEntityLoads());
+        }
+    }
+}
@@ -6,6 +6,7 @@ import br.com.jmeterapp.domain.PersistentToken;
 import br.com.jmeterapp.domain.User;
 import br.com.jmeterapp.repository.PersistentTokenRepository;
 import br.com.jmeterapp.repository.UserRepository;
+import br.com.jmeterapp.security.PersistentTokenStore;
 import br.com.jmeterapp.security.SecurityUtils;
 import br.com.jmeterapp.service.MailService;
 import br.com.jmeterapp.service.UserService;
@@ -48,6 +49,9 @@ public class AccountResource {
     @Inject
     private PersistentTokenRepository persistentTokenRepository;
 
+    @Inject
+    private PersistentTokenStore persistentTokenStore;
+
     @Inject
     private MailService mailService;
 
@@ -219,7 +223,7 @@ public class AccountResource {
         userRepository.findOneByLogin(SecurityUtils.getCurrentUserLogin()).ifPresent(u -> {
             persistentTokenRepository.findByUser(u).stream()
                 .filter(persistentToken -> StringUtils.equals(persistentToken.getSeries(), decodedSeries))
-                .findAny().ifPresent(t -> persistentTokenRepository.delete(decodedSeries));
+                .findAny().ifPresent(t -> persistentTokenStore.delete(decodedSeries));
         });
     }
 
@@ -1,22 +1,41 @@
 package br.com.jmeterapp.web.rest;
 
+import br.com.jmeterapp.config.audit.AuditEventConverter;
+import br.com.jmeterapp.domain.PersistentAuditEvent;
+import br.com.jmeterapp.repository.AuditEventFilter;
 import br.com.jmeterapp.service.AuditEventService;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+
+import br.com.jmeterapp.web.rest.errors.CustomParameterizedException;
+import br.com.jmeterapp.web.rest.errors.ErrorConstants;
 import br.com.jmeterapp.web.rest.util.PaginationUtil;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
 import org.springframework.boot.actuate.audit.AuditEvent;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.util.UriComponentsBuilder;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.net.URISyntaxException;
 import javax.inject.Inject;
+import javax.servlet.http.HttpServletResponse;
 import java.util.List;
+import java.util.stream.Collectors;
 
 /**
  * REST controller for getting the audit events.
@@ -25,11 +44,20 @@ import java.util.List;
 @RequestMapping(value = "/management/jhipster/audits", produces = MediaType.APPLICATION_JSON_VALUE)
 public class AuditResource {
 
+    public static final String APPLICATION_NDJSON_VALUE = "application/x-ndjson";
+
     private AuditEventService auditEventService;
 
+    private AuditEventConverter auditEventConverter;
+
+    private ObjectMapper objectMapper;
+
     @Inject
-    public AuditResource(AuditEventService auditEventService) {
+    public AuditResource(AuditEventService auditEventService, AuditEventConverter auditEventConverter,
+        ObjectMapper objectMapper) {
         this.auditEventService = auditEventService;
+        this.auditEventConverter = auditEventConverter;
+        this.objectMapper = objectMapper;
     }
 
     /**
@@ -81,4 +109,119 @@ public class AuditResource {
                 .map((entity) -> new ResponseEntity<>(entity, HttpStatus.OK))
                 .orElse(new ResponseEntity<>(HttpStatus.NOT_FOUND));
     }
+
+    /**
+     * GET  /audits/search : get a keyset page of the AuditEvents matching the filters, newest first.
+     * <p>
+     * The database seeks directly to the events after the cursor, and no count query is run, so that deep pages of
+     * a large audit table are as fast as the first one.
+     * </p>
+     *
+     * @param principal the principal of the events, optional
+     * @param type the type of the events, optional
+     * @param fromDate the first day of the events, optional
+     * @param toDate the last day of the events, optional
+     * @param after the opaque cursor returned in the "next" link of the previous page
+     * @param pageable the page size
+     * @return the ResponseEntity with status 200 (OK) and the list of AuditEvents in body
+     */
+    @RequestMapping(value = "/search",
+        method = RequestMethod.GET)
+    public ResponseEntity<List<AuditEvent>> search(
+        @RequestParam(value = "principal", required = false) String principal,
+        @RequestParam(value = "type", required = false) String type,
+        @RequestParam(value = "fromDate", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fromDate,
+        @RequestParam(value = "toDate", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate toDate,
+        @RequestParam(value = "after", required = false) String after,
+        Pageable pageable) {
+
+        AuditEventFilter filter = createFilter(principal, type, fromDate, toDate);
+        String[] cursor = PaginationUtil.decodeCursor(after, 2);
+        if (cursor != null) {
+            try {
+                filter.setAfter(LocalDateTime.parse(cursor[0]), Long.valueOf(cursor[1]));
+            } catch (DateTimeParseException | NumberFormatException e) {
+                throw new CustomParameterizedException(ErrorConstants.ERR_INVALID_CURSOR, after);
+            }
+        }
+        Slice<PersistentAuditEvent> slice = auditEventService.search(filter, PaginationUtil.keysetPageable(pageable));
+        UriComponentsBuilder baseUrl = UriComponentsBuilder.fromPath("/management/jhipster/audits/search");
+        addFilter(baseUrl, "principal", principal);
+        addFilter(baseUrl, "type", type);
+        addFilter(baseUrl, "fromDate", fromDate);
+        addFilter(baseUrl, "toDate", toDate);
+        HttpHeaders headers = PaginationUtil.generateCursorPaginationHttpHeaders(slice,
+            last -> PaginationUtil.encodeCursor(last.getAuditEventDate().toString(), last.getId().toString()), baseUrl.toUriString());
+        List<AuditEvent> events = slice.getContent().stream()
+            .map(auditEventConverter::convertToAuditEvent)
+            .collect(Collectors.toList());
+        return new ResponseEntity<>(events, headers, HttpStatus.OK);
+    }
+
+    /**
+     * GET  /audits/export : export all the AuditEvents matching the filters as newline-delimited JSON, newest first.
+     * <p>
+     * The events are written as they are read from the database, so the export is never held in memory.
+     * </p>
+     *
+     * @param principal the principal of the events, optional
+     * @param type the type of the events, optional
+     * @param fromDate the first day of the events, optional
+     * @param toDate the last day of the events, optional
+     * @param response the response the events are written to
+     * @throws IOException if the events cannot be written
+     */
+    @RequestMapping(value = "/export",
+        method = RequestMethod.GET,
+        produces = APPLICATION_NDJSON_VALUE)
+    public void export(
+        @RequestParam(value = "principal", required = false) String principal,
+        @RequestParam(value = "type", required = false) String type,
+        @RequestParam(value = "fromDate", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fromDate,
+        @RequestParam(value = "toDate", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate toDate,
+        HttpServletResponse response) throws IOException {
+
+        response.setContentType(APPLICATION_NDJSON_VALUE + ";charset=UTF-8");
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"audits.ndjson\"");
+        // Let the generator buffer the lines, instead of flushing the response after each of them
+        ObjectWriter writer = objectMapper.writer()
+            .without(SerializationFeature.INDENT_OUTPUT)
+            .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(response.getOutputStream())) {
+            generator.setRootValueSeparator(new SerializedString("\n"));
+            boolean[] written = {false};
+            auditEventService.export(createFilter(principal, type, fromDate, toDate), event -> {
+                try {
+                    writer.writeValue(generator, event);
+                    written[0] = true;
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            if (written[0]) {
+                generator.writeRaw('\n');
+            }
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private void addFilter(UriComponentsBuilder uriBuilder, String name, Object value) {
+        if (value != null) {
+            uriBuilder.queryParam(name, value);
+        }
+    }
+
+    private AuditEventFilter createFilter(String principal, String type, LocalDate fromDate, LocalDate toDate) {
+        AuditEventFilter filter = new AuditEventFilter();
+        filter.setPrincipal(principal);
+        filter.setType(type);
+        if (fromDate != null) {
+            filter.setFromDate(fromDate.atStartOfDay());
+        }
+        if (toDate != null) {
+            filter.setToDate(toDate.plusDays(1).atStartOfDay());
+        }
+        return filter;
+    }
 }
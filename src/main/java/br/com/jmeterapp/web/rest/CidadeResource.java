@@ -4,14 +4,21 @@ import com.codahale.metrics.annotation.Timed;
 import br.com.jmeterapp.domain.Cidade;
 
 import br.com.jmeterapp.repository.CidadeRepository;
+import br.com.jmeterapp.web.rest.util.ETagUtil;
 import br.com.jmeterapp.web.rest.util.HeaderUtil;
 import br.com.jmeterapp.web.rest.util.PaginationUtil;
+import br.com.jmeterapp.config.JHipsterProperties;
+import br.com.jmeterapp.service.CidadeService;
+import br.com.jmeterapp.service.EntityCountService;
+import br.com.jmeterapp.service.util.CountStrategy;
+import br.com.jmeterapp.service.util.TotalCount;
 import br.com.jmeterapp.service.dto.CidadeDTO;
 import br.com.jmeterapp.service.mapper.CidadeMapper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
@@ -38,9 +45,18 @@ public class CidadeResource {
     @Inject
     private CidadeRepository cidadeRepository;
 
+    @Inject
+    private EntityCountService entityCountService;
+
+    @Inject
+    private JHipsterProperties jHipsterProperties;
+
     @Inject
     private CidadeMapper cidadeMapper;
 
+    @Inject
+    private CidadeService cidadeService;
+
     /**
      * POST  /cidades : Create a new cidade.
      *
@@ -57,9 +73,8 @@ public class CidadeResource {
         if (cidadeDTO.getId() != null) {
             return ResponseEntity.badRequest().headers(HeaderUtil.createFailureAlert("cidade", "idexists", "A new cidade cannot already have an ID")).body(null);
         }
-        Cidade cidade = cidadeMapper.cidadeDTOToCidade(cidadeDTO);
-        cidade = cidadeRepository.save(cidade);
-        CidadeDTO result = cidadeMapper.cidadeToCidadeDTO(cidade);
+        CidadeDTO result = cidadeService.save(cidadeDTO);
+        entityCountService.evict("cidade");
         return ResponseEntity.created(new URI("/api/cidades/" + result.getId()))
             .headers(HeaderUtil.createEntityCreationAlert("cidade", result.getId().toString()))
             .body(result);
@@ -69,8 +84,12 @@ public class CidadeResource {
      * PUT  /cidades : Updates an existing cidade.
      *
      * @param cidadeDTO the cidadeDTO to update
+     * @param ifMatch the ETag of the cidade read by the client, to update it only if it has not changed since
      * @return the ResponseEntity with status 200 (OK) and with body the updated cidadeDTO,
      * or with status 400 (Bad Request) if the cidadeDTO is not valid,
+     * or with status 404 (Not Found) if the cidade does not exist,
+     * or with status 412 (Precondition Failed) if the cidade has changed since the client read it,
+     * or with status 428 (Precondition Required) if neither the version of the cidade nor If-Match is sent,
      * or with status 500 (Internal Server Error) if the cidadeDTO couldnt be updated
      * @throws URISyntaxException if the Location URI syntax is incorrect
      */
@@ -78,23 +97,46 @@ public class CidadeResource {
         method = RequestMethod.PUT,
         produces = MediaType.APPLICATION_JSON_VALUE)
     @Timed
-    public ResponseEntity<CidadeDTO> updateCidade(@RequestBody CidadeDTO cidadeDTO) throws URISyntaxException {
+    public ResponseEntity<CidadeDTO> updateCidade(@RequestBody CidadeDTO cidadeDTO,
+        @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) throws URISyntaxException {
         log.debug("REST request to update Cidade : {}", cidadeDTO);
         if (cidadeDTO.getId() == null) {
             return createCidade(cidadeDTO);
         }
-        Cidade cidade = cidadeMapper.cidadeDTOToCidade(cidadeDTO);
-        cidade = cidadeRepository.save(cidade);
-        CidadeDTO result = cidadeMapper.cidadeToCidadeDTO(cidade);
+        if (ifMatch == null && cidadeDTO.getVersion() == null) {
+            return ResponseEntity.status(HttpStatus.PRECONDITION_REQUIRED)
+                .headers(HeaderUtil.createFailureAlert("cidade", "preconditionrequired", "The version of the cidade or If-Match is required"))
+                .body(null);
+        }
+        Long version = cidadeRepository.findVersion(cidadeDTO.getId());
+        if (version == null) {
+            return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+        }
+        if (ETagUtil.isPreconditionFailed(ifMatch, version)) {
+            return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED)
+                .headers(HeaderUtil.createFailureAlert("cidade", "preconditionfailed", "The cidade has changed since it was read"))
+                .body(null);
+        }
+        if (ifMatch != null) {
+            cidadeDTO.setVersion(version);
+        }
+        CidadeDTO result = cidadeService.save(cidadeDTO);
         return ResponseEntity.ok()
+            .eTag(ETagUtil.eTag(result.getVersion()))
             .headers(HeaderUtil.createEntityUpdateAlert("cidade", cidadeDTO.getId().toString()))
             .body(result);
     }
 
     /**
      * GET  /cidades : get all the cidades.
+     * <p>
+     * When the "after" parameter is present, keyset pagination is used: the page starts right after the
+     * element identified by the cursor (an empty cursor meaning the first page), and no count query is issued.
+     * </p>
      *
      * @param pageable the pagination information
+     * @param after the opaque cursor returned in the "next" link of the previous keyset page
+     * @param count the count strategy ("exact", "none", "cached" or "estimate"), defaults to jhipster.pagination.countStrategy
      * @return the ResponseEntity with status 200 (OK) and the list of cidades in body
      * @throws URISyntaxException if there is an error to generate the pagination HTTP headers
      */
@@ -102,33 +144,55 @@ public class CidadeResource {
         method = RequestMethod.GET,
         produces = MediaType.APPLICATION_JSON_VALUE)
     @Timed
-    public ResponseEntity<List<CidadeDTO>> getAllCidades(Pageable pageable)
+    public ResponseEntity<List<CidadeDTO>> getAllCidades(Pageable pageable,
+        @RequestParam(value = "after", required = false) String after,
+        @RequestParam(value = "count", required = false) String count)
         throws URISyntaxException {
+        if (after != null) {
+            log.debug("REST request to get a keyset page of Cidades after : {}", after);
+            Slice<CidadeDTO> slice = cidadeRepository.findAllSummariesAfter(PaginationUtil.decodeCursor(after), PaginationUtil.keysetPageable(pageable))
+                .map(cidadeMapper::cidadeSummaryToCidadeDTO);
+            HttpHeaders headers = PaginationUtil.generateKeysetPaginationHttpHeaders(slice, CidadeDTO::getId, "/api/cidades");
+            return new ResponseEntity<>(slice.getContent(), headers, HttpStatus.OK);
+        }
         log.debug("REST request to get a page of Cidades");
-        Page<Cidade> page = cidadeRepository.findAll(pageable);
+        CountStrategy countStrategy = PaginationUtil.countStrategy(count, jHipsterProperties.getPagination().getCountStrategy());
+        if (countStrategy != CountStrategy.EXACT) {
+            Slice<CidadeDTO> slice = cidadeRepository.findSliceSummaries(pageable).map(cidadeMapper::cidadeSummaryToCidadeDTO);
+            TotalCount totalCount = entityCountService.count("cidade", countStrategy, cidadeRepository::count);
+            HttpHeaders headers = PaginationUtil.generatePaginationHttpHeaders(slice, totalCount, "/api/cidades");
+            return new ResponseEntity<>(slice.getContent(), headers, HttpStatus.OK);
+        }
+        Page<CidadeDTO> page = cidadeRepository.findAllSummaries(pageable).map(cidadeMapper::cidadeSummaryToCidadeDTO);
         HttpHeaders headers = PaginationUtil.generatePaginationHttpHeaders(page, "/api/cidades");
-        return new ResponseEntity<>(cidadeMapper.cidadesToCidadeDTOs(page.getContent()), headers, HttpStatus.OK);
+        return new ResponseEntity<>(page.getContent(), headers, HttpStatus.OK);
     }
 
     /**
      * GET  /cidades/:id : get the "id" cidade.
      *
      * @param id the id of the cidadeDTO to retrieve
-     * @return the ResponseEntity with status 200 (OK) and with body the cidadeDTO, or with status 404 (Not Found)
+     * @param ifNoneMatch the ETag of the cidade the client already has, if any
+     * @return the ResponseEntity with status 200 (OK) and with body the cidadeDTO,
+     * or with status 304 (Not Modified) if the client already has the current version of the cidade,
+     * or with status 404 (Not Found)
      */
     @RequestMapping(value = "/cidades/{id}",
         method = RequestMethod.GET,
         produces = MediaType.APPLICATION_JSON_VALUE)
     @Timed
-    public ResponseEntity<CidadeDTO> getCidade(@PathVariable Long id) {
+    public ResponseEntity<CidadeDTO> getCidade(@PathVariable Long id,
+        @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
         log.debug("REST request to get Cidade : {}", id);
         Cidade cidade = cidadeRepository.findOne(id);
-        CidadeDTO cidadeDTO = cidadeMapper.cidadeToCidadeDTO(cidade);
-        return Optional.ofNullable(cidadeDTO)
-            .map(result -> new ResponseEntity<>(
-                result,
-                HttpStatus.OK))
-            .orElse(new ResponseEntity<>(HttpStatus.NOT_FOUND));
+        if (cidade == null) {
+            return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+        }
+        String eTag = ETagUtil.eTag(cidade.getVersion());
+        if (ETagUtil.isNotModified(ifNoneMatch, cidade.getVersion())) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).body(null);
+        }
+        return ResponseEntity.ok().eTag(eTag).body(cidadeMapper.cidadeToCidadeDTO(cidade));
     }
 
     /**
@@ -143,7 +207,8 @@ public class CidadeResource {
     @Timed
     public ResponseEntity<Void> deleteCidade(@PathVariable Long id) {
         log.debug("REST request to delete Cidade : {}", id);
-        cidadeRepository.delete(id);
+        cidadeService.delete(id);
+        entityCountService.evict("cidade");
         return ResponseEntity.ok().headers(HeaderUtil.createEntityDeletionAlert("cidade", id.toString())).build();
     }
 
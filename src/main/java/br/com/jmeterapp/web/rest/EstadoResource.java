@@ -4,14 +4,21 @@ import com.codahale.metrics.annotation.Timed;
 import br.com.jmeterapp.domain.Estado;
 
 import br.com.jmeterapp.repository.EstadoRepository;
+import br.com.jmeterapp.web.rest.util.ETagUtil;
 import br.com.jmeterapp.web.rest.util.HeaderUtil;
 import br.com.jmeterapp.web.rest.util.PaginationUtil;
+import br.com.jmeterapp.config.JHipsterProperties;
+import br.com.jmeterapp.service.EntityCountService;
+import br.com.jmeterapp.service.EstadoService;
+import br.com.jmeterapp.service.util.CountStrategy;
+import br.com.jmeterapp.service.util.TotalCount;
 import br.com.jmeterapp.service.dto.EstadoDTO;
 import br.com.jmeterapp.service.mapper.EstadoMapper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
@@ -38,9 +45,18 @@ public class EstadoResource {
     @Inject
     private EstadoRepository estadoRepository;
 
+    @Inject
+    private EntityCountService entityCountService;
+
+    @Inject
+    private JHipsterProperties jHipsterProperties;
+
     @Inject
     private EstadoMapper estadoMapper;
 
+    @Inject
+    private EstadoService estadoService;
+
     /**
      * POST  /estados : Create a new estado.
      *
@@ -57,9 +73,8 @@ public class EstadoResource {
         if (estadoDTO.getId() != null) {
             return ResponseEntity.badRequest().headers(HeaderUtil.createFailureAlert("estado", "idexists", "A new estado cannot already have an ID")).body(null);
         }
-        Estado estado = estadoMapper.estadoDTOToEstado(estadoDTO);
-        estado = estadoRepository.save(estado);
-        EstadoDTO result = estadoMapper.estadoToEstadoDTO(estado);
+        EstadoDTO result = estadoService.save(estadoDTO);
+        entityCountService.evict("estado");
         return ResponseEntity.created(new URI("/api/estados/" + result.getId()))
             .headers(HeaderUtil.createEntityCreationAlert("estado", result.getId().toString()))
             .body(result);
@@ -69,8 +84,12 @@ public class EstadoResource {
      * PUT  /estados : Updates an existing estado.
      *
      * @param estadoDTO the estadoDTO to update
+     * @param ifMatch the ETag of the estado read by the client, to update it only if it has not changed since
      * @return the ResponseEntity with status 200 (OK) and with body the updated estadoDTO,
      * or with status 400 (Bad Request) if the estadoDTO is not valid,
+     * or with status 404 (Not Found) if the estado does not exist,
+     * or with status 412 (Precondition Failed) if the estado has changed since the client read it,
+     * or with status 428 (Precondition Required) if neither the version of the estado nor If-Match is sent,
      * or with status 500 (Internal Server Error) if the estadoDTO couldnt be updated
      * @throws URISyntaxException if the Location URI syntax is incorrect
      */
@@ -78,23 +97,46 @@ public class EstadoResource {
         method = RequestMethod.PUT,
         produces = MediaType.APPLICATION_JSON_VALUE)
     @Timed
-    public ResponseEntity<EstadoDTO> updateEstado(@RequestBody EstadoDTO estadoDTO) throws URISyntaxException {
+    public ResponseEntity<EstadoDTO> updateEstado(@RequestBody EstadoDTO estadoDTO,
+        @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) throws URISyntaxException {
         log.debug("REST request to update Estado : {}", estadoDTO);
         if (estadoDTO.getId() == null) {
             return createEstado(estadoDTO);
         }
-        Estado estado = estadoMapper.estadoDTOToEstado(estadoDTO);
-        estado = estadoRepository.save(estado);
-        EstadoDTO result = estadoMapper.estadoToEstadoDTO(estado);
+        if (ifMatch == null && estadoDTO.getVersion() == null) {
+            return ResponseEntity.status(HttpStatus.PRECONDITION_REQUIRED)
+                .headers(HeaderUtil.createFailureAlert("estado", "preconditionrequired", "The version of the estado or If-Match is required"))
+                .body(null);
+        }
+        Long version = estadoRepository.findVersion(estadoDTO.getId());
+        if (version == null) {
+            return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+        }
+        if (ETagUtil.isPreconditionFailed(ifMatch, version)) {
+            return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED)
+                .headers(HeaderUtil.createFailureAlert("estado", "preconditionfailed", "The estado has changed since it was read"))
+                .body(null);
+        }
+        if (ifMatch != null) {
+            estadoDTO.setVersion(version);
+        }
+        EstadoDTO result = estadoService.save(estadoDTO);
         return ResponseEntity.ok()
+            .eTag(ETagUtil.eTag(result.getVersion()))
             .headers(HeaderUtil.createEntityUpdateAlert("estado", estadoDTO.getId().toString()))
             .body(result);
     }
 
     /**
      * GET  /estados : get all the estados.
+     * <p>
+     * When the "after" parameter is present, keyset pagination is used: the page starts right after the
+     * element identified by the cursor (an empty cursor meaning the first page), and no count query is issued.
+     * </p>
      *
      * @param pageable the pagination information
+     * @param after the opaque cursor returned in the "next" link of the previous keyset page
+     * @param count the count strategy ("exact", "none", "cached" or "estimate"), defaults to jhipster.pagination.countStrategy
      * @return the ResponseEntity with status 200 (OK) and the list of estados in body
      * @throws URISyntaxException if there is an error to generate the pagination HTTP headers
      */
@@ -102,33 +144,91 @@ public class EstadoResource {
         method = RequestMethod.GET,
         produces = MediaType.APPLICATION_JSON_VALUE)
     @Timed
-    public ResponseEntity<List<EstadoDTO>> getAllEstados(Pageable pageable)
+    public ResponseEntity<List<EstadoDTO>> getAllEstados(Pageable pageable,
+        @RequestParam(value = "after", required = false) String after,
+        @RequestParam(value = "count", required = false) String count)
         throws URISyntaxException {
+        if (after != null) {
+            log.debug("REST request to get a keyset page of Estados after : {}", after);
+            Slice<Estado> slice = estadoRepository.findAllAfter(PaginationUtil.decodeCursor(after), PaginationUtil.keysetPageable(pageable));
+            HttpHeaders headers = PaginationUtil.generateKeysetPaginationHttpHeaders(slice, Estado::getId, "/api/estados");
+            return new ResponseEntity<>(estadoMapper.estadosToEstadoDTOs(slice.getContent()), headers, HttpStatus.OK);
+        }
         log.debug("REST request to get a page of Estados");
+        CountStrategy countStrategy = PaginationUtil.countStrategy(count, jHipsterProperties.getPagination().getCountStrategy());
+        if (countStrategy != CountStrategy.EXACT) {
+            Slice<Estado> slice = estadoRepository.findSlice(pageable);
+            TotalCount totalCount = entityCountService.count("estado", countStrategy, estadoRepository::count);
+            HttpHeaders headers = PaginationUtil.generatePaginationHttpHeaders(slice, totalCount, "/api/estados");
+            return new ResponseEntity<>(estadoMapper.estadosToEstadoDTOs(slice.getContent()), headers, HttpStatus.OK);
+        }
         Page<Estado> page = estadoRepository.findAll(pageable);
         HttpHeaders headers = PaginationUtil.generatePaginationHttpHeaders(page, "/api/estados");
         return new ResponseEntity<>(estadoMapper.estadosToEstadoDTOs(page.getContent()), headers, HttpStatus.OK);
     }
 
+    /**
+     * GET  /estados/all : get all the estados, without pagination.
+     * <p>
+     * Served from the snapshot of the estados, so it does not hit the database.
+     * </p>
+     *
+     * @return the ResponseEntity with status 200 (OK) and the list of estados in body
+     */
+    @RequestMapping(value = "/estados/all",
+        method = RequestMethod.GET,
+        produces = MediaType.APPLICATION_JSON_VALUE)
+    @Timed
+    public ResponseEntity<byte[]> getAllEstadosUnpaged() {
+        log.debug("REST request to get all Estados");
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON_UTF8).body(estadoService.getSnapshot().getEstados());
+    }
+
+    /**
+     * GET  /estados/:id/cidades : get all the cidades of the "id" estado, without pagination.
+     * <p>
+     * Served from the snapshot of the estados, so it does not hit the database.
+     * </p>
+     *
+     * @param id the id of the estado
+     * @return the ResponseEntity with status 200 (OK) and the list of cidades in body, or with status 404 (Not Found)
+     */
+    @RequestMapping(value = "/estados/{id}/cidades",
+        method = RequestMethod.GET,
+        produces = MediaType.APPLICATION_JSON_VALUE)
+    @Timed
+    public ResponseEntity<byte[]> getCidadesOfEstado(@PathVariable Long id) {
+        log.debug("REST request to get the Cidades of Estado : {}", id);
+        return estadoService.getSnapshot().getCidades(id)
+            .map(result -> ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON_UTF8).body(result))
+            .orElse(new ResponseEntity<>(HttpStatus.NOT_FOUND));
+    }
+
     /**
      * GET  /estados/:id : get the "id" estado.
      *
      * @param id the id of the estadoDTO to retrieve
-     * @return the ResponseEntity with status 200 (OK) and with body the estadoDTO, or with status 404 (Not Found)
+     * @param ifNoneMatch the ETag of the estado the client already has, if any
+     * @return the ResponseEntity with status 200 (OK) and with body the estadoDTO,
+     * or with status 304 (Not Modified) if the client already has the current version of the estado,
+     * or with status 404 (Not Found)
      */
     @RequestMapping(value = "/estados/{id}",
         method = RequestMethod.GET,
         produces = MediaType.APPLICATION_JSON_VALUE)
     @Timed
-    public ResponseEntity<EstadoDTO> getEstado(@PathVariable Long id) {
+    public ResponseEntity<EstadoDTO> getEstado(@PathVariable Long id,
+        @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
         log.debug("REST request to get Estado : {}", id);
         Estado estado = estadoRepository.findOne(id);
-        EstadoDTO estadoDTO = estadoMapper.estadoToEstadoDTO(estado);
-        return Optional.ofNullable(estadoDTO)
-            .map(result -> new ResponseEntity<>(
-                result,
-                HttpStatus.OK))
-            .orElse(new ResponseEntity<>(HttpStatus.NOT_FOUND));
+        if (estado == null) {
+            return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+        }
+        String eTag = ETagUtil.eTag(estado.getVersion());
+        if (ETagUtil.isNotModified(ifNoneMatch, estado.getVersion())) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).body(null);
+        }
+        return ResponseEntity.ok().eTag(eTag).body(estadoMapper.estadoToEstadoDTO(estado));
     }
 
     /**
@@ -143,7 +243,8 @@ public class EstadoResource {
     @Timed
     public ResponseEntity<Void> deleteEstado(@PathVariable Long id) {
         log.debug("REST request to delete Estado : {}", id);
-        estadoRepository.delete(id);
+        estadoService.delete(id);
+        entityCountService.evict("estado");
         return ResponseEntity.ok().headers(HeaderUtil.createEntityDeletionAlert("estado", id.toString())).build();
     }
 
@@ -4,12 +4,23 @@ import com.codahale.metrics.annotation.Timed;
 import br.com.jmeterapp.domain.Pessoa;
 
 import br.com.jmeterapp.repository.PessoaRepository;
+import br.com.jmeterapp.web.rest.errors.CustomParameterizedException;
+import br.com.jmeterapp.web.rest.errors.ErrorConstants;
+import br.com.jmeterapp.web.rest.util.ETagUtil;
 import br.com.jmeterapp.web.rest.util.HeaderUtil;
 import br.com.jmeterapp.web.rest.util.PaginationUtil;
+import br.com.jmeterapp.config.JHipsterProperties;
+import br.com.jmeterapp.service.EntityCountService;
+import br.com.jmeterapp.service.PessoaBulkService;
+import br.com.jmeterapp.service.PessoaExportService;
+import br.com.jmeterapp.service.dto.BulkItemResultDTO;
+import br.com.jmeterapp.service.util.CountStrategy;
+import br.com.jmeterapp.service.util.TotalCount;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
@@ -17,6 +28,9 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import javax.inject.Inject;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.util.List;
@@ -34,6 +48,18 @@ public class PessoaResource {
     @Inject
     private PessoaRepository pessoaRepository;
 
+    @Inject
+    private PessoaExportService pessoaExportService;
+
+    @Inject
+    private PessoaBulkService pessoaBulkService;
+
+    @Inject
+    private EntityCountService entityCountService;
+
+    @Inject
+    private JHipsterProperties jHipsterProperties;
+
     /**
      * POST  /pessoas : Create a new pessoa.
      *
@@ -51,6 +77,7 @@ public class PessoaResource {
             return ResponseEntity.badRequest().headers(HeaderUtil.createFailureAlert("pessoa", "idexists", "A new pessoa cannot already have an ID")).body(null);
         }
         Pessoa result = pessoaRepository.save(pessoa);
+        entityCountService.evict("pessoa");
         return ResponseEntity.created(new URI("/api/pessoas/" + result.getId()))
             .headers(HeaderUtil.createEntityCreationAlert("pessoa", result.getId().toString()))
             .body(result);
@@ -60,8 +87,12 @@ public class PessoaResource {
      * PUT  /pessoas : Updates an existing pessoa.
      *
      * @param pessoa the pessoa to update
+     * @param ifMatch the ETag of the pessoa read by the client, to update it only if it has not changed since
      * @return the ResponseEntity with status 200 (OK) and with body the updated pessoa,
      * or with status 400 (Bad Request) if the pessoa is not valid,
+     * or with status 404 (Not Found) if the pessoa does not exist,
+     * or with status 412 (Precondition Failed) if the pessoa has changed since the client read it,
+     * or with status 428 (Precondition Required) if neither the version of the pessoa nor If-Match is sent,
      * or with status 500 (Internal Server Error) if the pessoa couldnt be updated
      * @throws URISyntaxException if the Location URI syntax is incorrect
      */
@@ -69,21 +100,70 @@ public class PessoaResource {
         method = RequestMethod.PUT,
         produces = MediaType.APPLICATION_JSON_VALUE)
     @Timed
-    public ResponseEntity<Pessoa> updatePessoa(@RequestBody Pessoa pessoa) throws URISyntaxException {
+    public ResponseEntity<Pessoa> updatePessoa(@RequestBody Pessoa pessoa,
+        @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) throws URISyntaxException {
         log.debug("REST request to update Pessoa : {}", pessoa);
         if (pessoa.getId() == null) {
             return createPessoa(pessoa);
         }
+        if (ifMatch == null && pessoa.getVersion() == null) {
+            return ResponseEntity.status(HttpStatus.PRECONDITION_REQUIRED)
+                .headers(HeaderUtil.createFailureAlert("pessoa", "preconditionrequired", "The version of the pessoa or If-Match is required"))
+                .body(null);
+        }
+        Long version = pessoaRepository.findVersion(pessoa.getId());
+        if (version == null) {
+            return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+        }
+        if (ETagUtil.isPreconditionFailed(ifMatch, version)) {
+            return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED)
+                .headers(HeaderUtil.createFailureAlert("pessoa", "preconditionfailed", "The pessoa has changed since it was read"))
+                .body(null);
+        }
+        if (ifMatch != null) {
+            pessoa.setVersion(version);
+        }
         Pessoa result = pessoaRepository.save(pessoa);
         return ResponseEntity.ok()
+            .eTag(ETagUtil.eTag(result.getVersion()))
             .headers(HeaderUtil.createEntityUpdateAlert("pessoa", pessoa.getId().toString()))
             .body(result);
     }
 
+    /**
+     * POST  /pessoas/bulk : Create or update pessoas in bulk.
+     * <p>
+     * The body is either a JSON array of pessoas or newline delimited JSON (application/x-ndjson), and is read
+     * as a stream. Pessoas without an id are created, the others are updated.
+     * </p>
+     *
+     * @param request the HTTP request, whose body contains the pessoas
+     * @return the ResponseEntity with status 200 (OK) and with body the result of each pessoa, in the order of the request
+     * @throws IOException if the request body could not be read
+     */
+    @RequestMapping(value = "/pessoas/bulk",
+        method = RequestMethod.POST,
+        consumes = {MediaType.APPLICATION_JSON_VALUE, "application/x-ndjson"},
+        produces = MediaType.APPLICATION_JSON_VALUE)
+    @Timed
+    public ResponseEntity<List<BulkItemResultDTO>> bulkSavePessoas(HttpServletRequest request) throws IOException {
+        log.debug("REST request to save Pessoas in bulk");
+        List<BulkItemResultDTO> results = pessoaBulkService.save(request.getInputStream());
+        return ResponseEntity.ok()
+            .headers(HeaderUtil.createAlert("jmeterappApp.pessoa.bulkSaved", String.valueOf(results.size())))
+            .body(results);
+    }
+
     /**
      * GET  /pessoas : get all the pessoas.
+     * <p>
+     * When the "after" parameter is present, keyset pagination is used: the page starts right after the
+     * element identified by the cursor (an empty cursor meaning the first page), and no count query is issued.
+     * </p>
      *
      * @param pageable the pagination information
+     * @param after the opaque cursor returned in the "next" link of the previous keyset page
+     * @param count the count strategy ("exact", "none", "cached" or "estimate"), defaults to jhipster.pagination.countStrategy
      * @return the ResponseEntity with status 200 (OK) and the list of pessoas in body
      * @throws URISyntaxException if there is an error to generate the pagination HTTP headers
      */
@@ -91,32 +171,84 @@ public class PessoaResource {
         method = RequestMethod.GET,
         produces = MediaType.APPLICATION_JSON_VALUE)
     @Timed
-    public ResponseEntity<List<Pessoa>> getAllPessoas(Pageable pageable)
+    public ResponseEntity<List<Pessoa>> getAllPessoas(Pageable pageable,
+        @RequestParam(value = "after", required = false) String after,
+        @RequestParam(value = "count", required = false) String count)
         throws URISyntaxException {
+        if (after != null) {
+            log.debug("REST request to get a keyset page of Pessoas after : {}", after);
+            Slice<Pessoa> slice = pessoaRepository.findAllAfter(PaginationUtil.decodeCursor(after), PaginationUtil.keysetPageable(pageable));
+            HttpHeaders headers = PaginationUtil.generateKeysetPaginationHttpHeaders(slice, Pessoa::getId, "/api/pessoas");
+            return new ResponseEntity<>(slice.getContent(), headers, HttpStatus.OK);
+        }
         log.debug("REST request to get a page of Pessoas");
+        CountStrategy countStrategy = PaginationUtil.countStrategy(count, jHipsterProperties.getPagination().getCountStrategy());
+        if (countStrategy != CountStrategy.EXACT) {
+            Slice<Pessoa> slice = pessoaRepository.findSlice(pageable);
+            TotalCount totalCount = entityCountService.count("pessoa", countStrategy, pessoaRepository::count);
+            HttpHeaders headers = PaginationUtil.generatePaginationHttpHeaders(slice, totalCount, "/api/pessoas");
+            return new ResponseEntity<>(slice.getContent(), headers, HttpStatus.OK);
+        }
         Page<Pessoa> page = pessoaRepository.findAll(pageable);
         HttpHeaders headers = PaginationUtil.generatePaginationHttpHeaders(page, "/api/pessoas");
         return new ResponseEntity<>(page.getContent(), headers, HttpStatus.OK);
     }
 
+    /**
+     * GET  /pessoas/export : export all the pessoas.
+     * <p>
+     * The pessoas are streamed to the response as they are read from the database, so the whole table can be
+     * exported without paging through it.
+     * </p>
+     *
+     * @param format the export format: "ndjson" (one JSON pessoa per line, the default) or "csv"
+     * @param response the HTTP response the pessoas are written to
+     * @throws IOException if the response could not be written
+     */
+    @RequestMapping(value = "/pessoas/export",
+        method = RequestMethod.GET)
+    @Timed
+    public void exportPessoas(@RequestParam(value = "format", defaultValue = "ndjson") String format,
+        HttpServletResponse response) throws IOException {
+        log.debug("REST request to export Pessoas as {}", format);
+        if ("csv".equalsIgnoreCase(format)) {
+            response.setContentType("text/csv;charset=UTF-8");
+            response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=pessoas.csv");
+            pessoaExportService.exportAsCsv(response.getOutputStream());
+        } else if ("ndjson".equalsIgnoreCase(format)) {
+            response.setContentType("application/x-ndjson;charset=UTF-8");
+            response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=pessoas.ndjson");
+            pessoaExportService.exportAsNdjson(response.getOutputStream());
+        } else {
+            throw new CustomParameterizedException(ErrorConstants.ERR_INVALID_EXPORT_FORMAT, format);
+        }
+    }
+
     /**
      * GET  /pessoas/:id : get the "id" pessoa.
      *
      * @param id the id of the pessoa to retrieve
-     * @return the ResponseEntity with status 200 (OK) and with body the pessoa, or with status 404 (Not Found)
+     * @param ifNoneMatch the ETag of the pessoa the client already has, if any
+     * @return the ResponseEntity with status 200 (OK) and with body the pessoa,
+     * or with status 304 (Not Modified) if the client already has the current version of the pessoa,
+     * or with status 404 (Not Found)
      */
     @RequestMapping(value = "/pessoas/{id}",
         method = RequestMethod.GET,
         produces = MediaType.APPLICATION_JSON_VALUE)
     @Timed
-    public ResponseEntity<Pessoa> getPessoa(@PathVariable Long id) {
+    public ResponseEntity<Pessoa> getPessoa(@PathVariable Long id,
+        @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
         log.debug("REST request to get Pessoa : {}", id);
         Pessoa pessoa = pessoaRepository.findOne(id);
-        return Optional.ofNullable(pessoa)
-            .map(result -> new ResponseEntity<>(
-                result,
-                HttpStatus.OK))
-            .orElse(new ResponseEntity<>(HttpStatus.NOT_FOUND));
+        if (pessoa == null) {
+            return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+        }
+        String eTag = ETagUtil.eTag(pessoa.getVersion());
+        if (ETagUtil.isNotModified(ifNoneMatch, pessoa.getVersion())) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).body(null);
+        }
+        return ResponseEntity.ok().eTag(eTag).body(pessoa);
     }
 
     /**
@@ -132,6 +264,7 @@ public class PessoaResource {
     public ResponseEntity<Void> deletePessoa(@PathVariable Long id) {
         log.debug("REST request to delete Pessoa : {}", id);
         pessoaRepository.delete(id);
+        entityCountService.evict("pessoa");
         return ResponseEntity.ok().headers(HeaderUtil.createEntityDeletionAlert("pessoa", id.toString())).build();
     }
 
@@ -0,0 +1,41 @@
+package br.com.jmeterapp.web.rest;
+
+import br.com.jmeterapp.config.metrics.RouteMetrics;
+import br.com.jmeterapp.web.rest.vm.RouteHistogramVM;
+
+import com.codahale.metrics.annotation.Timed;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RestController;
+
+import javax.inject.Inject;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Controller to dump the latency histograms of the routes, to compare them offline between releases.
+ * <p>
+ * The percentiles of the routes are also published by the metrics servlet, as the timers named http.routes.*.
+ * </p>
+ */
+@RestController
+@RequestMapping("/management/jhipster")
+public class RouteHistogramsResource {
+
+    @Inject
+    private RouteMetrics routeMetrics;
+
+    @RequestMapping(value = "/route-histograms",
+        method = RequestMethod.GET,
+        produces = MediaType.APPLICATION_JSON_VALUE)
+    @Timed
+    public List<RouteHistogramVM> getHistograms() {
+        return routeMetrics.getRoutes().entrySet()
+            .stream()
+            .sorted(Map.Entry.comparingByKey())
+            .map(entry -> new RouteHistogramVM(entry.getKey(), entry.getValue()))
+            .collect(Collectors.toList());
+    }
+}
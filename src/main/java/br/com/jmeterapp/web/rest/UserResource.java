@@ -10,10 +10,15 @@ import br.com.jmeterapp.service.UserService;
 import br.com.jmeterapp.web.rest.vm.ManagedUserVM;
 import br.com.jmeterapp.web.rest.util.HeaderUtil;
 import br.com.jmeterapp.web.rest.util.PaginationUtil;
+import br.com.jmeterapp.config.JHipsterProperties;
+import br.com.jmeterapp.service.EntityCountService;
+import br.com.jmeterapp.service.util.CountStrategy;
+import br.com.jmeterapp.service.util.TotalCount;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
@@ -67,6 +72,12 @@ public class UserResource {
     @Inject
     private UserService userService;
 
+    @Inject
+    private EntityCountService entityCountService;
+
+    @Inject
+    private JHipsterProperties jHipsterProperties;
+
     /**
      * POST  /users  : Creates a new user.
      * <p>
@@ -148,6 +159,7 @@ public class UserResource {
      * GET  /users : get all users.
      * 
      * @param pageable the pagination information
+     * @param count the count strategy ("exact", "none", "cached" or "estimate"), defaults to jhipster.pagination.countStrategy
      * @return the ResponseEntity with status 200 (OK) and with body all users
      * @throws URISyntaxException if the pagination headers couldn't be generated
      */
@@ -155,8 +167,18 @@ public class UserResource {
         method = RequestMethod.GET,
         produces = MediaType.APPLICATION_JSON_VALUE)
     @Timed
-    public ResponseEntity<List<ManagedUserVM>> getAllUsers(Pageable pageable)
+    public ResponseEntity<List<ManagedUserVM>> getAllUsers(Pageable pageable,
+        @RequestParam(value = "count", required = false) String count)
         throws URISyntaxException {
+        CountStrategy countStrategy = PaginationUtil.countStrategy(count, jHipsterProperties.getPagination().getCountStrategy());
+        if (countStrategy != CountStrategy.EXACT) {
+            Slice<User> slice = userRepository.findSliceWithAuthorities(pageable);
+            TotalCount totalCount = entityCountService.count("jhi_user", countStrategy, userRepository::count);
+            HttpHeaders headers = PaginationUtil.generatePaginationHttpHeaders(slice, totalCount, "/api/users");
+            return new ResponseEntity<>(slice.getContent().stream()
+                .map(ManagedUserVM::new)
+                .collect(Collectors.toList()), headers, HttpStatus.OK);
+        }
         Page<User> page = userRepository.findAllWithAuthorities(pageable);
         List<ManagedUserVM> managedUserVMs = page.getContent().stream()
             .map(ManagedUserVM::new)
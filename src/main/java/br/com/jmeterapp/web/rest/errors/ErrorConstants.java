@@ -7,6 +7,9 @@ public final class ErrorConstants {
     public static final String ERR_VALIDATION = "error.validation";
     public static final String ERR_METHOD_NOT_SUPPORTED = "error.methodNotSupported";
     public static final String ERR_INTERNAL_SERVER_ERROR = "error.internalServerError";
+    public static final String ERR_INVALID_CURSOR = "error.invalidCursor";
+    public static final String ERR_INVALID_COUNT_STRATEGY = "error.invalidCountStrategy";
+    public static final String ERR_INVALID_EXPORT_FORMAT = "error.invalidExportFormat";
 
     private ErrorConstants() {
     }
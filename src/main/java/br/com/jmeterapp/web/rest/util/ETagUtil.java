@@ -0,0 +1,62 @@
+package br.com.jmeterapp.web.rest.util;
+
+/**
+ * Utility class for handling the ETags of the entities.
+ *
+ * <p>
+ * The ETag of an entity is a strong validator built from its version, which changes on every update. Clients
+ * send it back in If-None-Match to get a 304 (Not Modified) instead of the entity, or in If-Match to update the
+ * entity only if nobody else did it since they read it.
+ */
+public class ETagUtil {
+
+    public static String eTag(Long version) {
+        return "\"" + version + "\"";
+    }
+
+    /**
+     * Tells whether the client already has the current version of the entity, using the weak comparison of
+     * If-None-Match.
+     *
+     * @param ifNoneMatch the value of the If-None-Match header, or null if it is not sent
+     * @param version the current version of the entity
+     * @return true if a 304 (Not Modified) should be sent
+     */
+    public static boolean isNotModified(String ifNoneMatch, Long version) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        String eTag = eTag(version);
+        for (String candidate : ifNoneMatch.split(",")) {
+            candidate = candidate.trim();
+            if (candidate.startsWith("W/")) {
+                candidate = candidate.substring(2);
+            }
+            if (candidate.equals("*") || candidate.equals(eTag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Tells whether the entity has been modified since the client read it, using the strong comparison of If-Match.
+     *
+     * @param ifMatch the value of the If-Match header, or null if it is not sent
+     * @param version the current version of the entity
+     * @return true if a 412 (Precondition Failed) should be sent
+     */
+    public static boolean isPreconditionFailed(String ifMatch, Long version) {
+        if (ifMatch == null) {
+            return false;
+        }
+        String eTag = eTag(version);
+        for (String candidate : ifMatch.split(",")) {
+            candidate = candidate.trim();
+            if (candidate.equals("*") || candidate.equals(eTag)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -1,10 +1,23 @@
 package br.com.jmeterapp.web.rest.util;
 
+import br.com.jmeterapp.service.util.CountStrategy;
+import br.com.jmeterapp.service.util.TotalCount;
+import br.com.jmeterapp.web.rest.errors.CustomParameterizedException;
+import br.com.jmeterapp.web.rest.errors.ErrorConstants;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.http.HttpHeaders;
 import org.springframework.web.util.UriComponentsBuilder;
 
 import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.Function;
 
 /**
  * Utility class for handling pagination.
@@ -12,14 +25,31 @@ import java.net.URISyntaxException;
  * <p>
  * Pagination uses the same principles as the <a href="https://developer.github.com/v3/#pagination">Github API</a>,
  * and follow <a href="http://tools.ietf.org/html/rfc5988">RFC 5988 (Link header)</a>.
+ *
+ * <p>
+ * Keyset (seek) pagination is also supported: the client sends an opaque {@code after} cursor instead of a page
+ * number, so the database seeks directly to the next rows and no total count is computed.
+ *
+ * <p>
+ * Offset pagination can also skip, cache or estimate the total count, depending on the {@link CountStrategy}
+ * requested with the {@code count} parameter: the X-Total-Count-Exact header, sent with every offset page, tells
+ * whether X-Total-Count is exact ("false" when no count is sent at all).
  */
 public class PaginationUtil {
 
+    /**
+     * Cursor value used when a keyset page is requested without a cursor (the first page).
+     */
+    public static final long KEYSET_START = Long.MIN_VALUE;
+
+    private static final String TOTAL_COUNT_EXACT_HEADER = "X-Total-Count-Exact";
+
     public static HttpHeaders generatePaginationHttpHeaders(Page<?> page, String baseUrl)
         throws URISyntaxException {
 
         HttpHeaders headers = new HttpHeaders();
         headers.add("X-Total-Count", "" + page.getTotalElements());
+        headers.add(TOTAL_COUNT_EXACT_HEADER, "true");
         String link = "";
         if ((page.getNumber() + 1) < page.getTotalPages()) {
             link = "<" + generateUri(baseUrl, page.getNumber() + 1, page.getSize()) + ">; rel=\"next\",";
@@ -39,7 +69,169 @@ public class PaginationUtil {
         return headers;
     }
 
+    /**
+     * Generates the pagination headers of a slice, fetched without a count query.
+     *
+     * @param slice the page content
+     * @param totalCount the total count computed by the requested count strategy, or null if no count is wanted
+     * @param baseUrl the base URL of the resource
+     * @return the pagination HTTP headers
+     * @throws URISyntaxException if there is an error to generate the URIs
+     */
+    public static HttpHeaders generatePaginationHttpHeaders(Slice<?> slice, TotalCount totalCount, String baseUrl)
+        throws URISyntaxException {
+
+        if (totalCount != null) {
+            Page<?> page = new PageImpl<>(slice.getContent(), new PageRequest(slice.getNumber(), slice.getSize()),
+                totalCount.getValue());
+            HttpHeaders headers = generatePaginationHttpHeaders(page, baseUrl);
+            headers.set(TOTAL_COUNT_EXACT_HEADER, "" + totalCount.isExact());
+            return headers;
+        }
+        HttpHeaders headers = new HttpHeaders();
+        headers.add(TOTAL_COUNT_EXACT_HEADER, "false");
+        String link = "";
+        if (slice.hasNext()) {
+            link = "<" + generateUri(baseUrl, slice.getNumber() + 1, slice.getSize()) + ">; rel=\"next\",";
+        }
+        if (slice.hasPrevious()) {
+            link += "<" + generateUri(baseUrl, slice.getNumber() - 1, slice.getSize()) + ">; rel=\"prev\",";
+        }
+        link += "<" + generateUri(baseUrl, 0, slice.getSize()) + ">; rel=\"first\"";
+        headers.add(HttpHeaders.LINK, link);
+        return headers;
+    }
+
+    /**
+     * Reads the count strategy requested by the client.
+     *
+     * @param count the value of the "count" parameter, case insensitive
+     * @param defaultStrategy the strategy used when the client does not send any
+     * @return the count strategy
+     * @throws CustomParameterizedException if the strategy is unknown
+     */
+    public static CountStrategy countStrategy(String count, CountStrategy defaultStrategy) {
+        if (count == null || count.isEmpty()) {
+            return defaultStrategy;
+        }
+        try {
+            return CountStrategy.valueOf(count.toUpperCase(Locale.ENGLISH));
+        } catch (IllegalArgumentException e) {
+            throw new CustomParameterizedException(ErrorConstants.ERR_INVALID_COUNT_STRATEGY, count);
+        }
+    }
+
+    /**
+     * Generates the Link header of a keyset page. The "next" link carries the cursor of the last returned element,
+     * and no "last" link nor X-Total-Count header is sent, as they would require a count query.
+     *
+     * @param slice the keyset page
+     * @param idExtractor function returning the id of an element of the slice
+     * @param baseUrl the base URL of the resource
+     * @param <T> the type of the elements of the slice
+     * @return the pagination HTTP headers
+     */
+    public static <T> HttpHeaders generateKeysetPaginationHttpHeaders(Slice<T> slice, Function<T, Long> idExtractor,
+        String baseUrl) {
+
+        return generateCursorPaginationHttpHeaders(slice, last -> encodeCursor(idExtractor.apply(last)), baseUrl);
+    }
+
+    /**
+     * Generates the Link header of a keyset page whose cursor is made of several keys.
+     *
+     * @param slice the keyset page
+     * @param cursorExtractor function returning the cursor of an element of the slice
+     * @param baseUrl the base URL of the resource, with its filters
+     * @param <T> the type of the elements of the slice
+     * @return the pagination HTTP headers
+     */
+    public static <T> HttpHeaders generateCursorPaginationHttpHeaders(Slice<T> slice, Function<T, String> cursorExtractor,
+        String baseUrl) {
+
+        HttpHeaders headers = new HttpHeaders();
+        String link = "";
+        List<T> content = slice.getContent();
+        if (slice.hasNext() && !content.isEmpty()) {
+            String cursor = cursorExtractor.apply(content.get(content.size() - 1));
+            link = "<" + generateKeysetUri(baseUrl, cursor, slice.getSize()) + ">; rel=\"next\",";
+        }
+        link += "<" + generateKeysetUri(baseUrl, "", slice.getSize()) + ">; rel=\"first\"";
+        headers.add(HttpHeaders.LINK, link);
+        return headers;
+    }
+
+    /**
+     * Builds the pageable used by the seek queries: always the first "page" after the cursor, ordered by id.
+     *
+     * @param pageable the pagination information sent by the client
+     * @return the pageable to give to the seek query
+     */
+    public static Pageable keysetPageable(Pageable pageable) {
+        return new PageRequest(0, pageable.getPageSize());
+    }
+
+    public static String encodeCursor(Long id) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(id.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decodes an opaque cursor sent by the client.
+     *
+     * @param cursor the cursor, an empty cursor meaning the first page
+     * @return the id after which the next page starts
+     * @throws CustomParameterizedException if the cursor is not valid
+     */
+    public static long decodeCursor(String cursor) {
+        if (cursor == null || cursor.isEmpty()) {
+            return KEYSET_START;
+        }
+        try {
+            return Long.parseLong(new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8));
+        } catch (IllegalArgumentException e) {
+            throw new CustomParameterizedException(ErrorConstants.ERR_INVALID_CURSOR, cursor);
+        }
+    }
+
+    /**
+     * Encodes a cursor made of several keys, for example a date and an id.
+     *
+     * @param keys the keys, which must not contain any comma
+     * @return the opaque cursor
+     */
+    public static String encodeCursor(String... keys) {
+        return Base64.getUrlEncoder().withoutPadding()
+            .encodeToString(String.join(",", keys).getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decodes an opaque cursor made of several keys, sent by the client.
+     *
+     * @param cursor the cursor, an empty cursor meaning the first page
+     * @param keyCount the number of keys of the cursor
+     * @return the keys, or null for the first page
+     * @throws CustomParameterizedException if the cursor is not valid
+     */
+    public static String[] decodeCursor(String cursor, int keyCount) {
+        if (cursor == null || cursor.isEmpty()) {
+            return null;
+        }
+        try {
+            String[] keys = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split(",", -1);
+            if (keys.length == keyCount) {
+                return keys;
+            }
+        } catch (IllegalArgumentException e) {
+            // Reported below
+        }
+        throw new CustomParameterizedException(ErrorConstants.ERR_INVALID_CURSOR, cursor);
+    }
+
     private static String generateUri(String baseUrl, int page, int size) throws URISyntaxException {
         return UriComponentsBuilder.fromUriString(baseUrl).queryParam("page", page).queryParam("size", size).toUriString();
     }
+
+    private static String generateKeysetUri(String baseUrl, String cursor, int size) {
+        return UriComponentsBuilder.fromUriString(baseUrl).queryParam("after", cursor).queryParam("size", size).toUriString();
+    }
 }
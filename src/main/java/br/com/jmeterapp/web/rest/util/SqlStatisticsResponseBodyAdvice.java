@@ -0,0 +1,52 @@
+package br.com.jmeterapp.web.rest.util;
+
+import br.com.jmeterapp.config.metrics.SqlStatistics;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyAdvice;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Adds the SQL statistics of the request to the headers of the REST responses, when
+ * jhipster.metrics.sql.responseHeaders is set.
+ * <p>
+ * The headers are added before the body is written, which is after all the SQL statements of the request, as the
+ * session is not kept open in the view.
+ * </p>
+ */
+@ControllerAdvice
+@ConditionalOnProperty(name = "jhipster.metrics.sql.response-headers", havingValue = "true")
+public class SqlStatisticsResponseBodyAdvice implements ResponseBodyAdvice<Object> {
+
+    public static final String STATEMENTS_HEADER = "X-Sql-Statements";
+
+    public static final String TIME_HEADER = "X-Sql-Time-Millis";
+
+    public static final String ENTITIES_HEADER = "X-Sql-Entities";
+
+    @Override
+    public boolean supports(MethodParameter returnType, Class<? extends HttpMessageConverter<?>> converterType) {
+        return true;
+    }
+
+    @Override
+    public Object beforeBodyWrite(Object body, MethodParameter returnType, MediaType selectedContentType,
+                                  Class<? extends HttpMessageConverter<?>> selectedConverterType,
+                                  ServerHttpRequest request, ServerHttpResponse response) {
+        SqlStatistics statistics = SqlStatistics.current();
+        if (statistics != null) {
+            response.getHeaders().set(STATEMENTS_HEADER, Integer.toString(statistics.getStatements()));
+            response.getHeaders().set(TIME_HEADER,
+                Long.toString(TimeUnit.NANOSECONDS.toMillis(statistics.getJdbcNanos())));
+            response.getHeaders().set(ENTITIES_HEADER, Integer.toString(statistics.getEntityLoads()));
+        }
+        return body;
+    }
+}
@@ -0,0 +1,103 @@
+package br.com.jmeterapp.web.rest.vm;
+
+import br.com.jmeterapp.config.metrics.RouteMetrics;
+import br.com.jmeterapp.config.metrics.SlidingWindowHistogramReservoir;
+
+import java.util.List;
+
+/**
+ * View Model object for the latency histogram of a route, in nanoseconds.
+ */
+public class RouteHistogramVM {
+
+    private final String name;
+
+    private final String method;
+
+    private final String uriTemplate;
+
+    private final int status;
+
+    private final long count;
+
+    private final long p50;
+
+    private final long p95;
+
+    private final long p99;
+
+    private final long p999;
+
+    private final long max;
+
+    private final List<SlidingWindowHistogramReservoir.Bucket> buckets;
+
+    public RouteHistogramVM(String name, RouteMetrics.Route route) {
+        SlidingWindowHistogramReservoir.HistogramSnapshot histogram = route.getHistogram();
+        this.name = name;
+        this.method = route.getMethod();
+        this.uriTemplate = route.getUriTemplate();
+        this.status = route.getStatus();
+        this.count = histogram.getTotalCount();
+        this.p50 = (long) histogram.getMedian();
+        this.p95 = (long) histogram.get95thPercentile();
+        this.p99 = (long) histogram.get99thPercentile();
+        this.p999 = (long) histogram.get999thPercentile();
+        this.max = histogram.getMax();
+        this.buckets = histogram.getBuckets();
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getMethod() {
+        return method;
+    }
+
+    public String getUriTemplate() {
+        return uriTemplate;
+    }
+
+    public int getStatus() {
+        return status;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public long getP50() {
+        return p50;
+    }
+
+    public long getP95() {
+        return p95;
+    }
+
+    public long getP99() {
+        return p99;
+    }
+
+    public long getP999() {
+        return p999;
+    }
+
+    public long getMax() {
+        return max;
+    }
+
+    public List<SlidingWindowHistogramReservoir.Bucket> getBuckets() {
+        return buckets;
+    }
+
+    @Override
+    public String toString() {
+        return "RouteHistogramVM{" +
+            "name='" + name + '\'' +
+            ", count=" + count +
+            ", p50=" + p50 +
+            ", p99=" + p99 +
+            '}';
+    }
+}
@@ -0,0 +1,193 @@
+package br.com.jmeterapp.aop.logging;
+
+import br.com.jmeterapp.config.Constants;
+import br.com.jmeterapp.config.JHipsterProperties;
+import br.com.jmeterapp.security.SecurityUtils;
+import br.com.jmeterapp.service.MailService;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
+import com.codahale.metrics.MetricRegistry;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.slf4j.LoggerFactory;
+import org.springframework.aop.aspectj.AspectJExpressionPointcut;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.mock.env.MockEnvironment;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Test class for the LoggingAspect.
+ *
+ * @see LoggingAspect
+ */
+public class LoggingAspectUnitTest {
+
+    private MetricRegistry metricRegistry;
+
+    private JHipsterProperties.Logging.Tracing tracing;
+
+    private ListAppender<ILoggingEvent> appender;
+
+    private ch.qos.logback.classic.Logger aspectLogger;
+
+    @Before
+    public void setup() {
+        metricRegistry = new MetricRegistry();
+        tracing = new JHipsterProperties.Logging.Tracing();
+        appender = new ListAppender<>();
+        appender.start();
+        aspectLogger = (ch.qos.logback.classic.Logger) LoggerFactory.getLogger(LoggingAspect.class);
+        aspectLogger.addAppender(appender);
+    }
+
+    @After
+    public void tearDown() {
+        aspectLogger.detachAppender(appender);
+    }
+
+    @Test
+    public void testCallsAreTimedPerJoinPoint() {
+        Component component = proxy(new MockEnvironment());
+
+        component.echo("first");
+        component.echo("second");
+
+        assertThat(metricRegistry.timer("trace.TracedComponent.echo").getCount()).isEqualTo(2);
+        assertThat(appender.list).isEmpty();
+    }
+
+    @Test
+    public void testSlowCallsAreLoggedWithTheTypesOfTheirArguments() {
+        tracing.setSlowThresholdMillis(10);
+        Component component = proxy(new MockEnvironment());
+
+        component.sleep(20, "secret");
+        component.sleep(0, "secret");
+
+        assertThat(appender.list).hasSize(1);
+        assertThat(appender.list.get(0).getLevel()).isEqualTo(Level.WARN);
+        assertThat(appender.list.get(0).getFormattedMessage())
+            .startsWith("Slow call: " + TracedComponent.class.getName() + ".sleep() took")
+            .endsWith("with argument[s] = [Long, String]");
+    }
+
+    @Test
+    public void testSlowCallsAreLoggedWithTheirArgumentsInDevelopment() {
+        tracing.setSlowThresholdMillis(10);
+        MockEnvironment env = new MockEnvironment();
+        env.setActiveProfiles(Constants.SPRING_PROFILE_DEVELOPMENT);
+        Component component = proxy(env);
+
+        component.sleep(20, "secret");
+
+        assertThat(appender.list).hasSize(1);
+        assertThat(appender.list.get(0).getFormattedMessage()).endsWith("with argument[s] = [20, secret]");
+    }
+
+    @Test
+    public void testExceptionsAreLogged() {
+        tracing.setMetrics(false);
+        Component component = proxy(new MockEnvironment());
+
+        assertThatThrownBy(component::fail).isInstanceOf(IllegalStateException.class);
+
+        assertThat(appender.list).hasSize(1);
+        assertThat(appender.list.get(0).getLevel()).isEqualTo(Level.ERROR);
+        assertThat(metricRegistry.getTimers()).isEmpty();
+    }
+
+    @Test
+    public void testExceptionsAreLoggedOnceThroughTheTracedComponents() {
+        LoggingAspect loggingAspect = new LoggingAspect(tracing, metricRegistry, new MockEnvironment());
+        Component inner = proxy(new TracedComponent(null), loggingAspect);
+        Component outer = proxy(new TracedComponent(inner), loggingAspect);
+
+        assertThatThrownBy(outer::fail).isInstanceOf(IllegalStateException.class);
+        assertThatThrownBy(() -> outer.check("secret")).isInstanceOf(IllegalArgumentException.class);
+
+        assertThat(appender.list).hasSize(2);
+        assertThat(appender.list.get(0).getFormattedMessage())
+            .startsWith("Exception in " + TracedComponent.class.getName() + ".fail()");
+        assertThat(appender.list.get(1).getFormattedMessage())
+            .isEqualTo("Illegal argument in " + TracedComponent.class.getName() + ".check()");
+    }
+
+    @Test
+    public void testPointcutMatchesTheTracedPackages() {
+        AspectJExpressionPointcut pointcut = new AspectJExpressionPointcut();
+        pointcut.setExpression(LoggingAspect.pointcutExpression(Collections.singletonList("service")));
+
+        assertThat(pointcut.getClassFilter().matches(MailService.class)).isTrue();
+        assertThat(pointcut.getClassFilter().matches(SecurityUtils.class)).isFalse();
+        assertThat(LoggingAspect.pointcutExpression(Arrays.asList("service", "web.rest")))
+            .isEqualTo("within(br.com.jmeterapp.service..*) || within(br.com.jmeterapp.web.rest..*)");
+    }
+
+    private Component proxy(MockEnvironment env) {
+        return proxy(new TracedComponent(null), new LoggingAspect(tracing, metricRegistry, env));
+    }
+
+    private static Component proxy(TracedComponent component, LoggingAspect loggingAspect) {
+        ProxyFactory proxyFactory = new ProxyFactory(component);
+        proxyFactory.addAdvice(loggingAspect);
+        return (Component) proxyFactory.getProxy();
+    }
+
+    interface Component {
+
+        String echo(String value);
+
+        void sleep(long millis, String password);
+
+        void fail();
+
+        void check(String password);
+    }
+
+    static class TracedComponent implements Component {
+
+        private final Component delegate;
+
+        TracedComponent(Component delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public String echo(String value) {
+            return value;
+        }
+
+        @Override
+        public void sleep(long millis, String password) {
+            try {
+                Thread.sleep(millis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        @Override
+        public void fail() {
+            if (delegate != null) {
+                delegate.fail();
+            }
+            throw new IllegalStateException("failure");
+        }
+
+        @Override
+        public void check(String password) {
+            if (delegate != null) {
+                delegate.check(password);
+            }
+            throw new IllegalArgumentException("invalid password");
+        }
+    }
+}
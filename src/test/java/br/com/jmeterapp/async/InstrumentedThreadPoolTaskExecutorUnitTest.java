@@ -0,0 +1,72 @@
+package br.com.jmeterapp.async;
+
+import com.codahale.metrics.MetricRegistry;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.core.task.TaskRejectedException;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Test class for the InstrumentedThreadPoolTaskExecutor.
+ *
+ * @see InstrumentedThreadPoolTaskExecutor
+ */
+public class InstrumentedThreadPoolTaskExecutorUnitTest {
+
+    private MetricRegistry metricRegistry;
+
+    private InstrumentedThreadPoolTaskExecutor executor;
+
+    @Before
+    public void setup() {
+        metricRegistry = new MetricRegistry();
+        executor = new InstrumentedThreadPoolTaskExecutor("test", metricRegistry);
+        executor.setCorePoolSize(1);
+        executor.setMaxPoolSize(1);
+        executor.setQueueCapacity(1);
+        executor.setVirtualThreads(true);
+        executor.initialize();
+    }
+
+    @After
+    public void tearDown() {
+        executor.shutdown();
+    }
+
+    @Test
+    public void testTasksAreMeasured() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        executor.execute(() -> {
+            started.countDown();
+            await(release);
+        });
+        executor.execute(() -> { });
+        started.await(10, TimeUnit.SECONDS);
+
+        assertThat(metricRegistry.getGauges().get("async.test.active").getValue()).isEqualTo(1);
+        assertThat(metricRegistry.getGauges().get("async.test.queued").getValue()).isEqualTo(1);
+        assertThatThrownBy(() -> executor.execute(() -> { })).isInstanceOf(TaskRejectedException.class);
+        assertThat(metricRegistry.counter("async.test.rejected").getCount()).isEqualTo(1);
+
+        release.countDown();
+        executor.getThreadPoolExecutor().shutdown();
+        executor.getThreadPoolExecutor().awaitTermination(10, TimeUnit.SECONDS);
+        assertThat(metricRegistry.timer("async.test.duration").getCount()).isEqualTo(2);
+        assertThat(metricRegistry.timer("async.test.wait").getCount()).isEqualTo(2);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package br.com.jmeterapp.config.logging;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.classic.spi.LoggingEvent;
+import ch.qos.logback.core.AppenderBase;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Test class for the InstrumentedAsyncAppender.
+ *
+ * @see InstrumentedAsyncAppender
+ */
+public class InstrumentedAsyncAppenderUnitTest {
+
+    private static final int RING_BUFFER_SIZE = 64;
+
+    private LoggerContext context;
+
+    private Logger logger;
+
+    private CountDownLatch released;
+
+    private List<String> messages;
+
+    private InstrumentedAsyncAppender asyncAppender;
+
+    @Before
+    public void setup() {
+        context = new LoggerContext();
+        logger = context.getLogger(InstrumentedAsyncAppenderUnitTest.class);
+        released = new CountDownLatch(1);
+        messages = new CopyOnWriteArrayList<>();
+
+        AppenderBase<ILoggingEvent> blockingAppender = new AppenderBase<ILoggingEvent>() {
+
+            @Override
+            protected void append(ILoggingEvent event) {
+                try {
+                    released.await(10, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                messages.add(event.getFormattedMessage());
+            }
+        };
+        blockingAppender.setContext(context);
+        blockingAppender.start();
+
+        asyncAppender = new InstrumentedAsyncAppender();
+        asyncAppender.setContext(context);
+        asyncAppender.setRingBufferSize(RING_BUFFER_SIZE);
+        asyncAppender.addAppender(blockingAppender);
+        asyncAppender.start();
+    }
+
+    @After
+    public void tearDown() {
+        released.countDown();
+        asyncAppender.stop();
+    }
+
+    @Test
+    public void testEventsArePassedToTheAppenders() {
+        released.countDown();
+        for (int i = 0; i < RING_BUFFER_SIZE; i++) {
+            append("event " + i);
+        }
+        asyncAppender.stop();
+
+        assertThat(messages).hasSize(RING_BUFFER_SIZE);
+        assertThat(asyncAppender.getDroppedCount()).isZero();
+    }
+
+    @Test
+    public void testEventsAreDroppedWhenTheRingBufferIsFull() {
+        int appended = RING_BUFFER_SIZE * 4;
+        for (int i = 0; i < appended; i++) {
+            append("event " + i);
+        }
+
+        long dropped = asyncAppender.getDroppedCount();
+        assertThat(dropped).isPositive();
+
+        released.countDown();
+        asyncAppender.stop();
+        assertThat(messages).hasSize((int) (appended - dropped));
+    }
+
+    private void append(String message) {
+        asyncAppender.doAppend(new LoggingEvent(Logger.class.getName(), logger, Level.INFO, message, null, null));
+    }
+}
@@ -0,0 +1,86 @@
+package br.com.jmeterapp.config.logging;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.spi.LoggingEvent;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import net.logstash.logback.encoder.LogstashEncoder;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Test class for the InstrumentedLogstashTcpSocketAppender.
+ *
+ * @see InstrumentedLogstashTcpSocketAppender
+ */
+public class InstrumentedLogstashTcpSocketAppenderUnitTest {
+
+    private static final int EVENTS = 100;
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    private LoggerContext context;
+
+    private Logger logger;
+
+    private ServerSocket server;
+
+    private InstrumentedLogstashTcpSocketAppender logstashAppender;
+
+    @Before
+    public void setup() throws Exception {
+        context = new LoggerContext();
+        logger = context.getLogger(InstrumentedLogstashTcpSocketAppenderUnitTest.class);
+        server = new ServerSocket(0);
+        server.setSoTimeout(10000);
+
+        LogstashEncoder encoder = new LogstashEncoder();
+        encoder.setContext(context);
+        encoder.setCustomFields("{\"app_name\":\"jmeterapp\"}");
+        encoder.start();
+
+        logstashAppender = new InstrumentedLogstashTcpSocketAppender();
+        logstashAppender.setContext(context);
+        logstashAppender.addDestination("localhost:" + server.getLocalPort());
+        logstashAppender.setEncoder(encoder);
+        logstashAppender.start();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        logstashAppender.stop();
+        server.close();
+    }
+
+    @Test
+    public void testEventsAreShippedInJsonLinesOverOneConnection() throws Exception {
+        for (int i = 0; i < EVENTS; i++) {
+            logstashAppender.doAppend(
+                new LoggingEvent(Logger.class.getName(), logger, Level.INFO, "event " + i, null, null));
+        }
+
+        try (Socket socket = server.accept();
+             BufferedReader reader = new BufferedReader(
+                 new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8))) {
+            socket.setSoTimeout(10000);
+            for (int i = 0; i < EVENTS; i++) {
+                JsonNode line = mapper.readTree(reader.readLine());
+                assertThat(line.get("message").asText()).isEqualTo("event " + i);
+                assertThat(line.get("level").asText()).isEqualTo("INFO");
+                assertThat(line.get("app_name").asText()).isEqualTo("jmeterapp");
+            }
+        }
+        assertThat(logstashAppender.getDroppedCount()).isZero();
+    }
+}
@@ -0,0 +1,188 @@
+package br.com.jmeterapp.config.metrics;
+
+import br.com.jmeterapp.config.JHipsterProperties;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Histogram;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.UniformReservoir;
+import com.codahale.metrics.jvm.MemoryUsageGaugeSet;
+import com.codahale.metrics.jvm.ThreadStatesGaugeSet;
+import org.junit.Before;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Test class for the PrometheusTextFormat.
+ *
+ * @see PrometheusTextFormat
+ */
+public class PrometheusTextFormatUnitTest {
+
+    private static final int BENCHMARK_SCRAPES = 1000;
+
+    private final Logger log = LoggerFactory.getLogger(PrometheusTextFormatUnitTest.class);
+
+    private MetricRegistry metricRegistry;
+
+    private RouteMetrics routeMetrics;
+
+    private PrometheusTextFormat textFormat;
+
+    @Before
+    public void setup() {
+        metricRegistry = new SummingMetricRegistry();
+        routeMetrics = new RouteMetrics();
+        ReflectionTestUtils.setField(routeMetrics, "metricRegistry", metricRegistry);
+        ReflectionTestUtils.setField(routeMetrics, "jHipsterProperties", new JHipsterProperties());
+        textFormat = new PrometheusTextFormat();
+    }
+
+    @Test
+    public void testMetricsAreWrittenInTheTextFormat() {
+        metricRegistry.register("jvm.memory.heap.used", (Gauge<Long>) () -> 1024L);
+        metricRegistry.register("HikariPool-1.pool.Usage", (Gauge<Double>) () -> 0.5);
+        metricRegistry.counter("async.mail.rejected").inc(3);
+        metricRegistry.meter("mail.outbox.sent").mark(2);
+        metricRegistry.timer("mail.outbox.latency").update(250, TimeUnit.MILLISECONDS);
+
+        String output = write(name -> true);
+
+        assertThat(output).contains(
+            "# TYPE jvm_memory_heap_used gauge\njvm_memory_heap_used 1024\n",
+            "# TYPE HikariPool_1_pool_Usage gauge\nHikariPool_1_pool_Usage 0.5\n",
+            "# TYPE async_mail_rejected counter\nasync_mail_rejected 3\n",
+            "# TYPE mail_outbox_sent_total counter\nmail_outbox_sent_total 2\n",
+            "# TYPE mail_outbox_latency_seconds summary\n",
+            "mail_outbox_latency_seconds{quantile=\"0.99\"} 0.25\n",
+            "mail_outbox_latency_seconds_sum 0.25\n",
+            "mail_outbox_latency_seconds_count 1\n");
+    }
+
+    @Test
+    public void testHistogramsAreWrittenWithTheirSum() {
+        metricRegistry.histogram("audit.batch.size").update(3);
+        metricRegistry.histogram("audit.batch.size").update(4);
+        metricRegistry.register("plain.histogram", new Histogram(new UniformReservoir()));
+
+        String output = write(name -> true);
+
+        assertThat(output).contains("audit_batch_size_sum 7\naudit_batch_size_count 2\n",
+            "plain_histogram_count 0\n");
+        assertThat(output).doesNotContain("plain_histogram_sum");
+    }
+
+    @Test
+    public void testRoutesAreWrittenWithLabels() {
+        routeMetrics.record("GET", "/api/users/{login}", 200, TimeUnit.MILLISECONDS.toNanos(1));
+
+        String output = write(name -> true);
+
+        assertThat(output).contains("# TYPE http_server_requests_seconds summary\n",
+            "http_server_requests_seconds_sum{method=\"GET\",uri=\"/api/users/{login}\",status=\"200\"} 0.001\n",
+            "http_server_requests_seconds_count{method=\"GET\",uri=\"/api/users/{login}\",status=\"200\"} 1\n");
+        assertThat(output).doesNotContain("http_routes");
+    }
+
+    @Test
+    public void testSqlRoutesAreWrittenWithLabels() {
+        SqlStatistics statistics = SqlStatistics.begin();
+        try {
+            SqlStatistics.statementExecuted(TimeUnit.MILLISECONDS.toNanos(2));
+            SqlStatistics.statementExecuted(TimeUnit.MILLISECONDS.toNanos(3));
+            SqlStatistics.entityLoaded();
+        } finally {
+            SqlStatistics.end();
+        }
+        routeMetrics.recordSql("GET", "/api/pessoas/{id}", statistics);
+        routeMetrics.recordSql("POST", "/api/pessoas", statistics);
+
+        String output = write(name -> true);
+
+        assertThat(output).contains("# TYPE http_server_requests_sql_statements summary\n",
+            "http_server_requests_sql_statements_sum{method=\"GET\",uri=\"/api/pessoas/{id}\"} 2\n",
+            "http_server_requests_sql_statements_count{method=\"POST\",uri=\"/api/pessoas\"} 1\n",
+            "# TYPE http_server_requests_sql_entities summary\n",
+            "http_server_requests_sql_entities_sum{method=\"GET\",uri=\"/api/pessoas/{id}\"} 1\n",
+            "# TYPE http_server_requests_sql_seconds summary\n",
+            "http_server_requests_sql_seconds_sum{method=\"GET\",uri=\"/api/pessoas/{id}\"} 0.005\n");
+        assertThat(output).doesNotContain("http_routes");
+    }
+
+    @Test
+    public void testCollidingNamesAreWrittenOnce() {
+        metricRegistry.counter("jobs.run").inc();
+        metricRegistry.counter("jobs_run").inc(2);
+        metricRegistry.register("jobs.run.count", (Gauge<Integer>) () -> 3);
+        metricRegistry.timer("jobs.run.count.time");
+        metricRegistry.histogram("jobs-run");
+
+        String output = write(name -> true);
+
+        List<String> types = Arrays.stream(output.split("\n"))
+            .filter(line -> line.startsWith("# TYPE "))
+            .map(line -> line.split(" ")[2])
+            .collect(Collectors.toList());
+        Set<String> series = new HashSet<>();
+        for (String type : types) {
+            assertThat(series.add(type)).as(type).isTrue();
+        }
+        assertThat(types).hasSize(5).contains("jobs_run", "jobs_run_count");
+        assertThat(output).contains("jobs_run 1\n");
+    }
+
+    @Test
+    public void testMetricsAreFiltered() {
+        metricRegistry.counter("async.mail.rejected").inc();
+        metricRegistry.counter("async.audit.rejected").inc();
+        routeMetrics.record("GET", "/api/users", 200, 1000);
+
+        String output = write(name -> name.startsWith("async.mail"));
+
+        assertThat(output).isEqualTo("# TYPE async_mail_rejected counter\nasync_mail_rejected 1\n");
+    }
+
+    @Test
+    public void benchmarkScrape() {
+        metricRegistry.registerAll(new MemoryUsageGaugeSet());
+        metricRegistry.registerAll(new ThreadStatesGaugeSet());
+        for (int i = 0; i < 50; i++) {
+            routeMetrics.record("GET", "/api/route" + i, 200, TimeUnit.MILLISECONDS.toNanos(i + 1));
+            metricRegistry.timer("service.method" + i).update(i + 1, TimeUnit.MILLISECONDS);
+        }
+        StringBuilder output = new StringBuilder(64 * 1024);
+        for (int i = 0; i < BENCHMARK_SCRAPES; i++) {
+            output.setLength(0);
+            textFormat.write(metricRegistry, routeMetrics, name -> true, output);
+        }
+
+        long start = System.nanoTime();
+        for (int i = 0; i < BENCHMARK_SCRAPES; i++) {
+            output.setLength(0);
+            textFormat.write(metricRegistry, routeMetrics, name -> true, output);
+        }
+        long nanos = System.nanoTime() - start;
+
+        log.info("Wrote {} metrics ({} characters) in {} us per scrape", metricRegistry.getMetrics().size(),
+            output.length(), TimeUnit.NANOSECONDS.toMicros(nanos / BENCHMARK_SCRAPES));
+        assertThat(output.length()).isPositive();
+    }
+
+    private String write(Predicate<String> filter) {
+        StringBuilder output = new StringBuilder();
+        textFormat.write(metricRegistry, routeMetrics, filter, output);
+        return output.toString();
+    }
+}
@@ -0,0 +1,104 @@
+package br.com.jmeterapp.config.metrics;
+
+import com.codahale.metrics.Clock;
+import com.codahale.metrics.Snapshot;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.offset;
+
+/**
+ * Test class for the SlidingWindowHistogramReservoir.
+ *
+ * @see SlidingWindowHistogramReservoir
+ */
+public class SlidingWindowHistogramReservoirUnitTest {
+
+    private static final long MICROSECOND = TimeUnit.MICROSECONDS.toNanos(1);
+
+    private ManualClock clock;
+
+    private SlidingWindowHistogramReservoir reservoir;
+
+    @Before
+    public void setup() {
+        clock = new ManualClock();
+        reservoir = new SlidingWindowHistogramReservoir(60, 6, TimeUnit.SECONDS, MICROSECOND,
+            TimeUnit.HOURS.toNanos(1), clock);
+    }
+
+    @Test
+    public void testPercentilesAreWithinThePrecision() {
+        for (long i = 1; i <= 10000; i++) {
+            reservoir.update(i * MICROSECOND);
+        }
+
+        Snapshot snapshot = reservoir.getSnapshot();
+
+        assertThat(snapshot.size()).isEqualTo(10000);
+        assertThat(snapshot.getMedian()).isCloseTo(5000 * MICROSECOND, offset(5000 * MICROSECOND / 64.0));
+        assertThat(snapshot.get99thPercentile()).isCloseTo(9900 * MICROSECOND, offset(9900 * MICROSECOND / 64.0));
+        assertThat(snapshot.get999thPercentile()).isCloseTo(9990 * MICROSECOND, offset(9990 * MICROSECOND / 64.0));
+        assertThat(snapshot.getMax()).isGreaterThanOrEqualTo(10000 * MICROSECOND);
+        assertThat(snapshot.getMin()).isLessThanOrEqualTo(MICROSECOND);
+        assertThat(snapshot.getMean()).isCloseTo(5000 * MICROSECOND, offset(5000 * MICROSECOND / 64.0));
+    }
+
+    @Test
+    public void testValuesOutOfTheRangeAreClamped() {
+        reservoir.update(-1);
+        reservoir.update(TimeUnit.DAYS.toNanos(1));
+
+        SlidingWindowHistogramReservoir.HistogramSnapshot snapshot = reservoir.getSnapshot();
+
+        assertThat(snapshot.getMin()).isEqualTo(0);
+        assertThat(snapshot.getMax()).isGreaterThanOrEqualTo(TimeUnit.HOURS.toNanos(1))
+            .isLessThan(TimeUnit.HOURS.toNanos(1) + TimeUnit.HOURS.toNanos(1) / 32);
+        assertThat(snapshot.getBuckets()).hasSize(2);
+    }
+
+    @Test
+    public void testOldValuesLeaveTheWindow() {
+        reservoir.update(1000 * MICROSECOND);
+        clock.advance(TimeUnit.SECONDS.toNanos(30));
+        reservoir.update(2000 * MICROSECOND);
+        assertThat(reservoir.size()).isEqualTo(2);
+
+        clock.advance(TimeUnit.SECONDS.toNanos(40));
+        assertThat(reservoir.size()).isEqualTo(1);
+        assertThat(reservoir.getSnapshot().getMin()).isGreaterThan(1000 * MICROSECOND);
+
+        clock.advance(TimeUnit.SECONDS.toNanos(60));
+        assertThat(reservoir.size()).isEqualTo(0);
+        assertThat(reservoir.getSnapshot().getMedian()).isEqualTo(0.0);
+    }
+
+    @Test
+    public void testNegativeTicks() {
+        clock.advance(-TimeUnit.DAYS.toNanos(1) - TimeUnit.SECONDS.toNanos(25));
+        reservoir.update(1000 * MICROSECOND);
+        clock.advance(TimeUnit.SECONDS.toNanos(30));
+        reservoir.update(2000 * MICROSECOND);
+        assertThat(reservoir.size()).isEqualTo(2);
+
+        clock.advance(TimeUnit.SECONDS.toNanos(40));
+        assertThat(reservoir.size()).isEqualTo(1);
+    }
+
+    private static final class ManualClock extends Clock {
+
+        private long tick = TimeUnit.DAYS.toNanos(1);
+
+        private void advance(long nanos) {
+            tick += nanos;
+        }
+
+        @Override
+        public long getTick() {
+            return tick;
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package br.com.jmeterapp.repository;
+
+import br.com.jmeterapp.JmeterappApp;
+import br.com.jmeterapp.config.audit.AsyncAuditEventWriter;
+import br.com.jmeterapp.domain.PersistentAuditEvent;
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.MetricRegistry;
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.boot.actuate.audit.AuditEvent;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import javax.inject.Inject;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Test class for the CustomAuditEventRepository and its AsyncAuditEventWriter.
+ *
+ * @see CustomAuditEventRepository
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = JmeterappApp.class)
+public class CustomAuditEventRepositoryIntTest {
+
+    private static final String SAMPLE_PRINCIPAL = "audit-test-principal";
+
+    @Inject
+    private CustomAuditEventRepository customAuditEventRepository;
+
+    @Inject
+    private PersistenceAuditEventRepository persistenceAuditEventRepository;
+
+    @Inject
+    private AsyncAuditEventWriter asyncAuditEventWriter;
+
+    @Inject
+    private MetricRegistry metricRegistry;
+
+    @After
+    public void cleanUp() {
+        persistenceAuditEventRepository.delete(persistenceAuditEventRepository.findByPrincipal(SAMPLE_PRINCIPAL));
+    }
+
+    @Test
+    public void addAuditEventsInBatches() {
+        for (int i = 0; i < 120; i++) {
+            Map<String, Object> data = new HashMap<>();
+            data.put("index", i);
+            customAuditEventRepository.add(new AuditEvent(SAMPLE_PRINCIPAL, "AUTHENTICATION_SUCCESS", data));
+        }
+        asyncAuditEventWriter.flush();
+
+        List<PersistentAuditEvent> events = persistenceAuditEventRepository.findByPrincipal(SAMPLE_PRINCIPAL);
+        assertThat(events).hasSize(120);
+        assertThat(events).extracting(PersistentAuditEvent::getAuditEventType).containsOnly("AUTHENTICATION_SUCCESS");
+        assertThat(events).extracting(event -> event.getData().get("index")).contains("0", "119");
+    }
+
+    @Test
+    public void addIgnoredAuditEvents() {
+        customAuditEventRepository.add(new AuditEvent("anonymoususer", "AUTHENTICATION_FAILURE", new HashMap<>()));
+        customAuditEventRepository.add(new AuditEvent(SAMPLE_PRINCIPAL, "AUTHORIZATION_FAILURE", new HashMap<>()));
+        asyncAuditEventWriter.flush();
+
+        assertThat(persistenceAuditEventRepository.findByPrincipal("anonymoususer")).isEmpty();
+        assertThat(persistenceAuditEventRepository.findByPrincipal(SAMPLE_PRINCIPAL)).isEmpty();
+    }
+
+    @Test
+    public void writeQueuedAuditEventsOnStop() throws InterruptedException {
+        Counter droppedEvents = metricRegistry.counter("audit.events.dropped");
+        long droppedBefore = droppedEvents.getCount();
+        try {
+            for (int i = 0; i < 10; i++) {
+                customAuditEventRepository.add(new AuditEvent(SAMPLE_PRINCIPAL, "AUTHENTICATION_SUCCESS", new HashMap<>()));
+            }
+            asyncAuditEventWriter.stop();
+            customAuditEventRepository.add(new AuditEvent(SAMPLE_PRINCIPAL, "AUTHENTICATION_SUCCESS", new HashMap<>()));
+        } finally {
+            asyncAuditEventWriter.start();
+        }
+
+        assertThat(persistenceAuditEventRepository.findByPrincipal(SAMPLE_PRINCIPAL)).hasSize(10);
+        assertThat(droppedEvents.getCount()).isEqualTo(droppedBefore + 1);
+    }
+}
@@ -0,0 +1,41 @@
+package br.com.jmeterapp.repository;
+
+import br.com.jmeterapp.JmeterappApp;
+import br.com.jmeterapp.config.Constants;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.boot.autoconfigure.orm.jpa.JpaProperties;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.orm.jpa.vendor.Database;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import javax.inject.Inject;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Test class for the QueryPlanChecker, run against PostgreSQL by the query-plan-check Maven profile.
+ *
+ * @see QueryPlanChecker
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = JmeterappApp.class)
+@ActiveProfiles(Constants.SPRING_PROFILE_QUERY_PLAN_CHECK)
+public class QueryPlanCheckerIntTest {
+
+    @Inject
+    private QueryPlanChecker queryPlanChecker;
+
+    @Inject
+    private JpaProperties jpaProperties;
+
+    @Test
+    public void assertThatHotQueriesAreServedByAnIndex() {
+        // The check is skipped on other databases, so it would pass without checking anything
+        assertThat(jpaProperties.getDatabase()).isEqualTo(Database.POSTGRESQL);
+
+        // Already run at startup: a sequential scan fails the startup of the context
+        queryPlanChecker.checkQueryPlans();
+    }
+}
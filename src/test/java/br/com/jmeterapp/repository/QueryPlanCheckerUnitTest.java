@@ -0,0 +1,37 @@
+package br.com.jmeterapp.repository;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Test class for the QueryPlanChecker plan reading.
+ *
+ * @see QueryPlanChecker
+ */
+public class QueryPlanCheckerUnitTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    public void testIndexScanIsAccepted() throws Exception {
+        JsonNode plan = objectMapper.readTree("[{\"Plan\": {\"Node Type\": \"Limit\", \"Plans\": [" +
+            "{\"Node Type\": \"Index Scan\", \"Relation Name\": \"jhi_user\", " +
+            "\"Index Name\": \"idx_user_not_activated_created_date\"}]}}]");
+
+        assertThat(QueryPlanChecker.findSequentialScans(plan, QueryPlanChecker.LARGE_TABLES)).isEmpty();
+    }
+
+    @Test
+    public void testNestedSequentialScanIsFound() throws Exception {
+        JsonNode plan = objectMapper.readTree("[{\"Plan\": {\"Node Type\": \"Hash Join\", \"Plans\": [" +
+            "{\"Node Type\": \"Seq Scan\", \"Relation Name\": \"jhi_authority\"}," +
+            "{\"Node Type\": \"Hash\", \"Plans\": [" +
+            "{\"Node Type\": \"Seq Scan\", \"Relation Name\": \"jhi_persistent_token\"}]}]}}]");
+
+        assertThat(QueryPlanChecker.findSequentialScans(plan, QueryPlanChecker.LARGE_TABLES))
+            .containsExactly("jhi_persistent_token");
+    }
+}
@@ -0,0 +1,150 @@
+package br.com.jmeterapp.security;
+
+import br.com.jmeterapp.JmeterappApp;
+import br.com.jmeterapp.config.JHipsterProperties;
+import br.com.jmeterapp.domain.PersistentToken;
+import br.com.jmeterapp.domain.User;
+import br.com.jmeterapp.repository.PersistentTokenRepository;
+import br.com.jmeterapp.repository.UserRepository;
+import java.time.LocalDate;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.web.authentication.rememberme.CookieTheftException;
+import org.springframework.security.web.authentication.rememberme.PersistentRememberMeToken;
+import org.springframework.security.web.authentication.rememberme.RememberMeAuthenticationException;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.inject.Inject;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Test class for the PersistentTokenStore.
+ *
+ * @see PersistentTokenStore
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = JmeterappApp.class)
+@Transactional
+public class PersistentTokenStoreIntTest {
+
+    private static final String SERIES = "test-series";
+
+    private static final String TOKEN_VALUE = "test-token";
+
+    @Inject
+    private PersistentTokenStore persistentTokenStore;
+
+    @Inject
+    private PersistentTokenRepository persistentTokenRepository;
+
+    @Inject
+    private UserRepository userRepository;
+
+    @Inject
+    private PlatformTransactionManager transactionManager;
+
+    @Inject
+    private JHipsterProperties jHipsterProperties;
+
+    private PersistentToken token;
+
+    @Before
+    public void initTest() {
+        User admin = userRepository.findOneByLogin("admin").get();
+        token = new PersistentToken();
+        token.setSeries(SERIES);
+        token.setUser(admin);
+        token.setTokenValue(TOKEN_VALUE);
+        token.setTokenDate(LocalDate.now());
+        token.setIpAddress("127.0.0.1");
+        token.setUserAgent("Test agent");
+        persistentTokenRepository.saveAndFlush(token);
+        persistentTokenStore.evict(SERIES);
+    }
+
+    @Test
+    public void testRotateWithGraceWindow() {
+        PersistentRememberMeToken rotated = persistentTokenStore.rotate(SERIES, TOKEN_VALUE, "127.0.0.2", "Test agent");
+        assertThat(rotated.getUsername()).isEqualTo("admin");
+        assertThat(rotated.getTokenValue()).isNotEqualTo(TOKEN_VALUE);
+
+        // A parallel request with the previous value is accepted, and does not rotate the token again
+        PersistentRememberMeToken parallel = persistentTokenStore.rotate(SERIES, TOKEN_VALUE, "127.0.0.2", "Test agent");
+        assertThat(parallel.getTokenValue()).isEqualTo(rotated.getTokenValue());
+
+        // The rotation is only written on flush
+        assertThat(persistentTokenRepository.findOne(SERIES).getTokenValue()).isEqualTo(TOKEN_VALUE);
+        persistentTokenStore.flush();
+        PersistentToken persistentToken = persistentTokenRepository.findOne(SERIES);
+        assertThat(persistentToken.getTokenValue()).isEqualTo(rotated.getTokenValue());
+        assertThat(persistentToken.getIpAddress()).isEqualTo("127.0.0.2");
+    }
+
+    @Test
+    public void testRotateAfterLostRotations() {
+        PersistentRememberMeToken rotated = persistentTokenStore.rotate(SERIES, TOKEN_VALUE, "127.0.0.2", "Test agent");
+
+        // The instance is restarted before the rotation is written
+        persistentTokenStore.evict(SERIES);
+        assertThat(persistentTokenRepository.findOne(SERIES).getTokenValue()).isEqualTo(TOKEN_VALUE);
+
+        PersistentRememberMeToken reloaded = persistentTokenStore.rotate(SERIES, rotated.getTokenValue(), "127.0.0.2",
+            "Test agent");
+        assertThat(reloaded.getTokenValue()).isNotIn(TOKEN_VALUE, rotated.getTokenValue());
+    }
+
+    @Test
+    public void testRotateOnSeveralInstances() {
+        PersistentTokenStore otherInstance = new PersistentTokenStore();
+        ReflectionTestUtils.setField(otherInstance, "persistentTokenRepository", persistentTokenRepository);
+        ReflectionTestUtils.setField(otherInstance, "transactionManager", transactionManager);
+        ReflectionTestUtils.setField(otherInstance, "jHipsterProperties", jHipsterProperties);
+        otherInstance.init();
+
+        PersistentRememberMeToken rotated = persistentTokenStore.rotate(SERIES, TOKEN_VALUE, "127.0.0.2", "Test agent");
+
+        // The next request is sent to the other instance, which rotates the token again and writes it
+        PersistentRememberMeToken rotatedElsewhere = otherInstance.rotate(SERIES, rotated.getTokenValue(), "127.0.0.3",
+            "Test agent");
+        assertThat(rotatedElsewhere.getTokenValue()).isNotIn(TOKEN_VALUE, rotated.getTokenValue());
+        otherInstance.flush();
+
+        // This instance still knows the first rotation only, and checks the value against the database
+        PersistentRememberMeToken reloaded = persistentTokenStore.rotate(SERIES, rotatedElsewhere.getTokenValue(),
+            "127.0.0.2", "Test agent");
+        assertThat(reloaded.getTokenValue())
+            .isNotIn(TOKEN_VALUE, rotated.getTokenValue(), rotatedElsewhere.getTokenValue());
+        assertThat(persistentTokenRepository.findOne(SERIES)).isNotNull();
+
+        // An older value is still a cookie theft
+        assertThatThrownBy(() -> persistentTokenStore.rotate(SERIES, TOKEN_VALUE, "127.0.0.1", "Test agent"))
+            .isInstanceOf(CookieTheftException.class);
+        assertThat(persistentTokenRepository.findOne(SERIES)).isNull();
+    }
+
+    @Test
+    public void testRotateWithInvalidValue() {
+        assertThatThrownBy(() -> persistentTokenStore.rotate(SERIES, "stolen-token", "127.0.0.1", "Test agent"))
+            .isInstanceOf(CookieTheftException.class);
+        assertThat(persistentTokenRepository.findOne(SERIES)).isNull();
+        assertThatThrownBy(() -> persistentTokenStore.rotate(SERIES, TOKEN_VALUE, "127.0.0.1", "Test agent"))
+            .isInstanceOf(RememberMeAuthenticationException.class);
+    }
+
+    @Test
+    public void testRotateExpiredToken() {
+        token.setTokenDate(LocalDate.now().minusDays(PersistentTokenStore.TOKEN_VALIDITY_DAYS + 1));
+        persistentTokenRepository.saveAndFlush(token);
+
+        assertThatThrownBy(() -> persistentTokenStore.rotate(SERIES, TOKEN_VALUE, "127.0.0.1", "Test agent"))
+            .isInstanceOf(RememberMeAuthenticationException.class);
+        assertThat(persistentTokenRepository.findOne(SERIES)).isNull();
+    }
+}
@@ -0,0 +1,81 @@
+package br.com.jmeterapp.security;
+
+import br.com.jmeterapp.config.JHipsterProperties;
+
+import com.codahale.metrics.MetricRegistry;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Test class for the PooledBCryptPasswordEncoder.
+ *
+ * @see PooledBCryptPasswordEncoder
+ */
+public class PooledBCryptPasswordEncoderUnitTest {
+
+    private MetricRegistry metricRegistry;
+
+    private PooledBCryptPasswordEncoder passwordEncoder;
+
+    @Before
+    public void setup() {
+        metricRegistry = new MetricRegistry();
+        JHipsterProperties.Security.Password properties = new JHipsterProperties.Security.Password();
+        properties.setTargetHashTimeMillis(0);
+        properties.setStrength(4);
+        properties.setPoolSize(1);
+        passwordEncoder = new PooledBCryptPasswordEncoder(properties, metricRegistry);
+    }
+
+    @After
+    public void destroy() {
+        passwordEncoder.destroy();
+    }
+
+    @Test
+    public void testEncodeAndMatches() {
+        String encodedPassword = passwordEncoder.encode("password");
+        assertThat(encodedPassword).startsWith("$2a$04$");
+        assertThat(passwordEncoder.matches("password", encodedPassword)).isTrue();
+        assertThat(passwordEncoder.matches("wrong", encodedPassword)).isFalse();
+        assertThat(metricRegistry.timer("security.password.encode").getCount()).isEqualTo(1);
+        assertThat(metricRegistry.timer("security.password.matches").getCount()).isEqualTo(2);
+    }
+
+    @Test
+    public void testNeedsRehash() {
+        JHipsterProperties.Security.Password properties = new JHipsterProperties.Security.Password();
+        properties.setTargetHashTimeMillis(0);
+        properties.setStrength(5);
+        properties.setPoolSize(1);
+        PooledBCryptPasswordEncoder strongerEncoder = new PooledBCryptPasswordEncoder(properties, metricRegistry);
+        try {
+            assertThat(strongerEncoder.needsRehash(strongerEncoder.encode("password"))).isFalse();
+            assertThat(strongerEncoder.needsRehash(new BCryptPasswordEncoder(4).encode("password"))).isTrue();
+            // Passwords hashed with a higher strength, for example by another instance, are kept
+            assertThat(strongerEncoder.needsRehash(new BCryptPasswordEncoder(6).encode("password"))).isFalse();
+            assertThat(strongerEncoder.needsRehash(null)).isFalse();
+        } finally {
+            strongerEncoder.destroy();
+        }
+    }
+
+    @Test
+    public void testCalibrateStrength() {
+        JHipsterProperties.Security.Password properties = new JHipsterProperties.Security.Password();
+        properties.setTargetHashTimeMillis(Long.MAX_VALUE);
+        properties.setMinStrength(4);
+        properties.setMaxStrength(6);
+        PooledBCryptPasswordEncoder calibratedEncoder = new PooledBCryptPasswordEncoder(properties, metricRegistry);
+        try {
+            assertThat(calibratedEncoder.getStrength()).isEqualTo(6);
+            assertThat(calibratedEncoder.encode("password")).startsWith("$2a$06$");
+        } finally {
+            calibratedEncoder.destroy();
+        }
+    }
+}
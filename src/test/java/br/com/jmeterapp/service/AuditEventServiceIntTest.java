@@ -0,0 +1,55 @@
+package br.com.jmeterapp.service;
+
+import br.com.jmeterapp.JmeterappApp;
+import br.com.jmeterapp.domain.PersistentAuditEvent;
+import br.com.jmeterapp.repository.PersistenceAuditEventRepository;
+import java.time.LocalDateTime;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.inject.Inject;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Test class for the AuditEventService.
+ *
+ * @see AuditEventService
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = JmeterappApp.class)
+@Transactional
+public class AuditEventServiceIntTest {
+
+    private static final String SAMPLE_PRINCIPAL = "audit-retention-principal";
+
+    @Inject
+    private PersistenceAuditEventRepository persistenceAuditEventRepository;
+
+    @Inject
+    private AuditEventService auditEventService;
+
+    @Test
+    public void testRemoveOldAuditEvents() {
+        generateAuditEvent(LocalDateTime.of(2015, 1, 1, 12, 0));
+        generateAuditEvent(LocalDateTime.now());
+        assertThat(persistenceAuditEventRepository.findByPrincipal(SAMPLE_PRINCIPAL)).hasSize(2);
+
+        auditEventService.removeOldAuditEvents();
+
+        assertThat(persistenceAuditEventRepository.findByPrincipal(SAMPLE_PRINCIPAL))
+            .extracting(event -> event.getAuditEventDate().getYear())
+            .containsExactly(LocalDateTime.now().getYear());
+    }
+
+    private void generateAuditEvent(LocalDateTime date) {
+        PersistentAuditEvent event = new PersistentAuditEvent();
+        event.setPrincipal(SAMPLE_PRINCIPAL);
+        event.setAuditEventType("AUTHENTICATION_SUCCESS");
+        event.setAuditEventDate(date);
+        persistenceAuditEventRepository.saveAndFlush(event);
+    }
+}
@@ -0,0 +1,149 @@
+package br.com.jmeterapp.service;
+
+import br.com.jmeterapp.JmeterappApp;
+import br.com.jmeterapp.config.JHipsterProperties;
+import br.com.jmeterapp.domain.OutboxMail;
+import br.com.jmeterapp.repository.OutboxMailRepository;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.inject.Inject;
+import javax.mail.Session;
+import javax.mail.internet.MimeMessage;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Matchers.anyVararg;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.when;
+
+/**
+ * Test class for the MailOutboxWorker.
+ *
+ * @see MailOutboxWorker
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = JmeterappApp.class)
+@Transactional
+public class MailOutboxWorkerIntTest {
+
+    @Inject
+    private MailOutboxWorker mailOutboxWorker;
+
+    @Inject
+    private OutboxMailRepository outboxMailRepository;
+
+    @Inject
+    private JavaMailSenderImpl javaMailSender;
+
+    @Inject
+    private JHipsterProperties jHipsterProperties;
+
+    @Mock
+    private JavaMailSenderImpl mockMailSender;
+
+    private int maxPerDomainPerMinute;
+
+    @Before
+    public void setup() {
+        MockitoAnnotations.initMocks(this);
+        Session session = Session.getInstance(new Properties());
+        when(mockMailSender.createMimeMessage()).thenAnswer(invocation -> new MimeMessage(session));
+        ReflectionTestUtils.setField(mailOutboxWorker, "javaMailSender", mockMailSender);
+        maxPerDomainPerMinute = jHipsterProperties.getMail().getMaxPerDomainPerMinute();
+    }
+
+    @After
+    public void tearDown() {
+        ReflectionTestUtils.setField(mailOutboxWorker, "javaMailSender", javaMailSender);
+        jHipsterProperties.getMail().setMaxPerDomainPerMinute(maxPerDomainPerMinute);
+    }
+
+    @Test
+    public void assertThatMailsAreSentInOneBatch() {
+        queueMail("first@localhost");
+        queueMail("second@localhost");
+        List<Object[]> batches = new ArrayList<>();
+        doAnswer(invocation -> batches.add(invocation.getArguments()))
+            .when(mockMailSender).send((MimeMessage[]) anyVararg());
+
+        assertThat(mailOutboxWorker.deliver()).isEqualTo(2);
+
+        assertThat(batches).hasSize(1);
+        assertThat(batches.get(0)).hasSize(2);
+        assertThat(outboxMailRepository.findAll()).isEmpty();
+    }
+
+    @Test
+    public void assertThatFailedMailIsRetriedLater() {
+        OutboxMail mail = queueMail("failing@localhost");
+        doAnswer(invocation -> {
+            Object message = invocation.getArguments()[0];
+            throw new MailSendException(Collections.singletonMap(message, new Exception("Mailbox unavailable")));
+        }).when(mockMailSender).send((MimeMessage[]) anyVararg());
+
+        assertThat(mailOutboxWorker.deliver()).isEqualTo(0);
+
+        OutboxMail retried = outboxMailRepository.findOne(mail.getId());
+        assertThat(retried.getAttempts()).isEqualTo(1);
+        assertThat(retried.getLastError()).isEqualTo("Mailbox unavailable");
+        assertThat(retried.getNextAttemptDate())
+            .isAfter(ZonedDateTime.now().plusSeconds(jHipsterProperties.getMail().getInitialBackoffSeconds() - 5));
+    }
+
+    @Test
+    public void assertThatMailsToADomainAreThrottled() {
+        jHipsterProperties.getMail().setMaxPerDomainPerMinute(1);
+        queueMail("first@throttled.localhost");
+        queueMail("second@throttled.localhost");
+
+        assertThat(mailOutboxWorker.deliver()).isEqualTo(1);
+
+        List<OutboxMail> throttled = outboxMailRepository.findAll();
+        assertThat(throttled).hasSize(1);
+        assertThat(throttled.get(0).getAttempts()).isEqualTo(0);
+        assertThat(throttled.get(0).getNextAttemptDate()).isAfter(ZonedDateTime.now());
+    }
+
+    @Test
+    public void assertThatOldFailedMailsAreRemoved() {
+        OutboxMail oldFailedMail = queueMail("old@localhost");
+        oldFailedMail.setCreatedDate(ZonedDateTime.now().minusDays(jHipsterProperties.getMail().getFailedRetentionDays() + 1));
+        oldFailedMail.setNextAttemptDate(null);
+        outboxMailRepository.saveAndFlush(oldFailedMail);
+        OutboxMail failedMail = queueMail("recent@localhost");
+        failedMail.setNextAttemptDate(null);
+        outboxMailRepository.saveAndFlush(failedMail);
+        OutboxMail pendingMail = queueMail("pending@localhost");
+        pendingMail.setCreatedDate(oldFailedMail.getCreatedDate());
+        outboxMailRepository.saveAndFlush(pendingMail);
+
+        mailOutboxWorker.removeFailedMails();
+
+        assertThat(outboxMailRepository.findAll()).extracting(OutboxMail::getRecipient)
+            .containsOnly("recent@localhost", "pending@localhost");
+    }
+
+    private OutboxMail queueMail(String to) {
+        OutboxMail mail = new OutboxMail();
+        mail.setRecipient(to);
+        mail.setSubject("subject");
+        mail.setContent("content");
+        mail.setNextAttemptDate(ZonedDateTime.now().minusSeconds(1));
+        return outboxMailRepository.saveAndFlush(mail);
+    }
+}
@@ -0,0 +1,94 @@
+package br.com.jmeterapp.service;
+
+import br.com.jmeterapp.JmeterappApp;
+import br.com.jmeterapp.domain.User;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.MessageSource;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.thymeleaf.context.Context;
+import org.thymeleaf.spring4.SpringTemplateEngine;
+
+import javax.inject.Inject;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark of the MailTemplateRenderer, run by the benchmark profile: ./mvnw test -Pdev,benchmark
+ * <p>
+ * Compares the throughput of the compiled templates with the one of the template engine, as the MailService used to
+ * render the e-mails, keeping the best of a few rounds to leave out the garbage collections. The throughputs are
+ * logged, not asserted, as they depend on the machine and on what else it runs.
+ * </p>
+ *
+ * @see MailTemplateRenderer
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = JmeterappApp.class)
+public class MailTemplateRendererBenchmark {
+
+    private static final String BASE_URL = "http://127.0.0.1:8080";
+
+    private static final int BENCHMARK_MAILS = 2000;
+
+    private static final int BENCHMARK_ROUNDS = 3;
+
+    private final Logger log = LoggerFactory.getLogger(MailTemplateRendererBenchmark.class);
+
+    @Inject
+    private MailTemplateRenderer mailTemplateRenderer;
+
+    @Inject
+    private SpringTemplateEngine templateEngine;
+
+    @Inject
+    private MessageSource messageSource;
+
+    @Test
+    public void benchmarkRendering() {
+        User user = new User();
+        user.setLogin("john.doe");
+        user.setEmail("john.doe@localhost");
+        user.setLangKey("en");
+        user.setActivationKey("12345678901234567890");
+        for (int i = 0; i < BENCHMARK_MAILS; i++) {
+            process("activationEmail", user);
+            mailTemplateRenderer.renderContent("activationEmail", user, BASE_URL);
+        }
+
+        long processingNanos = Long.MAX_VALUE;
+        long renderingNanos = Long.MAX_VALUE;
+        for (int round = 0; round < BENCHMARK_ROUNDS; round++) {
+            long start = System.nanoTime();
+            for (int i = 0; i < BENCHMARK_MAILS; i++) {
+                process("activationEmail", user);
+                messageSource.getMessage("email.activation.title", null, Locale.forLanguageTag(user.getLangKey()));
+            }
+            processingNanos = Math.min(processingNanos, System.nanoTime() - start);
+
+            start = System.nanoTime();
+            for (int i = 0; i < BENCHMARK_MAILS; i++) {
+                mailTemplateRenderer.renderContent("activationEmail", user, BASE_URL);
+                mailTemplateRenderer.renderSubject("email.activation.title", user);
+            }
+            renderingNanos = Math.min(renderingNanos, System.nanoTime() - start);
+        }
+
+        log.info("Rendered {} activation e-mails: {} e-mails/s with the template engine, {} e-mails/s compiled",
+            BENCHMARK_MAILS, throughput(processingNanos), throughput(renderingNanos));
+    }
+
+    private String process(String template, User user) {
+        Context context = new Context(Locale.forLanguageTag(user.getLangKey()));
+        context.setVariable("user", user);
+        context.setVariable("baseUrl", BASE_URL);
+        return templateEngine.process(template, context);
+    }
+
+    private static long throughput(long nanos) {
+        return BENCHMARK_MAILS * TimeUnit.SECONDS.toNanos(1) / Math.max(nanos, 1);
+    }
+}
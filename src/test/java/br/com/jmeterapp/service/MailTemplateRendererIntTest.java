@@ -0,0 +1,89 @@
+package br.com.jmeterapp.service;
+
+import br.com.jmeterapp.JmeterappApp;
+import br.com.jmeterapp.domain.User;
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.MetricRegistry;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.MessageSource;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.thymeleaf.context.Context;
+import org.thymeleaf.spring4.SpringTemplateEngine;
+
+import javax.inject.Inject;
+import java.util.Locale;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Test class for the MailTemplateRenderer.
+ *
+ * @see MailTemplateRenderer
+ * @see MailTemplateRendererBenchmark
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = JmeterappApp.class)
+public class MailTemplateRendererIntTest {
+
+    private static final String BASE_URL = "http://127.0.0.1:8080";
+
+    @Inject
+    private MailTemplateRenderer mailTemplateRenderer;
+
+    @Inject
+    private SpringTemplateEngine templateEngine;
+
+    @Inject
+    private MessageSource messageSource;
+
+    @Inject
+    private MetricRegistry metricRegistry;
+
+    @Test
+    public void assertThatCompiledTemplatesRenderLikeTheTemplateEngine() {
+        Counter processedTemplates = metricRegistry.counter("mail.templates.processed");
+        long processedBefore = processedTemplates.getCount();
+        for (String langKey : new String[]{"en", "pt-br"}) {
+            User user = createUser("john.doe", langKey);
+            for (String template : MailTemplateRenderer.TEMPLATES) {
+                assertThat(mailTemplateRenderer.renderContent(template, user, BASE_URL))
+                    .isEqualTo(process(template, user));
+            }
+            assertThat(mailTemplateRenderer.renderSubject("email.reset.title", user))
+                .isEqualTo(messageSource.getMessage("email.reset.title", null, Locale.forLanguageTag(langKey)));
+        }
+        // The templates were compiled at startup, so none was processed to render the e-mails
+        assertThat(processedTemplates.getCount()).isEqualTo(processedBefore);
+    }
+
+    @Test
+    public void assertThatValuesToEscapeAreRenderedByTheTemplateEngine() {
+        Counter processedTemplates = metricRegistry.counter("mail.templates.processed");
+        long processedBefore = processedTemplates.getCount();
+        User user = createUser("o'neil", "en");
+
+        String content = mailTemplateRenderer.renderContent("activationEmail", user, BASE_URL);
+
+        assertThat(content).isEqualTo(process("activationEmail", user));
+        assertThat(processedTemplates.getCount()).isEqualTo(processedBefore + 1);
+    }
+
+    private String process(String template, User user) {
+        Context context = new Context(Locale.forLanguageTag(user.getLangKey()));
+        context.setVariable("user", user);
+        context.setVariable("baseUrl", BASE_URL);
+        return templateEngine.process(template, context);
+    }
+
+    private static User createUser(String login, String langKey) {
+        User user = new User();
+        user.setLogin(login);
+        user.setEmail(login + "@localhost");
+        user.setLangKey(langKey);
+        user.setActivationKey("12345678901234567890");
+        user.setResetKey("09876543210987654321");
+        return user;
+    }
+}
@@ -5,12 +5,21 @@ import br.com.jmeterapp.domain.PersistentToken;
 import br.com.jmeterapp.domain.User;
 import br.com.jmeterapp.repository.PersistentTokenRepository;
 import br.com.jmeterapp.repository.UserRepository;
+import br.com.jmeterapp.security.PooledBCryptPasswordEncoder;
+import br.com.jmeterapp.security.UserDetailsService;
 import java.time.ZonedDateTime;
 import br.com.jmeterapp.service.util.RandomUtil;
+import com.codahale.metrics.MetricRegistry;
 import java.time.LocalDate;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.test.context.junit4.SpringRunner;
 
@@ -39,6 +48,18 @@ public class UserServiceIntTest {
     @Inject
     private UserService userService;
 
+    @Inject
+    private UserDetailsService userDetailsService;
+
+    @Inject
+    private CacheManager cacheManager;
+
+    @Inject
+    private PooledBCryptPasswordEncoder passwordEncoder;
+
+    @Inject
+    private MetricRegistry metricRegistry;
+
     @Test
     public void testRemoveOldPersistentTokens() {
         User admin = userRepository.findOneByLogin("admin").get();
@@ -124,14 +145,65 @@ public class UserServiceIntTest {
         userRepository.delete(user);
     }
 
+    @Test
+    public void assertThatPasswordIsUpgraded() {
+        User user = userService.createUser("johndoe", "johndoe", "John", "Doe", "john.doe@localhost", "en-US");
+        String oldPassword = new BCryptPasswordEncoder(5).encode("johndoe");
+        user.setPassword(oldPassword);
+        userRepository.save(user);
+
+        userService.upgradePassword("johndoe", "stale-hash", "johndoe");
+        assertThat(userRepository.findOneByLogin("johndoe").get().getPassword()).isEqualTo(oldPassword);
+
+        userService.upgradePassword("johndoe", oldPassword, "johndoe");
+        String newPassword = userRepository.findOneByLogin("johndoe").get().getPassword();
+        assertThat(passwordEncoder.needsRehash(newPassword)).isFalse();
+        assertThat(passwordEncoder.matches("johndoe", newPassword)).isTrue();
+
+        userRepository.delete(user);
+    }
+
+    @Test
+    public void testRemoveNotActivatedUsers() {
+        User user = userService.createUser("johndoe", "johndoe", "John", "Doe", "john.doe@localhost", "en-US");
+        user.setCreatedDate(ZonedDateTime.now().minusDays(4));
+        userRepository.saveAndFlush(user);
+        generateUserToken(user, "3333-3333", LocalDate.now());
+        long deletedCount = metricRegistry.counter("cleanup.users.deleted").getCount();
+
+        userService.removeNotActivatedUsers();
+
+        assertThat(userRepository.findOneByLogin("johndoe").isPresent()).isFalse();
+        assertThat(metricRegistry.counter("cleanup.users.deleted").getCount()).isEqualTo(deletedCount + 1);
+        assertThat(persistentTokenRepository.findByUser(user)).isEmpty();
+    }
+
     @Test
     public void testFindNotActivatedUsersByCreationDateBefore() {
         userService.removeNotActivatedUsers();
         ZonedDateTime now = ZonedDateTime.now();
-        List<User> users = userRepository.findAllByActivatedIsFalseAndCreatedDateBefore(now.minusDays(3));
+        List<Object[]> users = userRepository.findIdAndLoginByActivatedIsFalseAndCreatedDateBefore(now.minusDays(3),
+            new PageRequest(0, 10));
         assertThat(users).isEmpty();
     }
 
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void assertThatUserDetailsAreEvictedWhenUserChanges() {
+        User user = userService.createUser("johndoe", "johndoe", "John", "Doe", "john.doe@localhost", "en-US");
+        userService.activateRegistration(user.getActivationKey());
+        try {
+            UserDetails userDetails = userDetailsService.loadUserByUsername("JohnDoe");
+            assertThat(userDetails.getUsername()).isEqualTo("johndoe");
+            assertThat(cacheManager.getCache(UserDetailsService.USER_DETAILS_CACHE).get("johndoe")).isNotNull();
+        } finally {
+            userService.deleteUser("johndoe");
+        }
+        assertThat(cacheManager.getCache(UserDetailsService.USER_DETAILS_CACHE).get("johndoe")).isNull();
+        assertThatThrownBy(() -> userDetailsService.loadUserByUsername("johndoe"))
+            .isInstanceOf(UsernameNotFoundException.class);
+    }
+
     private void generateUserToken(User user, String tokenSeries, LocalDate localDate) {
         PersistentToken token = new PersistentToken();
         token.setSeries(tokenSeries);
@@ -0,0 +1,119 @@
+package br.com.jmeterapp.web.filter;
+
+import br.com.jmeterapp.JmeterappApp;
+import br.com.jmeterapp.config.JHipsterProperties;
+import br.com.jmeterapp.config.metrics.RouteMetrics;
+import br.com.jmeterapp.domain.Estado;
+import br.com.jmeterapp.repository.EstadoRepository;
+import br.com.jmeterapp.web.rest.EstadoResource;
+import br.com.jmeterapp.web.rest.util.SqlStatisticsResponseBodyAdvice;
+import com.codahale.metrics.MetricRegistry;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.web.PageableHandlerMethodArgumentResolver;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.inject.Inject;
+import javax.persistence.EntityManager;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Test class for the SqlStatisticsFilter, and the Hibernate and SQL statistics gauges.
+ *
+ * @see SqlStatisticsFilter
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = JmeterappApp.class)
+@Transactional
+public class SqlStatisticsFilterIntTest {
+
+    private static final String SQL_METRICS = RouteMetrics.PREFIX + ".GET./api/estados.sql";
+
+    @Inject
+    private EstadoResource estadoResource;
+
+    @Inject
+    private EstadoRepository estadoRepository;
+
+    @Inject
+    private RouteMetrics routeMetrics;
+
+    @Inject
+    private MetricRegistry metricRegistry;
+
+    @Inject
+    private JHipsterProperties jHipsterProperties;
+
+    @Inject
+    private MappingJackson2HttpMessageConverter jacksonMessageConverter;
+
+    @Inject
+    private PageableHandlerMethodArgumentResolver pageableArgumentResolver;
+
+    @Inject
+    private EntityManager em;
+
+    private MockMvc restEstadoMockMvc;
+
+    @Before
+    public void setup() {
+        this.restEstadoMockMvc = MockMvcBuilders.standaloneSetup(estadoResource)
+            .addFilters(new SqlStatisticsFilter(routeMetrics, jHipsterProperties))
+            .setControllerAdvice(new SqlStatisticsResponseBodyAdvice())
+            .setCustomArgumentResolvers(pageableArgumentResolver)
+            .setMessageConverters(jacksonMessageConverter).build();
+    }
+
+    @Test
+    public void assertThatSqlStatisticsAreRecordedPerRequest() throws Exception {
+        estadoRepository.saveAndFlush(new Estado().nome("AAAAAAAAAA"));
+        em.clear();
+        RouteMetrics.SqlRoute route = routeMetrics.getSqlRoutes().get(SQL_METRICS);
+        long requests = route == null ? 0 : route.getStatements().getCount();
+
+        MvcResult result = restEstadoMockMvc.perform(get("/api/estados?count=exact"))
+            .andExpect(status().isOk())
+            .andReturn();
+
+        assertThat(Integer.valueOf(result.getResponse().getHeader(SqlStatisticsResponseBodyAdvice.STATEMENTS_HEADER)))
+            .isGreaterThanOrEqualTo(2);
+        assertThat(Integer.valueOf(result.getResponse().getHeader(SqlStatisticsResponseBodyAdvice.ENTITIES_HEADER)))
+            .isGreaterThanOrEqualTo(1);
+        assertThat(result.getResponse().getHeader(SqlStatisticsResponseBodyAdvice.TIME_HEADER)).isNotNull();
+        assertThat(metricRegistry.histogram(SQL_METRICS + ".statements").getCount()).isEqualTo(requests + 1);
+        assertThat(metricRegistry.timer(SQL_METRICS + ".time").getCount()).isGreaterThanOrEqualTo(1);
+    }
+
+    @Test
+    public void assertThatHibernateStatisticsArePublished() {
+        estadoRepository.findAll();
+
+        assertThat(metricRegistry.getGauges()).containsKey("hibernate.statements.prepared");
+        assertThat((Long) metricRegistry.getGauges().get("hibernate.statements.prepared").getValue()).isPositive();
+    }
+
+    @Test
+    public void assertThatSqlStatisticsArePublished() {
+        long statements = (Long) metricRegistry.getGauges().get("sql.statements.executed").getValue();
+        long entities = (Long) metricRegistry.getGauges().get("sql.entities.loaded").getValue();
+        estadoRepository.saveAndFlush(new Estado().nome("AAAAAAAAAA"));
+        em.clear();
+
+        estadoRepository.findAll();
+
+        assertThat((Long) metricRegistry.getGauges().get("sql.statements.executed").getValue())
+            .isGreaterThanOrEqualTo(statements + 2);
+        assertThat((Long) metricRegistry.getGauges().get("sql.entities.loaded").getValue()).isGreaterThan(entities);
+        assertThat((Long) metricRegistry.getGauges().get("sql.sessions.opened").getValue()).isPositive();
+    }
+}
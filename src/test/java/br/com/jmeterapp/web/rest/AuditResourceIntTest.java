@@ -5,6 +5,9 @@ import br.com.jmeterapp.config.audit.AuditEventConverter;
 import br.com.jmeterapp.domain.PersistentAuditEvent;
 import br.com.jmeterapp.repository.PersistenceAuditEventRepository;
 import br.com.jmeterapp.service.AuditEventService;
+import br.com.jmeterapp.web.rest.util.PaginationUtil;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -22,7 +25,11 @@ import javax.inject.Inject;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 
+import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.hasItem;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.not;
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
@@ -61,7 +68,8 @@ public class AuditResourceIntTest {
         MockitoAnnotations.initMocks(this);
         AuditEventService auditEventService =
                 new AuditEventService(auditEventRepository, auditEventConverter);
-        AuditResource auditResource = new AuditResource(auditEventService);
+        AuditResource auditResource = new AuditResource(auditEventService, auditEventConverter,
+            jacksonMessageConverter.getObjectMapper());
         this.restAuditMockMvc = MockMvcBuilders.standaloneSetup(auditResource)
             .setCustomArgumentResolvers(pageableArgumentResolver)
             .setMessageConverters(jacksonMessageConverter).build();
@@ -139,4 +147,90 @@ public class AuditResourceIntTest {
                 .andExpect(status().isNotFound());
     }
 
+    @Test
+    public void searchAudits() throws Exception {
+        // Initialize the database
+        auditEventRepository.save(auditEvent);
+        PersistentAuditEvent newerAuditEvent = new PersistentAuditEvent();
+        newerAuditEvent.setAuditEventType(SAMPLE_TYPE);
+        newerAuditEvent.setPrincipal(SAMPLE_PRINCIPAL);
+        newerAuditEvent.setAuditEventDate(SAMPLE_TIMESTAMP.plusHours(1));
+        auditEventRepository.save(newerAuditEvent);
+        PersistentAuditEvent otherAuditEvent = new PersistentAuditEvent();
+        otherAuditEvent.setAuditEventType("OTHER_TYPE");
+        otherAuditEvent.setPrincipal(SAMPLE_PRINCIPAL);
+        otherAuditEvent.setAuditEventDate(SAMPLE_TIMESTAMP);
+        auditEventRepository.save(otherAuditEvent);
+
+        // Get the first page, with the newest audit
+        String fromDate = SAMPLE_TIMESTAMP.format(FORMATTER);
+        restAuditMockMvc.perform(get("/management/jhipster/audits/search?principal={principal}&type={type}&fromDate={fromDate}&toDate={toDate}&size=1",
+            SAMPLE_PRINCIPAL, SAMPLE_TYPE, fromDate, fromDate))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType(MediaType.APPLICATION_JSON_UTF8_VALUE))
+            .andExpect(jsonPath("$", hasSize(1)))
+            .andExpect(jsonPath("$.[0].type").value(SAMPLE_TYPE))
+            .andExpect(header().string("X-Total-Count", (String) null))
+            .andExpect(header().string("Link", containsString("type=" + SAMPLE_TYPE)))
+            .andExpect(header().string("Link", containsString("after=" + PaginationUtil.encodeCursor(
+                newerAuditEvent.getAuditEventDate().toString(), newerAuditEvent.getId().toString()))));
+
+        // Get the next page, with the oldest audit and no next link
+        restAuditMockMvc.perform(get("/management/jhipster/audits/search?principal={principal}&type={type}&after={after}&size=1",
+            SAMPLE_PRINCIPAL, SAMPLE_TYPE, PaginationUtil.encodeCursor(newerAuditEvent.getAuditEventDate().toString(),
+                newerAuditEvent.getId().toString())))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$", hasSize(1)))
+            .andExpect(header().string("Link", not(containsString("rel=\"next\""))));
+    }
+
+    @Test
+    public void exportAudits() throws Exception {
+        // Initialize the database
+        auditEventRepository.save(auditEvent);
+        PersistentAuditEvent otherAuditEvent = new PersistentAuditEvent();
+        otherAuditEvent.setAuditEventType(SAMPLE_TYPE);
+        otherAuditEvent.setPrincipal("OTHER_PRINCIPAL");
+        otherAuditEvent.setAuditEventDate(SAMPLE_TIMESTAMP);
+        auditEventRepository.save(otherAuditEvent);
+
+        // Export the audits of the principal, one JSON document per line
+        String export = restAuditMockMvc.perform(get("/management/jhipster/audits/export?principal={principal}", SAMPLE_PRINCIPAL))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType(AuditResource.APPLICATION_NDJSON_VALUE + ";charset=UTF-8"))
+            .andReturn().getResponse().getContentAsString();
+        String[] lines = export.split("\n");
+        assertThat(lines).hasSize(1);
+        assertThat(jacksonMessageConverter.getObjectMapper().readTree(lines[0]).get("principal").asText())
+            .isEqualTo(SAMPLE_PRINCIPAL);
+    }
+
+    @Test
+    public void exportAuditsWithAnIndentingObjectMapper() throws Exception {
+        // Initialize the database
+        auditEventRepository.save(auditEvent);
+        PersistentAuditEvent otherAuditEvent = new PersistentAuditEvent();
+        otherAuditEvent.setAuditEventType(SAMPLE_TYPE);
+        otherAuditEvent.setPrincipal(SAMPLE_PRINCIPAL);
+        otherAuditEvent.setAuditEventDate(SAMPLE_TIMESTAMP.plusSeconds(1));
+        auditEventRepository.save(otherAuditEvent);
+
+        // As in dev, where the object mapper indents its output
+        ObjectMapper indentingObjectMapper = jacksonMessageConverter.getObjectMapper().copy()
+            .enable(SerializationFeature.INDENT_OUTPUT);
+        AuditResource auditResource = new AuditResource(new AuditEventService(auditEventRepository, auditEventConverter),
+            auditEventConverter, indentingObjectMapper);
+        MockMvc indentingAuditMockMvc = MockMvcBuilders.standaloneSetup(auditResource).build();
+
+        String export = indentingAuditMockMvc.perform(get("/management/jhipster/audits/export?principal={principal}", SAMPLE_PRINCIPAL))
+            .andExpect(status().isOk())
+            .andReturn().getResponse().getContentAsString();
+        assertThat(export).endsWith("}\n");
+        String[] lines = export.split("\n");
+        assertThat(lines).hasSize(2);
+        for (String line : lines) {
+            assertThat(line).startsWith("{").endsWith("}");
+            assertThat(indentingObjectMapper.readTree(line).get("principal").asText()).isEqualTo(SAMPLE_PRINCIPAL);
+        }
+    }
 }
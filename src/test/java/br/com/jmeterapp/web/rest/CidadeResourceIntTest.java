@@ -1,14 +1,20 @@
 package br.com.jmeterapp.web.rest;
 
 import br.com.jmeterapp.JmeterappApp;
+import br.com.jmeterapp.config.JHipsterProperties;
 import br.com.jmeterapp.domain.Cidade;
+import br.com.jmeterapp.domain.Estado;
 import br.com.jmeterapp.repository.CidadeRepository;
+import br.com.jmeterapp.service.CidadeService;
+import br.com.jmeterapp.service.EntityCountService;
+import br.com.jmeterapp.web.rest.util.PaginationUtil;
 import br.com.jmeterapp.service.dto.CidadeDTO;
 import br.com.jmeterapp.service.mapper.CidadeMapper;
 
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.hasItem;
 import org.mockito.MockitoAnnotations;
 import org.springframework.boot.test.context.SpringBootTest;
@@ -44,9 +50,18 @@ public class CidadeResourceIntTest {
     @Inject
     private CidadeRepository cidadeRepository;
 
+    @Inject
+    private EntityCountService entityCountService;
+
+    @Inject
+    private JHipsterProperties jHipsterProperties;
+
     @Inject
     private CidadeMapper cidadeMapper;
 
+    @Inject
+    private CidadeService cidadeService;
+
     @Inject
     private MappingJackson2HttpMessageConverter jacksonMessageConverter;
 
@@ -65,7 +80,10 @@ public class CidadeResourceIntTest {
         MockitoAnnotations.initMocks(this);
         CidadeResource cidadeResource = new CidadeResource();
         ReflectionTestUtils.setField(cidadeResource, "cidadeRepository", cidadeRepository);
+        ReflectionTestUtils.setField(cidadeResource, "entityCountService", entityCountService);
+        ReflectionTestUtils.setField(cidadeResource, "jHipsterProperties", jHipsterProperties);
         ReflectionTestUtils.setField(cidadeResource, "cidadeMapper", cidadeMapper);
+        ReflectionTestUtils.setField(cidadeResource, "cidadeService", cidadeService);
         this.restCidadeMockMvc = MockMvcBuilders.standaloneSetup(cidadeResource)
             .setCustomArgumentResolvers(pageableArgumentResolver)
             .setMessageConverters(jacksonMessageConverter).build();
@@ -120,7 +138,47 @@ public class CidadeResourceIntTest {
                 .andExpect(status().isOk())
                 .andExpect(content().contentType(MediaType.APPLICATION_JSON_UTF8_VALUE))
                 .andExpect(jsonPath("$.[*].id").value(hasItem(cidade.getId().intValue())))
+                .andExpect(jsonPath("$.[*].version").value(hasItem(cidade.getVersion().intValue())))
+                .andExpect(jsonPath("$.[*].nome").value(hasItem(DEFAULT_NOME.toString())));
+    }
+
+    @Test
+    @Transactional
+    public void getAllCidadesWithEstado() throws Exception {
+        // Initialize the database
+        Estado estado = EstadoResourceIntTest.createEntity(em);
+        em.persist(estado);
+        cidadeRepository.saveAndFlush(cidade.estado(estado));
+        em.clear();
+
+        // Get all the cidades
+        restCidadeMockMvc.perform(get("/api/cidades?sort=id,desc"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.[*].id").value(hasItem(cidade.getId().intValue())))
+                .andExpect(jsonPath("$.[*].estadoId").value(hasItem(estado.getId().intValue())))
+                .andExpect(jsonPath("$.[*].estadoNome").value(hasItem(estado.getNome())));
+    }
+
+    @Test
+    @Transactional
+    public void getAllCidadesWithKeysetPagination() throws Exception {
+        // Initialize the database
+        cidadeRepository.saveAndFlush(cidade);
+        Cidade otherCidade = cidadeRepository.saveAndFlush(createEntity(em));
+
+        // Get the first keyset page
+        restCidadeMockMvc.perform(get("/api/cidades?after=&size=1"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON_UTF8_VALUE))
+                .andExpect(header().doesNotExist("X-Total-Count"))
+                .andExpect(header().string("Link", containsString("after=" + PaginationUtil.encodeCursor(cidade.getId()))))
+                .andExpect(jsonPath("$.[*].id").value(hasItem(cidade.getId().intValue())))
                 .andExpect(jsonPath("$.[*].nome").value(hasItem(DEFAULT_NOME.toString())));
+
+        // Get the page after the first cidade
+        restCidadeMockMvc.perform(get("/api/cidades?after={after}&size=1", PaginationUtil.encodeCursor(cidade.getId())))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.[*].id").value(hasItem(otherCidade.getId().intValue())));
     }
 
     @Test
@@ -154,6 +212,8 @@ public class CidadeResourceIntTest {
 
         // Update the cidade
         Cidade updatedCidade = cidadeRepository.findOne(cidade.getId());
+        // Disconnect from session so that the updates on updatedCidade are not directly saved in db
+        em.detach(updatedCidade);
         updatedCidade
                 .nome(UPDATED_NOME);
         CidadeDTO cidadeDTO = cidadeMapper.cidadeToCidadeDTO(updatedCidade);
@@ -170,6 +230,55 @@ public class CidadeResourceIntTest {
         assertThat(testCidade.getNome()).isEqualTo(UPDATED_NOME);
     }
 
+    @Test
+    @Transactional
+    public void updateCidadeWithoutVersion() throws Exception {
+        // Initialize the database
+        cidadeRepository.saveAndFlush(cidade);
+
+        // Update the cidade without its version nor If-Match
+        CidadeDTO cidadeDTO = cidadeMapper.cidadeToCidadeDTO(cidade);
+        cidadeDTO.setVersion(null);
+        cidadeDTO.setNome(UPDATED_NOME);
+        restCidadeMockMvc.perform(put("/api/cidades")
+                .contentType(TestUtil.APPLICATION_JSON_UTF8)
+                .content(TestUtil.convertObjectToJsonBytes(cidadeDTO)))
+                .andExpect(status().isPreconditionRequired());
+
+        // The same update with If-Match is applied
+        restCidadeMockMvc.perform(put("/api/cidades")
+                .header("If-Match", "\"" + cidade.getVersion() + "\"")
+                .contentType(TestUtil.APPLICATION_JSON_UTF8)
+                .content(TestUtil.convertObjectToJsonBytes(cidadeDTO)))
+                .andExpect(status().isOk());
+        assertThat(cidadeRepository.findOne(cidade.getId()).getNome()).isEqualTo(UPDATED_NOME);
+    }
+
+    @Test
+    @Transactional
+    public void getCidadeWithETag() throws Exception {
+        // Initialize the database
+        cidadeRepository.saveAndFlush(cidade);
+        String eTag = "\"" + cidade.getVersion() + "\"";
+
+        // Get the cidade, then get it again with its ETag
+        restCidadeMockMvc.perform(get("/api/cidades/{id}", cidade.getId()))
+            .andExpect(status().isOk())
+            .andExpect(header().string("ETag", eTag))
+            .andExpect(jsonPath("$.version").value(cidade.getVersion().intValue()));
+        restCidadeMockMvc.perform(get("/api/cidades/{id}", cidade.getId()).header("If-None-Match", eTag))
+            .andExpect(status().isNotModified())
+            .andExpect(content().string(""));
+
+        // Update the cidade with a stale ETag
+        CidadeDTO cidadeDTO = cidadeMapper.cidadeToCidadeDTO(cidade);
+        restCidadeMockMvc.perform(put("/api/cidades")
+                .header("If-Match", "\"-1\"")
+                .contentType(TestUtil.APPLICATION_JSON_UTF8)
+                .content(TestUtil.convertObjectToJsonBytes(cidadeDTO)))
+                .andExpect(status().isPreconditionFailed());
+    }
+
     @Test
     @Transactional
     public void deleteCidade() throws Exception {
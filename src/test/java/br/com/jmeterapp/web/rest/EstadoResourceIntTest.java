@@ -1,18 +1,25 @@
 package br.com.jmeterapp.web.rest;
 
 import br.com.jmeterapp.JmeterappApp;
+import br.com.jmeterapp.config.JHipsterProperties;
+import br.com.jmeterapp.domain.Cidade;
 import br.com.jmeterapp.domain.Estado;
 import br.com.jmeterapp.repository.EstadoRepository;
+import br.com.jmeterapp.service.EntityCountService;
+import br.com.jmeterapp.service.EstadoService;
+import br.com.jmeterapp.web.rest.util.PaginationUtil;
 import br.com.jmeterapp.service.dto.EstadoDTO;
 import br.com.jmeterapp.service.mapper.EstadoMapper;
 
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.hasItem;
 import org.mockito.MockitoAnnotations;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.http.MediaType;
+import org.springframework.http.converter.ByteArrayHttpMessageConverter;
 import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
 import org.springframework.data.web.PageableHandlerMethodArgumentResolver;
 import org.springframework.test.context.junit4.SpringRunner;
@@ -44,9 +51,18 @@ public class EstadoResourceIntTest {
     @Inject
     private EstadoRepository estadoRepository;
 
+    @Inject
+    private EntityCountService entityCountService;
+
+    @Inject
+    private JHipsterProperties jHipsterProperties;
+
     @Inject
     private EstadoMapper estadoMapper;
 
+    @Inject
+    private EstadoService estadoService;
+
     @Inject
     private MappingJackson2HttpMessageConverter jacksonMessageConverter;
 
@@ -65,10 +81,13 @@ public class EstadoResourceIntTest {
         MockitoAnnotations.initMocks(this);
         EstadoResource estadoResource = new EstadoResource();
         ReflectionTestUtils.setField(estadoResource, "estadoRepository", estadoRepository);
+        ReflectionTestUtils.setField(estadoResource, "entityCountService", entityCountService);
+        ReflectionTestUtils.setField(estadoResource, "jHipsterProperties", jHipsterProperties);
         ReflectionTestUtils.setField(estadoResource, "estadoMapper", estadoMapper);
+        ReflectionTestUtils.setField(estadoResource, "estadoService", estadoService);
         this.restEstadoMockMvc = MockMvcBuilders.standaloneSetup(estadoResource)
             .setCustomArgumentResolvers(pageableArgumentResolver)
-            .setMessageConverters(jacksonMessageConverter).build();
+            .setMessageConverters(new ByteArrayHttpMessageConverter(), jacksonMessageConverter).build();
     }
 
     /**
@@ -123,6 +142,59 @@ public class EstadoResourceIntTest {
                 .andExpect(jsonPath("$.[*].nome").value(hasItem(DEFAULT_NOME.toString())));
     }
 
+    @Test
+    @Transactional
+    public void getAllEstadosWithKeysetPagination() throws Exception {
+        // Initialize the database
+        estadoRepository.saveAndFlush(estado);
+        Estado otherEstado = estadoRepository.saveAndFlush(createEntity(em));
+
+        // Get the first keyset page
+        restEstadoMockMvc.perform(get("/api/estados?after=&size=1"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON_UTF8_VALUE))
+                .andExpect(header().doesNotExist("X-Total-Count"))
+                .andExpect(header().string("Link", containsString("after=" + PaginationUtil.encodeCursor(estado.getId()))))
+                .andExpect(jsonPath("$.[*].id").value(hasItem(estado.getId().intValue())))
+                .andExpect(jsonPath("$.[*].nome").value(hasItem(DEFAULT_NOME.toString())));
+
+        // Get the page after the first estado
+        restEstadoMockMvc.perform(get("/api/estados?after={after}&size=1", PaginationUtil.encodeCursor(estado.getId())))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.[*].id").value(hasItem(otherEstado.getId().intValue())));
+    }
+
+    @Test
+    @Transactional
+    public void getAllEstadosAndCidadesFromSnapshot() throws Exception {
+        // Initialize the database
+        estadoRepository.saveAndFlush(estado);
+        Estado otherEstado = estadoRepository.saveAndFlush(createEntity(em));
+        Cidade cidade = new Cidade().nome("CCCCC").estado(estado);
+        em.persist(cidade);
+        em.flush();
+
+        // Get all the estados, without pagination
+        restEstadoMockMvc.perform(get("/api/estados/all"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON_UTF8_VALUE))
+                .andExpect(header().doesNotExist("Link"))
+                .andExpect(jsonPath("$.[*].id").value(hasItem(estado.getId().intValue())))
+                .andExpect(jsonPath("$.[*].nome").value(hasItem(DEFAULT_NOME.toString())));
+
+        // Get the cidades of each estado
+        restEstadoMockMvc.perform(get("/api/estados/{id}/cidades", estado.getId()))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON_UTF8_VALUE))
+                .andExpect(jsonPath("$.[*].id").value(hasItem(cidade.getId().intValue())))
+                .andExpect(jsonPath("$.[*].estadoNome").value(hasItem(DEFAULT_NOME.toString())));
+        restEstadoMockMvc.perform(get("/api/estados/{id}/cidades", otherEstado.getId()))
+                .andExpect(status().isOk())
+                .andExpect(content().json("[]"));
+        restEstadoMockMvc.perform(get("/api/estados/{id}/cidades", Long.MAX_VALUE))
+                .andExpect(status().isNotFound());
+    }
+
     @Test
     @Transactional
     public void getEstado() throws Exception {
@@ -154,6 +226,8 @@ public class EstadoResourceIntTest {
 
         // Update the estado
         Estado updatedEstado = estadoRepository.findOne(estado.getId());
+        // Disconnect from session so that the updates on updatedEstado are not directly saved in db
+        em.detach(updatedEstado);
         updatedEstado
                 .nome(UPDATED_NOME);
         EstadoDTO estadoDTO = estadoMapper.estadoToEstadoDTO(updatedEstado);
@@ -170,6 +244,31 @@ public class EstadoResourceIntTest {
         assertThat(testEstado.getNome()).isEqualTo(UPDATED_NOME);
     }
 
+    @Test
+    @Transactional
+    public void getEstadoWithETag() throws Exception {
+        // Initialize the database
+        estadoRepository.saveAndFlush(estado);
+        String eTag = "\"" + estado.getVersion() + "\"";
+
+        // Get the estado, then get it again with its ETag
+        restEstadoMockMvc.perform(get("/api/estados/{id}", estado.getId()))
+            .andExpect(status().isOk())
+            .andExpect(header().string("ETag", eTag))
+            .andExpect(jsonPath("$.version").value(estado.getVersion().intValue()));
+        restEstadoMockMvc.perform(get("/api/estados/{id}", estado.getId()).header("If-None-Match", eTag))
+            .andExpect(status().isNotModified())
+            .andExpect(content().string(""));
+
+        // Update the estado with a stale ETag
+        EstadoDTO estadoDTO = estadoMapper.estadoToEstadoDTO(estado);
+        restEstadoMockMvc.perform(put("/api/estados")
+                .header("If-Match", "\"-1\"")
+                .contentType(TestUtil.APPLICATION_JSON_UTF8)
+                .content(TestUtil.convertObjectToJsonBytes(estadoDTO)))
+                .andExpect(status().isPreconditionFailed());
+    }
+
     @Test
     @Transactional
     public void deleteEstado() throws Exception {
@@ -1,12 +1,18 @@
 package br.com.jmeterapp.web.rest;
 
 import br.com.jmeterapp.JmeterappApp;
+import br.com.jmeterapp.config.JHipsterProperties;
 import br.com.jmeterapp.domain.Pessoa;
 import br.com.jmeterapp.repository.PessoaRepository;
+import br.com.jmeterapp.service.EntityCountService;
+import br.com.jmeterapp.service.PessoaBulkService;
+import br.com.jmeterapp.service.PessoaExportService;
+import br.com.jmeterapp.web.rest.util.PaginationUtil;
 
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.hasItem;
 import org.mockito.MockitoAnnotations;
 import org.springframework.boot.test.context.SpringBootTest;
@@ -22,6 +28,8 @@ import org.springframework.transaction.annotation.Transactional;
 import javax.annotation.PostConstruct;
 import javax.inject.Inject;
 import javax.persistence.EntityManager;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
 import java.util.List;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -47,6 +55,18 @@ public class PessoaResourceIntTest {
     @Inject
     private PessoaRepository pessoaRepository;
 
+    @Inject
+    private EntityCountService entityCountService;
+
+    @Inject
+    private PessoaExportService pessoaExportService;
+
+    @Inject
+    private PessoaBulkService pessoaBulkService;
+
+    @Inject
+    private JHipsterProperties jHipsterProperties;
+
     @Inject
     private MappingJackson2HttpMessageConverter jacksonMessageConverter;
 
@@ -65,6 +85,10 @@ public class PessoaResourceIntTest {
         MockitoAnnotations.initMocks(this);
         PessoaResource pessoaResource = new PessoaResource();
         ReflectionTestUtils.setField(pessoaResource, "pessoaRepository", pessoaRepository);
+        ReflectionTestUtils.setField(pessoaResource, "entityCountService", entityCountService);
+        ReflectionTestUtils.setField(pessoaResource, "jHipsterProperties", jHipsterProperties);
+        ReflectionTestUtils.setField(pessoaResource, "pessoaExportService", pessoaExportService);
+        ReflectionTestUtils.setField(pessoaResource, "pessoaBulkService", pessoaBulkService);
         this.restPessoaMockMvc = MockMvcBuilders.standaloneSetup(pessoaResource)
             .setCustomArgumentResolvers(pageableArgumentResolver)
             .setMessageConverters(jacksonMessageConverter).build();
@@ -111,6 +135,75 @@ public class PessoaResourceIntTest {
         assertThat(testPessoa.getIdade()).isEqualTo(DEFAULT_IDADE);
     }
 
+    @Test
+    @Transactional
+    public void bulkSavePessoas() throws Exception {
+        // Initialize the database
+        pessoaRepository.saveAndFlush(pessoa);
+        int databaseSizeBeforeCreate = pessoaRepository.findAll().size();
+
+        // Update the existing pessoa and create a new one
+        Pessoa updatedPessoa = new Pessoa()
+                .nome(UPDATED_NOME)
+                .documento(UPDATED_DOCUMENTO)
+                .idade(UPDATED_IDADE);
+        updatedPessoa.setId(pessoa.getId());
+        Pessoa newPessoa = createEntity(em);
+
+        restPessoaMockMvc.perform(post("/api/pessoas/bulk")
+                .contentType(TestUtil.APPLICATION_JSON_UTF8)
+                .content(TestUtil.convertObjectToJsonBytes(Arrays.asList(updatedPessoa, newPessoa))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.[0].status").value("UPDATED"))
+                .andExpect(jsonPath("$.[0].id").value(pessoa.getId().intValue()))
+                .andExpect(jsonPath("$.[1].status").value("CREATED"));
+
+        // Create another pessoa from newline delimited JSON
+        restPessoaMockMvc.perform(post("/api/pessoas/bulk")
+                .contentType("application/x-ndjson")
+                .content(TestUtil.convertObjectToJsonBytes(newPessoa)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.[0].status").value("CREATED"));
+
+        // Validate the Pessoas in the database
+        List<Pessoa> pessoas = pessoaRepository.findAll();
+        assertThat(pessoas).hasSize(databaseSizeBeforeCreate + 2);
+        Pessoa testPessoa = pessoaRepository.findOne(pessoa.getId());
+        assertThat(testPessoa.getNome()).isEqualTo(UPDATED_NOME);
+        assertThat(testPessoa.getDocumento()).isEqualTo(UPDATED_DOCUMENTO);
+        assertThat(testPessoa.getIdade()).isEqualTo(UPDATED_IDADE);
+    }
+
+    @Test
+    @Transactional
+    public void bulkSavePessoasReportsInvalidPessoas() throws Exception {
+        int databaseSizeBeforeCreate = pessoaRepository.findAll().size();
+        String validPessoa = new String(TestUtil.convertObjectToJsonBytes(createEntity(em)), StandardCharsets.UTF_8);
+        String tooLongNome = new String(new char[256]).replace('\0', 'a');
+
+        // Malformed and invalid pessoas do not prevent the following ones from being saved
+        restPessoaMockMvc.perform(post("/api/pessoas/bulk")
+                .contentType("application/x-ndjson")
+                .content(validPessoa + "\n{\"nome\": \n{\"nome\":\"" + tooLongNome + "\"}\n" + validPessoa))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.[0].status").value("CREATED"))
+                .andExpect(jsonPath("$.[1].status").value("FAILED"))
+                .andExpect(jsonPath("$.[2].status").value("FAILED"))
+                .andExpect(jsonPath("$.[2].message").value(containsString("nome")))
+                .andExpect(jsonPath("$.[3].status").value("CREATED"));
+
+        restPessoaMockMvc.perform(post("/api/pessoas/bulk")
+                .contentType(TestUtil.APPLICATION_JSON_UTF8)
+                .content("[{\"idade\":\"not a number\"}, " + validPessoa + "]"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.[0].index").value(0))
+                .andExpect(jsonPath("$.[0].status").value("FAILED"))
+                .andExpect(jsonPath("$.[1].index").value(1))
+                .andExpect(jsonPath("$.[1].status").value("CREATED"));
+
+        assertThat(pessoaRepository.findAll()).hasSize(databaseSizeBeforeCreate + 3);
+    }
+
     @Test
     @Transactional
     public void getAllPessoas() throws Exception {
@@ -127,6 +220,84 @@ public class PessoaResourceIntTest {
                 .andExpect(jsonPath("$.[*].idade").value(hasItem(DEFAULT_IDADE)));
     }
 
+    @Test
+    @Transactional
+    public void getAllPessoasWithKeysetPagination() throws Exception {
+        // Initialize the database
+        pessoaRepository.saveAndFlush(pessoa);
+        Pessoa otherPessoa = pessoaRepository.saveAndFlush(createEntity(em));
+
+        // Get the first keyset page
+        restPessoaMockMvc.perform(get("/api/pessoas?after=&size=1"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON_UTF8_VALUE))
+                .andExpect(header().doesNotExist("X-Total-Count"))
+                .andExpect(header().string("Link", containsString("after=" + PaginationUtil.encodeCursor(pessoa.getId()))))
+                .andExpect(jsonPath("$.[*].id").value(hasItem(pessoa.getId().intValue())))
+                .andExpect(jsonPath("$.[*].nome").value(hasItem(DEFAULT_NOME.toString())))
+                .andExpect(jsonPath("$.[*].documento").value(hasItem(DEFAULT_DOCUMENTO.toString())))
+                .andExpect(jsonPath("$.[*].idade").value(hasItem(DEFAULT_IDADE)));
+
+        // Get the page after the first pessoa
+        restPessoaMockMvc.perform(get("/api/pessoas?after={after}&size=1", PaginationUtil.encodeCursor(pessoa.getId())))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.[*].id").value(hasItem(otherPessoa.getId().intValue())));
+    }
+
+    @Test
+    @Transactional
+    public void getAllPessoasWithCountStrategies() throws Exception {
+        // Initialize the database
+        pessoaRepository.saveAndFlush(pessoa);
+
+        // Get all the pessoas with an exact count
+        restPessoaMockMvc.perform(get("/api/pessoas?sort=id,desc&count=exact"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("X-Total-Count", "1"))
+                .andExpect(header().string("X-Total-Count-Exact", "true"));
+
+        // Get all the pessoas without counting them
+        restPessoaMockMvc.perform(get("/api/pessoas?sort=id,desc&count=none"))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist("X-Total-Count"))
+                .andExpect(header().string("X-Total-Count-Exact", "false"))
+                .andExpect(jsonPath("$.[*].id").value(hasItem(pessoa.getId().intValue())));
+
+        // Get all the pessoas with a cached count
+        restPessoaMockMvc.perform(get("/api/pessoas?sort=id,desc&count=cached"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("X-Total-Count", "1"))
+                .andExpect(header().string("X-Total-Count-Exact", "true"))
+                .andExpect(jsonPath("$.[*].id").value(hasItem(pessoa.getId().intValue())));
+
+        // Estimates are only available on PostgreSQL, so the count is exact
+        restPessoaMockMvc.perform(get("/api/pessoas?sort=id,desc&count=estimate"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("X-Total-Count", "1"))
+                .andExpect(header().string("X-Total-Count-Exact", "true"));
+    }
+
+    @Test
+    @Transactional
+    public void exportPessoas() throws Exception {
+        // Initialize the database
+        pessoaRepository.saveAndFlush(pessoa);
+
+        // Export the pessoas as NDJSON
+        restPessoaMockMvc.perform(get("/api/pessoas/export"))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType("application/x-ndjson;charset=UTF-8"))
+            .andExpect(content().string(containsString("\"id\":" + pessoa.getId())))
+            .andExpect(content().string(containsString("\"nome\":\"" + DEFAULT_NOME + "\"")));
+
+        // Export the pessoas as CSV
+        restPessoaMockMvc.perform(get("/api/pessoas/export?format=csv"))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType("text/csv;charset=UTF-8"))
+            .andExpect(content().string(containsString(
+                pessoa.getId() + "," + DEFAULT_NOME + "," + DEFAULT_DOCUMENTO + "," + DEFAULT_IDADE + "\n")));
+    }
+
     @Test
     @Transactional
     public void getPessoa() throws Exception {
@@ -160,6 +331,8 @@ public class PessoaResourceIntTest {
 
         // Update the pessoa
         Pessoa updatedPessoa = pessoaRepository.findOne(pessoa.getId());
+        // Disconnect from session so that the updates on updatedPessoa are not directly saved in db
+        em.detach(updatedPessoa);
         updatedPessoa
                 .nome(UPDATED_NOME)
                 .documento(UPDATED_DOCUMENTO)
@@ -179,6 +352,54 @@ public class PessoaResourceIntTest {
         assertThat(testPessoa.getIdade()).isEqualTo(UPDATED_IDADE);
     }
 
+    @Test
+    @Transactional
+    public void getPessoaWithETag() throws Exception {
+        // Initialize the database
+        pessoaRepository.saveAndFlush(pessoa);
+        String eTag = "\"" + pessoa.getVersion() + "\"";
+
+        // Get the pessoa, then get it again with its ETag
+        restPessoaMockMvc.perform(get("/api/pessoas/{id}", pessoa.getId()))
+            .andExpect(status().isOk())
+            .andExpect(header().string("ETag", eTag));
+        restPessoaMockMvc.perform(get("/api/pessoas/{id}", pessoa.getId()).header("If-None-Match", eTag))
+            .andExpect(status().isNotModified())
+            .andExpect(header().string("ETag", eTag))
+            .andExpect(content().string(""));
+        restPessoaMockMvc.perform(get("/api/pessoas/{id}", pessoa.getId()).header("If-None-Match", "\"-1\""))
+            .andExpect(status().isOk());
+    }
+
+    @Test
+    @Transactional
+    public void updatePessoaWithIfMatch() throws Exception {
+        // Initialize the database
+        pessoaRepository.saveAndFlush(pessoa);
+        String eTag = "\"" + pessoa.getVersion() + "\"";
+        Pessoa updatedPessoa = new Pessoa()
+                .nome(UPDATED_NOME)
+                .documento(UPDATED_DOCUMENTO)
+                .idade(UPDATED_IDADE);
+        updatedPessoa.setId(pessoa.getId());
+
+        // Update the pessoa with a stale ETag
+        restPessoaMockMvc.perform(put("/api/pessoas")
+                .header("If-Match", "\"-1\"")
+                .contentType(TestUtil.APPLICATION_JSON_UTF8)
+                .content(TestUtil.convertObjectToJsonBytes(updatedPessoa)))
+                .andExpect(status().isPreconditionFailed());
+
+        // Update the pessoa with its current ETag
+        restPessoaMockMvc.perform(put("/api/pessoas")
+                .header("If-Match", eTag)
+                .contentType(TestUtil.APPLICATION_JSON_UTF8)
+                .content(TestUtil.convertObjectToJsonBytes(updatedPessoa)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.nome").value(UPDATED_NOME));
+        assertThat(pessoaRepository.findOne(pessoa.getId()).getNome()).isEqualTo(UPDATED_NOME);
+    }
+
     @Test
     @Transactional
     public void deletePessoa() throws Exception {
@@ -0,0 +1,82 @@
+package br.com.jmeterapp.web.rest;
+
+import br.com.jmeterapp.JmeterappApp;
+import br.com.jmeterapp.config.metrics.RouteMetrics;
+import br.com.jmeterapp.web.filter.RouteMetricsFilter;
+import com.codahale.metrics.MetricRegistry;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import javax.inject.Inject;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.hasItem;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Test class for the RouteHistogramsResource REST controller, and the RouteMetricsFilter.
+ *
+ * @see RouteHistogramsResource
+ * @see RouteMetricsFilter
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = JmeterappApp.class)
+public class RouteHistogramsResourceIntTest {
+
+    private static final String ROUTE = RouteMetrics.PREFIX + ".GET./management/jhipster/route-histograms.200";
+
+    @Inject
+    private RouteMetrics routeMetrics;
+
+    @Inject
+    private MetricRegistry metricRegistry;
+
+    @Inject
+    private MappingJackson2HttpMessageConverter jacksonMessageConverter;
+
+    private MockMvc restRouteHistogramsMockMvc;
+
+    @Before
+    public void setup() {
+        RouteHistogramsResource routeHistogramsResource = new RouteHistogramsResource();
+        ReflectionTestUtils.setField(routeHistogramsResource, "routeMetrics", routeMetrics);
+        this.restRouteHistogramsMockMvc = MockMvcBuilders.standaloneSetup(routeHistogramsResource)
+            .addFilters(new RouteMetricsFilter(routeMetrics))
+            .setMessageConverters(jacksonMessageConverter).build();
+    }
+
+    @Test
+    public void getRouteHistograms() throws Exception {
+        restRouteHistogramsMockMvc.perform(get("/management/jhipster/route-histograms"))
+            .andExpect(status().isOk());
+
+        restRouteHistogramsMockMvc.perform(get("/management/jhipster/route-histograms"))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType(MediaType.APPLICATION_JSON_UTF8_VALUE))
+            .andExpect(jsonPath("$.[*].name").value(hasItem(ROUTE)))
+            .andExpect(jsonPath("$.[?(@.name == '" + ROUTE + "')].uriTemplate")
+                .value(hasItem("/management/jhipster/route-histograms")))
+            .andExpect(jsonPath("$.[?(@.name == '" + ROUTE + "')].buckets[0].count").exists());
+
+        assertThat(metricRegistry.getTimers().get(ROUTE).getCount()).isGreaterThanOrEqualTo(1);
+    }
+
+    @Test
+    public void unmatchedRequestsAreRecordedUnderOneRoute() throws Exception {
+        restRouteHistogramsMockMvc.perform(get("/management/jhipster/unknown/12345"))
+            .andExpect(status().isNotFound());
+
+        assertThat(routeMetrics.getRoutes())
+            .containsKey(RouteMetrics.PREFIX + ".GET." + RouteMetrics.UNMATCHED_ROUTE + ".404")
+            .doesNotContainKey(RouteMetrics.PREFIX + ".GET./management/jhipster/unknown/12345.404");
+    }
+}
@@ -1,8 +1,10 @@
 package br.com.jmeterapp.web.rest;
 
 import br.com.jmeterapp.JmeterappApp;
+import br.com.jmeterapp.config.JHipsterProperties;
 import br.com.jmeterapp.domain.User;
 import br.com.jmeterapp.repository.UserRepository;
+import br.com.jmeterapp.service.EntityCountService;
 import br.com.jmeterapp.service.UserService;
 import org.junit.Before;
 import org.junit.Test;
@@ -33,6 +35,12 @@ public class UserResourceIntTest {
     @Inject
     private UserRepository userRepository;
 
+    @Inject
+    private EntityCountService entityCountService;
+
+    @Inject
+    private JHipsterProperties jHipsterProperties;
+
     @Inject
     private UserService userService;
 
@@ -42,6 +50,8 @@ public class UserResourceIntTest {
     public void setup() {
         UserResource userResource = new UserResource();
         ReflectionTestUtils.setField(userResource, "userRepository", userRepository);
+        ReflectionTestUtils.setField(userResource, "entityCountService", entityCountService);
+        ReflectionTestUtils.setField(userResource, "jHipsterProperties", jHipsterProperties);
         ReflectionTestUtils.setField(userResource, "userService", userService);
         this.restUserMockMvc = MockMvcBuilders.standaloneSetup(userResource).build();
     }